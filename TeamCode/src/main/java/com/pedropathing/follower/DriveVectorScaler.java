@@ -4,20 +4,49 @@ import static com.pedropathing.follower.FollowerConstants.maxPower;
 
 import com.pedropathing.pathgen.MathFunctions;
 import com.pedropathing.pathgen.Vector;
+import com.pedropathing.util.WheelFeedforward;
 
 /**
  * This is the DriveVectorScaler class. This class takes in inputs Vectors for driving, heading
  * correction, and translational/centripetal correction and returns an array with wheel powers.
  *
+ * The wheel powers come from an inverse kinematics matrix that is precomputed from the front left
+ * wheel vector, so mixing is a single pass over primitives. When the wheels saturate, the inputs
+ * are scaled down in priority order instead of all together, and optional per wheel feedforward
+ * turns the mixed wheel velocities into powers. Nothing is allocated per call, and the returned
+ * array is reused by the next call.
+ *
  * @author Anyi Lin - 10158 Scott's Bots
  * @author Aaron Yang - 10158 Scott's Bots
  * @author Harrison Womack - 10158 Scott's Bots
  * @version 1.0, 3/4/2024
  */
 public class DriveVectorScaler {
-    // This is ordered left front, left back, right front, right back. These are also normalized.
-    private Vector[] mecanumVectors;
+    /**
+     * Which input keeps its power when the wheels saturate. Corrective power always comes first.
+     */
+    public enum Priority {
+        HEADING,
+        TRANSLATION
+    }
+
+    private static final int WHEELS = 4;
+
+    // This is ordered left front, left back, right front, right back. The columns are the wheel
+    // power per unit of forward, strafe (left) and turn (counterclockwise) input.
+    private final double[][] inverseKinematics = new double[WHEELS][3];
+    private final double forwardScaling;
     private double maxPowerScaling = 1;
+    private Priority priority = Priority.HEADING;
+
+    private final double[] wheelPowers = new double[WHEELS];
+    private final double[] correctiveWheelPowers = new double[WHEELS];
+    private final double[] headingWheelPowers = new double[WHEELS];
+    private final double[] pathingWheelPowers = new double[WHEELS];
+
+    private WheelFeedforward[] feedforward;
+    private final double[] previousWheelVelocities = new double[WHEELS];
+    private long previousFeedforwardTime;
 
     /**
      * This creates a new DriveVectorScaler, which takes in various movement vectors and outputs
@@ -29,12 +58,19 @@ public class DriveVectorScaler {
     public DriveVectorScaler(Vector frontLeftVector) {
         maxPowerScaling = maxPower;
 
+        // The front left and back right wheels push along the front left vector, the other two
+        // along its mirror image. Solving each side's pair of wheel vectors for a translation
+        // gives these coefficients.
         Vector copiedFrontLeftVector = MathFunctions.normalizeVector(frontLeftVector);
-        mecanumVectors = new Vector[]{
-                new Vector(copiedFrontLeftVector.getMagnitude(), copiedFrontLeftVector.getTheta()),
-                new Vector(copiedFrontLeftVector.getMagnitude(), 2*Math.PI-copiedFrontLeftVector.getTheta()),
-                new Vector(copiedFrontLeftVector.getMagnitude(), 2*Math.PI-copiedFrontLeftVector.getTheta()),
-                new Vector(copiedFrontLeftVector.getMagnitude(), copiedFrontLeftVector.getTheta())};
+        forwardScaling = 1 / copiedFrontLeftVector.getXComponent();
+        double strafeScaling = 1 / copiedFrontLeftVector.getYComponent();
+        double[] strafeSigns = {1, -1, -1, 1};
+        double[] turnSigns = {-1, -1, 1, 1};
+        for (int i = 0; i < WHEELS; i++) {
+            inverseKinematics[i][0] = forwardScaling;
+            inverseKinematics[i][1] = strafeSigns[i] * strafeScaling;
+            inverseKinematics[i][2] = turnSigns[i];
+        }
     }
 
     /**
@@ -56,76 +92,169 @@ public class DriveVectorScaler {
      * @return this returns an Array of doubles with a length of 4, which contains the wheel powers.
      */
     public double[] getDrivePowers(Vector correctivePower, Vector headingPower, Vector pathingPower, double robotHeading) {
-        // clamps down the magnitudes of the input vectors
-        if (correctivePower.getMagnitude() > maxPowerScaling) correctivePower.setMagnitude(maxPowerScaling);
-        if (headingPower.getMagnitude() > maxPowerScaling) headingPower.setMagnitude(maxPowerScaling);
-        if (pathingPower.getMagnitude() > maxPowerScaling) pathingPower.setMagnitude(maxPowerScaling);
+        double cos = Math.cos(robotHeading);
+        double sin = Math.sin(robotHeading);
+
+        // clamps down the magnitudes of the input vectors and rotates them into the robot frame
+        double correctiveScaling = getClampScaling(correctivePower);
+        double correctiveX = correctivePower.getXComponent() * correctiveScaling;
+        double correctiveY = correctivePower.getYComponent() * correctiveScaling;
+        double pathingScaling = getClampScaling(pathingPower);
+        double pathingX = pathingPower.getXComponent() * pathingScaling;
+        double pathingY = pathingPower.getYComponent() * pathingScaling;
+
+        // the heading vector is pushed backwards by the left side and forwards by the right side
+        double turn = (headingPower.getXComponent() * cos + headingPower.getYComponent() * sin) * getClampScaling(headingPower) * forwardScaling;
+
+        mix(correctiveX * cos + correctiveY * sin, correctiveY * cos - correctiveX * sin, 0, correctiveWheelPowers);
+        mix(0, 0, turn, headingWheelPowers);
+        mix(pathingX * cos + pathingY * sin, pathingY * cos - pathingX * sin, 0, pathingWheelPowers);
+        return desaturate();
+    }
+
+    /**
+     * This returns the wheel powers for inputs in the robot frame, with the same priorities and
+     * feedforward as getDrivePowers.
+     *
+     * @param forward the forward input.
+     * @param strafe the strafe input, positive to the left.
+     * @param turn the turn input in wheel power, positive counterclockwise.
+     * @return this returns an Array of doubles with a length of 4, which contains the wheel powers.
+     */
+    public double[] getWheelPowers(double forward, double strafe, double turn) {
+        for (int i = 0; i < WHEELS; i++) {
+            correctiveWheelPowers[i] = 0;
+        }
+
+        mix(0, 0, turn, headingWheelPowers);
+        mix(forward, strafe, 0, pathingWheelPowers);
+        return desaturate();
+    }
+
+    /**
+     * This returns the largest absolute wheel power for inputs in the robot frame, before any
+     * scaling or feedforward.
+     *
+     * @param forward the forward input.
+     * @param strafe the strafe input, positive to the left.
+     * @param turn the turn input in wheel power, positive counterclockwise.
+     * @return returns the largest absolute wheel power.
+     */
+    public double getPeakWheelPower(double forward, double strafe, double turn) {
+        double peak = 0;
+        for (int i = 0; i < WHEELS; i++) {
+            peak = Math.max(peak, Math.abs(inverseKinematics[i][0] * forward + inverseKinematics[i][1] * strafe + inverseKinematics[i][2] * turn));
+        }
+
+        return peak;
+    }
+
+    private void mix(double forward, double strafe, double turn, double[] output) {
+        for (int i = 0; i < WHEELS; i++) {
+            output[i] = inverseKinematics[i][0] * forward + inverseKinematics[i][1] * strafe + inverseKinematics[i][2] * turn;
+        }
+    }
 
-        // the powers for the wheel vectors
-        double [] wheelPowers = new double[4];
+    private double getClampScaling(Vector vector) {
+        double magnitude = vector.getMagnitude();
+        return magnitude > maxPowerScaling ? maxPowerScaling / magnitude : 1;
+    }
 
-        // This contains a copy of the mecanum wheel vectors
-        Vector[] mecanumVectorsCopy = new Vector[4];
+    /**
+     * This adds the corrective, heading and pathing wheel powers in priority order. Corrective
+     * power is scaled down until it fits, and then each following input is scaled down until it
+     * fits into the power that is left.
+     */
+    private double[] desaturate() {
+        double peak = 0;
+        for (int i = 0; i < WHEELS; i++) {
+            peak = Math.max(peak, Math.abs(correctiveWheelPowers[i]));
+        }
 
-        // this contains the pathing vectors, one for each side (heading control requires 2)
-        Vector[] truePathingVectors = new Vector[2];
+        double correctiveScaling = peak > maxPowerScaling ? maxPowerScaling / peak : 1;
+        for (int i = 0; i < WHEELS; i++) {
+            wheelPowers[i] = correctiveWheelPowers[i] * correctiveScaling;
+        }
 
-        if (correctivePower.getMagnitude() == maxPowerScaling) {
-            // checks for corrective power equal to max power scaling in magnitude. if equal, then set pathing power to that
-            truePathingVectors[0] = MathFunctions.copyVector(correctivePower);
-            truePathingVectors[1] = MathFunctions.copyVector(correctivePower);
+        if (priority == Priority.HEADING) {
+            addScaled(headingWheelPowers);
+            addScaled(pathingWheelPowers);
         } else {
-            // corrective power did not take up all the power, so add on heading power
-            Vector leftSideVector = MathFunctions.subtractVectors(correctivePower, headingPower);
-            Vector rightSideVector = MathFunctions.addVectors(correctivePower, headingPower);
-
-            if (leftSideVector.getMagnitude() > maxPowerScaling || rightSideVector.getMagnitude() > maxPowerScaling) {
-                //if the combined corrective and heading power is greater than 1, then scale down heading power
-                double headingScalingFactor = Math.min(findNormalizingScaling(correctivePower, headingPower), findNormalizingScaling(correctivePower, MathFunctions.scalarMultiplyVector(headingPower, -1)));
-                truePathingVectors[0] = MathFunctions.subtractVectors(correctivePower, MathFunctions.scalarMultiplyVector(headingPower, headingScalingFactor));
-                truePathingVectors[1] = MathFunctions.addVectors(correctivePower, MathFunctions.scalarMultiplyVector(headingPower, headingScalingFactor));
-            } else {
-                // if we're here then we can add on some drive power but scaled down to 1
-                Vector leftSideVectorWithPathing = MathFunctions.addVectors(leftSideVector, pathingPower);
-                Vector rightSideVectorWithPathing = MathFunctions.addVectors(rightSideVector, pathingPower);
-
-                if (leftSideVectorWithPathing.getMagnitude() > maxPowerScaling || rightSideVectorWithPathing.getMagnitude() > maxPowerScaling) {
-                    // too much power now, so we scale down the pathing vector
-                    double pathingScalingFactor = Math.min(findNormalizingScaling(leftSideVector, pathingPower), findNormalizingScaling(rightSideVector, pathingPower));
-                    truePathingVectors[0] = MathFunctions.addVectors(leftSideVector, MathFunctions.scalarMultiplyVector(pathingPower, pathingScalingFactor));
-                    truePathingVectors[1] = MathFunctions.addVectors(rightSideVector, MathFunctions.scalarMultiplyVector(pathingPower, pathingScalingFactor));
-                } else {
-                    // just add the vectors together and you get the final vector
-                    truePathingVectors[0] = MathFunctions.copyVector(leftSideVectorWithPathing);
-                    truePathingVectors[1] = MathFunctions.copyVector(rightSideVectorWithPathing);
-                }
+            addScaled(pathingWheelPowers);
+            addScaled(headingWheelPowers);
+        }
+
+        if (feedforward != null) {
+            applyFeedforward();
+        }
+
+        return wheelPowers;
+    }
+
+    /**
+     * This adds the largest fraction, up to all, of the given wheel powers that keeps every wheel
+     * within the max power scaling.
+     */
+    private void addScaled(double[] powers) {
+        double scaling = 1;
+        for (int i = 0; i < WHEELS; i++) {
+            if (powers[i] > 0) {
+                scaling = Math.min(scaling, (maxPowerScaling - wheelPowers[i]) / powers[i]);
+            } else if (powers[i] < 0) {
+                scaling = Math.min(scaling, (maxPowerScaling + wheelPowers[i]) / -powers[i]);
             }
         }
 
-        truePathingVectors[0] = MathFunctions.scalarMultiplyVector(truePathingVectors[0], 2.0);
-        truePathingVectors[1] = MathFunctions.scalarMultiplyVector(truePathingVectors[1], 2.0);
+        scaling = Math.max(scaling, 0);
+        for (int i = 0; i < WHEELS; i++) {
+            wheelPowers[i] += powers[i] * scaling;
+        }
+    }
 
-        for (int i = 0; i < mecanumVectorsCopy.length; i++) {
-            // this copies the vectors from mecanumVectors but creates new references for them
-            mecanumVectorsCopy[i] = MathFunctions.copyVector(mecanumVectors[i]);
+    /**
+     * This treats the mixed wheel powers as normalized wheel velocities and converts them to
+     * powers with each wheel's feedforward. The acceleration is the change since the last call.
+     */
+    private void applyFeedforward() {
+        long now = System.nanoTime();
+        double dt = (now - previousFeedforwardTime) / 1e9;
+        boolean useAcceleration = previousFeedforwardTime != 0 && dt > 0 && dt < 0.1;
+        previousFeedforwardTime = now;
 
-            mecanumVectorsCopy[i].rotateVector(robotHeading);
+        double peak = 0;
+        for (int i = 0; i < WHEELS; i++) {
+            double velocity = wheelPowers[i];
+            double acceleration = useAcceleration ? (velocity - previousWheelVelocities[i]) / dt : 0;
+            previousWheelVelocities[i] = velocity;
+            wheelPowers[i] = Math.abs(velocity) < 1e-6 ? 0 : feedforward[i].getPower(velocity, acceleration);
+            peak = Math.max(peak, Math.abs(wheelPowers[i]));
         }
 
-        wheelPowers[0] = (mecanumVectorsCopy[1].getXComponent()*truePathingVectors[0].getYComponent() - truePathingVectors[0].getXComponent()*mecanumVectorsCopy[1].getYComponent()) / (mecanumVectorsCopy[1].getXComponent()*mecanumVectorsCopy[0].getYComponent() - mecanumVectorsCopy[0].getXComponent()*mecanumVectorsCopy[1].getYComponent());
-        wheelPowers[1] = (mecanumVectorsCopy[0].getXComponent()*truePathingVectors[0].getYComponent() - truePathingVectors[0].getXComponent()*mecanumVectorsCopy[0].getYComponent()) / (mecanumVectorsCopy[0].getXComponent()*mecanumVectorsCopy[1].getYComponent() - mecanumVectorsCopy[1].getXComponent()*mecanumVectorsCopy[0].getYComponent());
-        wheelPowers[2] = (mecanumVectorsCopy[3].getXComponent()*truePathingVectors[1].getYComponent() - truePathingVectors[1].getXComponent()*mecanumVectorsCopy[3].getYComponent()) / (mecanumVectorsCopy[3].getXComponent()*mecanumVectorsCopy[2].getYComponent() - mecanumVectorsCopy[2].getXComponent()*mecanumVectorsCopy[3].getYComponent());
-        wheelPowers[3] = (mecanumVectorsCopy[2].getXComponent()*truePathingVectors[1].getYComponent() - truePathingVectors[1].getXComponent()*mecanumVectorsCopy[2].getYComponent()) / (mecanumVectorsCopy[2].getXComponent()*mecanumVectorsCopy[3].getYComponent() - mecanumVectorsCopy[3].getXComponent()*mecanumVectorsCopy[2].getYComponent());
-
-        double wheelPowerMax = Math.max(Math.max(Math.abs(wheelPowers[0]), Math.abs(wheelPowers[1])), Math.max(Math.abs(wheelPowers[2]), Math.abs(wheelPowers[3])));
-        if (wheelPowerMax > maxPowerScaling) {
-            wheelPowers[0] = (wheelPowers[0] / wheelPowerMax) * maxPowerScaling;
-            wheelPowers[1] = (wheelPowers[1] / wheelPowerMax) * maxPowerScaling;
-            wheelPowers[2] = (wheelPowers[2] / wheelPowerMax) * maxPowerScaling;
-            wheelPowers[3] = (wheelPowers[3] / wheelPowerMax) * maxPowerScaling;
+        if (peak > maxPowerScaling) {
+            for (int i = 0; i < WHEELS; i++) {
+                wheelPowers[i] = wheelPowers[i] / peak * maxPowerScaling;
+            }
         }
+    }
 
-        return wheelPowers;
+    /**
+     * This sets which input keeps its power when the wheels saturate.
+     *
+     * @param priority the priority.
+     */
+    public void setPriority(Priority priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * This sets the per wheel feedforward, or turns it off.
+     *
+     * @param feedforward the feedforward of each wheel, ordered left front, left back, right front,
+     *                    right back, or null to use the mixed powers directly.
+     */
+    public void setFeedforward(WheelFeedforward[] feedforward) {
+        this.feedforward = feedforward;
+        previousFeedforwardTime = 0;
     }
 
     /**
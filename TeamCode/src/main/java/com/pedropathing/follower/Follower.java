@@ -46,10 +46,10 @@ import com.pedropathing.localization.Localizer;
 import com.pedropathing.localization.Pose;
 import com.pedropathing.localization.PoseUpdater;
 import com.pedropathing.pathgen.BezierPoint;
+import com.pedropathing.pathgen.CallbackScheduler;
 import com.pedropathing.pathgen.MathFunctions;
 import com.pedropathing.pathgen.Path;
 import com.pedropathing.pathgen.PathBuilder;
-import com.pedropathing.pathgen.PathCallback;
 import com.pedropathing.pathgen.PathChain;
 import com.pedropathing.pathgen.Point;
 import com.pedropathing.pathgen.Vector;
@@ -58,11 +58,13 @@ import com.pedropathing.util.Drawing;
 import com.pedropathing.util.FilteredPIDFController;
 import com.pedropathing.util.KalmanFilter;
 import com.pedropathing.util.PIDFController;
+import com.pedropathing.util.VelocityEstimator;
+import com.pedropathing.util.WheelFeedforward;
 import com.qualcomm.robotcore.util.ElapsedTime;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.DoubleSupplier;
 
 /**
  * This is the Follower class. It handles the actual following of the paths and all the on-the-fly
@@ -84,6 +86,7 @@ public class Follower {
     private List<DcMotorEx> motors;
 
     private DriveVectorScaler driveVectorScaler;
+    private PathTrackingMPC pathTrackingMPC;
 
     public PoseUpdater poseUpdater;
     private DashboardPoseTracker dashboardPoseTracker;
@@ -99,7 +102,14 @@ public class Follower {
 
     private int chainIndex;
 
-    private long[] pathStartTimes;
+    // The neighbouring PathChain segment blended in near a joint, the t-value of the joint on it,
+    // its weight, and the length of the segments after the current one up to the first joint
+    // that isn't G1 continuous, i.e. the distance driven through past the current segment.
+    private Path chainBlendPath;
+    private double chainBlendTValue;
+    private double chainBlendWeight;
+    private double chainRemainingLength;
+
 
     private boolean followingPathChain;
     private boolean holdingPosition;
@@ -121,12 +131,11 @@ public class Follower {
     private double[] drivePowers;
     private double[] teleopDriveValues;
 
-    private ArrayList<Vector> velocities = new ArrayList<>();
-    private ArrayList<Vector> accelerations = new ArrayList<>();
+    private VelocityEstimator velocityEstimator;
 
-    private Vector averageVelocity;
-    private Vector averagePreviousVelocity;
-    private Vector averageAcceleration;
+    private Vector averageVelocity = new Vector();
+    private Vector averageAcceleration = new Vector();
+    private final Vector filteredVelocity = new Vector();
     private Vector secondaryTranslationalIntegralVector;
     private Vector translationalIntegralVector;
     private Vector teleopDriveVector;
@@ -168,6 +177,7 @@ public class Follower {
     private boolean cached = false;
 
     private VoltageSensor voltageSensor;
+    private DoubleSupplier voltageSource = null;
     public double voltage = 0;
     private final ElapsedTime voltageTimer = new ElapsedTime();
 
@@ -205,6 +215,8 @@ public class Follower {
         Constants.setConstants(FConstants, LConstants);
         BEZIER_CURVE_SEARCH_LIMIT = FollowerConstants.BEZIER_CURVE_SEARCH_LIMIT;
         AVERAGED_VELOCITY_SAMPLE_NUMBER = FollowerConstants.AVERAGED_VELOCITY_SAMPLE_NUMBER;
+        velocityEstimator = new VelocityEstimator(FollowerConstants.velocityEstimatorFilter, AVERAGED_VELOCITY_SAMPLE_NUMBER);
+        velocityEstimator.setGains(FollowerConstants.velocityEstimatorAlpha, FollowerConstants.velocityEstimatorBeta, FollowerConstants.velocityEstimatorGamma);
         holdPointTranslationalScaling = FollowerConstants.holdPointTranslationalScaling;
         holdPointHeadingScaling = FollowerConstants.holdPointHeadingScaling;
         centripetalScaling = FollowerConstants.centripetalScaling;
@@ -220,6 +232,19 @@ public class Follower {
         turnHeadingErrorThreshold = FollowerConstants.turnHeadingErrorThreshold;
     }
 
+    /**
+     * This applies the saturation priority and wheel feedforward from FollowerConstants to the
+     * DriveVectorScaler.
+     */
+    private void setupDriveVectorScaler() {
+        driveVectorScaler.setPriority(FollowerConstants.drivePriority);
+        if (FollowerConstants.useWheelFeedforward) {
+            driveVectorScaler.setFeedforward(new WheelFeedforward[]{FollowerConstants.leftFrontFeedforward,
+                    FollowerConstants.leftRearFeedforward, FollowerConstants.rightFrontFeedforward,
+                    FollowerConstants.rightRearFeedforward});
+        }
+    }
+
     /**
      * This initializes the follower.
      * In this, the DriveVectorScaler and PoseUpdater is instantiated, the drive motors are
@@ -229,6 +254,8 @@ public class Follower {
     public void initialize() {
         poseUpdater = new PoseUpdater(hardwareMap);
         driveVectorScaler = new DriveVectorScaler(FollowerConstants.frontLeftVector);
+        setupDriveVectorScaler();
+        pathTrackingMPC = new PathTrackingMPC(FollowerConstants.frontLeftVector);
 
         voltageSensor = hardwareMap.voltageSensor.iterator().next();
         voltageTimer.reset();
@@ -268,6 +295,8 @@ public class Follower {
     public void initialize(Localizer localizer) {
         poseUpdater = new PoseUpdater(hardwareMap, localizer);
         driveVectorScaler = new DriveVectorScaler(FollowerConstants.frontLeftVector);
+        setupDriveVectorScaler();
+        pathTrackingMPC = new PathTrackingMPC(FollowerConstants.frontLeftVector);
 
         voltageSensor = hardwareMap.voltageSensor.iterator().next();
         voltageTimer.reset();
@@ -531,7 +560,9 @@ public class Follower {
     }
 
     /**
-     * This follows a PathChain. Drive vector projection is only done on the last Path.
+     * This follows a PathChain. Drive vector projection is done to the end of the PathChain, or
+     * to its first joint that isn't G1 continuous, or only on the last Path when
+     * chain lookahead is off for the PathChain.
      * This also makes the Follower hold the last Point on the PathChain.
      *
      * @param pathChain the PathChain to follow.
@@ -542,7 +573,9 @@ public class Follower {
     }
 
     /**
-     * This follows a PathChain. Drive vector projection is only done on the last Path.
+     * This follows a PathChain. Drive vector projection is done to the end of the PathChain, or
+     * to its first joint that isn't G1 continuous, or only on the last Path when
+     * chain lookahead is off for the PathChain.
      *
      * @param pathChain the PathChain to follow.
      */
@@ -551,7 +584,9 @@ public class Follower {
     }
 
     /**
-     * This follows a PathChain. Drive vector projection is only done on the last Path.
+     * This follows a PathChain. Drive vector projection is done to the end of the PathChain, or
+     * to its first joint that isn't G1 continuous, or only on the last Path when
+     * chain lookahead is off for the PathChain.
      * This also makes the Follower hold the last Point on the PathChain.
      *
      * @param pathChain the PathChain to follow.
@@ -562,13 +597,12 @@ public class Follower {
         driveVectorScaler.setMaxPowerScaling(maxPower);
         breakFollowing();
         holdPositionAtEnd = holdEnd;
-        pathStartTimes = new long[pathChain.size()];
-        pathStartTimes[0] = System.currentTimeMillis();
         isBusy = true;
         followingPathChain = true;
         chainIndex = 0;
         currentPathChain = pathChain;
         currentPath = pathChain.getPath(chainIndex);
+        chainRemainingLength = getChainFollowThroughLength();
         closestPose = currentPath.getClosestPoint(poseUpdater.getPose(), BEZIER_CURVE_SEARCH_LIMIT);
         currentPathChain.resetCallbacks();
     }
@@ -577,8 +611,7 @@ public class Follower {
      * Resumes pathing
      */
     public void resumePathFollowing() {
-        pathStartTimes = new long[currentPathChain.size()];
-        pathStartTimes[0] = System.currentTimeMillis();
+        currentPathChain.getCallbackScheduler().startPath(chainIndex);
         isBusy = true;
         closestPose = currentPath.getClosestPoint(poseUpdater.getPose(), BEZIER_CURVE_SEARCH_LIMIT);
     }
@@ -612,6 +645,8 @@ public class Follower {
      */
     public void update() {
         updatePose();
+        Vector velocity = poseUpdater.getVelocity();
+        velocityEstimator.update(System.nanoTime(), velocity.getXComponent(), velocity.getYComponent());
 
         if (!teleopDrive) {
             if (currentPath != null) {
@@ -639,10 +674,19 @@ public class Follower {
                 } else {
                     if (isBusy) {
                         closestPose = currentPath.getClosestPoint(poseUpdater.getPose(), BEZIER_CURVE_SEARCH_LIMIT);
+                        updateChainLookahead();
 
                         if (followingPathChain) updateCallbacks();
 
-                        drivePowers = driveVectorScaler.getDrivePowers(getCorrectiveVector(), getHeadingVector(), getDriveVector(), poseUpdater.getPose().getHeading());
+                        if (FollowerConstants.useMPC && !currentPath.isAtParametricEnd()) {
+                            // With chain lookahead, the MPC reference runs on through continuous joints instead of stopping.
+                            double followThroughLength = usesChainLookahead() ? chainRemainingLength : 0;
+                            Path followThroughPath = followThroughLength > 0 ? currentPathChain.getPath(chainIndex + 1) : null;
+                            drivePowers = pathTrackingMPC.getDrivePowers(poseUpdater.getPose(), getFilteredVelocity(), poseUpdater.getAngularVelocity(), currentPath,
+                                    followThroughPath, followThroughLength, driveVectorScaler.getMaxPowerScaling());
+                        } else {
+                            drivePowers = driveVectorScaler.getDrivePowers(getCorrectiveVector(), getHeadingVector(), getDriveVector(), poseUpdater.getPose().getHeading());
+                        }
 
                         for (int i = 0; i < motors.size(); i++) {
                             if (Math.abs(motors.get(i).getPower() - drivePowers[i]) > FollowerConstants.motorCachingThreshold) {
@@ -660,7 +704,7 @@ public class Follower {
                     // try to fix the robot stop near the end issue
                     // if robot is almost reach the end and velocity is close to zero
                     // then, break the following if other criteria meet
-                    if (poseUpdater.getVelocity().getMagnitude() < 1.0 && currentPath.getClosestPointTValue() > 0.8
+                    if (velocityEstimator.getVelocityMagnitude() < 1.0 && currentPath.getClosestPointTValue() > 0.8
                             && zeroVelocityDetectedTimer == null && isBusy) {
                         zeroVelocityDetectedTimer = new ElapsedTime(ElapsedTime.Resolution.MILLISECONDS);
                         Log.d("Follower_logger", "!!!! Robot stuck !!!!");
@@ -676,13 +720,21 @@ public class Follower {
                                 Log.d("Follower_logger", "chainIndex: " + chainIndex + " | Pose: " + getPose());
                             }
                             // Not at last path, keep going
-                            breakFollowing();
-                            pathStartTimes[chainIndex] = System.currentTimeMillis();
-                            isBusy = true;
-                            followingPathChain = true;
+                            if (usesChainLookahead()) {
+                                // Keep the PIDF, Kalman filter and velocity state, and the motor powers, across the joint.
+                                reachedParametricPathEnd = false;
+                                zeroVelocityDetectedTimer = null;
+                            } else {
+                                breakFollowing();
+                                isBusy = true;
+                                followingPathChain = true;
+                            }
                             chainIndex++;
+                            currentPathChain.getCallbackScheduler().startPath(chainIndex);
                             currentPath = currentPathChain.getPath(chainIndex);
+                            chainRemainingLength = getChainFollowThroughLength();
                             closestPose = currentPath.getClosestPoint(poseUpdater.getPose(), BEZIER_CURVE_SEARCH_LIMIT);
+                            updateChainLookahead();
                         } else {
                             // At last path, run some end detection stuff
                             // set isBusy to false if at end
@@ -692,7 +744,7 @@ public class Follower {
                             }
 
                             if ((System.currentTimeMillis() - reachedParametricPathEndTime > currentPath.getPathEndTimeoutConstraint()) ||
-                                    (poseUpdater.getVelocity().getMagnitude() < currentPath.getPathEndVelocityConstraint()
+                                    (velocityEstimator.getVelocityMagnitude() < currentPath.getPathEndVelocityConstraint()
                                             && MathFunctions.distance(poseUpdater.getPose(), closestPose) < currentPath.getPathEndTranslationalConstraint() &&
                                             MathFunctions.getSmallestAngleDifference(poseUpdater.getPose().getHeading(), currentPath.getClosestPointHeadingGoal()) < currentPath.getPathEndHeadingConstraint())) {
                                 if (holdPositionAtEnd) {
@@ -720,9 +772,6 @@ public class Follower {
                 }
             }
         } else {
-            velocities.add(poseUpdater.getVelocity());
-            velocities.remove(velocities.get(velocities.size() - 1));
-
             calculateAveragedVelocityAndAcceleration();
 
             drivePowers = driveVectorScaler.getDrivePowers(getCentripetalForceCorrection(), teleopHeadingVector, teleopDriveVector, poseUpdater.getPose().getHeading());
@@ -779,54 +828,42 @@ public class Follower {
     }
 
     /**
-     * This calculates an averaged approximate velocity and acceleration. This is used for a
-     * real-time correction of centripetal force, which is used in teleop.
+     * This copies the filtered velocity and acceleration from the VelocityEstimator. This is used
+     * for a real-time correction of centripetal force, which is used in teleop.
      */
     public void calculateAveragedVelocityAndAcceleration() {
-        averageVelocity = new Vector();
-        averagePreviousVelocity = new Vector();
-
-        for (int i = 0; i < velocities.size() / 2; i++) {
-            averageVelocity = MathFunctions.addVectors(averageVelocity, velocities.get(i));
-        }
-        averageVelocity = MathFunctions.scalarMultiplyVector(averageVelocity, 1.0 / ((double) velocities.size() / 2));
-
-        for (int i = velocities.size() / 2; i < velocities.size(); i++) {
-            averagePreviousVelocity = MathFunctions.addVectors(averagePreviousVelocity, velocities.get(i));
-        }
-        averagePreviousVelocity = MathFunctions.scalarMultiplyVector(averagePreviousVelocity, 1.0 / ((double) velocities.size() / 2));
-
-        accelerations.add(MathFunctions.subtractVectors(averageVelocity, averagePreviousVelocity));
-        accelerations.remove(accelerations.size() - 1);
+        averageVelocity.setOrthogonalComponents(velocityEstimator.getXVelocity(), velocityEstimator.getYVelocity());
+        averageAcceleration.setOrthogonalComponents(velocityEstimator.getXAcceleration(), velocityEstimator.getYAcceleration());
+    }
 
-        averageAcceleration = new Vector();
+    /**
+     * This returns the velocity of the robot, smoothed by the VelocityEstimator. The same Vector
+     * is reused by every call, so it must not be modified, and should be copied to be kept.
+     *
+     * @return returns the filtered velocity of the robot.
+     */
+    public Vector getFilteredVelocity() {
+        filteredVelocity.setOrthogonalComponents(velocityEstimator.getXVelocity(), velocityEstimator.getYVelocity());
+        return filteredVelocity;
+    }
 
-        for (int i = 0; i < accelerations.size(); i++) {
-            averageAcceleration = MathFunctions.addVectors(averageAcceleration, accelerations.get(i));
-        }
-        averageAcceleration = MathFunctions.scalarMultiplyVector(averageAcceleration, 1.0 / accelerations.size());
+    /**
+     * This returns the VelocityEstimator, which smooths the localizer velocity every update.
+     *
+     * @return returns the VelocityEstimator.
+     */
+    public VelocityEstimator getVelocityEstimator() {
+        return velocityEstimator;
     }
 
     /**
      * This checks if any PathCallbacks should be run right now, and runs them if applicable.
+     * Only the next pending callback of each trigger queue is checked.
      */
     public void updateCallbacks() {
-        for (PathCallback callback : currentPathChain.getCallbacks()) {
-            if (!callback.hasBeenRun()) {
-                if (callback.getType() == PathCallback.PARAMETRIC) {
-                    // parametric call back
-                    if (chainIndex == callback.getIndex() && (getCurrentTValue() >= callback.getStartCondition() || MathFunctions.roughlyEquals(getCurrentTValue(), callback.getStartCondition()))) {
-                        callback.run();
-                    }
-                } else {
-                    // time based call back
-                    if (chainIndex >= callback.getIndex() && System.currentTimeMillis() - pathStartTimes[callback.getIndex()] > callback.getStartCondition()) {
-                        callback.run();
-                    }
-
-                }
-            }
-        }
+        CallbackScheduler scheduler = currentPathChain.getCallbackScheduler();
+        Pose pose = scheduler.hasPendingPoseCallbacks(chainIndex) ? poseUpdater.getPose() : null;
+        scheduler.update(chainIndex, getCurrentTValue(), pose);
     }
 
     /**
@@ -864,13 +901,11 @@ public class Follower {
             driveErrors[i] = 0;
         }
         driveKalmanFilter.reset();
+        if (pathTrackingMPC != null) pathTrackingMPC.reset();
+        chainBlendPath = null;
+        chainBlendWeight = 0;
 
-        for (int i = 0; i < AVERAGED_VELOCITY_SAMPLE_NUMBER; i++) {
-            velocities.add(new Vector());
-        }
-        for (int i = 0; i < AVERAGED_VELOCITY_SAMPLE_NUMBER / 2; i++) {
-            accelerations.add(new Vector());
-        }
+        velocityEstimator.reset();
         calculateAveragedVelocityAndAcceleration();
         teleopDriveValues = new double[3];
         teleopDriveVector = new Vector();
@@ -892,6 +927,34 @@ public class Follower {
         return isBusy;
     }
 
+    /**
+     * This returns if the Follower is holding a Point, e.g. the end of a Path followed with holdEnd.
+     *
+     * @return returns if the Follower is holding position.
+     */
+    public boolean isHoldingPosition() {
+        return holdingPosition;
+    }
+
+    /**
+     * This returns if the Follower reached the parametric end of its last Path, and is waiting on
+     * the path end constraints or the path end timeout.
+     *
+     * @return returns if the Follower reached the parametric end of its last Path.
+     */
+    public boolean hasReachedParametricPathEnd() {
+        return reachedParametricPathEnd;
+    }
+
+    /**
+     * This returns the drive powers of the last update, in motor order. Don't modify the array.
+     *
+     * @return returns the drive powers, or null before the first update.
+     */
+    public double[] getDrivePowers() {
+        return drivePowers;
+    }
+
     /**
      * This returns a Vector in the direction the robot must go to move along the path. This Vector
      * takes into account the projected position of the robot to calculate how much power is needed.
@@ -902,7 +965,7 @@ public class Follower {
      */
     public Vector getDriveVector() {
         if (!useDrive) return new Vector();
-        if (followingPathChain && chainIndex < currentPathChain.size() - 1) {
+        if (followingPathChain && !usesChainLookahead() && chainIndex < currentPathChain.size() - 1) {
             return new Vector(driveVectorScaler.getMaxPowerScaling(), currentPath.getClosestPointTangentVector().getTheta());
         }
 
@@ -911,18 +974,20 @@ public class Follower {
         if (Math.abs(driveError) < drivePIDFSwitch && useSecondaryDrivePID) {
             // Log.d("Follower_logger_secondary::", "In secondary drive PIDF");
             secondaryDrivePIDF.updateError(driveError);
-            driveVector = new Vector(MathFunctions.clamp(secondaryDrivePIDF.runPIDF() + secondaryDrivePIDFFeedForward * MathFunctions.getSign(driveError), -driveVectorScaler.getMaxPowerScaling(), driveVectorScaler.getMaxPowerScaling()), currentPath.getClosestPointTangentVector().getTheta());
+            driveVector = new Vector(MathFunctions.clamp(secondaryDrivePIDF.runPIDF() + secondaryDrivePIDFFeedForward * MathFunctions.getSign(driveError), -driveVectorScaler.getMaxPowerScaling(), driveVectorScaler.getMaxPowerScaling()), getChainTangentVector().getTheta());
             return MathFunctions.copyVector(driveVector);
         }
 
         drivePIDF.updateError(driveError);
-        driveVector = new Vector(MathFunctions.clamp(drivePIDF.runPIDF() + drivePIDFFeedForward * MathFunctions.getSign(driveError), -driveVectorScaler.getMaxPowerScaling(), driveVectorScaler.getMaxPowerScaling()), currentPath.getClosestPointTangentVector().getTheta());
+        driveVector = new Vector(MathFunctions.clamp(drivePIDF.runPIDF() + drivePIDFFeedForward * MathFunctions.getSign(driveError), -driveVectorScaler.getMaxPowerScaling(), driveVectorScaler.getMaxPowerScaling()), getChainTangentVector().getTheta());
         return MathFunctions.copyVector(driveVector);
     }
 
     /**
      * This returns the velocity the robot needs to be at to make it to the end of the Path
      * at some specified deceleration (well technically just some negative acceleration).
+     * When following a PathChain with chain lookahead, the goal is the next joint that isn't G1
+     * continuous, or the end of the PathChain, so the robot only decelerates where it must stop.
      *
      * @return returns the projected velocity.
      */
@@ -936,8 +1001,13 @@ public class Follower {
             distanceToGoal = MathFunctions.dotProduct(currentPath.getEndTangent(), offset);
         }
 
-        Vector distanceToGoalVector = MathFunctions.scalarMultiplyVector(MathFunctions.normalizeVector(currentPath.getClosestPointTangentVector()), distanceToGoal);
-        Vector velocity = new Vector(MathFunctions.dotProduct(getVelocity(), MathFunctions.normalizeVector(currentPath.getClosestPointTangentVector())), currentPath.getClosestPointTangentVector().getTheta());
+        if (usesChainLookahead()) {
+            distanceToGoal += chainRemainingLength;
+        }
+
+        Vector tangent = MathFunctions.normalizeVector(getChainTangentVector());
+        Vector distanceToGoalVector = MathFunctions.scalarMultiplyVector(tangent, distanceToGoal);
+        Vector velocity = new Vector(MathFunctions.dotProduct(getFilteredVelocity(), tangent), tangent.getTheta());
 
         Vector forwardHeadingVector = new Vector(1.0, poseUpdater.getPose().getHeading());
 
@@ -958,7 +1028,7 @@ public class Follower {
         Vector velocityErrorVector = MathFunctions.addVectors(forwardVelocityError, lateralVelocityError);
 
         previousRawDriveError = rawDriveError;
-        rawDriveError = velocityErrorVector.getMagnitude() * MathFunctions.getSign(MathFunctions.dotProduct(velocityErrorVector, currentPath.getClosestPointTangentVector()));
+        rawDriveError = velocityErrorVector.getMagnitude() * MathFunctions.getSign(MathFunctions.dotProduct(velocityErrorVector, tangent));
 
         double projection = 2 * driveErrors[1] - driveErrors[0];
 
@@ -983,7 +1053,8 @@ public class Follower {
      */
     public Vector getHeadingVector() {
         if (!useHeading) return new Vector();
-        headingError = MathFunctions.getTurnDirection(poseUpdater.getPose().getHeading(), currentPath.getClosestPointHeadingGoal()) * MathFunctions.getSmallestAngleDifference(poseUpdater.getPose().getHeading(), currentPath.getClosestPointHeadingGoal());
+        double headingGoal = getChainHeadingGoal();
+        headingError = MathFunctions.getTurnDirection(poseUpdater.getPose().getHeading(), headingGoal) * MathFunctions.getSmallestAngleDifference(poseUpdater.getPose().getHeading(), headingGoal);
         if (Math.abs(headingError) < headingPIDFSwitch && useSecondaryHeadingPID) {
 //            if(logDebug) {
 //                Log.d("Follower_logger", "using secondary heading PIDF controller, error: "
@@ -991,11 +1062,11 @@ public class Follower {
 //
 //            }
             secondaryHeadingPIDF.updateError(headingError);
-            headingVector = new Vector(MathFunctions.clamp(secondaryHeadingPIDF.runPIDF() + secondaryHeadingPIDFFeedForward * MathFunctions.getTurnDirection(poseUpdater.getPose().getHeading(), currentPath.getClosestPointHeadingGoal()), -driveVectorScaler.getMaxPowerScaling(), driveVectorScaler.getMaxPowerScaling()), poseUpdater.getPose().getHeading());
+            headingVector = new Vector(MathFunctions.clamp(secondaryHeadingPIDF.runPIDF() + secondaryHeadingPIDFFeedForward * MathFunctions.getTurnDirection(poseUpdater.getPose().getHeading(), headingGoal), -driveVectorScaler.getMaxPowerScaling(), driveVectorScaler.getMaxPowerScaling()), poseUpdater.getPose().getHeading());
             return MathFunctions.copyVector(headingVector);
         }
         headingPIDF.updateError(headingError);
-        headingVector = new Vector(MathFunctions.clamp(headingPIDF.runPIDF() + headingPIDFFeedForward * MathFunctions.getTurnDirection(poseUpdater.getPose().getHeading(), currentPath.getClosestPointHeadingGoal()), -driveVectorScaler.getMaxPowerScaling(), driveVectorScaler.getMaxPowerScaling()), poseUpdater.getPose().getHeading());
+        headingVector = new Vector(MathFunctions.clamp(headingPIDF.runPIDF() + headingPIDFFeedForward * MathFunctions.getTurnDirection(poseUpdater.getPose().getHeading(), headingGoal), -driveVectorScaler.getMaxPowerScaling(), driveVectorScaler.getMaxPowerScaling()), poseUpdater.getPose().getHeading());
         return MathFunctions.copyVector(headingVector);
     }
 
@@ -1093,17 +1164,127 @@ public class Follower {
         if (!useCentripetal) return new Vector();
         double curvature;
         if (!teleopDrive) {
-            curvature = currentPath.getClosestPointCurvature();
+            curvature = getChainCurvature();
+        } else if (FollowerConstants.useVelocityCurvatureInTeleOp) {
+            // Curvature of the driven path, from the filtered velocity and acceleration in real units.
+            if (averageVelocity.getMagnitude() < 1e-3) return new Vector();
+            curvature = (averageVelocity.getXComponent() * averageAcceleration.getYComponent() - averageVelocity.getYComponent() * averageAcceleration.getXComponent())
+                    / Math.pow(averageVelocity.getMagnitude(), 3);
         } else {
             double yPrime = averageVelocity.getYComponent() / averageVelocity.getXComponent();
             double yDoublePrime = averageAcceleration.getYComponent() / averageVelocity.getXComponent();
             curvature = (yDoublePrime) / (Math.pow(Math.sqrt(1 + Math.pow(yPrime, 2)), 3));
         }
         if (Double.isNaN(curvature)) return new Vector();
-        centripetalVector = new Vector(MathFunctions.clamp(centripetalScaling * FollowerConstants.mass * Math.pow(MathFunctions.dotProduct(poseUpdater.getVelocity(), MathFunctions.normalizeVector(currentPath.getClosestPointTangentVector())), 2) * curvature, -driveVectorScaler.getMaxPowerScaling(), driveVectorScaler.getMaxPowerScaling()), currentPath.getClosestPointTangentVector().getTheta() + Math.PI / 2 * MathFunctions.getSign(currentPath.getClosestPointNormalVector().getTheta()));
+        Vector tangent = getChainTangentVector();
+        centripetalVector = new Vector(MathFunctions.clamp(centripetalScaling * FollowerConstants.mass * Math.pow(MathFunctions.dotProduct(poseUpdater.getVelocity(), MathFunctions.normalizeVector(tangent)), 2) * curvature, -driveVectorScaler.getMaxPowerScaling(), driveVectorScaler.getMaxPowerScaling()), tangent.getTheta() + Math.PI / 2 * MathFunctions.getSign(currentPath.getClosestPointNormalVector().getTheta()));
         return centripetalVector;
     }
 
+    /**
+     * This returns if the Follower is following a PathChain with chain lookahead, which needs
+     * FollowerConstants.useChainLookahead and the PathChain not to have opted out.
+     *
+     * @return returns if chain lookahead is in use.
+     */
+    private boolean usesChainLookahead() {
+        return followingPathChain && FollowerConstants.useChainLookahead && currentPathChain.isChainLookaheadEnabled();
+    }
+
+    /**
+     * This looks at the PathChain segment on the other side of the closest joint. Within
+     * chainBlendDistance of a joint, the tangent, curvature and heading goal are blended with the
+     * neighbouring segment's values at the joint, reaching half and half at the joint, so they are
+     * continuous as the Follower switches segments. Tangent and curvature are only blended across
+     * joints whose tangents differ by less than chainJointContinuityAngle.
+     */
+    private void updateChainLookahead() {
+        chainBlendPath = null;
+        chainBlendWeight = 0;
+        if (!usesChainLookahead() || FollowerConstants.chainBlendDistance <= 0) return;
+
+        double t = currentPath.getClosestPointTValue();
+        double distanceToEnd = currentPath.length() * (1 - t);
+        double distanceFromStart = currentPath.length() * t;
+        if (chainIndex < currentPathChain.size() - 1 && distanceToEnd < FollowerConstants.chainBlendDistance) {
+            chainBlendPath = currentPathChain.getPath(chainIndex + 1);
+            chainBlendTValue = 0;
+            chainBlendWeight = 0.5 * (1 - distanceToEnd / FollowerConstants.chainBlendDistance);
+        } else if (chainIndex > 0 && distanceFromStart < FollowerConstants.chainBlendDistance) {
+            chainBlendPath = currentPathChain.getPath(chainIndex - 1);
+            chainBlendTValue = 1;
+            chainBlendWeight = 0.5 * (1 - distanceFromStart / FollowerConstants.chainBlendDistance);
+        }
+    }
+
+    /**
+     * This returns if the tangent is continuous across the joint with the blended PathChain segment.
+     *
+     * @return returns if the joint is G1 continuous.
+     */
+    private boolean isChainJointContinuous() {
+        if (chainBlendPath == null) return false;
+        return currentPathChain.isJointContinuous(chainBlendTValue == 0 ? chainIndex : chainIndex - 1);
+    }
+
+    /**
+     * This returns the length of the PathChain segments after the current one that are driven
+     * through without stopping, i.e. up to the first joint that isn't G1 continuous.
+     *
+     * @return returns the follow through length.
+     */
+    private double getChainFollowThroughLength() {
+        double length = 0;
+        for (int i = chainIndex; i < currentPathChain.size() - 1 && currentPathChain.isJointContinuous(i); i++) {
+            length += currentPathChain.getPath(i + 1).length();
+        }
+
+        return length;
+    }
+
+    /**
+     * This returns the angle a fraction of the way from one angle to another, the short way around.
+     */
+    private static double blendAngle(double from, double to, double weight) {
+        return MathFunctions.normalizeAngle(from + weight * MathFunctions.getTurnDirection(from, to) * MathFunctions.getSmallestAngleDifference(from, to));
+    }
+
+    /**
+     * This returns the path tangent at the closest Point, blended with the next or previous
+     * PathChain segment near a G1 continuous joint.
+     *
+     * @return returns the tangent Vector.
+     */
+    private Vector getChainTangentVector() {
+        Vector tangent = currentPath.getClosestPointTangentVector();
+        if (!isChainJointContinuous()) return tangent;
+        return new Vector(tangent.getMagnitude(), blendAngle(tangent.getTheta(), chainBlendPath.getTangentVector(chainBlendTValue).getTheta(), chainBlendWeight));
+    }
+
+    /**
+     * This returns the path curvature at the closest Point, blended with the next or previous
+     * PathChain segment near a G1 continuous joint.
+     *
+     * @return returns the curvature.
+     */
+    private double getChainCurvature() {
+        double curvature = currentPath.getClosestPointCurvature();
+        if (!isChainJointContinuous()) return curvature;
+        return (1 - chainBlendWeight) * curvature + chainBlendWeight * chainBlendPath.getCurvature(chainBlendTValue);
+    }
+
+    /**
+     * This returns the heading goal at the closest Point, blended with the next or previous
+     * PathChain segment's heading goal at the joint.
+     *
+     * @return returns the heading goal.
+     */
+    private double getChainHeadingGoal() {
+        double headingGoal = currentPath.getClosestPointHeadingGoal();
+        if (chainBlendPath == null) return headingGoal;
+        return blendAngle(headingGoal, chainBlendPath.getHeadingGoal(chainBlendTValue), chainBlendWeight);
+    }
+
     /**
      * This returns the closest pose to the robot on the Path the Follower is currently following.
      * This closest pose is calculated through a binary search method with some specified number of
@@ -1301,10 +1482,21 @@ public class Follower {
      */
     public void refreshVoltage() {
         cached = true;
-        voltage = voltageSensor.getVoltage();
+        voltage = voltageSource != null ? voltageSource.getAsDouble() : voltageSensor.getVoltage();
         voltageTimer.reset();
     }
 
+    /**
+     * Reads the voltage from a shared source, such as a background sampler, instead
+     * of the hub voltage sensor. This keeps voltage reads out of the follower loop.
+     *
+     * @param voltageSource the voltage source, or null to read the voltage sensor again
+     */
+    public void setVoltageSource(DoubleSupplier voltageSource) {
+        this.voltageSource = voltageSource;
+        cached = false;
+    }
+
     /** Turns a certain amount of degrees left
      * @param radians the amount of radians to turn
      * @param isLeft true if turning left, false if turning right
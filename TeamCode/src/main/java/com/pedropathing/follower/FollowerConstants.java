@@ -10,6 +10,8 @@ import com.pedropathing.pathgen.Vector;
 import com.pedropathing.util.CustomFilteredPIDFCoefficients;
 import com.pedropathing.util.CustomPIDFCoefficients;
 import com.pedropathing.util.KalmanFilterParameters;
+import com.pedropathing.util.VelocityEstimator;
+import com.pedropathing.util.WheelFeedforward;
 
 /**
  * This is the FollowerConstants class. It holds many constants and parameters for various parts of
@@ -87,6 +89,31 @@ public class FollowerConstants {
      *  Default Value: 1 */
     public static double maxPower = 1;
 
+    /** Which of heading and translational power keeps its power when the wheels saturate.
+     *  Corrective power always comes first.
+     *  Default Value: DriveVectorScaler.Priority.HEADING */
+    public static DriveVectorScaler.Priority drivePriority = DriveVectorScaler.Priority.HEADING;
+
+    /** Use the per wheel feedforward below to turn the mixed wheel velocities into powers
+     *  Default Value: false */
+    public static boolean useWheelFeedforward = false;
+
+    /** Static friction, velocity and acceleration feedforward of the left front wheel
+     *  Default Value: new WheelFeedforward(0, 1, 0) */
+    public static WheelFeedforward leftFrontFeedforward = new WheelFeedforward(0, 1, 0);
+
+    /** Static friction, velocity and acceleration feedforward of the left rear wheel
+     *  Default Value: new WheelFeedforward(0, 1, 0) */
+    public static WheelFeedforward leftRearFeedforward = new WheelFeedforward(0, 1, 0);
+
+    /** Static friction, velocity and acceleration feedforward of the right front wheel
+     *  Default Value: new WheelFeedforward(0, 1, 0) */
+    public static WheelFeedforward rightFrontFeedforward = new WheelFeedforward(0, 1, 0);
+
+    /** Static friction, velocity and acceleration feedforward of the right rear wheel
+     *  Default Value: new WheelFeedforward(0, 1, 0) */
+    public static WheelFeedforward rightRearFeedforward = new WheelFeedforward(0, 1, 0);
+
 
     /** Translational PIDF coefficients (don't use integral)
      *  Default Value: new CustomPIDFCoefficients(0.1,0,0,0); */
@@ -220,12 +247,35 @@ public class FollowerConstants {
     public static double holdPointHeadingScaling = 0.35;
 
     /** This is the number of times the velocity is recorded for averaging when approximating a first
-     * and second derivative for on the fly centripetal correction. The velocity is calculated using
-     * half of this number of samples, and the acceleration uses all of this number of samples.
+     * and second derivative for on the fly centripetal correction. This is the window size of the
+     * MOVING_AVERAGE and SAVITZKY_GOLAY velocity filters.
      * @see #centripetalScaling
      *  Default Value: 8 */
     public static int AVERAGED_VELOCITY_SAMPLE_NUMBER = 8;
 
+    /** This is the filter the Follower uses to smooth the localizer velocity and to estimate the
+     * acceleration. The filtered velocity is used for stuck and path end detection, the drive
+     * error and on the fly centripetal correction.
+     * @see #AVERAGED_VELOCITY_SAMPLE_NUMBER
+     *  Default Value: VelocityEstimator.Filter.SAVITZKY_GOLAY */
+    public static VelocityEstimator.Filter velocityEstimatorFilter = VelocityEstimator.Filter.SAVITZKY_GOLAY;
+
+    /** These are the velocity, acceleration and jerk gains of the ALPHA_BETA_GAMMA velocity filter.
+     * A gamma of 0 makes it an alpha-beta filter.
+     * @see #velocityEstimatorFilter
+     *  Default Values: 0.5, 0.1, 0 */
+    public static double velocityEstimatorAlpha = 0.5;
+    public static double velocityEstimatorBeta = 0.1;
+    public static double velocityEstimatorGamma = 0;
+
+    /** This switches the teleop centripetal correction from the original curvature estimate,
+     * y'' / (1 + y'^2)^1.5 with x as the parameter, to the curvature of the driven path computed
+     * from the filtered velocity and acceleration, (vx * ay - vy * ax) / |v|^3. The latter doesn't
+     * blow up when driving along the y axis, but changes how driver mode feels, so it is opt in.
+     * @see #centripetalScaling
+     *  Default Value: false */
+    public static boolean useVelocityCurvatureInTeleOp = false;
+
     /** This is the number of steps the search for the closest point uses. More steps lead to bigger
      * accuracy. However, more steps also take more time.
      * @see #APPROXIMATION_STEPS
@@ -350,4 +400,101 @@ public class FollowerConstants {
      *  In Radians
      *  Default Value: 0.01 */
     public static double turnHeadingErrorThreshold = 0.01;
+
+    /** Use the model predictive path tracking controller instead of the translational, heading,
+     *  drive and centripetal PIDFs while following a path. Holding a point still uses the PIDFs.
+     *  Uses xMovement, yMovement and the zero power accelerations as the drive model.
+     *  @see PathTrackingMPC
+     *  Default Value: false */
+    public static boolean useMPC = false;
+
+    /** Number of steps the MPC predicts ahead
+     *  Default Value: 10 */
+    public static int mpcHorizonSteps = 10;
+
+    /** Time between MPC prediction steps, in seconds
+     *  Default Value: 0.05 */
+    public static double mpcTimeStep = 0.05;
+
+    /** Time the MPC solver may take every update, in milliseconds. It uses the best solution so far after that.
+     *  Default Value: 3 */
+    public static double mpcComputeBudgetMilliseconds = 3;
+
+    /** Maximum number of MPC solver iterations every update
+     *  Default Value: 50 */
+    public static int mpcMaxIterations = 50;
+
+    /** Largest change of any input between MPC solver iterations at which the solution is considered converged
+     *  Default Value: 0.0001 */
+    public static double mpcTolerance = 0.0001;
+
+    /** Fraction of xMovement the MPC targets along the path, before curvature and end of path limits
+     *  Default Value: 0.9 */
+    public static double mpcSpeedFraction = 0.9;
+
+    /** Angular velocity of the robot at full turn power, in radians per second
+     *  Default Value: 6 */
+    public static double mpcMaxAngularVelocity = 6;
+
+    /** Time constant of the robot's angular velocity response to turn power, in seconds
+     *  Default Value: 0.15 */
+    public static double mpcHeadingTimeConstant = 0.15;
+
+    /** MPC weight of the squared translational error, in inches
+     *  Default Value: 1 */
+    public static double mpcTranslationalWeight = 1;
+
+    /** MPC weight of the squared heading error, in radians
+     *  Default Value: 20 */
+    public static double mpcHeadingWeight = 20;
+
+    /** MPC weight of the squared velocity error, in inches per second
+     *  Default Value: 0.01 */
+    public static double mpcVelocityWeight = 0.01;
+
+    /** MPC weight of the squared angular velocity error, in radians per second
+     *  Default Value: 0.05 */
+    public static double mpcAngularVelocityWeight = 0.05;
+
+    /** MPC weight multiplier of the last step of the horizon
+     *  Default Value: 5 */
+    public static double mpcTerminalWeight = 5;
+
+    /** MPC weight of the squared input powers
+     *  Default Value: 0.1 */
+    public static double mpcInputWeight = 0.1;
+
+    /** Follow PathChains without stopping at joints. The PIDF, Kalman filter and velocity state carry over
+     *  to the next Path, the drive PIDF decelerates only for the end of the PathChain, and the tangent,
+     *  curvature and heading goal are blended across joints. When false, every joint is a fresh start and
+     *  every Path but the last is driven at full power. Joints that aren't G1 continuous (see
+     *  chainJointContinuityAngle) are still driven to a stop. A PathChain that still needs re-tuning can opt
+     *  out with PathChain.setChainLookahead(false).
+     *  Default Value: true */
+    public static boolean useChainLookahead = true;
+
+    /** Distance before and after a PathChain joint over which the two Paths are blended, in inches
+     *  Default Value: 6 */
+    public static double chainBlendDistance = 6;
+
+    /** Largest change of path tangent at a PathChain joint, in radians, for the tangent and curvature to be blended
+     *  Default Value: Math.toRadians(15) */
+    public static double chainJointContinuityAngle = Math.toRadians(15);
+
+    /** Acceleration of the robot from rest at full power, and its largest centripetal acceleration, used
+     *  by the PathTimeEstimator, in inches/second^2. About xMovement over the drive time constant.
+     *  @see com.pedropathing.pathgen.PathTimeEstimator
+     *  Default Value: 80 */
+    public static double pathTimeEstimateAcceleration = 80;
+
+    /** Time the PathTimeEstimator adds at the end of a PathChain for the end of path corrections, in seconds
+     *  Default Value: 0.25 */
+    public static double pathTimeEstimateSettleTime = 0.25;
+
+    /** Average angular velocity of the robot while it turns to the heading goal of a Path, used by the
+     *  PathTimeEstimator, in radians/second. The heading PIDF doesn't turn at full power, so measure it by
+     *  timing a turn in place with the Follower, rather than using mpcMaxAngularVelocity.
+     *  @see com.pedropathing.pathgen.PathTimeEstimator
+     *  Default Value: 3 */
+    public static double pathTimeEstimateAngularVelocity = 3;
 }
@@ -0,0 +1,428 @@
+package com.pedropathing.follower;
+
+import com.pedropathing.localization.Pose;
+import com.pedropathing.pathgen.MathFunctions;
+import com.pedropathing.pathgen.Path;
+import com.pedropathing.pathgen.Point;
+import com.pedropathing.pathgen.Vector;
+
+/**
+ * This is the PathTrackingMPC class. It is a linear time-varying model predictive controller
+ * that tracks a Path, as an alternative to summing independent translational, heading, drive
+ * and centripetal PIDF vectors. Every update it predicts the robot over a short horizon along
+ * the Path, and solves for the forward, strafe and turn powers that best trade translational,
+ * heading and velocity error against each other, including upcoming curvature.
+ *
+ * The model is a mecanum drive with first order velocity dynamics along each robot axis.
+ * At full power the robot settles at xMovement/yMovement, and at zero power it decelerates at
+ * the zero power accelerations, which therefore are the power to acceleration gains. The axes
+ * are rotated by the reference heading at each step, which makes the model time-varying.
+ * The wheel vectors give the wheel power of each input, so the power limit of every wheel is
+ * |forward| + |strafe| + |turn| <= max power.
+ *
+ * The QP is condensed into the inputs only, and solved by accelerated projected gradient
+ * descent, warm started from the previous solution. All matrices are preallocated, and the
+ * solver stops at FollowerConstants.mpcComputeBudgetMilliseconds.
+ *
+ * @version 1.0, 10/19/2026
+ */
+public class PathTrackingMPC {
+    // State: x, y, heading, x velocity, y velocity, angular velocity. Input: forward, strafe, turn.
+    private static final int STATES = 6;
+    private static final int INPUTS = 3;
+    private static final double EPSILON = 1e-9;
+
+    private final int horizon;
+    private final int size;
+    private final double timeStep;
+
+    // Wheel power of each input, ordered left front, left back, right front, right back.
+    private final double[][] wheelMixing = new double[4][INPUTS];
+
+    private final double[] weights = new double[STATES];
+    private final double[][] reference;
+    private final double[] referenceHeading;
+    private final double[][] a = new double[STATES][STATES];
+    private final double[][] b = new double[STATES][INPUTS];
+    private final double[][] s;
+    private final double[][] scratch;
+    private final double[] c = new double[STATES];
+    private final double[] cScratch = new double[STATES];
+    private final double[][] h;
+    private final double[] g;
+    private final double[] u;
+    private final double[] uPrevious;
+    private final double[] y;
+    private final double[] gradient;
+    private final double[] wheelPowers = new double[4];
+
+    private int lastIterations;
+    private double lastSolveMilliseconds;
+
+    /**
+     * This creates a new PathTrackingMPC with the horizon and time step from FollowerConstants.
+     *
+     * @param frontLeftVector the front left mecanum wheel's preferred drive vector.
+     */
+    public PathTrackingMPC(Vector frontLeftVector) {
+        horizon = Math.max(2, FollowerConstants.mpcHorizonSteps);
+        timeStep = FollowerConstants.mpcTimeStep;
+        size = horizon * INPUTS;
+        reference = new double[horizon + 1][STATES];
+        referenceHeading = new double[horizon + 1];
+        s = new double[STATES][size];
+        scratch = new double[STATES][size];
+        h = new double[size][size];
+        g = new double[size];
+        u = new double[size];
+        uPrevious = new double[size];
+        y = new double[size];
+        gradient = new double[size];
+
+        // Forward power drives all wheels forward and turn power drives the sides apart. The
+        // sideways component of each wheel vector gives the strafe sign of that wheel.
+        double strafeSign = Math.signum(frontLeftVector.getYComponent());
+        if (strafeSign == 0) strafeSign = -1;
+        double[] strafe = {strafeSign, -strafeSign, -strafeSign, strafeSign};
+        double[] turn = {-1, -1, 1, 1};
+        for (int i = 0; i < 4; i++) {
+            wheelMixing[i][0] = 1;
+            wheelMixing[i][1] = strafe[i];
+            wheelMixing[i][2] = turn[i];
+        }
+    }
+
+    /**
+     * This computes the drive powers to follow a Path from the robot's current state.
+     *
+     * @param pose the robot's current pose.
+     * @param velocity the robot's current velocity, in the field frame.
+     * @param angularVelocity the robot's current angular velocity, in radians per second.
+     * @param path the Path being followed, with its closest point already updated.
+     * @param maxPower the maximum power of any wheel.
+     * @return returns the wheel powers, ordered left front, left back, right front, right back.
+     *         The array is reused by the next call.
+     */
+    public double[] getDrivePowers(Pose pose, Vector velocity, double angularVelocity, Path path, double maxPower) {
+        return getDrivePowers(pose, velocity, angularVelocity, path, null, 0, maxPower);
+    }
+
+    /**
+     * This computes the drive powers to follow a Path that is driven through into the next Path
+     * of a PathChain, as with chain lookahead, rather than stopping at its end.
+     *
+     * @param pose the robot's current pose.
+     * @param velocity the robot's current velocity, in the field frame.
+     * @param angularVelocity the robot's current angular velocity, in radians per second.
+     * @param path the Path being followed, with its closest point already updated.
+     * @param nextPath the Path the reference continues onto past the end of path, or null to stop at the end.
+     * @param followThroughLength the distance past the end of path before the robot must stop, in inches.
+     * @param maxPower the maximum power of any wheel.
+     * @return returns the wheel powers, ordered left front, left back, right front, right back.
+     *         The array is reused by the next call.
+     */
+    public double[] getDrivePowers(Pose pose, Vector velocity, double angularVelocity, Path path,
+                                   Path nextPath, double followThroughLength, double maxPower) {
+        long startTime = System.nanoTime();
+        long deadline = startTime + (long) (FollowerConstants.mpcComputeBudgetMilliseconds * 1e6);
+
+        if (!Double.isFinite(angularVelocity)) angularVelocity = 0;
+        buildReference(pose, velocity, path, nextPath, followThroughLength, maxPower);
+        buildQP(pose, velocity, angularVelocity);
+        solve(maxPower, deadline);
+
+        for (int i = 0; i < 4; i++) {
+            wheelPowers[i] = wheelMixing[i][0] * u[0] + wheelMixing[i][1] * u[1] + wheelMixing[i][2] * u[2];
+        }
+
+        lastSolveMilliseconds = (System.nanoTime() - startTime) / 1e6;
+        return wheelPowers;
+    }
+
+    /**
+     * This clears the warm start, for example when a new Path starts.
+     */
+    public void reset() {
+        for (int i = 0; i < size; i++) {
+            u[i] = 0;
+        }
+    }
+
+    /**
+     * This samples the reference states along the Path. The reference speed is limited by the
+     * maximum speed, the lateral acceleration the robot can hold through upcoming curvature, the
+     * deceleration available to stop at the end of the Path, or at the end of the follow through,
+     * and the acceleration from the current speed. Past the end of the Path, the reference
+     * continues onto the next Path, if there is one.
+     */
+    private void buildReference(Pose pose, Vector velocity, Path path, Path nextPath, double followThroughLength, double maxPower) {
+        double forwardAcceleration = Math.abs(FollowerConstants.forwardZeroPowerAcceleration);
+        double lateralAcceleration = Math.abs(FollowerConstants.lateralZeroPowerAcceleration);
+        double deceleration = forwardAcceleration * path.getZeroPowerAccelerationMultiplier();
+        double maxSpeed = FollowerConstants.mpcSpeedFraction * FollowerConstants.xMovement * maxPower;
+
+        double t = path.getClosestPointTValue();
+        double remaining = path.length() * (1 - t) + Math.max(0, followThroughLength);
+        Path referencePath = path;
+        double speed = Math.abs(MathFunctions.dotProduct(velocity, MathFunctions.normalizeVector(path.getClosestPointTangentVector())));
+        double heading = pose.getHeading();
+        referenceHeading[0] = heading;
+        for (int k = 1; k <= horizon; k++) {
+            double curvature = Math.abs(referencePath.getCurvature(t));
+            double targetSpeed = Math.min(maxSpeed, speed + forwardAcceleration * timeStep);
+            targetSpeed = Math.min(targetSpeed, Math.sqrt(2 * deceleration * Math.max(0, remaining)));
+            if (curvature > EPSILON) {
+                targetSpeed = Math.min(targetSpeed, Math.sqrt(lateralAcceleration / curvature));
+            }
+
+            double distance = Math.min(targetSpeed * timeStep, Math.max(0, remaining));
+            remaining -= distance;
+            double pathRemaining = referencePath.length() * (1 - t);
+            if (nextPath != null && referencePath != nextPath && distance > pathRemaining) {
+                distance -= pathRemaining;
+                referencePath = nextPath;
+                t = 0;
+            }
+
+            Vector tangent = referencePath.getTangentVector(t);
+            if (tangent.getMagnitude() > EPSILON) {
+                t = Math.min(1, t + distance / tangent.getMagnitude());
+            }
+
+            speed = targetSpeed;
+            Point point = referencePath.getPoint(t);
+            tangent = referencePath.getTangentVector(t);
+            double tangentMagnitude = Math.max(tangent.getMagnitude(), EPSILON);
+            double referenceSpeed = remaining > 0 ? targetSpeed : 0;
+
+            // Unwrap the heading goals so that heading errors never jump by a full turn.
+            heading += MathFunctions.getTurnDirection(heading, referencePath.getHeadingGoal(t))
+                    * MathFunctions.getSmallestAngleDifference(heading, referencePath.getHeadingGoal(t));
+            referenceHeading[k] = heading;
+
+            double[] state = reference[k];
+            state[0] = point.getX();
+            state[1] = point.getY();
+            state[2] = heading;
+            state[3] = tangent.getXComponent() / tangentMagnitude * referenceSpeed;
+            state[4] = tangent.getYComponent() / tangentMagnitude * referenceSpeed;
+            state[5] = (referenceHeading[k] - referenceHeading[k - 1]) / timeStep;
+        }
+    }
+
+    /**
+     * This condenses the tracking problem over the horizon into the QP
+     * minimize 1/2 U'HU + g'U, where U holds the inputs of every step.
+     */
+    private void buildQP(Pose pose, Vector velocity, double angularVelocity) {
+        double forwardGain = Math.abs(FollowerConstants.forwardZeroPowerAcceleration);
+        double lateralGain = Math.abs(FollowerConstants.lateralZeroPowerAcceleration);
+        double forwardDrag = forwardGain / FollowerConstants.xMovement;
+        double lateralDrag = lateralGain / FollowerConstants.yMovement;
+        double headingTimeConstant = FollowerConstants.mpcHeadingTimeConstant;
+        double turnGain = FollowerConstants.mpcMaxAngularVelocity / headingTimeConstant;
+
+        c[0] = pose.getX();
+        c[1] = pose.getY();
+        c[2] = pose.getHeading();
+        c[3] = velocity.getXComponent();
+        c[4] = velocity.getYComponent();
+        c[5] = angularVelocity;
+        for (int i = 0; i < STATES; i++) {
+            for (int j = 0; j < size; j++) {
+                s[i][j] = 0;
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            g[i] = 0;
+            for (int j = 0; j < size; j++) {
+                h[i][j] = 0;
+            }
+        }
+
+        for (int k = 0; k < horizon; k++) {
+            // Linearize about the reference heading of this step.
+            double cos = Math.cos(referenceHeading[k]);
+            double sin = Math.sin(referenceHeading[k]);
+            for (int i = 0; i < STATES; i++) {
+                for (int j = 0; j < STATES; j++) {
+                    a[i][j] = i == j ? 1 : 0;
+                }
+
+                for (int j = 0; j < INPUTS; j++) {
+                    b[i][j] = 0;
+                }
+            }
+
+            a[0][3] = timeStep;
+            a[1][4] = timeStep;
+            a[2][5] = timeStep;
+            a[3][3] -= timeStep * (forwardDrag * cos * cos + lateralDrag * sin * sin);
+            a[3][4] -= timeStep * (forwardDrag - lateralDrag) * cos * sin;
+            a[4][3] -= timeStep * (forwardDrag - lateralDrag) * cos * sin;
+            a[4][4] -= timeStep * (forwardDrag * sin * sin + lateralDrag * cos * cos);
+            a[5][5] -= timeStep / headingTimeConstant;
+            b[3][0] = timeStep * forwardGain * cos;
+            b[3][1] = -timeStep * lateralGain * sin;
+            b[4][0] = timeStep * forwardGain * sin;
+            b[4][1] = timeStep * lateralGain * cos;
+            b[5][2] = timeStep * turnGain;
+
+            // Propagate the free response c and the input response S.
+            for (int i = 0; i < STATES; i++) {
+                double sum = 0;
+                for (int j = 0; j < STATES; j++) {
+                    sum += a[i][j] * c[j];
+                }
+
+                cScratch[i] = sum;
+                for (int column = 0; column < k * INPUTS; column++) {
+                    sum = 0;
+                    for (int j = 0; j < STATES; j++) {
+                        sum += a[i][j] * s[j][column];
+                    }
+
+                    scratch[i][column] = sum;
+                }
+            }
+
+            for (int i = 0; i < STATES; i++) {
+                c[i] = cScratch[i];
+                System.arraycopy(scratch[i], 0, s[i], 0, k * INPUTS);
+                for (int j = 0; j < INPUTS; j++) {
+                    s[i][k * INPUTS + j] = b[i][j];
+                }
+            }
+
+            // Accumulate the weighted tracking error of the predicted state.
+            double terminal = k == horizon - 1 ? FollowerConstants.mpcTerminalWeight : 1;
+            weights[0] = weights[1] = FollowerConstants.mpcTranslationalWeight * terminal;
+            weights[2] = FollowerConstants.mpcHeadingWeight * terminal;
+            weights[3] = weights[4] = FollowerConstants.mpcVelocityWeight * terminal;
+            weights[5] = FollowerConstants.mpcAngularVelocityWeight * terminal;
+            int columns = (k + 1) * INPUTS;
+            for (int i = 0; i < STATES; i++) {
+                double error = c[i] - reference[k + 1][i];
+                for (int row = 0; row < columns; row++) {
+                    double weighted = weights[i] * s[i][row];
+                    if (weighted == 0) continue;
+                    g[row] += weighted * error;
+                    for (int column = 0; column < columns; column++) {
+                        h[row][column] += weighted * s[i][column];
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            h[i][i] += FollowerConstants.mpcInputWeight;
+        }
+    }
+
+    /**
+     * This solves the QP by accelerated projected gradient descent, within the wheel power limit
+     * of every step, until it converges or runs out of iterations or time.
+     */
+    private void solve(double maxPower, long deadline) {
+        // The largest absolute row sum bounds the largest eigenvalue of H.
+        double lipschitz = EPSILON;
+        for (int i = 0; i < size; i++) {
+            double rowSum = 0;
+            for (int j = 0; j < size; j++) {
+                rowSum += Math.abs(h[i][j]);
+            }
+
+            lipschitz = Math.max(lipschitz, rowSum);
+        }
+
+        // Warm start from the previous solution, shifted by one step.
+        System.arraycopy(u, INPUTS, u, 0, size - INPUTS);
+        for (int i = 0; i < size; i += INPUTS) {
+            project(u, i, maxPower);
+        }
+
+        System.arraycopy(u, 0, y, 0, size);
+        System.arraycopy(u, 0, uPrevious, 0, size);
+        double momentum = 1;
+        lastIterations = 0;
+        while (lastIterations < FollowerConstants.mpcMaxIterations) {
+            lastIterations++;
+            for (int i = 0; i < size; i++) {
+                double sum = g[i];
+                for (int j = 0; j < size; j++) {
+                    sum += h[i][j] * y[j];
+                }
+
+                gradient[i] = sum;
+            }
+
+            double change = 0;
+            for (int i = 0; i < size; i++) {
+                u[i] = y[i] - gradient[i] / lipschitz;
+            }
+
+            for (int i = 0; i < size; i += INPUTS) {
+                project(u, i, maxPower);
+            }
+
+            double nextMomentum = (1 + Math.sqrt(1 + 4 * momentum * momentum)) / 2;
+            double beta = (momentum - 1) / nextMomentum;
+            for (int i = 0; i < size; i++) {
+                change = Math.max(change, Math.abs(u[i] - uPrevious[i]));
+                y[i] = u[i] + beta * (u[i] - uPrevious[i]);
+                uPrevious[i] = u[i];
+            }
+
+            momentum = nextMomentum;
+            if (change < FollowerConstants.mpcTolerance || System.nanoTime() > deadline) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * This projects the inputs of one step onto |forward| + |strafe| + |turn| <= radius, which
+     * keeps every wheel power within the limit.
+     *
+     * @param values the inputs.
+     * @param offset the index of the step's forward input.
+     * @param radius the maximum wheel power.
+     */
+    private static void project(double[] values, int offset, double radius) {
+        double a0 = Math.abs(values[offset]);
+        double a1 = Math.abs(values[offset + 1]);
+        double a2 = Math.abs(values[offset + 2]);
+        if (a0 + a1 + a2 <= radius) return;
+
+        // Sort the magnitudes in descending order.
+        double first = Math.max(a0, Math.max(a1, a2));
+        double third = Math.min(a0, Math.min(a1, a2));
+        double second = a0 + a1 + a2 - first - third;
+        double threshold = first - radius;
+        if (second > (first + second - radius) / 2) {
+            threshold = (first + second - radius) / 2;
+            if (third > (first + second + third - radius) / 3) {
+                threshold = (first + second + third - radius) / 3;
+            }
+        }
+
+        for (int i = offset; i < offset + INPUTS; i++) {
+            values[i] = Math.signum(values[i]) * Math.max(Math.abs(values[i]) - threshold, 0);
+        }
+    }
+
+    /**
+     * @return returns the number of solver iterations of the last update.
+     */
+    public int getLastIterations() {
+        return lastIterations;
+    }
+
+    /**
+     * @return returns the time the last update took, in milliseconds.
+     */
+    public double getLastSolveMilliseconds() {
+        return lastSolveMilliseconds;
+    }
+}
@@ -103,6 +103,26 @@ public abstract class Localizer {
         return null;
     }
 
+    /**
+     * This returns whether the localizer measures the angular velocity directly. If it does,
+     * getAngularVelocity() returns the measurement, and the PoseUpdater uses it instead of
+     * differencing headings between updates.
+     *
+     * @return returns if the localizer measures the angular velocity
+     */
+    public boolean hasAngularVelocity() {
+        return false;
+    }
+
+    /**
+     * This is overridden to return the measured angular velocity, if hasAngularVelocity().
+     *
+     * @return returns the angular velocity in radians per second, counterclockwise positive
+     */
+    public double getAngularVelocity() {
+        return 0;
+    }
+
     /**
      * This returns whether if any component of robot's position is NaN.
      *
@@ -0,0 +1,115 @@
+package com.pedropathing.localization;
+
+/**
+ * This is the Matrix3 class. It is a fixed size 3x3 Matrix stored in primitive fields, meant for
+ * SE(2) math in the localizers. Unlike the Matrix class, none of the operations here allocate or
+ * copy, so they can run every loop without creating garbage. Vectors are double arrays of length 3,
+ * ordered x, y, heading.
+ *
+ * @version 1.0, 10/19/2026
+ */
+public final class Matrix3 {
+    public double m00, m01, m02;
+    public double m10, m11, m12;
+    public double m20, m21, m22;
+
+    /**
+     * This creates a new Matrix3 set to the identity Matrix.
+     */
+    public Matrix3() {
+        setIdentity();
+    }
+
+    /**
+     * This sets this Matrix3 to the identity Matrix.
+     *
+     * @return returns this Matrix3
+     */
+    public Matrix3 setIdentity() {
+        m00 = 1; m01 = 0; m02 = 0;
+        m10 = 0; m11 = 1; m12 = 0;
+        m20 = 0; m21 = 0; m22 = 1;
+        return this;
+    }
+
+    /**
+     * This sets this Matrix3 to a rotation about the heading axis, which leaves the heading
+     * component of a vector unchanged.
+     *
+     * @param heading the rotation, in radians
+     * @return returns this Matrix3
+     */
+    public Matrix3 setRotation(double heading) {
+        double cos = Math.cos(heading);
+        double sin = Math.sin(heading);
+        m00 = cos; m01 = -sin; m02 = 0;
+        m10 = sin; m11 = cos; m12 = 0;
+        m20 = 0; m21 = 0; m22 = 1;
+        return this;
+    }
+
+    /**
+     * This sets this Matrix3 to the SE(2) exponential map for a constant curvature arc that turns
+     * by the specified angle. Multiplying robot relative deltas by it gives the chord of the arc,
+     * still in the robot's starting frame. A Taylor expansion is used near zero to avoid dividing
+     * by a tiny angle.
+     *
+     * @param deltaHeading the change in heading over the arc, in radians
+     * @return returns this Matrix3
+     */
+    public Matrix3 setPoseExponential(double deltaHeading) {
+        double sinTerm;
+        double cosTerm;
+        if (Math.abs(deltaHeading) < 0.001) {
+            double squared = deltaHeading * deltaHeading;
+            sinTerm = 1.0 - squared / 6.0;
+            cosTerm = deltaHeading / 2.0 - deltaHeading * squared / 24.0;
+        } else {
+            sinTerm = Math.sin(deltaHeading) / deltaHeading;
+            cosTerm = (1.0 - Math.cos(deltaHeading)) / deltaHeading;
+        }
+
+        m00 = sinTerm; m01 = -cosTerm; m02 = 0;
+        m10 = cosTerm; m11 = sinTerm; m12 = 0;
+        m20 = 0; m21 = 0; m22 = 1;
+        return this;
+    }
+
+    /**
+     * This sets this Matrix3 to the product of two Matrix3s. Either input can be this Matrix3.
+     *
+     * @param one the left Matrix3
+     * @param two the right Matrix3
+     * @return returns this Matrix3
+     */
+    public Matrix3 multiply(Matrix3 one, Matrix3 two) {
+        double r00 = one.m00 * two.m00 + one.m01 * two.m10 + one.m02 * two.m20;
+        double r01 = one.m00 * two.m01 + one.m01 * two.m11 + one.m02 * two.m21;
+        double r02 = one.m00 * two.m02 + one.m01 * two.m12 + one.m02 * two.m22;
+        double r10 = one.m10 * two.m00 + one.m11 * two.m10 + one.m12 * two.m20;
+        double r11 = one.m10 * two.m01 + one.m11 * two.m11 + one.m12 * two.m21;
+        double r12 = one.m10 * two.m02 + one.m11 * two.m12 + one.m12 * two.m22;
+        double r20 = one.m20 * two.m00 + one.m21 * two.m10 + one.m22 * two.m20;
+        double r21 = one.m20 * two.m01 + one.m21 * two.m11 + one.m22 * two.m21;
+        double r22 = one.m20 * two.m02 + one.m21 * two.m12 + one.m22 * two.m22;
+        m00 = r00; m01 = r01; m02 = r02;
+        m10 = r10; m11 = r11; m12 = r12;
+        m20 = r20; m21 = r21; m22 = r22;
+        return this;
+    }
+
+    /**
+     * This multiplies a vector by this Matrix3. The input and output can be the same array.
+     *
+     * @param input the vector to multiply, of length 3
+     * @param output the array to write the result to, of length 3
+     */
+    public void transform(double[] input, double[] output) {
+        double x = input[0];
+        double y = input[1];
+        double z = input[2];
+        output[0] = m00 * x + m01 * y + m02 * z;
+        output[1] = m10 * x + m11 * y + m12 * z;
+        output[2] = m20 * x + m21 * y + m22 * z;
+    }
+}
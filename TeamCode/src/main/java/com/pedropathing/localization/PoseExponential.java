@@ -0,0 +1,29 @@
+package com.pedropathing.localization;
+
+/**
+ * This is the PoseExponential class. It integrates robot relative odometry deltas into global
+ * deltas, assuming the robot moved along a constant curvature arc since the last update. This is
+ * more accurate at speed than assuming the robot moved in a straight line. It owns its scratch
+ * Matrix3s, so integrating never allocates.
+ *
+ * @version 1.0, 10/19/2026
+ */
+public final class PoseExponential {
+    private final Matrix3 rotation = new Matrix3();
+    private final Matrix3 transformation = new Matrix3();
+
+    /**
+     * This converts robot relative deltas into global deltas.
+     *
+     * @param heading the robot heading at the start of the arc, in radians
+     * @param robotDeltas the robot relative forward, strafe and turn deltas, of length 3
+     * @param globalDeltas the array to write the global x, y and heading deltas to, of length 3.
+     *                     This can be the same array as robotDeltas
+     */
+    public void integrate(double heading, double[] robotDeltas, double[] globalDeltas) {
+        rotation.setRotation(heading);
+        transformation.setPoseExponential(robotDeltas[2]);
+        transformation.multiply(rotation, transformation);
+        transformation.transform(robotDeltas, globalDeltas);
+    }
+}
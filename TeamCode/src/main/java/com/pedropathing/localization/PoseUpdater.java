@@ -6,6 +6,8 @@ import com.qualcomm.robotcore.hardware.HardwareMap;
 import com.qualcomm.robotcore.hardware.IMU;
 import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
 import com.pedropathing.localization.localizers.DriveEncoderLocalizer;
+import com.pedropathing.localization.localizers.OTOSLocalizer;
+import com.pedropathing.localization.localizers.OctoQuadLocalizer;
 import com.pedropathing.localization.localizers.PinpointLocalizer;
 import com.pedropathing.localization.localizers.ThreeWheelIMULocalizer;
 import com.pedropathing.localization.localizers.ThreeWheelLocalizer;
@@ -36,11 +38,15 @@ public class PoseUpdater {
 
     private Pose previousPose = startingPose;
 
-    private Vector currentVelocity = new Vector();
+    private final Vector currentVelocity = new Vector();
 
-    private Vector previousVelocity = new Vector();
+    private final Vector previousVelocity = new Vector();
 
-    private Vector currentAcceleration = new Vector();
+    private final Vector currentAcceleration = new Vector();
+
+    private boolean velocityUpdated = false;
+
+    private boolean accelerationUpdated = false;
 
     private double xOffset = 0;
     private double yOffset = 0;
@@ -123,8 +129,12 @@ public class PoseUpdater {
                 return new ThreeWheelLocalizer(hardwareMap);
             case THREE_WHEEL_IMU:
                 return new ThreeWheelIMULocalizer(hardwareMap);
+            case OTOS:
+                return new OTOSLocalizer(hardwareMap);
             case PINPOINT:
                 return new PinpointLocalizer(hardwareMap);
+            case OCTOQUAD:
+                return new OctoQuadLocalizer(hardwareMap);
             default:
                 throw new IllegalArgumentException("Unsupported localizer type");
         }
@@ -137,11 +147,12 @@ public class PoseUpdater {
      * the time stamps are updated as well.
      */
     public void update() {
-        previousVelocity = getVelocity();
+        Vector velocity = getVelocity();
+        previousVelocity.setOrthogonalComponents(velocity.getXComponent(), velocity.getYComponent());
         previousPose = applyOffset(getRawPose());
         currentPose = null;
-        currentVelocity = null;
-        currentAcceleration = null;
+        velocityUpdated = false;
+        accelerationUpdated = false;
         previousPoseTime = currentPoseTime;
         currentPoseTime = System.nanoTime();
         localizer.update();
@@ -314,20 +325,19 @@ public class PoseUpdater {
     /**
      * This returns the velocity of the robot as a Vector. If this is called multiple times in
      * a single update, the velocity Vector is cached so that subsequent calls don't have to repeat
-     * localizer calls or calculations.
+     * localizer calls or calculations. The cached Vector itself is returned and is overwritten by
+     * the next update, so it must not be modified, and should be copied to be kept.
      *
      * @return returns the velocity of the robot.
      */
     public Vector getVelocity() {
-        if (currentVelocity == null) {
-//            currentVelocity = new Vector();
-//            currentVelocity.setOrthogonalComponents(getPose().getX() - previousPose.getX(), getPose().getY() - previousPose.getY());
-//            currentVelocity.setMagnitude(MathFunctions.distance(getPose(), previousPose) / ((currentPoseTime - previousPoseTime) / Math.pow(10.0, 9)));
-            currentVelocity = localizer.getVelocityVector();
-            return MathFunctions.copyVector(currentVelocity);
-        } else {
-            return MathFunctions.copyVector(currentVelocity);
+        if (!velocityUpdated) {
+            Vector velocity = localizer.getVelocityVector();
+            currentVelocity.setOrthogonalComponents(velocity.getXComponent(), velocity.getYComponent());
+            velocityUpdated = true;
         }
+
+        return currentVelocity;
     }
 
     /**
@@ -336,24 +346,31 @@ public class PoseUpdater {
      * @return returns the angular velocity of the robot.
      */
     public double getAngularVelocity() {
+        if (localizer.hasAngularVelocity()) {
+            return localizer.getAngularVelocity();
+        }
+
         return MathFunctions.getTurnDirection(previousPose.getHeading(), getPose().getHeading()) * MathFunctions.getSmallestAngleDifference(getPose().getHeading(), previousPose.getHeading()) / ((currentPoseTime-previousPoseTime)/Math.pow(10.0, 9));
     }
 
     /**
      * This returns the acceleration of the robot as a Vector. If this is called multiple times in
      * a single update, the acceleration Vector is cached so that subsequent calls don't have to
-     * repeat localizer calls or calculations.
+     * repeat localizer calls or calculations. The cached Vector itself is returned and is
+     * overwritten by the next update, so it must not be modified, and should be copied to be kept.
      *
      * @return returns the acceleration of the robot.
      */
     public Vector getAcceleration() {
-        if (currentAcceleration == null) {
-            currentAcceleration = MathFunctions.subtractVectors(getVelocity(), previousVelocity);
-            currentAcceleration.setMagnitude(currentAcceleration.getMagnitude() / ((currentPoseTime - previousPoseTime) / Math.pow(10.0, 9)));
-            return MathFunctions.copyVector(currentAcceleration);
-        } else {
-            return MathFunctions.copyVector(currentAcceleration);
+        if (!accelerationUpdated) {
+            Vector velocity = getVelocity();
+            double seconds = (currentPoseTime - previousPoseTime) / Math.pow(10.0, 9);
+            currentAcceleration.setOrthogonalComponents((velocity.getXComponent() - previousVelocity.getXComponent()) / seconds,
+                    (velocity.getYComponent() - previousVelocity.getYComponent()) / seconds);
+            accelerationUpdated = true;
         }
+
+        return currentAcceleration;
     }
 
     /**
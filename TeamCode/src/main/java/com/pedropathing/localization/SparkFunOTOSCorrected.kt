@@ -29,6 +29,30 @@ public class SparkFunOTOSCorrected(deviceClient: I2cDeviceSynch) : SparkFunOTOS(
         vel.set(regsToPose(Arrays.copyOfRange(rawData, 6, 12), INT16_TO_MPS, INT16_TO_RPS))
     }
 
+    /**
+     * Gets the position and velocity measured by the OTOS in a single burst read,
+     * decoded straight into a caller owned array, without intermediate copies or poses
+     * @param posVel Receives x, y, h, x velocity, y velocity and h velocity,
+     * in the configured units
+     */
+    fun getPosVel(posVel: DoubleArray) {
+        // Read all pose registers
+        val rawData = deviceClient.read(REG_POS_XL.toInt(), 12)
+
+        // Convert raw data to pose units in place
+        posVel[0] = _distanceUnit.fromMeters(regToInt16(rawData, 0) * INT16_TO_METER)
+        posVel[1] = _distanceUnit.fromMeters(regToInt16(rawData, 2) * INT16_TO_METER)
+        posVel[2] = _angularUnit.fromRadians(regToInt16(rawData, 4) * INT16_TO_RAD)
+        posVel[3] = _distanceUnit.fromMeters(regToInt16(rawData, 6) * INT16_TO_MPS)
+        posVel[4] = _distanceUnit.fromMeters(regToInt16(rawData, 8) * INT16_TO_MPS)
+        posVel[5] = _angularUnit.fromRadians(regToInt16(rawData, 10) * INT16_TO_RPS)
+    }
+
+    // Registers are little endian signed 16 bit values
+    private fun regToInt16(rawData: ByteArray, index: Int): Int {
+        return ((rawData[index + 1].toInt() shl 8) or (rawData[index].toInt() and 0xFF)).toShort().toInt()
+    }
+
     // Modified version of poseToRegs to fix pose setting issue
     // see https://discord.com/channels/225450307654647808/1246977443030368349/1271702497659977760
     override fun poseToRegs(rawData: ByteArray, pose: Pose2D, xyToRaw: Double, hToRaw: Double) {
@@ -0,0 +1,70 @@
+package com.pedropathing.localization.constants;
+
+import com.acmerobotics.dashboard.config.Config;
+import com.qualcomm.hardware.digitalchickenlabs.OctoQuad;
+
+/**
+ * This is the OctoQuadConstants class. It holds many constants and parameters for the OctoQuad Localizer.
+ * @version 1.0, 10/19/2026
+ */
+
+@Config
+public class OctoQuadConstants {
+
+    /** The name of the OctoQuad in the hardware map
+     * Default Value: "octoquad" */
+    public static String hardwareMapName = "octoquad";
+
+    /** The OctoQuad channel of the left Encoder (Deadwheel)
+     * Default Value: 0 */
+    public static int leftChannel = 0;
+
+    /** The OctoQuad channel of the right Encoder (Deadwheel)
+     * Default Value: 1 */
+    public static int rightChannel = 1;
+
+    /** The OctoQuad channel of the strafe Encoder (Deadwheel)
+     * Default Value: 2 */
+    public static int strafeChannel = 2;
+
+    /** The direction of the left Encoder, so that forward movement increases its count
+     * Default Value: OctoQuad.EncoderDirection.REVERSE */
+    public static OctoQuad.EncoderDirection leftEncoderDirection = OctoQuad.EncoderDirection.REVERSE;
+
+    /** The direction of the right Encoder, so that forward movement increases its count
+     * Default Value: OctoQuad.EncoderDirection.FORWARD */
+    public static OctoQuad.EncoderDirection rightEncoderDirection = OctoQuad.EncoderDirection.FORWARD;
+
+    /** The direction of the strafe Encoder, so that leftward movement increases its count
+     * Default Value: OctoQuad.EncoderDirection.FORWARD */
+    public static OctoQuad.EncoderDirection strafeEncoderDirection = OctoQuad.EncoderDirection.FORWARD;
+
+    /** The Y Offset of the left Encoder from the center of the robot, in inches
+     * Default Value: 1 */
+    public static double leftY = 1;
+
+    /** The Y Offset of the right Encoder from the center of the robot, in inches
+     * Default Value: -1 */
+    public static double rightY = -1;
+
+    /** The X Offset of the strafe Encoder from the center of the robot, in inches
+     * Default Value: -2.5 */
+    public static double strafeX = -2.5;
+
+    /** Forward ticks to inches multiplier
+     * Default Value: .001989436789 */
+    public static double forwardTicksToInches = .001989436789;
+
+    /** Strafe ticks to inches multiplier
+     * Default Value: .001989436789 */
+    public static double strafeTicksToInches = .001989436789;
+
+    /** Turn ticks to inches multiplier
+     * Default Value: .001989436789 */
+    public static double turnTicksToInches = .001989436789;
+
+    /** The time over which the OctoQuad measures each velocity sample, in milliseconds.
+     * Shorter intervals respond faster but are noisier at low speeds.
+     * Default Value: 10 */
+    public static int velocitySampleIntervalMs = 10;
+}
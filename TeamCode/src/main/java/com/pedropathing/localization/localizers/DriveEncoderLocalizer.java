@@ -13,8 +13,8 @@ import com.qualcomm.robotcore.hardware.HardwareMap;
 
 import com.pedropathing.localization.Encoder;
 import com.pedropathing.localization.Localizer;
-import com.pedropathing.localization.Matrix;
 import com.pedropathing.localization.Pose;
+import com.pedropathing.localization.PoseExponential;
 import com.pedropathing.pathgen.MathFunctions;
 import com.pedropathing.pathgen.Vector;
 import com.pedropathing.util.NanoTimer;
@@ -32,7 +32,9 @@ public class DriveEncoderLocalizer extends Localizer {
     private Pose startPose;
     private Pose displacementPose;
     private Pose currentVelocity;
-    private Matrix prevRotationMatrix;
+    private final PoseExponential poseExponential = new PoseExponential();
+    private final double[] robotDeltas = new double[3];
+    private final double[] globalDeltas = new double[3];
     private NanoTimer timer;
     private long deltaTimeNano;
     private Encoder leftFront;
@@ -131,20 +133,6 @@ public class DriveEncoderLocalizer extends Localizer {
         startPose = setStart;
     }
 
-    /**
-     * This sets the Matrix that contains the previous pose's heading rotation.
-     *
-     * @param heading the rotation of the Matrix
-     */
-    public void setPrevRotationMatrix(double heading) {
-        prevRotationMatrix = new Matrix(3,3);
-        prevRotationMatrix.set(0, 0, Math.cos(heading));
-        prevRotationMatrix.set(0, 1, -Math.sin(heading));
-        prevRotationMatrix.set(1, 0, Math.sin(heading));
-        prevRotationMatrix.set(1, 1, Math.cos(heading));
-        prevRotationMatrix.set(2, 2, 1.0);
-    }
-
     /**
      * This sets the current pose estimate. Changing this should just change the robot's current
      * pose estimate, not anything to do with the start pose.
@@ -168,31 +156,19 @@ public class DriveEncoderLocalizer extends Localizer {
         timer.resetTimer();
 
         updateEncoders();
-        Matrix robotDeltas = getRobotDeltas();
-        Matrix globalDeltas;
-        setPrevRotationMatrix(getPose().getHeading());
-
-        Matrix transformation = new Matrix(3,3);
-        if (Math.abs(robotDeltas.get(2, 0)) < 0.001) {
-            transformation.set(0, 0, 1.0 - (Math.pow(robotDeltas.get(2, 0), 2) / 6.0));
-            transformation.set(0, 1, -robotDeltas.get(2, 0) / 2.0);
-            transformation.set(1, 0, robotDeltas.get(2, 0) / 2.0);
-            transformation.set(1, 1, 1.0 - (Math.pow(robotDeltas.get(2, 0), 2) / 6.0));
-            transformation.set(2, 2, 1.0);
-        } else {
-            transformation.set(0, 0, Math.sin(robotDeltas.get(2, 0)) / robotDeltas.get(2, 0));
-            transformation.set(0, 1, (Math.cos(robotDeltas.get(2, 0)) - 1.0) / robotDeltas.get(2, 0));
-            transformation.set(1, 0, (1.0 - Math.cos(robotDeltas.get(2, 0))) / robotDeltas.get(2, 0));
-            transformation.set(1, 1, Math.sin(robotDeltas.get(2, 0)) / robotDeltas.get(2, 0));
-            transformation.set(2, 2, 1.0);
-        }
-
-        globalDeltas = Matrix.multiply(Matrix.multiply(prevRotationMatrix, transformation), robotDeltas);
-
-        displacementPose.add(new Pose(globalDeltas.get(0, 0), globalDeltas.get(1, 0), globalDeltas.get(2, 0)));
-        currentVelocity = new Pose(globalDeltas.get(0, 0) / (deltaTimeNano / Math.pow(10.0, 9)), globalDeltas.get(1, 0) / (deltaTimeNano / Math.pow(10.0, 9)), globalDeltas.get(2, 0) / (deltaTimeNano / Math.pow(10.0, 9)));
-
-        totalHeading += globalDeltas.get(2, 0);
+        getRobotDeltas(robotDeltas);
+        poseExponential.integrate(startPose.getHeading() + displacementPose.getHeading(), robotDeltas, globalDeltas);
+
+        displacementPose.setX(displacementPose.getX() + globalDeltas[0]);
+        displacementPose.setY(displacementPose.getY() + globalDeltas[1]);
+        displacementPose.setHeading(displacementPose.getHeading() + globalDeltas[2]);
+
+        double deltaTimeSeconds = deltaTimeNano / 1e9;
+        currentVelocity.setX(globalDeltas[0] / deltaTimeSeconds);
+        currentVelocity.setY(globalDeltas[1] / deltaTimeSeconds);
+        currentVelocity.setHeading(globalDeltas[2] / deltaTimeSeconds);
+
+        totalHeading += globalDeltas[2];
     }
 
     /**
@@ -219,17 +195,15 @@ public class DriveEncoderLocalizer extends Localizer {
      * This calculates the change in position from the perspective of the robot using information
      * from the Encoders.
      *
-     * @return returns a Matrix containing the robot relative movement.
+     * @param deltas the array to write the robot relative forward, strafe and turn movement to
      */
-    public Matrix getRobotDeltas() {
-        Matrix returnMatrix = new Matrix(3,1);
+    public void getRobotDeltas(double[] deltas) {
         // x/forward movement
-        returnMatrix.set(0,0, FORWARD_TICKS_TO_INCHES * (leftFront.getDeltaPosition() + rightFront.getDeltaPosition() + leftRear.getDeltaPosition() + rightRear.getDeltaPosition()));
+        deltas[0] = FORWARD_TICKS_TO_INCHES * (leftFront.getDeltaPosition() + rightFront.getDeltaPosition() + leftRear.getDeltaPosition() + rightRear.getDeltaPosition());
         //y/strafe movement
-        returnMatrix.set(1,0, STRAFE_TICKS_TO_INCHES * (-leftFront.getDeltaPosition() + rightFront.getDeltaPosition() + leftRear.getDeltaPosition() - rightRear.getDeltaPosition()));
+        deltas[1] = STRAFE_TICKS_TO_INCHES * (-leftFront.getDeltaPosition() + rightFront.getDeltaPosition() + leftRear.getDeltaPosition() - rightRear.getDeltaPosition());
         // theta/turning
-        returnMatrix.set(2,0, TURN_TICKS_TO_RADIANS * ((-leftFront.getDeltaPosition() + rightFront.getDeltaPosition() - leftRear.getDeltaPosition() + rightRear.getDeltaPosition()) / (ROBOT_WIDTH + ROBOT_LENGTH)));
-        return returnMatrix;
+        deltas[2] = TURN_TICKS_TO_RADIANS * ((-leftFront.getDeltaPosition() + rightFront.getDeltaPosition() - leftRear.getDeltaPosition() + rightRear.getDeltaPosition()) / (ROBOT_WIDTH + ROBOT_LENGTH));
     }
 
     /**
@@ -0,0 +1,288 @@
+package com.pedropathing.localization.localizers;
+
+import static com.pedropathing.localization.constants.OTOSConstants.*;
+
+import com.pedropathing.localization.Localizer;
+import com.pedropathing.localization.Pose;
+import com.pedropathing.localization.SparkFunOTOSCorrected;
+import com.pedropathing.pathgen.MathFunctions;
+import com.pedropathing.pathgen.Vector;
+import com.qualcomm.hardware.sparkfun.SparkFunOTOS;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+/**
+ * This is the OTOSLocalizer class. This class extends the Localizer superclass and is a
+ * localizer that uses the SparkFun OTOS. The diagram below, which is modified from
+ * Road Runner, shows a typical set up.
+ *
+ * The view is from the top of the robot looking downwards.
+ *
+ * left on robot is the y positive direction
+ *
+ * forward on robot is the x positive direction
+ *
+ *    /--------------\
+ *    |     ____     |
+ *    |     ----     |
+ *    | ||           |
+ *    | ||           |  ----> left (y positive)
+ *    |              |
+ *    |              |
+ *    \--------------/
+ *           |
+ *           |
+ *           V
+ *    forward (x positive)
+ *
+ * The OTOS applies the offset and the linear and angular scalars itself. Position and
+ * velocity are read in a single burst, decoded into a preallocated buffer and moved into
+ * the field frame in place, so an update allocates no poses. The velocity is the one the
+ * sensor measures, so the Follower doesn't have to difference poses.
+ * Enable useCorrectedOTOSClass for the single burst read; the stock driver reads
+ * position, velocity and acceleration instead.
+ *
+ * @version 1.0, 10/19/2026
+ */
+public class OTOSLocalizer extends Localizer {
+    private HardwareMap hardwareMap;
+    private SparkFunOTOS otos;
+    private SparkFunOTOSCorrected otosCorrected;
+    private Pose startPose;
+    private double previousHeading;
+    private double totalHeading;
+
+    // Sensor readings in sensor units: x, y, h, x velocity, y velocity, h velocity.
+    private final double[] posVel = new double[6];
+    private final SparkFunOTOS.Pose2D otosPose = new SparkFunOTOS.Pose2D();
+    private final SparkFunOTOS.Pose2D otosVel = new SparkFunOTOS.Pose2D();
+    private final SparkFunOTOS.Pose2D otosAcc = new SparkFunOTOS.Pose2D();
+
+    // Field frame estimate, in inches and radians.
+    private double x, y, heading;
+    private double xVelocity, yVelocity, angularVelocity;
+
+    /**
+     * This creates a new OTOSLocalizer from a HardwareMap, with a starting Pose at (0,0)
+     * facing 0 heading.
+     *
+     * @param map the HardwareMap
+     */
+    public OTOSLocalizer(HardwareMap map) {
+        this(map, new Pose());
+    }
+
+    /**
+     * This creates a new OTOSLocalizer from a HardwareMap and a Pose, with the Pose
+     * specifying the starting pose of the localizer.
+     *
+     * @param map the HardwareMap
+     * @param setStartPose the Pose to start from
+     */
+    public OTOSLocalizer(HardwareMap map, Pose setStartPose) {
+        hardwareMap = map;
+
+        if (useCorrectedOTOSClass) {
+            otosCorrected = hardwareMap.get(SparkFunOTOSCorrected.class, hardwareMapName);
+            otos = otosCorrected;
+        } else {
+            otos = hardwareMap.get(SparkFunOTOS.class, hardwareMapName);
+        }
+
+        otos.setLinearUnit(linearUnit);
+        otos.setAngularUnit(angleUnit);
+        otos.setOffset(offset);
+        otos.setLinearScalar(linearScalar);
+        otos.setAngularScalar(angularScalar);
+        otos.calibrateImu();
+        otos.resetTracking();
+
+        startPose = new Pose();
+        setStartPose(setStartPose);
+        totalHeading = 0;
+    }
+
+    /**
+     * This returns the current pose estimate.
+     *
+     * @return returns the current pose estimate as a Pose
+     */
+    @Override
+    public Pose getPose() {
+        return new Pose(x, y, heading);
+    }
+
+    /**
+     * This returns the current velocity estimate.
+     *
+     * @return returns the current velocity estimate as a Pose
+     */
+    @Override
+    public Pose getVelocity() {
+        return new Pose(xVelocity, yVelocity, angularVelocity);
+    }
+
+    /**
+     * This returns the current velocity estimate.
+     *
+     * @return returns the current velocity estimate as a Vector
+     */
+    @Override
+    public Vector getVelocityVector() {
+        Vector velocity = new Vector();
+        velocity.setOrthogonalComponents(xVelocity, yVelocity);
+        return velocity;
+    }
+
+    /**
+     * This returns true, since the OTOS measures the angular velocity.
+     *
+     * @return returns true
+     */
+    @Override
+    public boolean hasAngularVelocity() {
+        return true;
+    }
+
+    /**
+     * This returns the angular velocity measured by the OTOS. Unlike the heading of
+     * getVelocity(), this isn't normalized, so turning clockwise is negative.
+     *
+     * @return returns the angular velocity in radians per second
+     */
+    @Override
+    public double getAngularVelocity() {
+        return angularVelocity;
+    }
+
+    /**
+     * This sets the start pose. Changing the start pose should move the robot as if all its
+     * previous movements were displacing it from its new start pose.
+     *
+     * @param setStart the new start pose
+     */
+    @Override
+    public void setStartPose(Pose setStart) {
+        startPose = setStart;
+        toFieldFrame();
+        previousHeading = heading;
+    }
+
+    /**
+     * This sets the current pose estimate. Changing this should just change the robot's current
+     * pose estimate, not anything to do with the start pose.
+     *
+     * @param setPose the new current pose estimate
+     */
+    @Override
+    public void setPose(Pose setPose) {
+        Pose setOTOSPose = MathFunctions.rotatePose(MathFunctions.subtractPoses(setPose, startPose), -startPose.getHeading(), false);
+        otos.setPosition(new SparkFunOTOS.Pose2D(linearUnit.fromInches(setOTOSPose.getX()),
+                linearUnit.fromInches(setOTOSPose.getY()), angleUnit.fromRadians(setOTOSPose.getHeading())));
+        posVel[0] = linearUnit.fromInches(setOTOSPose.getX());
+        posVel[1] = linearUnit.fromInches(setOTOSPose.getY());
+        posVel[2] = angleUnit.fromRadians(setOTOSPose.getHeading());
+        toFieldFrame();
+        previousHeading = heading;
+    }
+
+    /**
+     * This reads the OTOS and updates the pose and velocity estimates.
+     */
+    @Override
+    public void update() {
+        if (otosCorrected != null) {
+            otosCorrected.getPosVel(posVel);
+        } else {
+            otos.getPosVelAcc(otosPose, otosVel, otosAcc);
+            posVel[0] = otosPose.x;
+            posVel[1] = otosPose.y;
+            posVel[2] = otosPose.h;
+            posVel[3] = otosVel.x;
+            posVel[4] = otosVel.y;
+            posVel[5] = otosVel.h;
+        }
+
+        toFieldFrame();
+        totalHeading += MathFunctions.getSmallestAngleDifference(heading, previousHeading)
+                * MathFunctions.getTurnDirection(previousHeading, heading);
+        previousHeading = heading;
+    }
+
+    /**
+     * This converts the sensor readings to inches and radians and rotates them from the
+     * OTOS frame into the field frame, in place.
+     */
+    private void toFieldFrame() {
+        double cos = Math.cos(startPose.getHeading());
+        double sin = Math.sin(startPose.getHeading());
+        double otosX = linearUnit.toInches(posVel[0]);
+        double otosY = linearUnit.toInches(posVel[1]);
+        x = startPose.getX() + otosX * cos - otosY * sin;
+        y = startPose.getY() + otosX * sin + otosY * cos;
+        heading = MathFunctions.normalizeAngle(startPose.getHeading() + angleUnit.toRadians(posVel[2]));
+        double otosXVelocity = linearUnit.toInches(posVel[3]);
+        double otosYVelocity = linearUnit.toInches(posVel[4]);
+        xVelocity = otosXVelocity * cos - otosYVelocity * sin;
+        yVelocity = otosXVelocity * sin + otosYVelocity * cos;
+        angularVelocity = angleUnit.toRadians(posVel[5]);
+    }
+
+    /**
+     * This returns how far the robot has turned in radians, in a number not clamped between 0 and
+     * 2 * pi radians. This is used for some tuning things and nothing actually within the following.
+     *
+     * @return returns how far the robot has turned in total, in radians.
+     */
+    @Override
+    public double getTotalHeading() {
+        return totalHeading;
+    }
+
+    /**
+     * This returns the linear scalar, as none of the odometry tuners are required for this localizer
+     *
+     * @return returns the linear scalar
+     */
+    @Override
+    public double getForwardMultiplier() {
+        return otos.getLinearScalar();
+    }
+
+    /**
+     * This returns the linear scalar, as none of the odometry tuners are required for this localizer
+     *
+     * @return returns the linear scalar
+     */
+    @Override
+    public double getLateralMultiplier() {
+        return otos.getLinearScalar();
+    }
+
+    /**
+     * This returns the angular scalar, as none of the odometry tuners are required for this localizer
+     *
+     * @return returns the angular scalar
+     */
+    @Override
+    public double getTurningMultiplier() {
+        return otos.getAngularScalar();
+    }
+
+    /**
+     * This recalibrates the OTOS IMU. Does not change heading estimation.
+     */
+    @Override
+    public void resetIMU() {
+        otos.calibrateImu();
+    }
+
+    /**
+     * This returns whether if any component of robot's position is NaN.
+     *
+     * @return returns whether the robot's position is NaN
+     */
+    @Override
+    public boolean isNAN() {
+        return Double.isNaN(x) || Double.isNaN(y) || Double.isNaN(heading);
+    }
+}
@@ -0,0 +1,285 @@
+package com.pedropathing.localization.localizers;
+
+import static com.pedropathing.localization.constants.OctoQuadConstants.*;
+
+import com.pedropathing.localization.Localizer;
+import com.pedropathing.localization.Pose;
+import com.pedropathing.localization.PoseExponential;
+import com.pedropathing.pathgen.MathFunctions;
+import com.pedropathing.pathgen.Vector;
+import com.qualcomm.hardware.digitalchickenlabs.OctoQuad;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+/**
+ * This is the OctoQuadLocalizer class. This class extends the Localizer superclass and is a
+ * localizer that uses the three wheel odometry set up, with the dead wheels plugged into an
+ * OctoQuad instead of motor ports. The diagram below, which is modified from Road Runner,
+ * shows a typical set up.
+ *
+ * The view is from the top of the robot looking downwards.
+ *
+ * left on robot is the y positive direction
+ *
+ * forward on robot is the x positive direction
+ *
+ *                         forward (x positive)
+ *                                △
+ *                                |
+ *                                |
+ *                         /--------------\
+ *                         |              |
+ *                         |              |
+ *                         | ||        || |
+ *  left (y positive) <--- | ||        || |
+ *                         |     ____     |
+ *                         |     ----     |
+ *                         \--------------/
+ *
+ * Every update reads all encoder positions and velocities in a single I2C transaction, into
+ * a reused EncoderDataBlock, independent of hub bulk reads. Positions are integrated with the
+ * pose exponential, and the velocity comes from the OctoQuad's own velocity measurement, so
+ * neither allocates nor depends on the loop time.
+ *
+ * @version 1.0, 10/19/2026
+ */
+public class OctoQuadLocalizer extends Localizer {
+    private HardwareMap hardwareMap;
+    private OctoQuad octoQuad;
+    private final OctoQuad.EncoderDataBlock encoderDataBlock = new OctoQuad.EncoderDataBlock();
+    private Pose startPose;
+    private Pose displacementPose;
+    private Pose currentVelocity;
+    private final PoseExponential poseExponential = new PoseExponential();
+    private final double[] robotDeltas = new double[3];
+    private final double[] globalDeltas = new double[3];
+    private final double[] robotVelocity = new double[3];
+    private int previousLeft, previousRight, previousStrafe;
+    private boolean hasPreviousPositions;
+    private double velocitySamplesPerSecond;
+    private double totalHeading;
+    public static double FORWARD_TICKS_TO_INCHES;
+    public static double STRAFE_TICKS_TO_INCHES;
+    public static double TURN_TICKS_TO_RADIANS;
+
+    /**
+     * This creates a new OctoQuadLocalizer from a HardwareMap, with a starting Pose at (0,0)
+     * facing 0 heading.
+     *
+     * @param map the HardwareMap
+     */
+    public OctoQuadLocalizer(HardwareMap map) {
+        this(map, new Pose());
+    }
+
+    /**
+     * This creates a new OctoQuadLocalizer from a HardwareMap and a Pose, with the Pose
+     * specifying the starting pose of the localizer.
+     *
+     * @param map the HardwareMap
+     * @param setStartPose the Pose to start from
+     */
+    public OctoQuadLocalizer(HardwareMap map, Pose setStartPose) {
+        hardwareMap = map;
+        FORWARD_TICKS_TO_INCHES = forwardTicksToInches;
+        STRAFE_TICKS_TO_INCHES = strafeTicksToInches;
+        TURN_TICKS_TO_RADIANS = turnTicksToInches;
+
+        octoQuad = hardwareMap.get(OctoQuad.class, hardwareMapName);
+        octoQuad.setSingleEncoderDirection(leftChannel, leftEncoderDirection);
+        octoQuad.setSingleEncoderDirection(rightChannel, rightEncoderDirection);
+        octoQuad.setSingleEncoderDirection(strafeChannel, strafeEncoderDirection);
+        octoQuad.setSingleVelocitySampleInterval(leftChannel, velocitySampleIntervalMs);
+        octoQuad.setSingleVelocitySampleInterval(rightChannel, velocitySampleIntervalMs);
+        octoQuad.setSingleVelocitySampleInterval(strafeChannel, velocitySampleIntervalMs);
+        velocitySamplesPerSecond = 1000.0 / velocitySampleIntervalMs;
+
+        setStartPose(setStartPose);
+        displacementPose = new Pose();
+        currentVelocity = new Pose();
+        totalHeading = 0;
+
+        resetEncoders();
+    }
+
+    /**
+     * This returns the current pose estimate.
+     *
+     * @return returns the current pose estimate as a Pose
+     */
+    @Override
+    public Pose getPose() {
+        return MathFunctions.addPoses(startPose, displacementPose);
+    }
+
+    /**
+     * This returns the current velocity estimate.
+     *
+     * @return returns the current velocity estimate as a Pose
+     */
+    @Override
+    public Pose getVelocity() {
+        return currentVelocity.copy();
+    }
+
+    /**
+     * This returns the current velocity estimate.
+     *
+     * @return returns the current velocity estimate as a Vector
+     */
+    @Override
+    public Vector getVelocityVector() {
+        return currentVelocity.getVector();
+    }
+
+    /**
+     * This sets the start pose. Changing the start pose should move the robot as if all its
+     * previous movements were displacing it from its new start pose.
+     *
+     * @param setStart the new start pose
+     */
+    @Override
+    public void setStartPose(Pose setStart) {
+        startPose = setStart;
+    }
+
+    /**
+     * This sets the current pose estimate. Changing this should just change the robot's current
+     * pose estimate, not anything to do with the start pose.
+     *
+     * @param setPose the new current pose estimate
+     */
+    @Override
+    public void setPose(Pose setPose) {
+        displacementPose = MathFunctions.subtractPoses(setPose, startPose);
+        resetEncoders();
+    }
+
+    /**
+     * This reads all encoders in one transaction. Then, the robot's global change in position
+     * is calculated using the pose exponential method, and the robot's velocity from the
+     * measured encoder velocities.
+     */
+    @Override
+    public void update() {
+        octoQuad.readAllEncoderData(encoderDataBlock);
+        int left = encoderDataBlock.positions[leftChannel];
+        int right = encoderDataBlock.positions[rightChannel];
+        int strafe = encoderDataBlock.positions[strafeChannel];
+        if (!hasPreviousPositions) {
+            previousLeft = left;
+            previousRight = right;
+            previousStrafe = strafe;
+            hasPreviousPositions = true;
+        }
+
+        double heading = startPose.getHeading() + displacementPose.getHeading();
+        getRobotDeltas(left - previousLeft, right - previousRight, strafe - previousStrafe, robotDeltas);
+        poseExponential.integrate(heading, robotDeltas, globalDeltas);
+        previousLeft = left;
+        previousRight = right;
+        previousStrafe = strafe;
+
+        displacementPose.setX(displacementPose.getX() + globalDeltas[0]);
+        displacementPose.setY(displacementPose.getY() + globalDeltas[1]);
+        displacementPose.setHeading(displacementPose.getHeading() + globalDeltas[2]);
+        totalHeading += globalDeltas[2];
+
+        // Encoder velocities are counts per sample interval.
+        getRobotDeltas(encoderDataBlock.velocities[leftChannel] * velocitySamplesPerSecond,
+                encoderDataBlock.velocities[rightChannel] * velocitySamplesPerSecond,
+                encoderDataBlock.velocities[strafeChannel] * velocitySamplesPerSecond, robotVelocity);
+        heading = startPose.getHeading() + displacementPose.getHeading();
+        double cos = Math.cos(heading);
+        double sin = Math.sin(heading);
+        currentVelocity.setX(robotVelocity[0] * cos - robotVelocity[1] * sin);
+        currentVelocity.setY(robotVelocity[0] * sin + robotVelocity[1] * cos);
+        currentVelocity.setHeading(robotVelocity[2]);
+    }
+
+    /**
+     * This resets the Encoders.
+     */
+    public void resetEncoders() {
+        octoQuad.resetAllPositions();
+        hasPreviousPositions = false;
+    }
+
+    /**
+     * This calculates the robot relative movement from encoder movements. It works both on
+     * position deltas and on velocities.
+     *
+     * @param left the left encoder movement, in ticks
+     * @param right the right encoder movement, in ticks
+     * @param strafe the strafe encoder movement, in ticks
+     * @param deltas the array to write the robot relative forward, strafe and turn movement to
+     */
+    private void getRobotDeltas(double left, double right, double strafe, double[] deltas) {
+        // x/forward movement
+        deltas[0] = FORWARD_TICKS_TO_INCHES * ((right * leftY - left * rightY) / (leftY - rightY));
+        //y/strafe movement
+        deltas[1] = STRAFE_TICKS_TO_INCHES * (strafe - strafeX * ((right - left) / (leftY - rightY)));
+        // theta/turning
+        deltas[2] = TURN_TICKS_TO_RADIANS * ((right - left) / (leftY - rightY));
+    }
+
+    /**
+     * This returns how far the robot has turned in radians, in a number not clamped between 0 and
+     * 2 * pi radians. This is used for some tuning things and nothing actually within the following.
+     *
+     * @return returns how far the robot has turned in total, in radians.
+     */
+    @Override
+    public double getTotalHeading() {
+        return totalHeading;
+    }
+
+    /**
+     * This returns the multiplier applied to forward movement measurement to convert from encoder
+     * ticks to inches. This is found empirically through a tuner.
+     *
+     * @return returns the forward ticks to inches multiplier
+     */
+    @Override
+    public double getForwardMultiplier() {
+        return FORWARD_TICKS_TO_INCHES;
+    }
+
+    /**
+     * This returns the multiplier applied to lateral/strafe movement measurement to convert from
+     * encoder ticks to inches. This is found empirically through a tuner.
+     *
+     * @return returns the lateral/strafe ticks to inches multiplier
+     */
+    @Override
+    public double getLateralMultiplier() {
+        return STRAFE_TICKS_TO_INCHES;
+    }
+
+    /**
+     * This returns the multiplier applied to turning movement measurement to convert from encoder
+     * ticks to radians. This is found empirically through a tuner.
+     *
+     * @return returns the turning ticks to radians multiplier
+     */
+    @Override
+    public double getTurningMultiplier() {
+        return TURN_TICKS_TO_RADIANS;
+    }
+
+    /**
+     * This does nothing since this localizer does not use the IMU.
+     */
+    @Override
+    public void resetIMU() {
+    }
+
+    /**
+     * This returns whether if any component of robot's position is NaN.
+     *
+     * @return returns whether the robot's position is NaN
+     */
+    @Override
+    public boolean isNAN() {
+        return Double.isNaN(displacementPose.getX()) || Double.isNaN(displacementPose.getY()) || Double.isNaN(displacementPose.getHeading());
+    }
+}
@@ -0,0 +1,195 @@
+package com.pedropathing.pathgen;
+
+import com.pedropathing.localization.Pose;
+import com.pedropathing.util.CallbackWorker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * This is the CallbackScheduler class. It compiles the PathCallbacks of a PathChain into per Path
+ * trigger queues, one for each callback type. Time, parametric and distance queues are sorted by
+ * their start condition, and pose region queues keep the order the callbacks were added in. Each
+ * update only checks the next pending callback of each queue, instead of scanning every callback.
+ *
+ * @version 1.0, 10/19/2026
+ */
+public class CallbackScheduler {
+    private static final Comparator<PathCallback> START_CONDITION_ORDER =
+            (one, two) -> Double.compare(one.getStartCondition(), two.getStartCondition());
+
+    private final PathCallback[][] timeQueues;
+    private final PathCallback[][] parametricQueues;
+    private final PathCallback[][] distanceQueues;
+    private final PathCallback[][] poseQueues;
+    private final int[] timeCursors;
+    private final int[] parametricCursors;
+    private final int[] distanceCursors;
+    private final int[] poseCursors;
+    private final long[] pathStartTimes;
+    private final double[] pathLengths;
+    private final ArrayList<PathCallback> callbacks;
+    private int firstPendingTimeIndex;
+
+    /**
+     * This compiles the PathCallbacks of a PathChain. Callbacks with an index outside of the
+     * PathChain are ignored.
+     *
+     * @param paths the Paths of the PathChain
+     * @param callbacks the PathCallbacks of the PathChain
+     */
+    public CallbackScheduler(ArrayList<Path> paths, ArrayList<PathCallback> callbacks) {
+        int size = paths.size();
+        this.callbacks = callbacks;
+        timeQueues = new PathCallback[size][];
+        parametricQueues = new PathCallback[size][];
+        distanceQueues = new PathCallback[size][];
+        poseQueues = new PathCallback[size][];
+        timeCursors = new int[size];
+        parametricCursors = new int[size];
+        distanceCursors = new int[size];
+        poseCursors = new int[size];
+        pathStartTimes = new long[size];
+        pathLengths = new double[size];
+
+        for (int i = 0; i < size; i++) {
+            pathLengths[i] = paths.get(i).length();
+            timeQueues[i] = compile(callbacks, i, PathCallback.TIME);
+            parametricQueues[i] = compile(callbacks, i, PathCallback.PARAMETRIC);
+            distanceQueues[i] = compile(callbacks, i, PathCallback.DISTANCE);
+            Arrays.sort(timeQueues[i], START_CONDITION_ORDER);
+            Arrays.sort(parametricQueues[i], START_CONDITION_ORDER);
+            Arrays.sort(distanceQueues[i], START_CONDITION_ORDER);
+
+            // Pose regions can't be ordered ahead of time, so they run in the order they were added.
+            poseQueues[i] = compile(callbacks, i, PathCallback.POSE);
+        }
+    }
+
+    private static PathCallback[] compile(ArrayList<PathCallback> callbacks, int index, int type) {
+        int count = 0;
+        for (PathCallback callback : callbacks) {
+            if (callback.getIndex() == index && callback.getType() == type) count++;
+        }
+
+        PathCallback[] queue = new PathCallback[count];
+        count = 0;
+        for (PathCallback callback : callbacks) {
+            if (callback.getIndex() == index && callback.getType() == type) queue[count++] = callback;
+        }
+
+        return queue;
+    }
+
+    /**
+     * This resets all the callbacks so they can run again, and starts the clock of the first Path.
+     */
+    public void reset() {
+        for (PathCallback callback : callbacks) {
+            callback.reset();
+        }
+
+        Arrays.fill(timeCursors, 0);
+        Arrays.fill(parametricCursors, 0);
+        Arrays.fill(distanceCursors, 0);
+        Arrays.fill(poseCursors, 0);
+        Arrays.fill(pathStartTimes, 0);
+        firstPendingTimeIndex = 0;
+        startPath(0);
+    }
+
+    /**
+     * This starts the clock for the time callbacks of a Path. This should be called when the
+     * Follower starts following the Path.
+     *
+     * @param index the index of the Path within the PathChain
+     */
+    public void startPath(int index) {
+        if (index >= 0 && index < pathStartTimes.length) {
+            pathStartTimes[index] = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * This runs all the callbacks that are due. Time callbacks of earlier Paths keep running after
+     * the Follower moves on, while the other types only run on the current Path.
+     *
+     * @param index the index of the Path currently being followed
+     * @param t the current t-value (parametric time) on the Path
+     * @param pose the current robot pose, only read if the Path has pose region callbacks
+     */
+    public void update(int index, double t, Pose pose) {
+        if (index < 0 || index >= pathStartTimes.length) return;
+
+        long now = System.currentTimeMillis();
+        for (int i = firstPendingTimeIndex; i <= index; i++) {
+            PathCallback[] queue = timeQueues[i];
+            while (timeCursors[i] < queue.length &&
+                    now - pathStartTimes[i] > queue[timeCursors[i]].getStartCondition()) {
+                dispatch(queue[timeCursors[i]++]);
+            }
+
+            if (i == firstPendingTimeIndex && timeCursors[i] == queue.length) firstPendingTimeIndex++;
+        }
+
+        PathCallback[] queue = parametricQueues[index];
+        while (parametricCursors[index] < queue.length &&
+                (t >= queue[parametricCursors[index]].getStartCondition() ||
+                        MathFunctions.roughlyEquals(t, queue[parametricCursors[index]].getStartCondition()))) {
+            dispatch(queue[parametricCursors[index]++]);
+        }
+
+        queue = distanceQueues[index];
+        double distance = pathLengths[index] * t;
+        while (distanceCursors[index] < queue.length &&
+                distance >= queue[distanceCursors[index]].getStartCondition()) {
+            dispatch(queue[distanceCursors[index]++]);
+        }
+
+        queue = poseQueues[index];
+        while (poseCursors[index] < queue.length &&
+                queue[poseCursors[index]].isInRegion(pose.getX(), pose.getY())) {
+            dispatch(queue[poseCursors[index]++]);
+        }
+    }
+
+    /**
+     * This runs the time callbacks that are due, with time measured from the start of the whole
+     * PathChain rather than from the start of each Path. This is for OpModes that drive the
+     * PathChain clock themselves.
+     *
+     * @param elapsedMilliseconds the time since the PathChain started, in milliseconds
+     */
+    public void updateTime(double elapsedMilliseconds) {
+        for (int i = firstPendingTimeIndex; i < timeQueues.length; i++) {
+            PathCallback[] queue = timeQueues[i];
+            while (timeCursors[i] < queue.length &&
+                    elapsedMilliseconds >= queue[timeCursors[i]].getStartCondition()) {
+                dispatch(queue[timeCursors[i]++]);
+            }
+
+            if (i == firstPendingTimeIndex && timeCursors[i] == queue.length) firstPendingTimeIndex++;
+        }
+    }
+
+    /**
+     * This returns if the Path at a specified index has pose region callbacks left to run, so
+     * the caller only needs the robot pose when it's actually used.
+     *
+     * @param index the index of the Path within the PathChain
+     * @return returns if pose region callbacks are pending
+     */
+    public boolean hasPendingPoseCallbacks(int index) {
+        return index >= 0 && index < poseQueues.length && poseCursors[index] < poseQueues[index].length;
+    }
+
+    private void dispatch(PathCallback callback) {
+        if (callback.hasBeenRun()) return;
+        if (callback.isAsync()) {
+            CallbackWorker.submit(callback);
+        } else {
+            callback.run();
+        }
+    }
+}
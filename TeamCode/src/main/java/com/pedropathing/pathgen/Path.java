@@ -217,6 +217,17 @@ public class Path {
         return curve.getPoint(t);
     }
 
+    /**
+     * This returns the derivative of the BezierCurve at a specified t-value. It is tangent to the
+     * curve, and its magnitude is the distance travelled per unit of t.
+     *
+     * @param t the specified t-value.
+     * @return returns the derivative Vector at the specified t-value.
+     */
+    public Vector getTangentVector(double t) {
+        return curve.getDerivative(t);
+    }
+
     /**
      * This returns the t-value of the closest Point on the BezierCurve.
      *
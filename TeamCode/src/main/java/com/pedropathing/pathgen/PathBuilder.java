@@ -1,5 +1,7 @@
 package com.pedropathing.pathgen;
 
+import com.pedropathing.localization.Pose;
+
 import java.util.ArrayList;
 
 /**
@@ -18,6 +20,8 @@ public class PathBuilder {
 
     private ArrayList<PathCallback> callbacks = new ArrayList<>();
 
+    private boolean chainLookahead = true;
+
     /**
      * This is an empty constructor for the PathBuilder class so it can get started.
      * The PathBuilder allows for easier construction of PathChains.
@@ -237,13 +241,64 @@ public class PathBuilder {
     }
 
     /**
-     * This builds all the Path and callback information together into a PathChain.
+     * This adds a distance callback on the last Path added to the PathBuilder.
+     * This callback is set to run once the robot has traveled a certain distance along the Path.
+     *
+     * @param distance This sets the distance along the Path, in inches, for when to run the callback.
+     * @param runnable This sets the code for the callback to run. Use lambda statements for this.
+     * @return This returns itself with the updated data.
+     */
+    public PathBuilder addDistanceCallback(double distance, Runnable runnable) {
+        this.callbacks.add(new PathCallback(distance, runnable, PathCallback.DISTANCE, paths.size() - 1));
+        return this;
+    }
+
+    /**
+     * This adds a pose region callback on the last Path added to the PathBuilder.
+     * This callback is set to run once the robot is within a certain radius of a Pose.
+     *
+     * @param pose This sets the center of the region. The heading is ignored.
+     * @param radius This sets the radius of the region, in inches.
+     * @param runnable This sets the code for the callback to run. Use lambda statements for this.
+     * @return This returns itself with the updated data.
+     */
+    public PathBuilder addPoseCallback(Pose pose, double radius, Runnable runnable) {
+        this.callbacks.add(new PathCallback(pose, radius, runnable, paths.size() - 1));
+        return this;
+    }
+
+    /**
+     * This makes the last callback added to the PathBuilder run on the callback worker thread, so
+     * a slow callback never stalls the Follower.
+     *
+     * @return This returns itself with the updated data.
+     */
+    public PathBuilder setLastCallbackAsync() {
+        this.callbacks.get(callbacks.size() - 1).setAsync(true);
+        return this;
+    }
+
+    /**
+     * This sets if the Follower uses chain lookahead on the built PathChain.
+     *
+     * @param set if chain lookahead is used.
+     * @return This returns itself with the updated data.
+     */
+    public PathBuilder setChainLookahead(boolean set) {
+        this.chainLookahead = set;
+        return this;
+    }
+
+    /**
+     * This builds all the Path and callback information together into a PathChain. The callbacks
+     * are compiled into the PathChain's CallbackScheduler here.
      *
      * @return This returns a PathChain made of all the specified paths and callbacks.
      */
     public PathChain build() {
         PathChain returnChain = new PathChain(paths);
         returnChain.setCallbacks(callbacks);
+        returnChain.setChainLookahead(chainLookahead);
         return returnChain;
     }
 }
@@ -1,5 +1,6 @@
 package com.pedropathing.pathgen;
 
+import com.pedropathing.localization.Pose;
 import com.pedropathing.util.SingleRunAction;
 
 /**
@@ -17,17 +18,23 @@ public class PathCallback extends SingleRunAction {
 
     private int type;
     private int index;
+    private double regionX;
+    private double regionY;
+    private boolean async;
 
     public static final int TIME = 0;
     public static final int PARAMETRIC = 1;
+    public static final int DISTANCE = 2;
+    public static final int POSE = 3;
 
     /**
-     * This creates a new PathCallback with a specified start condition (either time or parametric),
-     * a Runnable of code to run (preferably a lambda statement), a type (using the class constants),
-     * and an index for which Path within a PathChain the callback is to run on.
+     * This creates a new PathCallback with a specified start condition (time, parametric or
+     * distance), a Runnable of code to run (preferably a lambda statement), a type (using the class
+     * constants), and an index for which Path within a PathChain the callback is to run on.
      *
      * @param startCondition This defines when the callback is to be run, either as a wait time in
-     *                       milliseconds or a t-value (parametric time) point.
+     *                       milliseconds, a t-value (parametric time) point or a distance along
+     *                       the Path in inches.
      * @param runnable This contains the code to run when the callback is called.
      * @param type This defines the type of callback using the class constants.
      * @param index This defines which Path within the PathChain the callback is to run on.
@@ -36,10 +43,10 @@ public class PathCallback extends SingleRunAction {
         super(runnable);
         this.startCondition = startCondition;
         this.type = type;
-        if (this.type != TIME && this.type != PARAMETRIC) {
+        if (this.type != TIME && this.type != PARAMETRIC && this.type != DISTANCE) {
             this.type = PARAMETRIC;
         }
-        if (this.type == TIME && this.startCondition < 0) {
+        if ((this.type == TIME || this.type == DISTANCE) && this.startCondition < 0) {
             this.startCondition = 0.0;
         }
         if (this.type == PARAMETRIC) {
@@ -49,7 +56,60 @@ public class PathCallback extends SingleRunAction {
     }
 
     /**
-     * This returns the type of callback this is (time or parametric).
+     * This creates a new pose region PathCallback. It runs once the robot is within a specified
+     * radius of a specified Pose, while following the Path at the specified index. The heading of
+     * the Pose is ignored.
+     *
+     * @param pose This defines the center of the region.
+     * @param radius This defines the radius of the region, in inches.
+     * @param runnable This contains the code to run when the callback is called.
+     * @param index This defines which Path within the PathChain the callback is to run on.
+     */
+    public PathCallback(Pose pose, double radius, Runnable runnable, int index) {
+        super(runnable);
+        this.type = POSE;
+        this.startCondition = Math.max(radius, 0);
+        this.regionX = pose.getX();
+        this.regionY = pose.getY();
+        this.index = index;
+    }
+
+    /**
+     * This returns if the robot at a specified position is within the region of this pose region
+     * callback.
+     *
+     * @param x the x position of the robot
+     * @param y the y position of the robot
+     * @return This returns if the position is within the region.
+     */
+    public boolean isInRegion(double x, double y) {
+        double dx = x - regionX;
+        double dy = y - regionY;
+        return dx * dx + dy * dy <= startCondition * startCondition;
+    }
+
+    /**
+     * This returns if this callback is run on the callback worker thread instead of the thread
+     * running the Follower.
+     *
+     * @return This returns if the callback is asynchronous.
+     */
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * This sets if this callback is run on the callback worker thread, so that a slow callback
+     * never stalls the Follower.
+     *
+     * @param async This sets if the callback is asynchronous.
+     */
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    /**
+     * This returns the type of callback this is (time, parametric, distance or pose).
      *
      * @return This returns the type of callback.
      */
@@ -59,7 +119,8 @@ public class PathCallback extends SingleRunAction {
 
     /**
      * This returns the start condition for this callback. This will be the wait time in milliseconds
-     * if this is a time callback or a t-value if this is a parametric callback.
+     * if this is a time callback, a t-value if this is a parametric callback, a distance in inches
+     * if this is a distance callback or the region radius in inches if this is a pose callback.
      *
      * @return This returns the start condition.
      */
@@ -1,5 +1,7 @@
 package com.pedropathing.pathgen;
 
+import com.pedropathing.follower.FollowerConstants;
+
 import java.util.ArrayList;
 
 /**
@@ -19,6 +21,10 @@ public class PathChain {
 
     private ArrayList<PathCallback> callbacks = new ArrayList<>();
 
+    private CallbackScheduler callbackScheduler;
+
+    private boolean chainLookahead = true;
+
     /**
      * This creates a new PathChain from some specified Paths.
      *
@@ -64,6 +70,40 @@ public class PathChain {
         return pathChain.size();
     }
 
+    /**
+     * This returns if the tangent is continuous across the joint after a Path, i.e. if the
+     * tangents on either side differ by less than FollowerConstants.chainJointContinuityAngle.
+     * With chain lookahead, the Follower drives through such G1 continuous joints and stops at
+     * all others.
+     *
+     * @param index the index of the Path before the joint.
+     * @return returns if the joint is G1 continuous.
+     */
+    public boolean isJointContinuous(int index) {
+        return MathFunctions.getSmallestAngleDifference(getPath(index).getTangentVector(1).getTheta(),
+                getPath(index + 1).getTangentVector(0).getTheta()) < FollowerConstants.chainJointContinuityAngle;
+    }
+
+    /**
+     * This sets if the Follower uses chain lookahead on this PathChain, when
+     * FollowerConstants.useChainLookahead is on. Turning it off makes every joint a fresh start,
+     * for PathChains that haven't been re-tuned for driving through joints.
+     *
+     * @param set if chain lookahead is used.
+     */
+    public void setChainLookahead(boolean set) {
+        chainLookahead = set;
+    }
+
+    /**
+     * This returns if the Follower may use chain lookahead on this PathChain.
+     *
+     * @return returns if chain lookahead is enabled for this PathChain.
+     */
+    public boolean isChainLookaheadEnabled() {
+        return chainLookahead;
+    }
+
     /**
      * This sets the PathCallbacks of the PathChain with some specified PathCallbacks.
      *
@@ -73,6 +113,7 @@ public class PathChain {
         for (PathCallback callback : callbacks) {
             this.callbacks.add(callback);
         }
+        callbackScheduler = new CallbackScheduler(pathChain, this.callbacks);
     }
 
     /**
@@ -82,6 +123,7 @@ public class PathChain {
      */
     public void setCallbacks(ArrayList<PathCallback> callbacks) {
         this.callbacks = callbacks;
+        callbackScheduler = new CallbackScheduler(pathChain, this.callbacks);
     }
 
     /**
@@ -93,9 +135,23 @@ public class PathChain {
         return callbacks;
     }
 
-    public void resetCallbacks() {
-        for (PathCallback callback : callbacks) {
-            callback.reset();
+    /**
+     * This returns the CallbackScheduler that runs the PathCallbacks of this PathChain. It is
+     * compiled whenever the callbacks are set, which PathBuilder.build() does.
+     *
+     * @return returns the CallbackScheduler.
+     */
+    public CallbackScheduler getCallbackScheduler() {
+        if (callbackScheduler == null) {
+            callbackScheduler = new CallbackScheduler(pathChain, callbacks);
         }
+        return callbackScheduler;
+    }
+
+    /**
+     * This resets the PathCallbacks so they can run again, and restarts the callback clock.
+     */
+    public void resetCallbacks() {
+        getCallbackScheduler().reset();
     }
 }
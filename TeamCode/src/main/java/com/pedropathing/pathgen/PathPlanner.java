@@ -0,0 +1,373 @@
+package com.pedropathing.pathgen;
+
+import com.pedropathing.localization.Pose;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * This is the PathPlanner class. It plans obstacle free PathChains on the robot, for example to
+ * recover after a missed pickup or a bump, instead of falling back to fixed paths.
+ *
+ * Obstacles are axis aligned rectangles, inflated by the robot radius. The corners of the inflated
+ * obstacles form a visibility graph, which is precomputed once. Each plan only connects the start
+ * and goal to the graph and runs A* over it. The shortest polyline is then smoothed into G1
+ * continuous BezierCurves by replacing each corner with a quadratic curve tangent to both of its
+ * lines, and heading is linearly interpolated across the whole PathChain by distance. A corner
+ * whose curve still clips an obstacle after shrinking is left sharp, so the robot stops there.
+ *
+ * With a handful of obstacles the graph has a few dozen nodes, so planning takes well under a few
+ * milliseconds. Most of that is building the Paths, not searching.
+ *
+ * @version 1.0, 10/19/2026
+ */
+public class PathPlanner {
+    // Graph nodes sit this far outside the inflated corners, leaving room for corner smoothing.
+    private static final double CORNER_OFFSET = 1.0;
+    private static final double MINIMUM_SEGMENT_LENGTH = 0.1;
+    private static final int CURVE_CHECK_SAMPLES = 8;
+    private static final int CURVE_SHRINK_ATTEMPTS = 4;
+
+    private final double robotRadius;
+    private final double cornerRadius;
+    private final ArrayList<double[]> obstacles = new ArrayList<>();
+
+    // Precomputed visibility graph. Nodes 0 and 1 are reserved for the start and goal.
+    private double[] nodeX = new double[2];
+    private double[] nodeY = new double[2];
+    private int[] nodeObstacle = new int[2];
+    private boolean[][] visible = new boolean[2][2];
+    private double[] cost = new double[2];
+    private int[] parent = new int[2];
+    private boolean[] closed = new boolean[2];
+    private boolean graphBuilt = false;
+    private double lastPlanningTimeMilliseconds;
+
+    /**
+     * This creates a new PathPlanner with no obstacles.
+     *
+     * @param robotRadius the radius of a circle enclosing the robot, in inches
+     * @param cornerRadius the largest distance from a corner at which smoothing starts, in inches
+     */
+    public PathPlanner(double robotRadius, double cornerRadius) {
+        this.robotRadius = robotRadius;
+        this.cornerRadius = cornerRadius;
+    }
+
+    /**
+     * This adds a rectangular obstacle. The visibility graph is rebuilt on the next plan.
+     *
+     * @param minX the smallest x of the obstacle
+     * @param minY the smallest y of the obstacle
+     * @param maxX the largest x of the obstacle
+     * @param maxY the largest y of the obstacle
+     * @return This returns itself with the updated data.
+     */
+    public PathPlanner addObstacle(double minX, double minY, double maxX, double maxY) {
+        obstacles.add(new double[]{
+                Math.min(minX, maxX) - robotRadius, Math.min(minY, maxY) - robotRadius,
+                Math.max(minX, maxX) + robotRadius, Math.max(minY, maxY) + robotRadius});
+        graphBuilt = false;
+        return this;
+    }
+
+    /**
+     * This removes all obstacles.
+     */
+    public void clearObstacles() {
+        obstacles.clear();
+        graphBuilt = false;
+    }
+
+    /**
+     * This returns how long the last call to plan() took.
+     *
+     * @return returns the planning time in milliseconds
+     */
+    public double getLastPlanningTimeMilliseconds() {
+        return lastPlanningTimeMilliseconds;
+    }
+
+    /**
+     * This precomputes the visibility graph between the obstacle corners. Corners inside another
+     * obstacle are never reachable, so they are left out.
+     */
+    private void buildGraph() {
+        ArrayList<double[]> corners = new ArrayList<>();
+        for (double[] obstacle : obstacles) {
+            double[][] candidates = {
+                    {obstacle[0] - CORNER_OFFSET, obstacle[1] - CORNER_OFFSET},
+                    {obstacle[2] + CORNER_OFFSET, obstacle[1] - CORNER_OFFSET},
+                    {obstacle[2] + CORNER_OFFSET, obstacle[3] + CORNER_OFFSET},
+                    {obstacle[0] - CORNER_OFFSET, obstacle[3] + CORNER_OFFSET}};
+            for (double[] corner : candidates) {
+                if (containingObstacle(corner[0], corner[1]) < 0) {
+                    corners.add(new double[]{corner[0], corner[1], obstacles.indexOf(obstacle)});
+                }
+            }
+        }
+
+        int size = corners.size() + 2;
+        nodeX = new double[size];
+        nodeY = new double[size];
+        nodeObstacle = new int[size];
+        visible = new boolean[size][size];
+        cost = new double[size];
+        parent = new int[size];
+        closed = new boolean[size];
+        for (int i = 2; i < size; i++) {
+            nodeX[i] = corners.get(i - 2)[0];
+            nodeY[i] = corners.get(i - 2)[1];
+            nodeObstacle[i] = (int) corners.get(i - 2)[2];
+        }
+
+        for (int i = 2; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                visible[i][j] = visible[j][i] = isClear(nodeX[i], nodeY[i], nodeX[j], nodeY[j], -1);
+            }
+        }
+
+        graphBuilt = true;
+    }
+
+    /**
+     * This plans an obstacle free PathChain from a start Pose to a goal Pose. If the start is
+     * inside an obstacle, for example after a bump, the robot is allowed to drive out of it.
+     *
+     * @param start the start Pose, usually the current robot Pose
+     * @param goal the goal Pose
+     * @return returns the PathChain, or null if the goal can't be reached
+     */
+    public PathChain plan(Pose start, Pose goal) {
+        long startTime = System.nanoTime();
+        if (!graphBuilt) buildGraph();
+
+        int size = nodeX.length;
+        nodeX[0] = start.getX();
+        nodeY[0] = start.getY();
+        nodeX[1] = goal.getX();
+        nodeY[1] = goal.getY();
+        int startObstacle = containingObstacle(nodeX[0], nodeY[0]);
+        int goalObstacle = containingObstacle(nodeX[1], nodeY[1]);
+        for (int i = 1; i < size; i++) {
+            visible[0][i] = visible[i][0] = canConnect(0, i, startObstacle);
+        }
+        for (int i = 2; i < size; i++) {
+            visible[1][i] = visible[i][1] = canConnect(1, i, goalObstacle);
+        }
+        if (startObstacle >= 0 || goalObstacle >= 0) {
+            visible[0][1] = visible[1][0] = startObstacle == goalObstacle &&
+                    isClear(nodeX[0], nodeY[0], nodeX[1], nodeY[1], startObstacle);
+        }
+
+        PathChain pathChain = null;
+        int[] route = search();
+        if (route != null) {
+            pathChain = smooth(route, start.getHeading(), goal.getHeading());
+        }
+
+        lastPlanningTimeMilliseconds = (System.nanoTime() - startTime) / 1e6;
+        return pathChain;
+    }
+
+    /**
+     * This runs A* over the visibility graph with a straight line distance heuristic. The graph is
+     * tiny, so the open set is a linear scan rather than a heap.
+     *
+     * @return returns the node indices from start to goal, or null if there is no route
+     */
+    private int[] search() {
+        int size = nodeX.length;
+        Arrays.fill(cost, Double.POSITIVE_INFINITY);
+        Arrays.fill(parent, -1);
+        Arrays.fill(closed, false);
+        cost[0] = 0;
+
+        while (true) {
+            int current = -1;
+            double best = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < size; i++) {
+                if (closed[i] || cost[i] == Double.POSITIVE_INFINITY) continue;
+                double estimate = cost[i] + Math.hypot(nodeX[1] - nodeX[i], nodeY[1] - nodeY[i]);
+                if (estimate < best) {
+                    best = estimate;
+                    current = i;
+                }
+            }
+
+            if (current < 0) return null;
+            if (current == 1) break;
+            closed[current] = true;
+            for (int i = 0; i < size; i++) {
+                if (closed[i] || !visible[current][i]) continue;
+                double candidate = cost[current] + Math.hypot(nodeX[i] - nodeX[current], nodeY[i] - nodeY[current]);
+                if (candidate < cost[i]) {
+                    cost[i] = candidate;
+                    parent[i] = current;
+                }
+            }
+        }
+
+        int count = 1;
+        for (int node = 1; node != 0; node = parent[node]) count++;
+        int[] route = new int[count];
+        int node = 1;
+        for (int i = count - 1; i >= 0; i--) {
+            route[i] = node;
+            node = i > 0 ? parent[node] : node;
+        }
+        return route;
+    }
+
+    /**
+     * This turns a polyline route into a PathChain. Each corner is cut by a quadratic BezierCurve
+     * whose end tangents match the lines on either side, so the PathChain is G1 continuous. If a
+     * corner curve would clip an obstacle, the cut is shrunk towards the corner. If it still clips,
+     * the corner is left sharp, since the polyline itself is obstacle free.
+     *
+     * @param route the node indices from start to goal
+     * @param startHeading the heading at the start
+     * @param endHeading the heading at the goal
+     * @return returns the PathChain
+     */
+    private PathChain smooth(int[] route, double startHeading, double endHeading) {
+        int count = route.length;
+        double[] cutIn = new double[count];
+        double[] cutOut = new double[count];
+        for (int i = 1; i < count - 1; i++) {
+            int previous = route[i - 1], corner = route[i], next = route[i + 1];
+            double lengthIn = Math.hypot(nodeX[corner] - nodeX[previous], nodeY[corner] - nodeY[previous]);
+            double lengthOut = Math.hypot(nodeX[next] - nodeX[corner], nodeY[next] - nodeY[corner]);
+            double cut = Math.min(cornerRadius, Math.min(lengthIn, lengthOut) / 2);
+            for (int attempt = 0; attempt < CURVE_SHRINK_ATTEMPTS && !isCornerClear(previous, corner, next, cut); attempt++) {
+                cut /= 2;
+            }
+
+            if (!isCornerClear(previous, corner, next, cut)) cut = 0;
+
+            cutIn[i] = cut;
+            cutOut[i] = cut;
+        }
+
+        ArrayList<BezierCurve> curves = new ArrayList<>();
+        double startX = nodeX[route[0]], startY = nodeY[route[0]];
+        for (int i = 1; i < count; i++) {
+            int previous = route[i - 1], corner = route[i];
+            double length = Math.hypot(nodeX[corner] - nodeX[previous], nodeY[corner] - nodeY[previous]);
+            double unitX = (nodeX[corner] - nodeX[previous]) / length;
+            double unitY = (nodeY[corner] - nodeY[previous]) / length;
+            double endX = nodeX[corner] - unitX * cutIn[i];
+            double endY = nodeY[corner] - unitY * cutIn[i];
+            if (Math.hypot(endX - startX, endY - startY) > MINIMUM_SEGMENT_LENGTH) {
+                curves.add(new BezierLine(new Point(startX, startY), new Point(endX, endY)));
+            }
+
+            if (i < count - 1 && cutIn[i] > MINIMUM_SEGMENT_LENGTH) {
+                int next = route[i + 1];
+                double lengthOut = Math.hypot(nodeX[next] - nodeX[corner], nodeY[next] - nodeY[corner]);
+                startX = nodeX[corner] + (nodeX[next] - nodeX[corner]) / lengthOut * cutOut[i];
+                startY = nodeY[corner] + (nodeY[next] - nodeY[corner]) / lengthOut * cutOut[i];
+                curves.add(new BezierCurve(new Point(endX, endY),
+                        new Point(nodeX[corner], nodeY[corner]), new Point(startX, startY)));
+            } else {
+                startX = endX;
+                startY = endY;
+            }
+        }
+
+        if (curves.isEmpty()) {
+            curves.add(new BezierLine(new Point(nodeX[route[0]], nodeY[route[0]]),
+                    new Point(nodeX[route[count - 1]] + MINIMUM_SEGMENT_LENGTH, nodeY[route[count - 1]])));
+        }
+
+        // Heading turns the short way, spread over the PathChain by distance.
+        double totalLength = 0;
+        for (BezierCurve curve : curves) totalLength += curve.length();
+        double turn = MathFunctions.getTurnDirection(startHeading, endHeading) *
+                MathFunctions.getSmallestAngleDifference(endHeading, startHeading);
+        PathBuilder builder = new PathBuilder();
+        double traveled = 0;
+        for (BezierCurve curve : curves) {
+            double segmentStart = startHeading + turn * traveled / totalLength;
+            traveled += curve.length();
+            double segmentEnd = startHeading + turn * traveled / totalLength;
+            builder.addPath(curve).setLinearHeadingInterpolation(segmentStart, segmentEnd);
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * This checks if the start or goal can connect straight to another node. A point inside an
+     * obstacle can only leave through that obstacle's own corners, so it never cuts across it.
+     *
+     * @param endpoint the start or goal node
+     * @param node the other node
+     * @param endpointObstacle the obstacle containing the endpoint, or -1
+     * @return returns if the nodes can connect
+     */
+    private boolean canConnect(int endpoint, int node, int endpointObstacle) {
+        if (endpointObstacle >= 0 && node > 1 && nodeObstacle[node] != endpointObstacle) return false;
+        return isClear(nodeX[endpoint], nodeY[endpoint], nodeX[node], nodeY[node], endpointObstacle);
+    }
+
+    private boolean isCornerClear(int previous, int corner, int next, double cut) {
+        double lengthIn = Math.hypot(nodeX[corner] - nodeX[previous], nodeY[corner] - nodeY[previous]);
+        double lengthOut = Math.hypot(nodeX[next] - nodeX[corner], nodeY[next] - nodeY[corner]);
+        double ax = nodeX[corner] - (nodeX[corner] - nodeX[previous]) / lengthIn * cut;
+        double ay = nodeY[corner] - (nodeY[corner] - nodeY[previous]) / lengthIn * cut;
+        double bx = nodeX[corner] + (nodeX[next] - nodeX[corner]) / lengthOut * cut;
+        double by = nodeY[corner] + (nodeY[next] - nodeY[corner]) / lengthOut * cut;
+        for (int i = 1; i < CURVE_CHECK_SAMPLES; i++) {
+            double t = i / (double) CURVE_CHECK_SAMPLES;
+            double x = (1 - t) * (1 - t) * ax + 2 * t * (1 - t) * nodeX[corner] + t * t * bx;
+            double y = (1 - t) * (1 - t) * ay + 2 * t * (1 - t) * nodeY[corner] + t * t * by;
+            if (containingObstacle(x, y) >= 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * This finds the obstacle strictly containing a point.
+     *
+     * @return returns the obstacle index, or -1 if the point is free
+     */
+    private int containingObstacle(double x, double y) {
+        for (int i = 0; i < obstacles.size(); i++) {
+            double[] obstacle = obstacles.get(i);
+            if (x > obstacle[0] && x < obstacle[2] && y > obstacle[1] && y < obstacle[3]) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * This checks if a line segment stays out of every obstacle, using Liang-Barsky clipping
+     * against each rectangle's interior. Touching an edge is allowed.
+     *
+     * @param ignoredObstacle an obstacle to ignore, or -1
+     * @return returns if the segment is clear
+     */
+    private boolean isClear(double x1, double y1, double x2, double y2, int ignoredObstacle) {
+        double dx = x2 - x1, dy = y2 - y1;
+        for (int i = 0; i < obstacles.size(); i++) {
+            if (i == ignoredObstacle) continue;
+            double[] obstacle = obstacles.get(i);
+            double[] p = {-dx, dx, -dy, dy};
+            double[] q = {x1 - obstacle[0], obstacle[2] - x1, y1 - obstacle[1], obstacle[3] - y1};
+            double enter = 0, exit = 1;
+            boolean outside = false;
+            for (int k = 0; k < 4 && !outside; k++) {
+                if (p[k] == 0) {
+                    if (q[k] <= 0) outside = true;
+                } else {
+                    double r = q[k] / p[k];
+                    if (p[k] < 0) enter = Math.max(enter, r);
+                    else exit = Math.min(exit, r);
+                    if (enter >= exit) outside = true;
+                }
+            }
+            if (!outside) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,136 @@
+package com.pedropathing.pathgen;
+
+import com.pedropathing.follower.FollowerConstants;
+import com.pedropathing.localization.Pose;
+
+/**
+ * This is the PathTimeEstimator class. It predicts how long the Follower takes to drive a
+ * PathChain, from the curve lengths, curvatures and heading changes, and the drivetrain constants,
+ * without driving it. Autonomous planners use it to compare routines during init.
+ *
+ * The top speed at every sample is the mecanum speed ellipse of xMovement and yMovement in the
+ * direction of travel relative to the heading goal, scaled by the max power, and capped by
+ * pathTimeEstimateAcceleration over the curvature. A forward pass then limits the speed by the
+ * acceleration from rest, and a backward pass by the deceleration the Follower plans for, the
+ * forward zero power acceleration times each Path's multiplier. The robot stops at the start and
+ * end of the PathChain, and at every joint unless chain lookahead follows through it. Each Path
+ * takes at least its heading change over pathTimeEstimateAngularVelocity, and the PathChain end
+ * adds pathTimeEstimateSettleTime.
+ *
+ * @version 1.0, 10/19/2026
+ */
+public class PathTimeEstimator {
+    private static final int SAMPLES_PER_PATH = 40;
+    private static final double EPSILON = 1e-9;
+
+    private PathTimeEstimator() {
+    }
+
+    /**
+     * This estimates the time to follow a PathChain.
+     *
+     * @param pathChain the PathChain.
+     * @param maxPower the max power of the Follower.
+     * @return returns the estimated time in seconds.
+     */
+    public static double estimate(PathChain pathChain, double maxPower) {
+        int paths = pathChain.size();
+        int count = paths * SAMPLES_PER_PATH + 1;
+        double[] distance = new double[count];
+        double[] maxVelocity = new double[count];
+        double[] deceleration = new double[count];
+        double[] velocity = new double[count];
+        double acceleration = Math.max(FollowerConstants.pathTimeEstimateAcceleration, EPSILON);
+
+        // Sample every Path, sharing the joint samples.
+        Point previous = pathChain.getPath(0).getPoint(0);
+        for (int p = 0; p < paths; p++) {
+            Path path = pathChain.getPath(p);
+            double pathDeceleration = Math.max(Math.abs(FollowerConstants.forwardZeroPowerAcceleration * path.getZeroPowerAccelerationMultiplier()), EPSILON);
+            for (int i = p == 0 ? 0 : 1; i <= SAMPLES_PER_PATH; i++) {
+                int index = p * SAMPLES_PER_PATH + i;
+                double t = (double) i / SAMPLES_PER_PATH;
+                Point point = path.getPoint(t);
+                distance[index] = (index == 0 ? 0 : distance[index - 1]) + point.distanceFrom(previous);
+                previous = point;
+
+                double direction = path.getTangentVector(t).getTheta() - path.getHeadingGoal(t);
+                double speed = maxPower / Math.hypot(Math.cos(direction) / FollowerConstants.xMovement, Math.sin(direction) / FollowerConstants.yMovement);
+                double curvature = Math.abs(path.getCurvature(t));
+                if (curvature > EPSILON) speed = Math.min(speed, Math.sqrt(acceleration / curvature));
+                maxVelocity[index] = speed;
+                deceleration[index] = pathDeceleration;
+            }
+
+            if (p < paths - 1 && !isFollowedThrough(pathChain, p)) {
+                maxVelocity[(p + 1) * SAMPLES_PER_PATH] = 0;
+            }
+        }
+
+        maxVelocity[0] = 0;
+        maxVelocity[count - 1] = 0;
+
+        for (int i = 0; i < count; i++) {
+            velocity[i] = maxVelocity[i];
+            if (i > 0) {
+                velocity[i] = Math.min(velocity[i], Math.sqrt(velocity[i - 1] * velocity[i - 1] + 2 * acceleration * (distance[i] - distance[i - 1])));
+            }
+        }
+
+        for (int i = count - 2; i >= 0; i--) {
+            velocity[i] = Math.min(velocity[i], Math.sqrt(velocity[i + 1] * velocity[i + 1] + 2 * deceleration[i] * (distance[i + 1] - distance[i])));
+        }
+
+        double total = 0;
+        for (int p = 0; p < paths; p++) {
+            double pathTime = 0;
+            for (int i = p * SAMPLES_PER_PATH; i < (p + 1) * SAMPLES_PER_PATH; i++) {
+                double step = distance[i + 1] - distance[i];
+                double averageVelocity = (velocity[i] + velocity[i + 1]) / 2;
+                pathTime += averageVelocity > EPSILON ? step / averageVelocity : Math.sqrt(2 * step / acceleration);
+            }
+
+            total += Math.max(pathTime, getHeadingChange(pathChain.getPath(p)) / Math.max(FollowerConstants.pathTimeEstimateAngularVelocity * maxPower, EPSILON));
+        }
+
+        return total + FollowerConstants.pathTimeEstimateSettleTime;
+    }
+
+    /**
+     * This estimates the time to drive straight from one Pose to another, turning linearly.
+     *
+     * @param start the start Pose.
+     * @param end the end Pose.
+     * @param maxPower the max power of the Follower.
+     * @return returns the estimated time in seconds.
+     */
+    public static double estimate(Pose start, Pose end, double maxPower) {
+        Path path = new Path(new BezierLine(new Point(start), new Point(end)));
+        path.setLinearHeadingInterpolation(start.getHeading(), end.getHeading());
+        return estimate(new PathChain(path), maxPower);
+    }
+
+    /**
+     * This returns if the Follower keeps its speed across the joint after a Path. With chain
+     * lookahead, globally and for the PathChain, it only does so across G1 continuous joints. Without it, every Path but the last
+     * is driven at full power, so no joint is a stop.
+     */
+    private static boolean isFollowedThrough(PathChain pathChain, int index) {
+        return !FollowerConstants.useChainLookahead || !pathChain.isChainLookaheadEnabled() || pathChain.isJointContinuous(index);
+    }
+
+    /**
+     * This returns the total heading change along a Path, in radians.
+     */
+    private static double getHeadingChange(Path path) {
+        double change = 0;
+        double heading = path.getHeadingGoal(0);
+        for (int i = 1; i <= SAMPLES_PER_PATH; i++) {
+            double next = path.getHeadingGoal((double) i / SAMPLES_PER_PATH);
+            change += MathFunctions.getSmallestAngleDifference(heading, next);
+            heading = next;
+        }
+
+        return change;
+    }
+}
@@ -0,0 +1,428 @@
+package pedroPathing.tuners_tests.automatic;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * This is the CharacterizationFitter class. It fits the drive constants from a log recorded by the
+ * CharacterizationTuner by least squares, and emits them as a constants class.
+ *
+ * Wheel powers are scaled by the logged battery voltage to the nominal voltage, so the constants
+ * hold at any charge. The fits are:
+ * xMovement, yMovement and the maximum angular velocity, from the first order model
+ * v = a * power + b * sign(power) - tau * dv/dt on the ramps and steps, evaluated at full power.
+ * Fitting the lag term keeps the ramp lag out of the velocity, and gives the heading time constant.
+ * The zero power accelerations, from the slope of velocity against time on the coasts.
+ * The centripetal scaling, from the sideways power needed to cancel the drift on the circle,
+ * against velocity times angular velocity, divided by the logged mass. Mass itself can't be
+ * told apart from the centripetal scaling, so it is kept.
+ * The per wheel kS/kV/kA, from power against each wheel's normalized velocity and acceleration,
+ * which come from the body velocity through the mecanum kinematics, on all powered phases.
+ *
+ * This class uses plain Java only, and runs on a desktop JVM:
+ * java CharacterizationFitter characterization.bin [CharacterizedConstants.java]
+ *
+ * @version 1.0, 10/19/2026
+ */
+public final class CharacterizationFitter {
+  public static final double NOMINAL_VOLTAGE = 12;
+  private static final double MIN_VELOCITY = 1;
+  private static final double MIN_WHEEL_VELOCITY = 0.02;
+  private static final double CIRCLE_SETTLE_TIME = 1;
+
+  private final CharacterizationLog log;
+  private final int count;
+  private final double[] forwardVelocity;
+  private final double[] strafeVelocity;
+  private final double[] angularVelocity;
+  private final double[][] power;
+  private final double[] forward;
+  private final double[] strafe;
+  private final double[] turn;
+  private final double[] phaseTime;
+  private final StringBuilder report = new StringBuilder();
+
+  public double xMovement;
+  public double yMovement;
+  public double maxAngularVelocity;
+  public double headingTimeConstant;
+  public double forwardZeroPowerAcceleration;
+  public double lateralZeroPowerAcceleration;
+  public double centripetalScaling;
+  public final double[][] wheelFeedforward = new double[4][3];
+
+  /**
+   * A least squares line y = slope * x + intercept.
+   */
+  private static final class Line {
+    double slope, intercept, rSquared;
+    int count;
+  }
+
+  /**
+   * A least squares fit of y against three regressors.
+   */
+  private static final class Fit {
+    final double[][] normal = new double[3][3];
+    final double[] right = new double[3];
+    double sy, syy;
+    double[] coefficients = new double[3];
+    double rSquared;
+    int count;
+
+    void add(double x0, double x1, double x2, double y) {
+      double[] row = {x0, x1, x2};
+      for (int r = 0; r < 3; r++) {
+        for (int c = 0; c < 3; c++) {
+          normal[r][c] += row[r] * row[c];
+        }
+
+        right[r] += row[r] * y;
+      }
+
+      sy += y;
+      syy += y * y;
+      count++;
+    }
+
+    boolean solve() {
+      double[][] a = new double[3][];
+      for (int r = 0; r < 3; r++) {
+        a[r] = normal[r].clone();
+      }
+
+      double[] solution = CharacterizationFitter.solve(a, right.clone());
+      if (solution == null) return false;
+      coefficients = solution;
+
+      // The residual sum of squares is y'y - 2 b'X'y + b'X'Xb.
+      double residual = syy;
+      for (int r = 0; r < 3; r++) {
+        residual -= 2 * coefficients[r] * right[r];
+        for (int c = 0; c < 3; c++) {
+          residual += coefficients[r] * normal[r][c] * coefficients[c];
+        }
+      }
+
+      double total = syy - sy * sy / count;
+      rSquared = total > 0 ? 1 - residual / total : 0;
+      return true;
+    }
+  }
+
+  public CharacterizationFitter(CharacterizationLog log) {
+    this.log = log;
+    count = log.getCount();
+    forwardVelocity = new double[count];
+    strafeVelocity = new double[count];
+    angularVelocity = new double[count];
+    power = new double[count][4];
+    forward = new double[count];
+    strafe = new double[count];
+    turn = new double[count];
+    phaseTime = new double[count];
+    double phaseStart = 0;
+    for (int i = 0; i < count; i++) {
+      float[] values = log.values[i];
+      double heading = values[CharacterizationLog.HEADING];
+      double cos = Math.cos(heading);
+      double sin = Math.sin(heading);
+      forwardVelocity[i] = values[CharacterizationLog.X_VELOCITY] * cos + values[CharacterizationLog.Y_VELOCITY] * sin;
+      strafeVelocity[i] = values[CharacterizationLog.Y_VELOCITY] * cos - values[CharacterizationLog.X_VELOCITY] * sin;
+      angularVelocity[i] = Double.isFinite(values[CharacterizationLog.ANGULAR_VELOCITY]) ? values[CharacterizationLog.ANGULAR_VELOCITY] : 0;
+
+      double voltage = values[CharacterizationLog.VOLTAGE];
+      double scale = voltage > 1 ? voltage / NOMINAL_VOLTAGE : 1;
+      for (int wheel = 0; wheel < 4; wheel++) {
+        power[i][wheel] = values[CharacterizationLog.LEFT_FRONT_POWER + wheel] * scale;
+      }
+
+      forward[i] = (power[i][0] + power[i][1] + power[i][2] + power[i][3]) / 4;
+      strafe[i] = log.strafeSign * (power[i][0] - power[i][1] - power[i][2] + power[i][3]) / 4;
+      turn[i] = (-power[i][0] - power[i][1] + power[i][2] + power[i][3]) / 4;
+      if (i == 0 || log.phases[i] != log.phases[i - 1]) phaseStart = log.times[i];
+      phaseTime[i] = log.times[i] - phaseStart;
+    }
+  }
+
+  /**
+   * This runs all fits.
+   *
+   * @return returns the report of every fit.
+   */
+  public String fit() {
+    Fit forwardFit = fitAxis(CharacterizationLog.Phase.FORWARD_RAMP, CharacterizationLog.Phase.FORWARD_STEP, forward, forwardVelocity, MIN_VELOCITY);
+    xMovement = forwardFit.coefficients[0] + forwardFit.coefficients[1];
+    report(forwardFit, "xMovement %.3f in/s, forward kS %.3f", xMovement, -forwardFit.coefficients[1] / forwardFit.coefficients[0]);
+
+    Fit strafeFit = fitAxis(CharacterizationLog.Phase.STRAFE_RAMP, CharacterizationLog.Phase.STRAFE_STEP, strafe, strafeVelocity, MIN_VELOCITY);
+    yMovement = strafeFit.coefficients[0] + strafeFit.coefficients[1];
+    report(strafeFit, "yMovement %.3f in/s, strafe kS %.3f", yMovement, -strafeFit.coefficients[1] / strafeFit.coefficients[0]);
+
+    Fit turnFit = fitAxis(CharacterizationLog.Phase.TURN_RAMP, CharacterizationLog.Phase.TURN_STEP, turn, angularVelocity, MIN_VELOCITY / 10);
+    maxAngularVelocity = turnFit.coefficients[0] + turnFit.coefficients[1];
+    headingTimeConstant = Math.max(0, -turnFit.coefficients[2]);
+    report(turnFit, "max angular velocity %.3f rad/s, turn kS %.3f, heading time constant %.3f s", maxAngularVelocity,
+        -turnFit.coefficients[1] / turnFit.coefficients[0], headingTimeConstant);
+
+    forwardZeroPowerAcceleration = fitCoasts(CharacterizationLog.Phase.FORWARD_COAST, CharacterizationLog.Phase.FORWARD_STEP_COAST, forwardVelocity, "forward");
+    lateralZeroPowerAcceleration = fitCoasts(CharacterizationLog.Phase.STRAFE_COAST, CharacterizationLog.Phase.STRAFE_STEP_COAST, strafeVelocity, "lateral");
+    centripetalScaling = fitCentripetalScaling();
+    fitWheelFeedforward();
+    return report.toString();
+  }
+
+  /**
+   * This fits v = a * power + b * sign(power) + c * dv/dt on a ramp and a step, while the robot
+   * moves. The velocity at full power is a + b, kS is -b / a and the time constant is -c.
+   */
+  private Fit fitAxis(CharacterizationLog.Phase ramp, CharacterizationLog.Phase step, double[] input, double[] velocity, double minVelocity) {
+    Fit fit = new Fit();
+    for (int i = 1; i < count - 1; i++) {
+      if ((log.phases[i] != ramp && log.phases[i] != step)
+          || log.phases[i - 1] != log.phases[i] || log.phases[i + 1] != log.phases[i]) continue;
+      double dt = log.times[i + 1] - log.times[i - 1];
+      if (dt <= 0 || Math.abs(velocity[i]) < minVelocity || input[i] == 0) continue;
+      fit.add(input[i], Math.signum(input[i]), (velocity[i + 1] - velocity[i - 1]) / dt, velocity[i]);
+    }
+
+    fit.solve();
+    return fit;
+  }
+
+  private static Line solveLine(Line line, double sx, double sy, double sxx, double sxy, double syy) {
+    double n = line.count;
+    double determinant = n * sxx - sx * sx;
+    if (n < 2 || determinant <= 0) return line;
+    line.slope = (n * sxy - sx * sy) / determinant;
+    line.intercept = (sy - line.slope * sx) / n;
+    double total = syy - sy * sy / n;
+    double residual = syy - line.slope * sxy - line.intercept * sy;
+    line.rSquared = total > 0 ? 1 - residual / total : 0;
+    return line;
+  }
+
+  /**
+   * This fits the deceleration of two coasts, as the slope of velocity against time, signed to be
+   * negative when the robot slows down.
+   */
+  private double fitCoasts(CharacterizationLog.Phase first, CharacterizationLog.Phase second, double[] velocity, String name) {
+    double weightedSum = 0;
+    int total = 0;
+    for (CharacterizationLog.Phase phase : new CharacterizationLog.Phase[]{first, second}) {
+      Line line = new Line();
+      double sx = 0, sy = 0, sxx = 0, sxy = 0, syy = 0, direction = 0;
+      for (int i = 0; i < count; i++) {
+        if (log.phases[i] != phase || Math.abs(velocity[i]) < MIN_VELOCITY) continue;
+        sx += log.times[i];
+        sy += velocity[i];
+        sxx += (double) log.times[i] * log.times[i];
+        sxy += log.times[i] * velocity[i];
+        syy += velocity[i] * velocity[i];
+        direction += velocity[i];
+        line.count++;
+      }
+
+      solveLine(line, sx, sy, sxx, sxy, syy);
+      double acceleration = line.slope * Math.signum(direction);
+      report(line, "%s %s zero power acceleration %.3f in/s^2", phase, name, acceleration);
+      weightedSum += acceleration * line.count;
+      total += line.count;
+    }
+
+    return total > 0 ? weightedSum / total : 0;
+  }
+
+  /**
+   * This fits the sideways power that cancels the drift on the circle against velocity times
+   * angular velocity, which is speed squared times curvature.
+   */
+  private double fitCentripetalScaling() {
+    double sxy = 0, sxx = 0;
+    int samples = 0;
+    for (int i = 0; i < count; i++) {
+      if (log.phases[i] != CharacterizationLog.Phase.CIRCLE || phaseTime[i] < CIRCLE_SETTLE_TIME) continue;
+      double x = Math.abs(forwardVelocity[i] * angularVelocity[i]);
+      double y = Math.abs(strafeVelocity[i]) / yMovement;
+      sxy += x * y;
+      sxx += x * x;
+      samples++;
+    }
+
+    double scaling = sxx > 0 && log.mass > 0 ? sxy / sxx / log.mass : 0;
+    report.append(String.format(Locale.US, "centripetal scaling %.6f (%d samples, mass %.3f)%n", scaling, samples, log.mass));
+    return scaling;
+  }
+
+  /**
+   * This fits power = kS * sign(v) + kV * v + kA * a for each wheel, where v and a are the
+   * wheel's normalized velocity and acceleration.
+   */
+  private void fitWheelFeedforward() {
+    double[] strafeSigns = {log.strafeSign, -log.strafeSign, -log.strafeSign, log.strafeSign};
+    double[] turnSigns = {-1, -1, 1, 1};
+    String[] names = {"left front", "left rear", "right front", "right rear"};
+    for (int wheel = 0; wheel < 4; wheel++) {
+      Fit fit = new Fit();
+      for (int i = 1; i < count - 1; i++) {
+        if (!isPowered(log.phases[i]) || log.phases[i - 1] != log.phases[i] || log.phases[i + 1] != log.phases[i]) continue;
+        double dt = log.times[i + 1] - log.times[i - 1];
+        if (dt <= 0) continue;
+        double velocity = getWheelVelocity(i, strafeSigns[wheel], turnSigns[wheel]);
+        if (Math.abs(velocity) < MIN_WHEEL_VELOCITY) continue;
+        double acceleration = (getWheelVelocity(i + 1, strafeSigns[wheel], turnSigns[wheel])
+            - getWheelVelocity(i - 1, strafeSigns[wheel], turnSigns[wheel])) / dt;
+        fit.add(Math.signum(velocity), velocity, acceleration, power[i][wheel]);
+      }
+
+      wheelFeedforward[wheel] = fit.solve() ? fit.coefficients : new double[]{0, 1, 0};
+      report(fit, "%s kS %.4f kV %.4f kA %.5f", names[wheel],
+          wheelFeedforward[wheel][0], wheelFeedforward[wheel][1], wheelFeedforward[wheel][2]);
+    }
+  }
+
+  private double getWheelVelocity(int i, double strafeSign, double turnSign) {
+    return forwardVelocity[i] / xMovement + strafeSign * strafeVelocity[i] / yMovement
+        + turnSign * angularVelocity[i] / maxAngularVelocity;
+  }
+
+  private static boolean isPowered(CharacterizationLog.Phase phase) {
+    switch (phase) {
+      case FORWARD_RAMP:
+      case FORWARD_STEP:
+      case STRAFE_RAMP:
+      case STRAFE_STEP:
+      case TURN_RAMP:
+      case TURN_STEP:
+      case CIRCLE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * This solves a small linear system by Gaussian elimination with partial pivoting.
+   *
+   * @return returns the solution, or null if the system is singular.
+   */
+  private static double[] solve(double[][] a, double[] b) {
+    int n = b.length;
+    for (int column = 0; column < n; column++) {
+      int pivot = column;
+      for (int row = column + 1; row < n; row++) {
+        if (Math.abs(a[row][column]) > Math.abs(a[pivot][column])) pivot = row;
+      }
+
+      if (Math.abs(a[pivot][column]) < 1e-12) return null;
+      double[] swap = a[column];
+      a[column] = a[pivot];
+      a[pivot] = swap;
+      double temp = b[column];
+      b[column] = b[pivot];
+      b[pivot] = temp;
+      for (int row = column + 1; row < n; row++) {
+        double factor = a[row][column] / a[column][column];
+        for (int c = column; c < n; c++) {
+          a[row][c] -= factor * a[column][c];
+        }
+
+        b[row] -= factor * b[column];
+      }
+    }
+
+    double[] x = new double[n];
+    for (int row = n - 1; row >= 0; row--) {
+      double sum = b[row];
+      for (int c = row + 1; c < n; c++) {
+        sum -= a[row][c] * x[c];
+      }
+
+      x[row] = sum / a[row][row];
+    }
+
+    return x;
+  }
+
+  private void report(Line line, String format, Object... args) {
+    report.append(String.format(Locale.US, format, args));
+    report.append(String.format(Locale.US, " (r^2 %.3f, %d samples)%n", line.rSquared, line.count));
+  }
+
+  private void report(Fit fit, String format, Object... args) {
+    report.append(String.format(Locale.US, format, args));
+    report.append(String.format(Locale.US, " (r^2 %.3f, %d samples)%n", fit.rSquared, fit.count));
+  }
+
+  /**
+   * This returns the fitted constants as the source of a constants class. Calling its apply() at
+   * the end of the FConstants static block overrides the hand tuned values.
+   *
+   * @param source the log file name, for the class comment.
+   * @return returns the Java source.
+   */
+  public String getConstantsClass(String source) {
+    StringBuilder builder = new StringBuilder();
+    builder.append("package com.pedropathing.constants;\n\n");
+    builder.append("import com.pedropathing.follower.FollowerConstants;\n");
+    builder.append("import com.pedropathing.pathgen.MathFunctions;\n");
+    builder.append("import com.pedropathing.pathgen.Point;\n");
+    builder.append("import com.pedropathing.pathgen.Vector;\n");
+    builder.append("import com.pedropathing.util.WheelFeedforward;\n\n");
+    builder.append("/**\n");
+    builder.append(" * Drive constants fitted by CharacterizationFitter from ").append(source).append(".\n");
+    builder.append(" * Call apply() at the end of the FConstants static block.\n");
+    builder.append(" */\n");
+    builder.append("public class CharacterizedConstants {\n");
+    builder.append("  public static void apply() {\n");
+    appendAssignment(builder, "xMovement", xMovement);
+    appendAssignment(builder, "yMovement", yMovement);
+    builder.append("    FollowerConstants.frontLeftVector = MathFunctions.normalizeVector(new Vector(\n");
+    builder.append("        new Point(FollowerConstants.xMovement, -FollowerConstants.yMovement, Point.CARTESIAN)));\n");
+    appendAssignment(builder, "forwardZeroPowerAcceleration", forwardZeroPowerAcceleration);
+    appendAssignment(builder, "lateralZeroPowerAcceleration", lateralZeroPowerAcceleration);
+    appendAssignment(builder, "centripetalScaling", centripetalScaling);
+    appendAssignment(builder, "mpcMaxAngularVelocity", maxAngularVelocity);
+    appendAssignment(builder, "mpcHeadingTimeConstant", headingTimeConstant);
+    String[] fields = {"leftFrontFeedforward", "leftRearFeedforward", "rightFrontFeedforward", "rightRearFeedforward"};
+    for (int wheel = 0; wheel < 4; wheel++) {
+      builder.append(String.format(Locale.US, "    FollowerConstants.%s = new WheelFeedforward(%.6f, %.6f, %.6f);%n",
+          fields[wheel], wheelFeedforward[wheel][0], wheelFeedforward[wheel][1], wheelFeedforward[wheel][2]));
+    }
+
+    builder.append("  }\n");
+    builder.append("}\n");
+    return builder.toString();
+  }
+
+  private static void appendAssignment(StringBuilder builder, String field, double value) {
+    builder.append(String.format(Locale.US, "    FollowerConstants.%s = %.6f;%n", field, value));
+  }
+
+  /**
+   * Desktop entry point. Fits a characterization log and writes or prints the constants class.
+   *
+   * @param args The log file, and optionally the constants class file to write.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.out.println("Usage: CharacterizationFitter characterization.bin [CharacterizedConstants.java]");
+      return;
+    }
+
+    File file = new File(args[0]);
+    CharacterizationFitter fitter = new CharacterizationFitter(CharacterizationLog.read(file));
+    System.out.print(fitter.fit());
+    String source = fitter.getConstantsClass(file.getName());
+    if (args.length > 1) {
+      try (Writer writer = new FileWriter(args[1])) {
+        writer.write(source);
+      }
+    } else {
+      System.out.print(source);
+    }
+  }
+}
@@ -0,0 +1,169 @@
+package pedroPathing.tuners_tests.automatic;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * This is the CharacterizationLog class. It holds the samples recorded by the CharacterizationTuner
+ * in a preallocated buffer, so that logging at loop rate doesn't allocate or touch the file system,
+ * and writes and reads them as a compact binary file for the CharacterizationFitter.
+ *
+ * The file is a header, MAGIC, VERSION, the robot mass, the strafe sign of the front left wheel
+ * and the record count, followed by fixed size big endian records of: time in seconds, phase,
+ * battery voltage, the four wheel powers (left front, left rear, right front, right rear), the
+ * field pose x, y and heading, the field velocity x and y, and the angular velocity.
+ *
+ * This class uses plain Java only, so that it runs on the robot as well as on a desktop JVM.
+ *
+ * @version 1.0, 10/19/2026
+ */
+public class CharacterizationLog {
+  public static final int MAGIC = 0x5050434C; // "PPCL"
+  public static final int VERSION = 1;
+  public static final int RECORD_BYTES = 4 + 1 + 4 * 11;
+  public static final int FIELDS = 11;
+
+  // Float field indices of a record, after the time and the phase.
+  public static final int VOLTAGE = 0;
+  public static final int LEFT_FRONT_POWER = 1;
+  public static final int LEFT_REAR_POWER = 2;
+  public static final int RIGHT_FRONT_POWER = 3;
+  public static final int RIGHT_REAR_POWER = 4;
+  public static final int X = 5;
+  public static final int Y = 6;
+  public static final int HEADING = 7;
+  public static final int X_VELOCITY = 8;
+  public static final int Y_VELOCITY = 9;
+  public static final int ANGULAR_VELOCITY = 10;
+
+  /**
+   * The characterization phases, in the order the tuner runs them.
+   */
+  public enum Phase {
+    FORWARD_RAMP,
+    FORWARD_COAST,
+    FORWARD_STEP,
+    FORWARD_STEP_COAST,
+    STRAFE_RAMP,
+    STRAFE_COAST,
+    STRAFE_STEP,
+    STRAFE_STEP_COAST,
+    TURN_RAMP,
+    TURN_COAST,
+    TURN_STEP,
+    TURN_STEP_COAST,
+    CIRCLE,
+    CIRCLE_COAST,
+    DONE
+  }
+
+  public final double mass;
+  public final double strafeSign;
+  private final ByteBuffer buffer;
+  private int count;
+
+  // Filled by read().
+  public float[] times;
+  public Phase[] phases;
+  public float[][] values;
+
+  /**
+   * This creates a new, empty CharacterizationLog.
+   *
+   * @param capacity the maximum number of records. Records past it are dropped.
+   * @param mass the robot mass, for fitting the centripetal scaling.
+   * @param strafeSign the sign of the front left wheel power for a strafe to the left.
+   */
+  public CharacterizationLog(int capacity, double mass, double strafeSign) {
+    this.mass = mass;
+    this.strafeSign = strafeSign;
+    buffer = ByteBuffer.allocate(capacity * RECORD_BYTES);
+  }
+
+  /**
+   * This adds a record.
+   *
+   * @return returns false if the log is full.
+   */
+  public boolean record(double time, Phase phase, double voltage, double leftFrontPower,
+                        double leftRearPower, double rightFrontPower, double rightRearPower,
+                        double x, double y, double heading, double xVelocity, double yVelocity,
+                        double angularVelocity) {
+    if (buffer.remaining() < RECORD_BYTES) return false;
+    buffer.putFloat((float) time);
+    buffer.put((byte) phase.ordinal());
+    buffer.putFloat((float) voltage);
+    buffer.putFloat((float) leftFrontPower);
+    buffer.putFloat((float) leftRearPower);
+    buffer.putFloat((float) rightFrontPower);
+    buffer.putFloat((float) rightRearPower);
+    buffer.putFloat((float) x);
+    buffer.putFloat((float) y);
+    buffer.putFloat((float) heading);
+    buffer.putFloat((float) xVelocity);
+    buffer.putFloat((float) yVelocity);
+    buffer.putFloat((float) angularVelocity);
+    count++;
+    return true;
+  }
+
+  public int getCount() {
+    return count;
+  }
+
+  /**
+   * This writes the header and the records to a file.
+   *
+   * @param file the file.
+   * @throws IOException if the file can't be written.
+   */
+  public void write(File file) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(4 + 4 + 8 + 8 + 4);
+    header.putInt(MAGIC).putInt(VERSION).putDouble(mass).putDouble(strafeSign).putInt(count);
+    try (OutputStream output = new BufferedOutputStream(new FileOutputStream(file))) {
+      output.write(header.array());
+      output.write(buffer.array(), 0, buffer.position());
+    }
+  }
+
+  /**
+   * This reads a file written by write().
+   *
+   * @param file the file.
+   * @return returns the log, with times, phases and values filled in.
+   * @throws IOException if the file can't be read or isn't a characterization log.
+   */
+  public static CharacterizationLog read(File file) throws IOException {
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+        throw new IOException("Not a version " + VERSION + " characterization log: " + file);
+      }
+
+      double mass = input.readDouble();
+      double strafeSign = input.readDouble();
+      int count = input.readInt();
+      CharacterizationLog log = new CharacterizationLog(0, mass, strafeSign);
+      log.count = count;
+      log.times = new float[count];
+      log.phases = new Phase[count];
+      log.values = new float[count][FIELDS];
+      Phase[] phases = Phase.values();
+      for (int i = 0; i < count; i++) {
+        log.times[i] = input.readFloat();
+        log.phases[i] = phases[input.readByte()];
+        for (int j = 0; j < FIELDS; j++) {
+          log.values[i][j] = input.readFloat();
+        }
+      }
+
+      return log;
+    }
+  }
+}
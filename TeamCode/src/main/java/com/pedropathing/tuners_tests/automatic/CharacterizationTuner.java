@@ -0,0 +1,303 @@
+package pedroPathing.tuners_tests.automatic;
+
+import static com.pedropathing.follower.FollowerConstants.leftFrontMotorDirection;
+import static com.pedropathing.follower.FollowerConstants.leftFrontMotorName;
+import static com.pedropathing.follower.FollowerConstants.leftRearMotorDirection;
+import static com.pedropathing.follower.FollowerConstants.leftRearMotorName;
+import static com.pedropathing.follower.FollowerConstants.rightFrontMotorDirection;
+import static com.pedropathing.follower.FollowerConstants.rightFrontMotorName;
+import static com.pedropathing.follower.FollowerConstants.rightRearMotorDirection;
+import static com.pedropathing.follower.FollowerConstants.rightRearMotorName;
+
+import com.acmerobotics.dashboard.FtcDashboard;
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.dashboard.telemetry.MultipleTelemetry;
+import com.pedropathing.constants.FConstants;
+import com.pedropathing.constants.LConstants;
+import com.pedropathing.follower.FollowerConstants;
+import com.pedropathing.localization.Pose;
+import com.pedropathing.localization.PoseUpdater;
+import com.pedropathing.pathgen.Vector;
+import com.qualcomm.robotcore.eventloop.opmode.Autonomous;
+import com.qualcomm.robotcore.eventloop.opmode.Disabled;
+import com.qualcomm.robotcore.eventloop.opmode.OpMode;
+import com.qualcomm.robotcore.hardware.DcMotor;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+import com.qualcomm.robotcore.hardware.VoltageSensor;
+import com.qualcomm.robotcore.hardware.configuration.typecontainers.MotorConfigurationType;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This is the CharacterizationTuner autonomous OpMode. In one run it drives the robot through
+ * quasistatic power ramps, power steps and zero power coasts forwards, sideways and turning in
+ * place, and then drives a circle. Every loop it records the battery voltage, the wheel powers and
+ * the localizer pose and velocity into a CharacterizationLog, which is written to
+ * FIRST/characterization.bin when the run ends. CharacterizationFitter then fits xMovement,
+ * yMovement, the zero power accelerations, the centripetal scaling and the per wheel kS/kV/kA
+ * from that file, replacing the separate velocity and zero power acceleration tuners.
+ *
+ * The ramps run away from the start and the steps run back towards it, so the robot needs about
+ * DISTANCE inches of room forwards and to the left, plus room for the circle.
+ * You can adjust the distances and powers on FTC Dashboard: 192/168/43/1:8080/dash
+ *
+ * @version 1.0, 10/19/2026
+ */
+@Disabled
+@Config
+@Autonomous(name = "Characterization Tuner", group = "Automatic Tuners")
+public class CharacterizationTuner extends OpMode {
+  public static String FILE_NAME = "characterization.bin";
+  public static double DISTANCE = 48;
+  public static double RAMP_RATE = 0.25;
+  public static double STEP_POWER = 0.7;
+  public static double TURN_RAMP_RATE = 0.25;
+  public static double TURN_ANGLE = 6 * Math.PI;
+  public static double CIRCLE_FORWARD_POWER = 0.5;
+  public static double CIRCLE_TURN_POWER = 0.3;
+  public static double CIRCLE_TIME = 4;
+  public static double STOP_VELOCITY = 1;
+  public static double VOLTAGE_PERIOD = 0.1;
+  public static int CAPACITY = 40000;
+
+  private DcMotorEx leftFront;
+  private DcMotorEx leftRear;
+  private DcMotorEx rightFront;
+  private DcMotorEx rightRear;
+  private List<DcMotorEx> motors;
+  private VoltageSensor voltageSensor;
+
+  private PoseUpdater poseUpdater;
+  private CharacterizationLog log;
+  private Telemetry telemetryA;
+
+  private CharacterizationLog.Phase phase;
+  private long startTime;
+  private double phaseStartTime;
+  private Pose phaseStartPose;
+  private double totalTurn;
+  private double previousHeading;
+  private double voltage;
+  private double voltageTime = -1;
+  private double strafeSign;
+  private final double[] wheelPowers = new double[4];
+  private String result = "";
+
+  /**
+   * This initializes the drive motors, the log and the FTC Dashboard telemetry.
+   */
+  @Override
+  public void init() {
+    poseUpdater = new PoseUpdater(hardwareMap, FConstants.class, LConstants.class);
+
+    leftFront = hardwareMap.get(DcMotorEx.class, leftFrontMotorName);
+    leftRear = hardwareMap.get(DcMotorEx.class, leftRearMotorName);
+    rightRear = hardwareMap.get(DcMotorEx.class, rightRearMotorName);
+    rightFront = hardwareMap.get(DcMotorEx.class, rightFrontMotorName);
+    leftFront.setDirection(leftFrontMotorDirection);
+    leftRear.setDirection(leftRearMotorDirection);
+    rightFront.setDirection(rightFrontMotorDirection);
+    rightRear.setDirection(rightRearMotorDirection);
+
+    motors = Arrays.asList(leftFront, leftRear, rightFront, rightRear);
+
+    for (DcMotorEx motor : motors) {
+      MotorConfigurationType motorConfigurationType = motor.getMotorType().clone();
+      motorConfigurationType.setAchieveableMaxRPMFraction(1.0);
+      motor.setMotorType(motorConfigurationType);
+    }
+
+    for (DcMotorEx motor : motors) {
+      motor.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.FLOAT);
+    }
+
+    voltageSensor = hardwareMap.voltageSensor.iterator().next();
+
+    // The front left wheel's share of a strafe to the left has the sign of its wheel vector's y.
+    strafeSign = Math.signum(FollowerConstants.frontLeftVector.getYComponent());
+    if (strafeSign == 0) strafeSign = -1;
+    log = new CharacterizationLog(CAPACITY, FollowerConstants.mass, strafeSign);
+
+    telemetryA = new MultipleTelemetry(this.telemetry, FtcDashboard.getInstance().getTelemetry());
+    telemetryA.addLine("The robot will ramp, step and coast forwards, sideways and turning, then drive a circle.");
+    telemetryA.addLine("Make sure you have " + DISTANCE + " inches of room forwards and to the left.");
+    telemetryA.addLine("The log is written to " + FILE_NAME + " for the CharacterizationFitter.");
+    telemetryA.addLine("Press CROSS or A on game pad 1 to stop.");
+    telemetryA.update();
+  }
+
+  /**
+   * This starts the OpMode with the forward ramp.
+   */
+  @Override
+  public void start() {
+    startTime = System.nanoTime();
+    startPhase(CharacterizationLog.Phase.FORWARD_RAMP);
+  }
+
+  /**
+   * This runs the OpMode. At any point during the running of the OpMode, pressing CROSS or A on
+   * game pad 1 will stop the OpMode and write the samples recorded so far.
+   */
+  @Override
+  public void loop() {
+    if (phase == CharacterizationLog.Phase.DONE) {
+      telemetryA.addData("result", result);
+      telemetryA.update();
+      return;
+    }
+
+    if (gamepad1.cross || gamepad1.a) {
+      finish();
+      requestOpModeStop();
+      return;
+    }
+
+    poseUpdater.update();
+    double time = (System.nanoTime() - startTime) / 1e9;
+    if (time - voltageTime >= VOLTAGE_PERIOD) {
+      // Reading the voltage is a separate hub transaction, so it is sampled less often.
+      voltage = voltageSensor.getVoltage();
+      voltageTime = time;
+    }
+
+    Pose pose = poseUpdater.getPose();
+    Vector velocity = poseUpdater.getVelocity();
+    double angularVelocity = poseUpdater.getAngularVelocity();
+    double heading = pose.getHeading();
+    double turned = heading - previousHeading;
+    totalTurn += Math.abs(Math.atan2(Math.sin(turned), Math.cos(turned)));
+    previousHeading = heading;
+
+    double phaseTime = time - phaseStartTime;
+    double cos = Math.cos(phaseStartPose.getHeading());
+    double sin = Math.sin(phaseStartPose.getHeading());
+    double dx = pose.getX() - phaseStartPose.getX();
+    double dy = pose.getY() - phaseStartPose.getY();
+    double forwardDistance = dx * cos + dy * sin;
+    double strafeDistance = dy * cos - dx * sin;
+    double forwardVelocity = velocity.getXComponent() * Math.cos(heading) + velocity.getYComponent() * Math.sin(heading);
+    double strafeVelocity = velocity.getYComponent() * Math.cos(heading) - velocity.getXComponent() * Math.sin(heading);
+
+    switch (phase) {
+      case FORWARD_RAMP:
+        setDrivePower(Math.min(1, RAMP_RATE * phaseTime), 0, 0);
+        if (forwardDistance > DISTANCE) startPhase(CharacterizationLog.Phase.FORWARD_COAST);
+        break;
+      case FORWARD_STEP:
+        setDrivePower(-STEP_POWER, 0, 0);
+        if (forwardDistance < -DISTANCE) startPhase(CharacterizationLog.Phase.FORWARD_STEP_COAST);
+        break;
+      case STRAFE_RAMP:
+        setDrivePower(0, Math.min(1, RAMP_RATE * phaseTime), 0);
+        if (strafeDistance > DISTANCE) startPhase(CharacterizationLog.Phase.STRAFE_COAST);
+        break;
+      case STRAFE_STEP:
+        setDrivePower(0, -STEP_POWER, 0);
+        if (strafeDistance < -DISTANCE) startPhase(CharacterizationLog.Phase.STRAFE_STEP_COAST);
+        break;
+      case TURN_RAMP:
+        setDrivePower(0, 0, Math.min(1, TURN_RAMP_RATE * phaseTime));
+        if (totalTurn > TURN_ANGLE || TURN_RAMP_RATE * phaseTime > 1.5) startPhase(CharacterizationLog.Phase.TURN_COAST);
+        break;
+      case TURN_STEP:
+        setDrivePower(0, 0, -STEP_POWER);
+        if (totalTurn > TURN_ANGLE) startPhase(CharacterizationLog.Phase.TURN_STEP_COAST);
+        break;
+      case CIRCLE:
+        setDrivePower(CIRCLE_FORWARD_POWER, 0, CIRCLE_TURN_POWER);
+        if (phaseTime > CIRCLE_TIME) startPhase(CharacterizationLog.Phase.CIRCLE_COAST);
+        break;
+      case FORWARD_COAST:
+      case FORWARD_STEP_COAST:
+        if (Math.abs(forwardVelocity) < STOP_VELOCITY) startPhase(CharacterizationLog.Phase.values()[phase.ordinal() + 1]);
+        break;
+      case STRAFE_COAST:
+      case STRAFE_STEP_COAST:
+        if (Math.abs(strafeVelocity) < STOP_VELOCITY) startPhase(CharacterizationLog.Phase.values()[phase.ordinal() + 1]);
+        break;
+      case TURN_COAST:
+      case TURN_STEP_COAST:
+      case CIRCLE_COAST:
+        if (Math.abs(angularVelocity) < STOP_VELOCITY / 10 && Math.hypot(forwardVelocity, strafeVelocity) < STOP_VELOCITY) {
+          startPhase(CharacterizationLog.Phase.values()[phase.ordinal() + 1]);
+        }
+        break;
+      default:
+        break;
+    }
+
+    if (!log.record(time, phase, voltage, wheelPowers[0], wheelPowers[1], wheelPowers[2], wheelPowers[3],
+        pose.getX(), pose.getY(), heading, velocity.getXComponent(), velocity.getYComponent(), angularVelocity)) {
+      startPhase(CharacterizationLog.Phase.DONE);
+    }
+
+    if (phase == CharacterizationLog.Phase.DONE) {
+      finish();
+    }
+
+    telemetryA.addData("phase", phase);
+    telemetryA.addData("samples", log.getCount());
+    telemetryA.addData("forward velocity", forwardVelocity);
+    telemetryA.addData("strafe velocity", strafeVelocity);
+    telemetryA.addData("angular velocity", angularVelocity);
+    telemetryA.update();
+  }
+
+  @Override
+  public void stop() {
+    finish();
+  }
+
+  private void startPhase(CharacterizationLog.Phase phase) {
+    this.phase = phase;
+    phaseStartTime = (System.nanoTime() - startTime) / 1e9;
+    phaseStartPose = poseUpdater.getPose();
+    previousHeading = phaseStartPose.getHeading();
+    totalTurn = 0;
+    setDrivePower(0, 0, 0);
+  }
+
+  /**
+   * This sets the wheel powers for robot frame forward, strafe (left) and turn (counterclockwise)
+   * powers, with every wheel at most 1.
+   */
+  private void setDrivePower(double forward, double strafe, double turn) {
+    wheelPowers[0] = forward + strafeSign * strafe - turn;
+    wheelPowers[1] = forward - strafeSign * strafe - turn;
+    wheelPowers[2] = forward - strafeSign * strafe + turn;
+    wheelPowers[3] = forward + strafeSign * strafe + turn;
+    double max = Math.max(1, Math.max(Math.max(Math.abs(wheelPowers[0]), Math.abs(wheelPowers[1])),
+        Math.max(Math.abs(wheelPowers[2]), Math.abs(wheelPowers[3]))));
+    for (int i = 0; i < wheelPowers.length; i++) {
+      wheelPowers[i] /= max;
+      motors.get(i).setPower(wheelPowers[i]);
+    }
+  }
+
+  /**
+   * This stops the robot and writes the log, once.
+   */
+  private void finish() {
+    if (log == null || !result.isEmpty()) return;
+    for (DcMotorEx motor : motors) {
+      motor.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
+      motor.setPower(0);
+    }
+
+    phase = CharacterizationLog.Phase.DONE;
+    File file = new File(AppUtil.ROBOT_DATA_DIR, FILE_NAME);
+    try {
+      log.write(file);
+      result = log.getCount() + " samples written to " + file.getAbsolutePath();
+    } catch (IOException e) {
+      result = "Failed to write " + file.getAbsolutePath() + ": " + e.getMessage();
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package com.pedropathing.util;
+
+import android.util.Log;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This is the CallbackWorker class. It runs asynchronous PathCallbacks on a single background
+ * thread, so a slow mechanism command can never stall Follower.update(). Since there is only one
+ * worker thread, asynchronous callbacks still run one at a time, in the order they were triggered.
+ *
+ * @version 1.0, 10/19/2026
+ */
+public final class CallbackWorker {
+    private static ExecutorService executor;
+
+    private CallbackWorker() {
+    }
+
+    /**
+     * This runs a SingleRunAction on the worker thread. The thread is created on first use and is a
+     * daemon, so it never keeps the app alive. Exceptions are logged rather than lost.
+     *
+     * @param action the action to run
+     */
+    public static synchronized void submit(SingleRunAction action) {
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "CallbackWorker");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        executor.execute(() -> {
+            try {
+                action.run();
+            } catch (RuntimeException exception) {
+                Log.e("CallbackWorker", "Callback failed", exception);
+            }
+        });
+    }
+}
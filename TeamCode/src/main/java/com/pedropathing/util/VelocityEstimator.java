@@ -0,0 +1,247 @@
+package com.pedropathing.util;
+
+/**
+ * This is the VelocityEstimator class. It smooths a stream of timestamped 2D velocity samples
+ * and estimates the acceleration from them. Samples are kept in a primitive ring buffer and
+ * every filter works on the actual sample times, so uneven loop periods don't skew the
+ * estimates, and nothing is allocated after construction.
+ *
+ * The available filters are:
+ * MOVING_AVERAGE, the mean velocity over the window and the least squares slope for acceleration.
+ * SAVITZKY_GOLAY, a least squares quadratic fit over the window, evaluated at the newest sample.
+ * This has far less lag than the moving average for the same amount of smoothing.
+ * ALPHA_BETA_GAMMA, a fixed gain tracking filter. With gamma 0 this is an alpha-beta filter.
+ *
+ * @version 1.0, 10/19/2026
+ */
+public class VelocityEstimator {
+    public enum Filter {
+        MOVING_AVERAGE,
+        SAVITZKY_GOLAY,
+        ALPHA_BETA_GAMMA
+    }
+
+    private final Filter filter;
+    private final long[] times;
+    private final double[] xVelocities;
+    private final double[] yVelocities;
+    private int head;
+    private int count;
+
+    private double alpha = 0.5;
+    private double beta = 0.1;
+    private double gamma = 0;
+
+    private double xVelocity, yVelocity;
+    private double xAcceleration, yAcceleration;
+    private double xJerk, yJerk;
+
+    /**
+     * This creates a new VelocityEstimator.
+     *
+     * @param filter the filter to use
+     * @param windowSize the number of samples kept for the MOVING_AVERAGE and SAVITZKY_GOLAY
+     *                   filters, at least 2
+     */
+    public VelocityEstimator(Filter filter, int windowSize) {
+        this.filter = filter;
+        int size = Math.max(2, windowSize);
+        times = new long[size];
+        xVelocities = new double[size];
+        yVelocities = new double[size];
+        reset();
+    }
+
+    /**
+     * This sets the gains of the ALPHA_BETA_GAMMA filter.
+     *
+     * @param alpha the velocity gain, between 0 and 1
+     * @param beta the acceleration gain
+     * @param gamma the jerk gain, 0 for an alpha-beta filter
+     */
+    public void setGains(double alpha, double beta, double gamma) {
+        this.alpha = alpha;
+        this.beta = beta;
+        this.gamma = gamma;
+    }
+
+    /**
+     * This clears all samples and estimates.
+     */
+    public void reset() {
+        head = 0;
+        count = 0;
+        xVelocity = 0;
+        yVelocity = 0;
+        xAcceleration = 0;
+        yAcceleration = 0;
+        xJerk = 0;
+        yJerk = 0;
+    }
+
+    /**
+     * This adds a velocity sample and updates the estimates.
+     *
+     * @param timeNanos the time of the sample, from System.nanoTime()
+     * @param xSample the x component of the measured velocity
+     * @param ySample the y component of the measured velocity
+     */
+    public void update(long timeNanos, double xSample, double ySample) {
+        if (count > 0 && timeNanos <= times[head]) {
+            // Same or out of order sample, keep the newest reading but not the time.
+            xVelocities[head] = xSample;
+            yVelocities[head] = ySample;
+        } else {
+            long previousTime = times[head];
+            head = (head + 1) % times.length;
+            times[head] = timeNanos;
+            xVelocities[head] = xSample;
+            yVelocities[head] = ySample;
+            count = Math.min(count + 1, times.length);
+            if (filter == Filter.ALPHA_BETA_GAMMA) {
+                updateAlphaBetaGamma(count == 1 ? 0 : (timeNanos - previousTime) / 1e9, xSample, ySample);
+                return;
+            }
+        }
+
+        if (filter == Filter.SAVITZKY_GOLAY && count >= 3) {
+            fitQuadratic();
+        } else if (filter != Filter.ALPHA_BETA_GAMMA) {
+            fitLine(filter == Filter.MOVING_AVERAGE);
+        }
+    }
+
+    /**
+     * This runs one step of the alpha-beta-gamma filter on each axis.
+     */
+    private void updateAlphaBetaGamma(double dt, double xSample, double ySample) {
+        if (dt <= 0) {
+            xVelocity = xSample;
+            yVelocity = ySample;
+            return;
+        }
+
+        // Predict
+        xVelocity += xAcceleration * dt + 0.5 * xJerk * dt * dt;
+        yVelocity += yAcceleration * dt + 0.5 * yJerk * dt * dt;
+        xAcceleration += xJerk * dt;
+        yAcceleration += yJerk * dt;
+
+        // Correct
+        double xResidual = xSample - xVelocity;
+        double yResidual = ySample - yVelocity;
+        xVelocity += alpha * xResidual;
+        yVelocity += alpha * yResidual;
+        xAcceleration += beta * xResidual / dt;
+        yAcceleration += beta * yResidual / dt;
+        xJerk += 2 * gamma * xResidual / (dt * dt);
+        yJerk += 2 * gamma * yResidual / (dt * dt);
+    }
+
+    /**
+     * This fits a line through the samples by least squares. The acceleration is its slope.
+     *
+     * @param average true to use the mean velocity, false to evaluate the line at the newest sample
+     */
+    private void fitLine(boolean average) {
+        double st = 0, stt = 0, sx = 0, sy = 0, stx = 0, sty = 0;
+        for (int i = 0; i < count; i++) {
+            int index = (head - i + times.length) % times.length;
+            double t = (times[index] - times[head]) / 1e9;
+            st += t;
+            stt += t * t;
+            sx += xVelocities[index];
+            sy += yVelocities[index];
+            stx += t * xVelocities[index];
+            sty += t * yVelocities[index];
+        }
+
+        double determinant = count * stt - st * st;
+        if (count < 2 || determinant <= 0) {
+            xVelocity = xVelocities[head];
+            yVelocity = yVelocities[head];
+            xAcceleration = 0;
+            yAcceleration = 0;
+            return;
+        }
+
+        xAcceleration = (count * stx - st * sx) / determinant;
+        yAcceleration = (count * sty - st * sy) / determinant;
+        if (average) {
+            xVelocity = sx / count;
+            yVelocity = sy / count;
+        } else {
+            xVelocity = (sx - xAcceleration * st) / count;
+            yVelocity = (sy - yAcceleration * st) / count;
+        }
+    }
+
+    /**
+     * This fits v(t) = c0 + c1 * t + c2 * t^2 through the samples by least squares, with t relative
+     * to the newest sample, so the velocity is c0 and the acceleration is c1. With evenly spaced
+     * samples this is the Savitzky-Golay filter; with uneven ones it still uses the actual times.
+     */
+    private void fitQuadratic() {
+        double s1 = 0, s2 = 0, s3 = 0, s4 = 0;
+        double sx = 0, stx = 0, sttx = 0, sy = 0, sty = 0, stty = 0;
+        for (int i = 0; i < count; i++) {
+            int index = (head - i + times.length) % times.length;
+            double t = (times[index] - times[head]) / 1e9;
+            double tt = t * t;
+            s1 += t;
+            s2 += tt;
+            s3 += tt * t;
+            s4 += tt * tt;
+            sx += xVelocities[index];
+            stx += t * xVelocities[index];
+            sttx += tt * xVelocities[index];
+            sy += yVelocities[index];
+            sty += t * yVelocities[index];
+            stty += tt * yVelocities[index];
+        }
+
+        // Normal equations [n s1 s2; s1 s2 s3; s2 s3 s4] * c = b, solved by Cramer's rule.
+        double n = count;
+        double determinant = n * (s2 * s4 - s3 * s3) - s1 * (s1 * s4 - s3 * s2) + s2 * (s1 * s3 - s2 * s2);
+        if (Math.abs(determinant) < 1e-18) {
+            fitLine(false);
+            return;
+        }
+
+        xVelocity = (sx * (s2 * s4 - s3 * s3) - s1 * (stx * s4 - s3 * sttx) + s2 * (stx * s3 - s2 * sttx)) / determinant;
+        xAcceleration = (n * (stx * s4 - sttx * s3) - sx * (s1 * s4 - s3 * s2) + s2 * (s1 * sttx - stx * s2)) / determinant;
+        yVelocity = (sy * (s2 * s4 - s3 * s3) - s1 * (sty * s4 - s3 * stty) + s2 * (sty * s3 - s2 * stty)) / determinant;
+        yAcceleration = (n * (sty * s4 - stty * s3) - sy * (s1 * s4 - s3 * s2) + s2 * (s1 * stty - sty * s2)) / determinant;
+    }
+
+    public double getXVelocity() {
+        return xVelocity;
+    }
+
+    public double getYVelocity() {
+        return yVelocity;
+    }
+
+    public double getVelocityMagnitude() {
+        return Math.hypot(xVelocity, yVelocity);
+    }
+
+    public double getXAcceleration() {
+        return xAcceleration;
+    }
+
+    public double getYAcceleration() {
+        return yAcceleration;
+    }
+
+    public double getAccelerationMagnitude() {
+        return Math.hypot(xAcceleration, yAcceleration);
+    }
+
+    /**
+     * @return returns the number of samples in the window
+     */
+    public int getSampleCount() {
+        return count;
+    }
+}
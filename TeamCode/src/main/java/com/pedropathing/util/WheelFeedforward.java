@@ -0,0 +1,50 @@
+package com.pedropathing.util;
+
+import kotlin.jvm.JvmField;
+
+/**
+ * This is the WheelFeedforward class. This class holds the measured static friction, velocity and
+ * acceleration feedforward constants of one drive wheel.
+ *
+ * Velocities are normalized, so a velocity of 1 is the wheel's speed when the drive runs at full
+ * power with no feedforward, and accelerations are in normalized velocity per second. With the
+ * default constants the power is the commanded velocity itself.
+ *
+ * @version 1.0, 10/19/2026
+ */
+public class WheelFeedforward {
+    @JvmField public double kS;
+    @JvmField public double kV;
+    @JvmField public double kA;
+
+    /**
+     * This creates a new WheelFeedforward that passes the commanded velocity through.
+     */
+    public WheelFeedforward() {
+        this(0, 1, 0);
+    }
+
+    /**
+     * This creates a new WheelFeedforward with measured constants.
+     *
+     * @param kS the power needed to overcome static friction.
+     * @param kV the power per unit of normalized velocity.
+     * @param kA the power per unit of normalized acceleration.
+     */
+    public WheelFeedforward(double kS, double kV, double kA) {
+        this.kS = kS;
+        this.kV = kV;
+        this.kA = kA;
+    }
+
+    /**
+     * This returns the wheel power for a commanded velocity and acceleration.
+     *
+     * @param velocity the normalized velocity.
+     * @param acceleration the normalized acceleration.
+     * @return returns the feedforward power.
+     */
+    public double getPower(double velocity, double acceleration) {
+        return kS * Math.signum(velocity) + kV * velocity + kA * acceleration;
+    }
+}
@@ -10,10 +10,16 @@ import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
 import com.qualcomm.robotcore.util.ElapsedTime;
 
 import org.firstinspires.ftc.teamcode.qubit.core.FtcBot;
+import org.firstinspires.ftc.teamcode.qubit.core.FtcFrameRecorder;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcImu;
+import org.firstinspires.ftc.teamcode.qubit.core.FtcInitGraph;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcLift;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcLogger;
+import org.firstinspires.ftc.teamcode.qubit.core.FtcLoopRecorder;
+import org.firstinspires.ftc.teamcode.qubit.core.FtcPathAnalytics;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcUtils;
+import org.firstinspires.ftc.teamcode.qubit.core.FtcVoltageService;
+import org.firstinspires.ftc.teamcode.qubit.core.FtcWebcam;
 import org.firstinspires.ftc.teamcode.qubit.core.enumerations.RobotPositionEnum;
 
 @Disabled
@@ -25,6 +31,17 @@ public class AutoOp extends LinearOpMode {
   OptionBase optionBase;
   OptionLeft optionLeft;
   OptionRight optionRight;
+  FtcWebcam webcam = null;
+  FtcFrameRecorder frameRecorder = null;
+
+  // When enabled, every follower loop is recorded into a loop log.
+  private final boolean loopRecordingEnabled = false;
+
+  // When enabled, the webcam frames of the run are recorded in the background.
+  private final boolean frameRecordingEnabled = false;
+
+  // When enabled, every path chain is summarized. Off for match runs.
+  private final boolean pathAnalyticsEnabled = false;
 
   @Override
   public void runOpMode() {
@@ -49,9 +66,20 @@ public class AutoOp extends LinearOpMode {
     FtcLift.endAutoOpLeftLiftPosition = FtcLift.POSITION_MINIMUM;
     FtcLift.endAutoOpRightLiftPosition = FtcLift.POSITION_MINIMUM;
 
-    // Initialize robot.
+    // Initialize robot and Pedro in parallel.
+    // Pedro must initialize after robot.driveTrain since driveTrain
+    // sets the motors to run without encoders, and after robot.imu since both
+    // reset and configure the same Pinpoint odometry computer.
     robot = new FtcBot();
-    robot.init(hardwareMap, telemetry, true);
+    FtcInitGraph initGraph = robot.createInitGraph(hardwareMap, telemetry, true);
+    initGraph.add("follower",
+        () -> {
+          follower = new Follower(hardwareMap, FConstants.class, LConstants.class);
+          follower.setVoltageSource(FtcVoltageService::getVoltage);
+        },
+        FtcBot.DRIVE_TRAIN_STEP, FtcBot.VOLTAGE_STEP, FtcBot.IMU_STEP);
+    initGraph.run();
+    initGraph.showTelemetry(telemetry);
     robot.blinkinLed.set(RevBlinkinLedDriver.BlinkinPattern.BLACK);
     robot.intake.spinStop();
     robot.rnp.stop(false);
@@ -69,10 +97,6 @@ public class AutoOp extends LinearOpMode {
       robot.disableTelemetry();
     }
 
-    // Initialize Pedro for robot paths and trajectories
-    // Must initialize this after robot.driveTrain initialization since driveTrain
-    // sets the motors to run without encoders.
-    follower = new Follower(hardwareMap, FConstants.class, LConstants.class);
     if (robot.config.robotPosition == RobotPositionEnum.LEFT) {
       optionLeft = new OptionLeft(this, robot, follower).init();
       optionBase = optionLeft;
@@ -81,6 +105,21 @@ public class AutoOp extends LinearOpMode {
       optionBase = optionRight;
     }
 
+    if (loopRecordingEnabled) {
+      optionBase.loopRecorder = new FtcLoopRecorder("AutoOp", robot.driveTrain.activeMotors);
+    }
+
+    if (pathAnalyticsEnabled) {
+      optionBase.pathAnalytics = new FtcPathAnalytics("AutoOp");
+    }
+
+    if (frameRecordingEnabled) {
+      webcam = new FtcWebcam();
+      webcam.init(hardwareMap, telemetry);
+      webcam.open();
+      webcam.start();
+    }
+
     FtcLogger.exit();
   }
 
@@ -131,6 +170,13 @@ public class AutoOp extends LinearOpMode {
     // Enable and reset servos
     robot.start();
 
+    // Start recording at play, so that frames waiting in init aren't counted as dropped.
+    if (webcam != null) {
+      frameRecorder = new FtcFrameRecorder("AutoOp");
+      frameRecorder.start();
+      webcam.frameRecorder = frameRecorder;
+    }
+
     if (robot.config.robotPosition == RobotPositionEnum.LEFT) {
       optionLeft.execute();
     } else {
@@ -158,7 +204,24 @@ public class AutoOp extends LinearOpMode {
       telemetry.addData(FtcUtils.TAG, "Auto Op took %.0f seconds.", autoOpExecutionDuration);
       telemetry.addData(FtcUtils.TAG, "Waiting for auto Op to end.");
       telemetry.update();
-      FtcUtils.sleep(FtcUtils.CYCLE_MS);
+      robot.lift.hold(FtcUtils.CYCLE_MS);
+    }
+
+    if (optionBase != null && optionBase.loopRecorder != null) {
+      optionBase.loopRecorder.close();
+    }
+
+    if (optionBase != null && optionBase.pathAnalytics != null) {
+      optionBase.pathAnalytics.close();
+    }
+
+    if (webcam != null) {
+      webcam.frameRecorder = null;
+      if (frameRecorder != null) {
+        frameRecorder.stop();
+      }
+
+      webcam.close();
     }
 
     robot.stop();
@@ -2,16 +2,22 @@ package org.firstinspires.ftc.teamcode.qubit.autoOps;
 
 import com.pedropathing.follower.Follower;
 import com.pedropathing.localization.Pose;
-import com.pedropathing.pathgen.PathCallback;
+import com.pedropathing.pathgen.MathFunctions;
+import com.pedropathing.pathgen.Path;
 import com.pedropathing.pathgen.PathChain;
+import com.pedropathing.pathgen.PathPlanner;
+import com.pedropathing.pathgen.Point;
 import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
 import com.qualcomm.robotcore.util.ElapsedTime;
 
 import org.firstinspires.ftc.robotcore.internal.system.Deadline;
+import org.firstinspires.ftc.teamcode.qubit.core.FtcAutoPlanner;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcBot;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcImu;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcLift;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcLogger;
+import org.firstinspires.ftc.teamcode.qubit.core.FtcLoopRecorder;
+import org.firstinspires.ftc.teamcode.qubit.core.FtcPathAnalytics;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcUtils;
 import org.firstinspires.ftc.teamcode.qubit.core.enumerations.DriveTrainEnum;
 import org.firstinspires.ftc.teamcode.qubit.core.enumerations.DriveTypeEnum;
@@ -41,6 +47,38 @@ public class OptionBase {
   protected Follower follower;
   protected final Pose startPose = new Pose(0, 0, 0);
 
+  // Time kept back from the autonomous period when planning, for the follower to settle.
+  protected static final long PLANNING_MARGIN_MS = 1000;
+  protected static final long TRANSITION_TIMEOUT_MS = 3000;
+  protected FtcAutoPlanner.Schedule schedule = null;
+
+  // Obstacle aware planner for recovery paths. Autos add obstacles relative to their start pose.
+  protected final PathPlanner pathPlanner = new PathPlanner(9.0, 6.0);
+
+  // Field geometry, in inches. The start pose is against the alliance wall, with +y pointing
+  // away from it, so the submersible's near face is this far ahead of the start pose.
+  protected static final double SUBMERSIBLE_LENGTH = 44.5; // along the alliance wall
+  protected static final double SUBMERSIBLE_WIDTH = 27.5;
+  protected static final double START_POSE_WALL_DISTANCE = 9.0; // robot center to wall
+  protected static final double SUBMERSIBLE_NEAR_Y = 72.0 - SUBMERSIBLE_WIDTH / 2 - START_POSE_WALL_DISTANCE;
+  protected static final double FIELD_SIZE = 144.0;
+  protected static final double WALL_THICKNESS = 2.0;
+
+  // A path chain that times out this far from its end is recovered with a planned path.
+  // Recovery drives past the authored timeout and eats into the planned budget, so it is
+  // off unless enabled here or requested by a runFollower call.
+  protected static final double RECOVERY_DISTANCE = 3.0; // inches
+  protected static final long RECOVERY_TIMEOUT_MS = 2000;
+  public boolean recoveryEnabled = false;
+  private boolean recovering = false;
+
+  // When set, every follower loop is recorded for offline analysis.
+  protected FtcLoopRecorder loopRecorder = null;
+
+  // When set, every path chain is summarized for time per phase and tracking error.
+  // Sampling never keeps the follower running longer than the path chain needs.
+  protected FtcPathAnalytics pathAnalytics = null;
+
   protected Runnable lift2HighBasket, lift2HighBasketBlocking,
       lift2HighChamber, lift2HighChamberBlocking, lift2HighChamberDeliveryBlocking,
       lift2Low, resetLift;
@@ -108,20 +146,167 @@ public class OptionBase {
    *                  terminated if robot doesn't finish within the timeout value.
    */
   public void runFollower(PathChain pathChain, boolean holdEnd, long timeout) {
+    runFollower(pathChain, holdEnd, timeout, recoveryEnabled);
+  }
+
+  /**
+   * Executes the path chain.
+   *
+   * @param pathChain The pathChain to execute
+   * @param holdEnd   When true, attempts to hold the path end point. This flag is
+   *                  passed onto the pathChain follower.
+   * @param timeout   A user provided timeout for path execution. Path execution is
+   *                  terminated if robot doesn't finish within the timeout value.
+   * @param recover   When true, a path chain that times out away from its end is followed by
+   *                  a planned path to its end, for up to RECOVERY_TIMEOUT_MS more.
+   */
+  public void runFollower(PathChain pathChain, boolean holdEnd, long timeout, boolean recover) {
     FtcLogger.enter();
     ElapsedTime runtime = new ElapsedTime(ElapsedTime.Resolution.MILLISECONDS);
     follower.followPath(pathChain, holdEnd);
+    if (pathAnalytics != null) pathAnalytics.begin(pathChain.name);
     if (timeout < 0) timeout = Long.MAX_VALUE;
     Deadline d = new Deadline(timeout, TimeUnit.MILLISECONDS);
+    long loopStartNs = System.nanoTime();
     do {
-      follower.update();
+      loopStartNs = updateFollower(loopStartNs);
     } while (autoOpMode.opModeIsActive() && !d.hasExpired() && follower.isBusy());
-    if (follower.isBusy()) follower.breakFollowing();
+    boolean timedOut = follower.isBusy();
+    if (timedOut) follower.breakFollowing();
+    if (pathAnalytics != null) pathAnalytics.end();
     String message = String.format(Locale.US, "%s execution: %.0f ms",
         pathChain.name, runtime.milliseconds());
     FtcLogger.info(FtcUtils.TAG, message);
     autoOpMode.telemetry.addData(FtcUtils.TAG, message);
     autoOpMode.telemetry.update();
+
+    // A bumped or blocked robot drives around the obstacles to where the path chain ends.
+    if (timedOut && recover && !recovering && autoOpMode.opModeIsActive()) {
+      Pose endPose = getEndPose(pathChain);
+      if (MathFunctions.distance(follower.getPose(), endPose) > RECOVERY_DISTANCE) {
+        recovering = true;
+        planAndRunFollower(endPose, holdEnd, RECOVERY_TIMEOUT_MS);
+        recovering = false;
+      }
+    }
+
+    FtcLogger.exit();
+  }
+
+  /**
+   * Runs one follower loop, and samples and records it.
+   *
+   * @param loopStartNs The start of the previous loop.
+   * @return The start of the next loop.
+   */
+  private long updateFollower(long loopStartNs) {
+    robot.bulkRead.clearBulkCache();
+    follower.update();
+
+    // Lift moves started by path callbacks are profiled on the host.
+    if (robot.lift != null) robot.lift.update();
+    if (pathAnalytics != null) pathAnalytics.sample(follower);
+    if (loopRecorder != null) {
+      long now = System.nanoTime();
+      loopRecorder.record(null, null, (now - loopStartNs) / 1.0e6, robot.imu, follower.getPose());
+      loopStartNs = now;
+    }
+
+    return loopStartNs;
+  }
+
+  private static Pose getEndPose(PathChain pathChain) {
+    Path path = pathChain.getPath(pathChain.size() - 1);
+    Point point = path.getLastControlPoint();
+    return new Pose(point.getX(), point.getY(), path.getHeadingGoal(1));
+  }
+
+  /**
+   * Registers the submersible with the path planner.
+   *
+   * @param centerX The x of the submersible center, relative to the start pose.
+   */
+  protected void addSubmersibleObstacle(double centerX) {
+    pathPlanner.addObstacle(centerX - SUBMERSIBLE_LENGTH / 2, SUBMERSIBLE_NEAR_Y,
+        centerX + SUBMERSIBLE_LENGTH / 2, SUBMERSIBLE_NEAR_Y + SUBMERSIBLE_WIDTH);
+  }
+
+  /**
+   * Registers the field walls with the path planner. The submersible is centered on the
+   * field, so the side walls are half a field either side of it.
+   *
+   * @param submersibleCenterX The x of the submersible center, relative to the start pose.
+   */
+  protected void addFieldWallObstacles(double submersibleCenterX) {
+    double minX = submersibleCenterX - FIELD_SIZE / 2, maxX = submersibleCenterX + FIELD_SIZE / 2;
+    double minY = -START_POSE_WALL_DISTANCE, maxY = FIELD_SIZE - START_POSE_WALL_DISTANCE;
+    pathPlanner.addObstacle(minX - WALL_THICKNESS, minY - WALL_THICKNESS, maxX + WALL_THICKNESS, minY);
+    pathPlanner.addObstacle(minX - WALL_THICKNESS, maxY, maxX + WALL_THICKNESS, maxY + WALL_THICKNESS);
+    pathPlanner.addObstacle(minX - WALL_THICKNESS, minY, minX, maxY);
+    pathPlanner.addObstacle(maxX, minY, maxX + WALL_THICKNESS, maxY);
+  }
+
+  /**
+   * Plans an obstacle free path chain from the current robot pose and executes it.
+   * Use this to recover when the robot isn't where a fixed path chain expects it to be.
+   * PERFORMANCE: The visibility graph is precomputed on the first plan, so replanning
+   * only connects the current and goal poses to it.
+   *
+   * @param goalPose The pose to drive to.
+   * @param holdEnd  When true, attempts to hold the path end point.
+   * @param timeout  A user provided timeout for path execution.
+   * @return True if a path was found and executed, false otherwise.
+   */
+  public boolean planAndRunFollower(Pose goalPose, boolean holdEnd, long timeout) {
+    FtcLogger.enter();
+    PathChain pathChain = pathPlanner.plan(follower.getPose(), goalPose);
+    FtcLogger.info(FtcUtils.TAG, String.format(Locale.US, "Planning: %.1f ms",
+        pathPlanner.getLastPlanningTimeMilliseconds()));
+    if (pathChain != null) {
+      pathChain.name = "planned";
+      runFollower(pathChain, holdEnd, timeout);
+    }
+
+    FtcLogger.exit();
+    return pathChain != null;
+  }
+
+  /**
+   * Plans the routine that scores the most within the autonomous period, less the match
+   * start delay, and logs it.
+   *
+   * @param planner The planner, with the enabled tasks added.
+   * @return The schedule to pass to runSchedule.
+   */
+  public FtcAutoPlanner.Schedule plan(FtcAutoPlanner planner) {
+    FtcLogger.enter();
+    long budgetMs = FtcUtils.AUTO_OP_DURATION * 1000L - PLANNING_MARGIN_MS;
+    if (robot.config != null) budgetMs -= robot.config.delayInSeconds * 1000L;
+    FtcAutoPlanner.Schedule schedule = planner.plan(budgetMs);
+    schedule.log();
+    autoOpMode.telemetry.addData(FtcUtils.TAG, schedule.toString());
+    FtcLogger.exit();
+    return schedule;
+  }
+
+  /**
+   * Runs the tasks of a schedule in order, driving a planned transition to a task
+   * that doesn't start where the previous task ended.
+   *
+   * @param schedule The schedule from plan.
+   */
+  public void runSchedule(FtcAutoPlanner.Schedule schedule) {
+    FtcLogger.enter();
+    for (int i = 0; i < schedule.tasks.size(); i++) {
+      if (!saveAndTest()) break;
+      FtcAutoPlanner.Task task = schedule.tasks.get(i);
+      if (schedule.needsTransition.get(i)) {
+        planAndRunFollower(task.getStartPose(), true, TRANSITION_TIMEOUT_MS);
+      }
+
+      task.run();
+    }
+
     FtcLogger.exit();
   }
 
@@ -153,12 +338,15 @@ public class OptionBase {
     return opModeIsActive;
   }
 
+  /**
+   * Runs the temporal callbacks that are due, timed from the start of the path chain.
+   * PERFORMANCE: The path chain callbacks are compiled into sorted queues at build time,
+   * so only the next pending callback is checked.
+   *
+   * @param pathChain            The path chain whose callbacks to run.
+   * @param pathChainElapsedTime Time since the path chain started.
+   */
   public void runCallbacks(PathChain pathChain, ElapsedTime pathChainElapsedTime) {
-    for (PathCallback callback : pathChain.getCallbacks()) {
-      if (!callback.hasBeenRun() && callback.getType() == PathCallback.TIME &&
-          pathChainElapsedTime.milliseconds() >= callback.getStartCondition()) {
-        callback.run();
-      }
-    }
+    pathChain.getCallbackScheduler().updateTime(pathChainElapsedTime.milliseconds());
   }
 }
@@ -7,6 +7,8 @@ import com.pedropathing.pathgen.PathChain;
 import com.pedropathing.pathgen.Point;
 import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
 
+import org.firstinspires.ftc.teamcode.qubit.core.FtcArm;
+import org.firstinspires.ftc.teamcode.qubit.core.FtcAutoPlanner;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcBot;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcIntake;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcLift;
@@ -36,11 +38,18 @@ public class OptionLeft extends OptionBase {
   PathChain scorePreloadPath, parkPath,
       pickup1, pickup2, pickup3, score1, score2, score3;
 
+  // Points scored by each task.
+  static final int SAMPLE_HIGH_BASKET_POINTS = 8;
+  static final int PARK_POINTS = 3;
+
   public static class Params {
     public boolean executeTrajectories = true, executeRobotActions = true;
     public boolean deliverPreloaded = true,
         deliver1 = true, deliver2 = true, deliver3 = true,
         park = true;
+
+    // The submersible center along the alliance wall, relative to the start pose.
+    public double submersibleCenterX = 48;
   }
 
   public static Params PARAMS = new Params();
@@ -51,6 +60,10 @@ public class OptionLeft extends OptionBase {
   }
 
   public OptionLeft init() {
+    pathPlanner.clearObstacles();
+    addSubmersibleObstacle(PARAMS.submersibleCenterX);
+    addFieldWallObstacles(PARAMS.submersibleCenterX);
+
     // preloaded sample
     scorePreloadPath = follower.pathBuilder()
         .addBezierLine(new Point(startPose), new Point(scorePose))
@@ -61,9 +74,6 @@ public class OptionLeft extends OptionBase {
         .addTemporalCallback(10, () -> {
           if (PARAMS.executeRobotActions) intakeSpinStop.run();
         })
-        .addTemporalCallback(FtcIntake.FLIP_TRAVEL_TIME, () -> {
-          if (PARAMS.executeRobotActions) lift2HighBasket.run();
-        })
         .build();
     scorePreloadPath.name = "scorePreloadPath";
 
@@ -98,9 +108,6 @@ public class OptionLeft extends OptionBase {
         .addTemporalCallback(FtcIntake.FLIP_TRAVEL_TIME, () -> {
           if (PARAMS.executeRobotActions) intakeFlipHorizontal.run();
         })
-        .addTemporalCallback(FtcIntake.FLIP_TRAVEL_TIME + 100, () -> {
-          if (PARAMS.executeRobotActions) lift2HighBasket.run();
-        })
         .addTemporalCallback(FtcIntake.FLIP_TRAVEL_TIME + 200, () -> {
           // In case sample is stuck, evict it.
           if (PARAMS.executeRobotActions) intakeSpinOut.run();
@@ -139,9 +146,6 @@ public class OptionLeft extends OptionBase {
         .addTemporalCallback(FtcIntake.FLIP_TRAVEL_TIME, () -> {
           if (PARAMS.executeRobotActions) intakeFlipHorizontal.run();
         })
-        .addTemporalCallback(FtcIntake.FLIP_TRAVEL_TIME + 100, () -> {
-          if (PARAMS.executeRobotActions) lift2HighBasket.run();
-        })
         .addTemporalCallback(FtcIntake.FLIP_TRAVEL_TIME + 200, () -> {
           // In case sample is stuck, evict it.
           if (PARAMS.executeRobotActions) intakeSpinOut.run();
@@ -181,9 +185,6 @@ public class OptionLeft extends OptionBase {
         .addTemporalCallback(FtcIntake.FLIP_TRAVEL_TIME, () -> {
           if (PARAMS.executeRobotActions) intakeFlipHorizontal.run();
         })
-        .addTemporalCallback(FtcIntake.FLIP_TRAVEL_TIME + 100, () -> {
-          if (PARAMS.executeRobotActions) lift2HighBasket.run();
-        })
         .build();
     score3.name = "score3";
 
@@ -208,64 +209,101 @@ public class OptionLeft extends OptionBase {
         .build();
     parkPath.name = "parkPath";
 
+    schedule = plan(createPlanner());
     return this;
   }
 
   /**
-   * Executes the autonomous workflow.
+   * Creates the planner with the enabled tasks. Lifting to the high basket may overlap the
+   * drive to the basket, in which case the planner starts it with a path callback.
+   * Otherwise, deliverSample raises the lift after arrival.
    */
-  public void execute() {
-    FtcLogger.enter();
-
-    // Deliver preloaded sample
-    if (!saveAndTest()) return;
-
-    if (PARAMS.executeRobotActions) intakeFlipDown.run();
+  private FtcAutoPlanner createPlanner() {
+    FtcAutoPlanner planner = new FtcAutoPlanner(startPose, 1.0);
+    long deliveryTime = FtcArm.ARM_BACKWARD_TRAVEL_TIME + FtcArm.ARM_FORWARD_TRAVEL_TIME;
+    Runnable liftAction = () -> {
+      if (PARAMS.executeRobotActions) lift2HighBasket.run();
+    };
     if (PARAMS.deliverPreloaded) {
-      if (PARAMS.executeTrajectories) runFollower(scorePreloadPath, true, 2200);
-      if (PARAMS.executeRobotActions) lift2HighBasketBlocking.run();
-      if (PARAMS.executeRobotActions) robot.arm.moveBackward(true);
-      if (PARAMS.executeRobotActions) robot.arm.moveForward(true);
+      planner.addTask("deliverPreloaded", SAMPLE_HIGH_BASKET_POINTS, this::deliverPreloaded)
+          .first()
+          .addLeg(scorePreloadPath)
+          .addAction("lift", FtcLift.TRAVEL_TIME_2_HIGH_BASKET, FtcIntake.FLIP_TRAVEL_TIME, 1.0, liftAction)
+          .addBlockingAction("arm", deliveryTime);
     }
 
-    // Deliver first yellow sample
-    if (!saveAndTest()) return;
-    if (PARAMS.deliver1) {
-      if (PARAMS.executeTrajectories) runFollower(pickup1, false, 2600);
-      if (PARAMS.executeTrajectories) runFollower(score1, true, 2500);
-      if (PARAMS.executeRobotActions) lift2HighBasketBlocking.run();
-      if (PARAMS.executeRobotActions) robot.arm.moveBackward(true);
-      if (PARAMS.executeRobotActions) robot.arm.moveForward(true);
+    PathChain[] pickups = {pickup1, pickup2, pickup3};
+    PathChain[] scores = {score1, score2, score3};
+    boolean[] enabled = {PARAMS.deliver1, PARAMS.deliver2, PARAMS.deliver3};
+    for (int i = 0; i < pickups.length; i++) {
+      if (!enabled[i]) continue;
+      PathChain pickup = pickups[i], score = scores[i];
+      planner.addTask("deliver" + (i + 1), SAMPLE_HIGH_BASKET_POINTS, () -> deliver(pickup, score))
+          .addLeg(pickup)
+          .addLeg(score)
+          .addAction("lift", FtcLift.TRAVEL_TIME_2_HIGH_BASKET, FtcIntake.FLIP_TRAVEL_TIME + 100, 1.0,
+              liftAction)
+          .addBlockingAction("arm", deliveryTime);
     }
 
-    // Deliver second yellow sample
-    if (!saveAndTest()) return;
-    if (PARAMS.deliver2) {
-      if (PARAMS.executeTrajectories) runFollower(pickup2, false, 2600);
-      if (PARAMS.executeTrajectories) runFollower(score2, true, 2500);
-      if (PARAMS.executeRobotActions) lift2HighBasketBlocking.run();
-      if (PARAMS.executeRobotActions) robot.arm.moveBackward(true);
-      if (PARAMS.executeRobotActions) robot.arm.moveForward(true);
+    if (PARAMS.park) {
+      planner.addTask("park", PARK_POINTS, this::park)
+          .last()
+          .addLeg(parkPath);
     }
 
-    // Deliver third yellow sample
-    if (!saveAndTest()) return;
-    if (PARAMS.deliver3) {
-      if (PARAMS.executeTrajectories) runFollower(pickup3, false, 2600);
-      if (PARAMS.executeTrajectories) runFollower(score3, true, 2500);
-      if (PARAMS.executeRobotActions) lift2HighBasketBlocking.run();
-      if (PARAMS.executeRobotActions) robot.arm.moveBackward(true);
-      if (PARAMS.executeRobotActions) robot.arm.moveForward(true);
-    }
+    return planner;
+  }
+
+  /**
+   * Executes the autonomous workflow.
+   */
+  public void execute() {
+    FtcLogger.enter();
 
-    // Park
     if (!saveAndTest()) return;
-    if (PARAMS.park) {
-      if (PARAMS.executeTrajectories) runFollower(parkPath, false, 4000);
-      if (PARAMS.executeRobotActions) robot.flag.raise(false);
-      if (PARAMS.executeRobotActions) robot.lift.stop();
+    if (PARAMS.executeRobotActions) intakeFlipDown.run();
+    runSchedule(schedule);
+    FtcLogger.exit();
+  }
+
+  /**
+   * Delivers the preloaded sample.
+   */
+  private void deliverPreloaded() {
+    if (PARAMS.executeTrajectories) runFollower(scorePreloadPath, true, 2200);
+    deliverSample();
+  }
+
+  /**
+   * Picks up a yellow sample and delivers it.
+   *
+   * @param pickup The path to the sample.
+   * @param score  The path back to the basket.
+   */
+  private void deliver(PathChain pickup, PathChain score) {
+    if (PARAMS.executeTrajectories) runFollower(pickup, false, 2600);
+    if (PARAMS.executeTrajectories) runFollower(score, true, 2500);
+    deliverSample();
+  }
+
+  private void deliverSample() {
+    if (PARAMS.executeRobotActions) lift2HighBasketBlocking.run();
+    if (PARAMS.executeRobotActions) {
+      // Hold the raised lift while the arm travels.
+      robot.arm.moveBackward(false);
+      robot.lift.hold(FtcArm.ARM_BACKWARD_TRAVEL_TIME);
+      robot.arm.moveForward(false);
+      robot.lift.hold(FtcArm.ARM_FORWARD_TRAVEL_TIME);
     }
+  }
 
-    FtcLogger.exit();
+  /**
+   * Parks.
+   */
+  private void park() {
+    if (PARAMS.executeTrajectories) runFollower(parkPath, false, 4000);
+    if (PARAMS.executeRobotActions) robot.flag.raise(false);
+    if (PARAMS.executeRobotActions) robot.lift.stop();
   }
 }
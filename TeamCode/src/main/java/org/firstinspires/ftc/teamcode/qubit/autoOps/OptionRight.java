@@ -7,10 +7,10 @@ import com.pedropathing.pathgen.PathChain;
 import com.pedropathing.pathgen.Point;
 import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
 
+import org.firstinspires.ftc.teamcode.qubit.core.FtcAutoPlanner;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcBot;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcLift;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcLogger;
-import org.firstinspires.ftc.teamcode.qubit.core.FtcUtils;
 
 /**
  * A class to implement autonomous objective
@@ -29,11 +29,19 @@ public class OptionRight extends OptionBase {
       specimen2PickPath, specimen2DeliveryPath,
       parkPath;
 
+  // Points scored by each task.
+  static final int SPECIMEN_HIGH_CHAMBER_POINTS = 10;
+  static final int PARK_POINTS = 3;
+
   public static class Params {
     public boolean executeTrajectories = true, executeRobotActions = false;
     public boolean deliverSpecimen1 = true,
         deliverSpecimen2 = true,
         park = true;
+
+    // The submersible center along the alliance wall, relative to the start pose.
+    // Specimens are delivered with the robot centered on the chamber.
+    public double submersibleCenterX = 0;
   }
 
   public static Params PARAMS = new Params();
@@ -44,6 +52,10 @@ public class OptionRight extends OptionBase {
   }
 
   public OptionRight init() {
+    pathPlanner.clearObstacles();
+    addSubmersibleObstacle(PARAMS.submersibleCenterX);
+    addFieldWallObstacles(PARAMS.submersibleCenterX);
+
     // first specimen
     specimen1DeliveryPath = follower.pathBuilder()
         .addBezierLine(new Point(startPose), new Point(specimen1DeliverFinalPose))
@@ -84,63 +96,99 @@ public class OptionRight extends OptionBase {
         .build();
     parkPath.name = "parkPath";
 
+    schedule = plan(createPlanner());
     return this;
   }
 
+  /**
+   * Creates the planner with the enabled tasks. The lift may rise to the high chamber while
+   * the robot drives to it, in which case the planner starts it with a path callback.
+   * The specimen is clipped once the lift stops swaying.
+   */
+  private FtcAutoPlanner createPlanner() {
+    FtcAutoPlanner planner = new FtcAutoPlanner(startPose, 1.0);
+    long deliveryTime = FtcLift.LIFT_STOP_SWAYING_TIME +
+        (FtcLift.POSITION_HIGH_CHAMBER - FtcLift.POSITION_HIGH_CHAMBER_DELIVERY) / 2;
+    Runnable liftAction = () -> {
+      if (PARAMS.executeRobotActions) lift2HighChamber.run();
+    };
+    if (PARAMS.deliverSpecimen1) {
+      planner.addTask("deliverSpecimen1", SPECIMEN_HIGH_CHAMBER_POINTS, this::deliverSpecimen1)
+          .first()
+          .addLeg(specimen1DeliveryPath)
+          .addAction("lift", FtcLift.TRAVEL_TIME_2_HIGH_CHAMBER, 0, 1.0, liftAction)
+          .addBlockingAction("clip", deliveryTime);
+    }
+
+    if (PARAMS.deliverSpecimen2) {
+      planner.addTask("deliverSpecimen2", SPECIMEN_HIGH_CHAMBER_POINTS, this::deliverSpecimen2)
+          .addLeg(specimen2PickPath)
+          .addLeg(specimen2DeliveryPath)
+          .addAction("lift", FtcLift.TRAVEL_TIME_2_HIGH_CHAMBER, 0, 1.0, liftAction)
+          .addBlockingAction("clip", deliveryTime);
+    }
+
+    if (PARAMS.park) {
+      planner.addTask("park", PARK_POINTS, this::park)
+          .last()
+          .addLeg(parkPath);
+    }
+
+    return planner;
+  }
+
   /**
    * Executes the autonomous workflow.
    */
   public void execute() {
     FtcLogger.enter();
 
-    // Deliver specimen1
     if (!saveAndTest()) return;
     if (PARAMS.executeRobotActions) intakeFlipHorizontal.run();
-    if (PARAMS.deliverSpecimen1) {
-      if (PARAMS.executeRobotActions) {
-        intakeFlipHorizontal.run();
-        grabLeftSpecimen.run();
-        lift2HighChamber.run();
-      }
-
-      if (PARAMS.executeTrajectories) runFollower(specimen1DeliveryPath, true, 3000);
-
-      // Ensure lift has reached correct height
-      if (PARAMS.executeRobotActions) lift2HighChamberBlocking.run();
-
-      // Wait till lift stops swaying
-      FtcUtils.sleep(FtcLift.LIFT_STOP_SWAYING_TIME);
+    runSchedule(schedule);
+    FtcLogger.exit();
+  }
 
-      // Deliver
-      if (PARAMS.executeRobotActions) lift2HighChamberDeliveryBlocking.run();
+  /**
+   * Delivers the preloaded specimen.
+   */
+  private void deliverSpecimen1() {
+    if (PARAMS.executeRobotActions) {
+      intakeFlipHorizontal.run();
+      grabLeftSpecimen.run();
     }
 
-    // Deliver specimen2
-    if (!saveAndTest()) return;
-    if (PARAMS.deliverSpecimen2) {
-      if (PARAMS.executeTrajectories) runFollower(specimen2PickPath, true, 30000);
+    if (PARAMS.executeTrajectories) runFollower(specimen1DeliveryPath, true, 3000);
+    deliverSpecimen();
+  }
 
-      if (PARAMS.executeRobotActions) grabRightSpecimen.run();
-      if (PARAMS.executeRobotActions) lift2HighChamber.run();
-      if (PARAMS.executeTrajectories) runFollower(specimen2DeliveryPath, true, 3000);
+  /**
+   * Picks the second specimen and delivers it.
+   */
+  private void deliverSpecimen2() {
+    if (PARAMS.executeTrajectories) runFollower(specimen2PickPath, true, 30000);
 
-      // Ensure lift has reached correct height
-      if (PARAMS.executeRobotActions) lift2HighChamberBlocking.run();
+    if (PARAMS.executeRobotActions) grabRightSpecimen.run();
+    if (PARAMS.executeTrajectories) runFollower(specimen2DeliveryPath, true, 3000);
+    deliverSpecimen();
+  }
 
-      // Wait till lift stops swaying
-      FtcUtils.sleep(FtcLift.LIFT_STOP_SWAYING_TIME);
+  private void deliverSpecimen() {
+    // Ensure lift has reached correct height
+    if (PARAMS.executeRobotActions) lift2HighChamberBlocking.run();
 
-      // Deliver
-      if (PARAMS.executeRobotActions) lift2HighChamberDeliveryBlocking.run();
-    }
+    // Wait till lift stops swaying, holding it
+    robot.lift.hold(FtcLift.LIFT_STOP_SWAYING_TIME);
 
-    // Park
-    if (!saveAndTest()) return;
-    if (PARAMS.park) {
-      if (PARAMS.executeTrajectories) runFollower(parkPath, false, 3000);
-      if (PARAMS.executeRobotActions) robot.lift.resetLiftIfTouchPressed();
-    }
+    // Deliver
+    if (PARAMS.executeRobotActions) lift2HighChamberDeliveryBlocking.run();
+  }
 
-    FtcLogger.exit();
+  /**
+   * Parks.
+   */
+  private void park() {
+    if (PARAMS.executeTrajectories) runFollower(parkPath, false, 3000);
+    if (PARAMS.executeRobotActions) robot.lift.resetLiftIfTouchPressed();
   }
 }
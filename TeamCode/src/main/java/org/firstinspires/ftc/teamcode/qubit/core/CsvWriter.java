@@ -17,9 +17,17 @@ public class CsvWriter {
   private String line;
 
   public CsvWriter(String filename) {
+    this(filename, false);
+  }
+
+  /**
+   * @param filename The file name in the robot data directory.
+   * @param append   When true, lines are appended to an existing file.
+   */
+  public CsvWriter(String filename, boolean append) {
     try {
       fileWriter = new FileWriter(
-          AppUtil.ROBOT_DATA_DIR + File.separator + filename);
+          AppUtil.ROBOT_DATA_DIR + File.separator + filename, append);
       Assert.assertNotNull(fileWriter, "CsvWriter>fileWriter");
       line = "";
     } catch (IOException e) {
@@ -0,0 +1,117 @@
+package org.firstinspires.ftc.teamcode.qubit.core;
+
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.RotatedRect;
+
+import java.util.List;
+
+/**
+ * An immutable detection result of a game element or sample for a single frame.
+ * <p>
+ * PERFORMANCE
+ * Snapshots are built by the vision threads and published by swapping a single volatile
+ * reference. Readers never block the pipeline and never see a partially updated result.
+ * The rectangles and the mid point must be treated as read only.
+ */
+public final class ElementSnapshot {
+  private static final Rect[] NO_RECTS = new Rect[0];
+  public static final ElementSnapshot EMPTY = new ElementSnapshot(0);
+
+  public final boolean found;
+  public final double area;
+  public final double aspectRatio;
+  public final Rect boundingRect;
+  public final RotatedRect rotatedRect;
+  public final Point midPoint;
+
+  // The channel mean of the region the element was found in, by channel detection only.
+  public final int channelAverage;
+
+  // The regions that were searched for this frame, for annotation. Empty if not known.
+  public final Rect[] searchRects;
+
+  // System.nanoTime() when the frame processing started.
+  public final long timestamp;
+
+  /**
+   * Constructor for a frame in which the element was not found.
+   *
+   * @param timestamp System.nanoTime() when the frame processing started.
+   */
+  public ElementSnapshot(long timestamp) {
+    found = false;
+    area = 0;
+    aspectRatio = 0;
+    boundingRect = new Rect();
+    rotatedRect = new RotatedRect();
+    midPoint = new Point();
+    channelAverage = 0;
+    searchRects = NO_RECTS;
+    this.timestamp = timestamp;
+  }
+
+  /**
+   * Constructor for a frame in which the element was not found.
+   *
+   * @param searchRects The regions that were searched. They are copied.
+   * @param timestamp   System.nanoTime() when the frame processing started.
+   */
+  public ElementSnapshot(List<Rect> searchRects, long timestamp) {
+    found = false;
+    area = 0;
+    aspectRatio = 0;
+    boundingRect = new Rect();
+    rotatedRect = new RotatedRect();
+    midPoint = new Point();
+    channelAverage = 0;
+    this.searchRects = copyRects(searchRects);
+    this.timestamp = timestamp;
+  }
+
+  /**
+   * Constructor for a frame in which the element was found.
+   *
+   * @param rRect       The element rotated rectangle, in frame coordinates. It is copied.
+   * @param aspectRatio The element aspect ratio.
+   * @param area        The element contour area, in frame pixels.
+   * @param timestamp   System.nanoTime() when the frame processing started.
+   */
+  public ElementSnapshot(RotatedRect rRect, double aspectRatio, double area, long timestamp) {
+    this(rRect, aspectRatio, area, 0, null, timestamp);
+  }
+
+  /**
+   * Constructor for a frame in which the element was found.
+   *
+   * @param rRect          The element rotated rectangle, in frame coordinates. It is copied.
+   * @param aspectRatio    The element aspect ratio.
+   * @param area           The element contour area, in frame pixels.
+   * @param channelAverage The channel mean of the region, or 0.
+   * @param searchRects    The regions that were searched, or null. They are copied.
+   * @param timestamp      System.nanoTime() when the frame processing started.
+   */
+  public ElementSnapshot(RotatedRect rRect, double aspectRatio, double area, int channelAverage,
+                         List<Rect> searchRects, long timestamp) {
+    found = true;
+    this.channelAverage = channelAverage;
+    this.searchRects = copyRects(searchRects);
+    this.area = area;
+    this.aspectRatio = aspectRatio;
+    rotatedRect = new RotatedRect();
+    FtcUtils.copyRect(rRect, rotatedRect);
+    boundingRect = rotatedRect.boundingRect();
+    midPoint = FtcUtils.getMidpoint(boundingRect);
+    this.timestamp = timestamp;
+  }
+
+  private static Rect[] copyRects(List<Rect> rects) {
+    if (rects == null || rects.isEmpty()) return NO_RECTS;
+    Rect[] copies = new Rect[rects.size()];
+    for (int i = 0; i < copies.length; i++) {
+      copies[i] = rects.get(i).clone();
+    }
+
+    return copies;
+  }
+}
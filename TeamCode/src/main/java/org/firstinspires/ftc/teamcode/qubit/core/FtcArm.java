@@ -8,6 +8,7 @@ import com.qualcomm.robotcore.util.ElapsedTime;
 
 import org.firstinspires.ftc.robotcore.external.Telemetry;
 
+import java.util.List;
 import java.util.Locale;
 
 /**
@@ -121,7 +122,7 @@ public class FtcArm extends FtcSubSystemBase {
     if (armEnabled) {
       armServo.setPosition(ARM_BACKWARD_POSITION);
       if (waitTillCompletion) {
-        FtcUtils.sleep(ARM_BACKWARD_TRAVEL_TIME);
+        FtcBot.sleep(parent, ARM_BACKWARD_TRAVEL_TIME);
       }
     }
 
@@ -133,7 +134,7 @@ public class FtcArm extends FtcSubSystemBase {
     if (armEnabled) {
       armServo.setPosition(ARM_FORWARD_POSITION);
       if (waitTillCompletion) {
-        FtcUtils.sleep(ARM_FORWARD_TRAVEL_TIME);
+        FtcBot.sleep(parent, ARM_FORWARD_TRAVEL_TIME);
       }
     }
 
@@ -183,4 +184,14 @@ public class FtcArm extends FtcSubSystemBase {
 
     FtcLogger.exit();
   }
+
+  /**
+   * Adds the initialized actuators of this subsystem, e.g. for loop recording.
+   *
+   * @param motors The motor list to add to.
+   * @param servos The servo list to add to.
+   */
+  public void addActuators(List<FtcMotor> motors, List<FtcServo> servos) {
+    if (armServo != null) servos.add(armServo);
+  }
 }
@@ -0,0 +1,544 @@
+package org.firstinspires.ftc.teamcode.qubit.core;
+
+import com.pedropathing.localization.Pose;
+import com.pedropathing.pathgen.MathFunctions;
+import com.pedropathing.pathgen.Path;
+import com.pedropathing.pathgen.PathCallback;
+import com.pedropathing.pathgen.PathChain;
+import com.pedropathing.pathgen.PathTimeEstimator;
+import com.pedropathing.pathgen.Point;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A class to plan an autonomous routine: which tasks to run, in which order, and which
+ * mechanism actions to overlap with driving, to score the most points within the time budget.
+ * <p>
+ * A task is a sequence of legs, each a path chain followed by mechanism actions, and is worth
+ * some points. Drive times come from PathTimeEstimator. An overlappable action may run while
+ * its leg is driven, starting no earlier than its minimum start time, at the cost of driving
+ * the leg slower (e.g. with the lift raised); otherwise it runs after the leg. The best overlap
+ * of each leg is found by trying every combination of its overlappable actions. An overlapped
+ * action that has a runnable is started by a temporal callback on its leg at its planned start;
+ * one that isn't overlapped is left to the task, after arrival.
+ * Tasks that end where another doesn't start need a transition drive, estimated as a straight line.
+ * <p>
+ * The order is then found exactly by dynamic programming over the subsets of tasks already run
+ * and the last task run, with at most one task that must run first and any number of tasks
+ * (e.g. park) that may only run last. Orders that take the same time are ranked by how far they
+ * stray from the order the tasks were added in, so equal tasks run in the authored order.
+ * <p>
+ * PERFORMANCE
+ * With n tasks the search is O(2^n * n^2). With the handful of tasks of an autonomous routine,
+ * planning takes a few milliseconds, most of it estimating the path times.
+ */
+public class FtcAutoPlanner {
+  private static final String TAG = "FtcAutoPlanner";
+  public static final int MAXIMUM_TASKS = 16;
+
+  // Poses this close need no transition drive.
+  private static final double SAME_POSITION_DISTANCE = 1.0; // inches
+  private static final double SAME_HEADING = Math.toRadians(5);
+  private static final long UNREACHABLE = Long.MAX_VALUE / 4;
+
+  private final Pose startPose;
+  private final double maxPower;
+  private final List<Task> tasks = new ArrayList<>();
+
+  /**
+   * A mechanism action at the end of a leg.
+   */
+  public static class Action {
+    public final String name;
+    public final long durationMs;
+    public final long minimumStartMs;
+    public final boolean overlappable;
+    public final double overlapSpeedFactor;
+    private final Runnable runnable;
+
+    // Filled in by the plan.
+    public boolean overlapped = false;
+    public long startMs = 0;
+
+    Action(String name, long durationMs, long minimumStartMs, boolean overlappable,
+           double overlapSpeedFactor, Runnable runnable) {
+      this.name = name;
+      this.durationMs = durationMs;
+      this.minimumStartMs = minimumStartMs;
+      this.overlappable = overlappable;
+      this.overlapSpeedFactor = overlapSpeedFactor;
+      this.runnable = runnable;
+    }
+  }
+
+  /**
+   * A path chain and the mechanism actions that must finish before the next leg.
+   */
+  public static class Leg {
+    public final PathChain pathChain;
+    public final List<Action> actions = new ArrayList<>();
+
+    // Filled in by the plan.
+    public long driveMs = 0;
+    public long durationMs = 0;
+    private final List<PathCallback> plannedCallbacks = new ArrayList<>();
+
+    Leg(PathChain pathChain) {
+      this.pathChain = pathChain;
+    }
+  }
+
+  /**
+   * A scoring task, made of legs.
+   */
+  public static class Task {
+    public final String name;
+    public final int points;
+    private final Runnable runnable;
+    public final List<Leg> legs = new ArrayList<>();
+    private boolean first = false, last = false;
+
+    // Filled in by the plan.
+    public long durationMs = 0;
+
+    Task(String name, int points, Runnable runnable) {
+      this.name = name;
+      this.points = points;
+      this.runnable = runnable;
+    }
+
+    /**
+     * Adds a leg to the task.
+     *
+     * @param pathChain The path chain to drive.
+     * @return The task.
+     */
+    public Task addLeg(PathChain pathChain) {
+      legs.add(new Leg(pathChain));
+      return this;
+    }
+
+    /**
+     * Adds an action to the last leg that may run while the leg is driven.
+     *
+     * @param name               The action name.
+     * @param durationMs         The action duration.
+     * @param minimumStartMs     The earliest start, from the start of the leg.
+     * @param overlapSpeedFactor The fraction of the speed at which the leg is driven while the
+     *                           action overlaps it, in (0, 1].
+     * @return The task.
+     */
+    public Task addAction(String name, long durationMs, long minimumStartMs, double overlapSpeedFactor) {
+      return addAction(name, durationMs, minimumStartMs, overlapSpeedFactor, null);
+    }
+
+    /**
+     * Adds an action to the last leg that may run while the leg is driven. When the plan
+     * overlaps it, the runnable is started by a temporal callback at the planned start.
+     * Otherwise, the task must run the action once the robot is at the end of the leg.
+     *
+     * @param name               The action name.
+     * @param durationMs         The action duration.
+     * @param minimumStartMs     The earliest start, from the start of the leg.
+     * @param overlapSpeedFactor The fraction of the speed at which the leg is driven while the
+     *                           action overlaps it, in (0, 1].
+     * @param runnable           Starts the action.
+     * @return The task.
+     */
+    public Task addAction(String name, long durationMs, long minimumStartMs, double overlapSpeedFactor,
+                          Runnable runnable) {
+      getLastLeg().actions.add(new Action(name, durationMs, minimumStartMs, true,
+          Math.max(overlapSpeedFactor, FtcUtils.EPSILON2), runnable));
+      return this;
+    }
+
+    /**
+     * Adds an action to the last leg that runs only once the robot is at the end of the leg.
+     *
+     * @param name       The action name.
+     * @param durationMs The action duration.
+     * @return The task.
+     */
+    public Task addBlockingAction(String name, long durationMs) {
+      getLastLeg().actions.add(new Action(name, durationMs, 0, false, 1.0, null));
+      return this;
+    }
+
+    /**
+     * Makes this task run first, if it runs at all.
+     *
+     * @return The task.
+     */
+    public Task first() {
+      first = true;
+      return this;
+    }
+
+    /**
+     * Makes this task end the routine, if it runs at all.
+     *
+     * @return The task.
+     */
+    public Task last() {
+      last = true;
+      return this;
+    }
+
+    /**
+     * Executes the task.
+     */
+    public void run() {
+      runnable.run();
+    }
+
+    public Pose getStartPose() {
+      Path path = legs.get(0).pathChain.getPath(0);
+      Point point = path.getFirstControlPoint();
+      return new Pose(point.getX(), point.getY(), path.getHeadingGoal(0));
+    }
+
+    public Pose getEndPose() {
+      PathChain pathChain = legs.get(legs.size() - 1).pathChain;
+      Path path = pathChain.getPath(pathChain.size() - 1);
+      Point point = path.getLastControlPoint();
+      return new Pose(point.getX(), point.getY(), path.getHeadingGoal(1));
+    }
+
+    private Leg getLastLeg() {
+      if (legs.isEmpty()) {
+        throw new IllegalStateException("Add a leg to " + name + " before its actions");
+      }
+
+      return legs.get(legs.size() - 1);
+    }
+  }
+
+  /**
+   * The planned routine.
+   */
+  public static class Schedule {
+    public final List<Task> tasks = new ArrayList<>();
+    public final List<Long> startMs = new ArrayList<>();
+    public final List<Boolean> needsTransition = new ArrayList<>();
+    public long durationMs = 0;
+    public int points = 0;
+    public double planningMs = 0;
+
+    /**
+     * Logs the routine, and the planned start of every action, from the start of its leg.
+     */
+    public void log() {
+      FtcLogger.info(TAG, "%d points in %d ms, planned in %.1f ms", points, durationMs, planningMs);
+      for (int i = 0; i < tasks.size(); i++) {
+        Task task = tasks.get(i);
+        FtcLogger.info(TAG, "%s at %d ms for %d ms%s", task.name, startMs.get(i), task.durationMs,
+            needsTransition.get(i) ? ", after a transition" : "");
+        for (Leg leg : task.legs) {
+          for (Action action : leg.actions) {
+            FtcLogger.info(TAG, "  %s: %s %s at %d ms", leg.pathChain.name, action.name,
+                action.overlapped ? "overlapped" : "after arrival", action.startMs);
+          }
+        }
+      }
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder builder = new StringBuilder();
+      for (Task task : tasks) {
+        if (builder.length() > 0) builder.append(", ");
+        builder.append(task.name);
+      }
+
+      return String.format(Locale.US, "%d points in %.1f s: %s", points, durationMs / 1000.0, builder);
+    }
+  }
+
+  /**
+   * @param startPose The robot pose at the start of the routine.
+   * @param maxPower  The max power of the follower.
+   */
+  public FtcAutoPlanner(Pose startPose, double maxPower) {
+    this.startPose = startPose;
+    this.maxPower = maxPower;
+  }
+
+  /**
+   * Adds a task.
+   *
+   * @param name     The task name.
+   * @param points   The points the task scores.
+   * @param runnable Executes the task.
+   * @return The task, to add legs and actions to.
+   */
+  public Task addTask(String name, int points, Runnable runnable) {
+    Task task = new Task(name, points, runnable);
+    tasks.add(task);
+    return task;
+  }
+
+  /**
+   * Plans the routine that scores the most points within the budget, and among those,
+   * the fastest one.
+   *
+   * @param budgetMs The time available for the routine.
+   * @return The schedule, which is empty when no task fits.
+   */
+  public Schedule plan(long budgetMs) {
+    FtcLogger.enter();
+    long startNs = System.nanoTime();
+    List<Task> ordered = new ArrayList<>();
+    List<Task> terminal = new ArrayList<>();
+    int firstIndex = -1;
+    for (Task task : tasks) {
+      if (task.legs.isEmpty()) continue;
+      planTask(task);
+      if (task.last) {
+        terminal.add(task);
+      } else {
+        if (task.first) {
+          if (firstIndex >= 0) throw new IllegalStateException("Only one task may run first");
+          firstIndex = ordered.size();
+        }
+
+        ordered.add(task);
+      }
+    }
+
+    int n = ordered.size();
+    if (n > MAXIMUM_TASKS) {
+      throw new IllegalStateException("Plan at most " + MAXIMUM_TASKS + " tasks");
+    }
+
+    // Transition times: index n is the start pose.
+    Pose[] endPoses = new Pose[n + 1];
+    for (int i = 0; i < n; i++) endPoses[i] = ordered.get(i).getEndPose();
+    endPoses[n] = startPose;
+    long[][] transition = new long[n + 1][n];
+    long[][] terminalTransition = new long[n + 1][terminal.size()];
+    for (int i = 0; i <= n; i++) {
+      for (int j = 0; j < n; j++) {
+        transition[i][j] = i == j ? UNREACHABLE : getTransitionMs(endPoses[i], ordered.get(j).getStartPose());
+      }
+
+      for (int k = 0; k < terminal.size(); k++) {
+        terminalTransition[i][k] = getTransitionMs(endPoses[i], terminal.get(k).getStartPose());
+      }
+    }
+
+    // time[mask][j]: the shortest time to run the tasks in mask, ending with task j.
+    // inversions[mask][j]: among orders taking that time, the fewest task pairs run out of
+    // the order they were added in. Both add up along an order, so ties resolve exactly.
+    int masks = 1 << n;
+    long[][] time = new long[masks][n];
+    int[][] inversions = new int[masks][n];
+    int[][] previous = new int[masks][n];
+    for (long[] row : time) Arrays.fill(row, UNREACHABLE);
+    for (int j = 0; j < n; j++) {
+      if (firstIndex >= 0 && j != firstIndex) continue;
+      time[1 << j][j] = transition[n][j] + ordered.get(j).durationMs;
+      previous[1 << j][j] = -1;
+    }
+
+    for (int mask = 1; mask < masks; mask++) {
+      for (int i = 0; i < n; i++) {
+        long current = time[mask][i];
+        if (current > budgetMs) continue;
+        for (int j = 0; j < n; j++) {
+          if ((mask & (1 << j)) != 0 || j == firstIndex) continue;
+          long next = current + transition[i][j] + ordered.get(j).durationMs;
+          int nextMask = mask | (1 << j);
+          // Running j after the tasks of mask added later than j inverts each of them.
+          int nextInversions = inversions[mask][i] + Integer.bitCount(mask >>> (j + 1));
+          if (next < time[nextMask][j] ||
+              (next == time[nextMask][j] && nextInversions < inversions[nextMask][j])) {
+            time[nextMask][j] = next;
+            inversions[nextMask][j] = nextInversions;
+            previous[nextMask][j] = i;
+          }
+        }
+      }
+    }
+
+    // Pick the best ending, with or without a terminal task.
+    int bestMask = 0, bestLast = -1, bestTerminal = -1, bestPoints = 0, bestInversions = 0;
+    long bestTime = 0;
+    for (int k = 0; k < terminal.size(); k++) {
+      long total = terminalTransition[n][k] + terminal.get(k).durationMs;
+      int points = terminal.get(k).points;
+      if (total <= budgetMs &&
+          isBetter(points, total, 0, bestPoints, bestTime, bestInversions, bestTerminal >= 0)) {
+        bestPoints = points;
+        bestTime = total;
+        bestTerminal = k;
+      }
+    }
+
+    for (int mask = 1; mask < masks; mask++) {
+      int maskPoints = 0;
+      for (int j = 0; j < n; j++) {
+        if ((mask & (1 << j)) != 0) maskPoints += ordered.get(j).points;
+      }
+
+      for (int i = 0; i < n; i++) {
+        long current = time[mask][i];
+        if (current > budgetMs) continue;
+        if (isBetter(maskPoints, current, inversions[mask][i], bestPoints, bestTime, bestInversions,
+            bestLast >= 0 || bestTerminal >= 0)) {
+          bestPoints = maskPoints;
+          bestTime = current;
+          bestInversions = inversions[mask][i];
+          bestMask = mask;
+          bestLast = i;
+          bestTerminal = -1;
+        }
+
+        for (int k = 0; k < terminal.size(); k++) {
+          long total = current + terminalTransition[i][k] + terminal.get(k).durationMs;
+          int points = maskPoints + terminal.get(k).points;
+          if (total <= budgetMs &&
+              isBetter(points, total, inversions[mask][i], bestPoints, bestTime, bestInversions, true)) {
+            bestPoints = points;
+            bestTime = total;
+            bestInversions = inversions[mask][i];
+            bestMask = mask;
+            bestLast = i;
+            bestTerminal = k;
+          }
+        }
+      }
+    }
+
+    // Walk the chosen ordering back from its last task.
+    List<Task> sequence = new ArrayList<>();
+    for (int mask = bestMask, i = bestLast; i >= 0; ) {
+      sequence.add(0, ordered.get(i));
+      int before = previous[mask][i];
+      mask &= ~(1 << i);
+      i = before;
+    }
+
+    if (bestTerminal >= 0) sequence.add(terminal.get(bestTerminal));
+
+    Schedule schedule = new Schedule();
+    Pose pose = startPose;
+    long elapsed = 0;
+    for (Task task : sequence) {
+      long transitionMs = getTransitionMs(pose, task.getStartPose());
+      elapsed += transitionMs;
+      schedule.tasks.add(task);
+      schedule.startMs.add(elapsed);
+      schedule.needsTransition.add(transitionMs > 0);
+      elapsed += task.durationMs;
+      schedule.points += task.points;
+      pose = task.getEndPose();
+    }
+
+    schedule.durationMs = elapsed;
+    schedule.planningMs = (System.nanoTime() - startNs) / 1.0e6;
+    FtcLogger.exit();
+    return schedule;
+  }
+
+  private static boolean isBetter(int points, long timeMs, int inversions,
+                                  int bestPoints, long bestTimeMs, int bestInversions, boolean haveBest) {
+    return !haveBest || points > bestPoints || (points == bestPoints &&
+        (timeMs < bestTimeMs || (timeMs == bestTimeMs && inversions < bestInversions)));
+  }
+
+  /**
+   * Estimates the legs of a task, picks the overlap of each leg's actions that
+   * finishes the leg soonest, and schedules the overlapped actions on the leg.
+   */
+  private void planTask(Task task) {
+    task.durationMs = 0;
+    for (Leg leg : task.legs) {
+      leg.driveMs = Math.round(PathTimeEstimator.estimate(leg.pathChain, maxPower) * 1000);
+      int actionCount = leg.actions.size();
+      int bestCombination = 0;
+      long bestDuration = UNREACHABLE;
+      for (int combination = 0; combination < (1 << actionCount); combination++) {
+        long duration = getLegDuration(leg, combination);
+        if (duration < bestDuration) {
+          bestDuration = duration;
+          bestCombination = combination;
+        }
+      }
+
+      // Record the start of every action for the chosen overlap.
+      long arrival = getArrival(leg, bestCombination);
+      long sequential = arrival;
+      for (int a = 0; a < actionCount; a++) {
+        Action action = leg.actions.get(a);
+        action.overlapped = (bestCombination & (1 << a)) != 0;
+        if (action.overlapped) {
+          action.startMs = action.minimumStartMs;
+        } else {
+          action.startMs = sequential;
+          sequential += action.durationMs;
+        }
+      }
+
+      leg.durationMs = bestDuration;
+      task.durationMs += bestDuration;
+      scheduleOverlappedActions(leg);
+    }
+  }
+
+  /**
+   * Replaces the temporal callbacks of a previous plan on the leg with ones that start its
+   * overlapped actions. The leg start is the start of the first path of its chain.
+   */
+  private static void scheduleOverlappedActions(Leg leg) {
+    ArrayList<PathCallback> callbacks = leg.pathChain.getCallbacks();
+    callbacks.removeAll(leg.plannedCallbacks);
+    leg.plannedCallbacks.clear();
+    for (Action action : leg.actions) {
+      if (action.overlapped && action.runnable != null) {
+        leg.plannedCallbacks.add(new PathCallback(action.startMs, action.runnable, PathCallback.TIME, 0));
+      }
+    }
+
+    callbacks.addAll(leg.plannedCallbacks);
+    leg.pathChain.setCallbacks(callbacks);
+  }
+
+  private static long getLegDuration(Leg leg, int combination) {
+    long duration = getArrival(leg, combination);
+    if (duration >= UNREACHABLE) return UNREACHABLE;
+    for (int a = 0; a < leg.actions.size(); a++) {
+      if ((combination & (1 << a)) == 0) duration += leg.actions.get(a).durationMs;
+    }
+
+    return duration;
+  }
+
+  /**
+   * Gets the time at which the leg is driven and all of its overlapped actions are done.
+   */
+  private static long getArrival(Leg leg, int combination) {
+    double speedFactor = 1.0;
+    long actionsDone = 0;
+    for (int a = 0; a < leg.actions.size(); a++) {
+      if ((combination & (1 << a)) == 0) continue;
+      Action action = leg.actions.get(a);
+      if (!action.overlappable) return UNREACHABLE;
+      speedFactor = Math.min(speedFactor, action.overlapSpeedFactor);
+      actionsDone = Math.max(actionsDone, action.minimumStartMs + action.durationMs);
+    }
+
+    return Math.max(Math.round(leg.driveMs / speedFactor), actionsDone);
+  }
+
+  private long getTransitionMs(Pose from, Pose to) {
+    if (MathFunctions.distance(from, to) < SAME_POSITION_DISTANCE &&
+        MathFunctions.getSmallestAngleDifference(from.getHeading(), to.getHeading()) < SAME_HEADING) {
+      return 0;
+    }
+
+    return Math.round(PathTimeEstimator.estimate(from, to, maxPower) * 1000);
+  }
+}
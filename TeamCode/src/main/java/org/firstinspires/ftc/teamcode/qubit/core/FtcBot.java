@@ -7,8 +7,11 @@ import com.qualcomm.robotcore.util.ElapsedTime;
 import org.firstinspires.ftc.robotcore.external.Telemetry;
 import org.firstinspires.ftc.teamcode.qubit.core.enumerations.DriveTrainEnum;
 import org.firstinspires.ftc.teamcode.qubit.core.enumerations.DriveTypeEnum;
+import org.firstinspires.ftc.teamcode.qubit.core.enumerations.LatencyStageEnum;
 import org.firstinspires.ftc.teamcode.qubit.core.enumerations.TrollBotEnum;
 
+import java.util.List;
+
 /**
  * A class to manage the robot. This is a composite design pattern.
  * Robot level operations are simply invoked on all subsystems.
@@ -28,9 +31,18 @@ public class FtcBot extends FtcSubSystemBase {
   public FtcIntake intake = null;
   public FtcLift lift = null;
   public FtcRnp rnp = null;
+  public FtcServoProfiler servoProfiler = null;
   public MatchConfig config = null;
+  public FtcInitGraph initGraph = null;
   private Telemetry telemetry = null;
 
+  // Init graph step names that callers may depend upon.
+  public static final String BULK_READ_STEP = "bulkRead";
+  public static final String CONFIG_STEP = "config";
+  public static final String DRIVE_TRAIN_STEP = "driveTrain";
+  public static final String IMU_STEP = "imu";
+  public static final String VOLTAGE_STEP = "voltage";
+
   /* Constructor */
   public FtcBot() {
   }
@@ -93,69 +105,63 @@ public class FtcBot extends FtcSubSystemBase {
    */
   public void init(HardwareMap hardwareMap, Telemetry telemetry, Boolean autoOp) {
     FtcLogger.enter();
-    this.telemetry = telemetry;
+    createInitGraph(hardwareMap, telemetry, autoOp).run();
+    telemetry.addData(TAG, "initialized");
+    FtcLogger.exit();
+  }
 
+  /**
+   * Creates the subsystem initialization graph without running it.
+   * Callers may add their own steps, such as the Pedro follower, before calling run().
+   * PERFORMANCE: Independent subsystems initialize in parallel, so IMU calibration
+   * and the match config file read no longer add up. Subsystems that read motor
+   * encoders depend on the bulk read step, so they always see its caching mode.
+   *
+   * @param hardwareMap The hardware map to use for initialization.
+   * @param telemetry   The telemetry to use.
+   * @param autoOp      If true, initializes for autoOp.
+   * @return The initialization graph.
+   */
+  public FtcInitGraph createInitGraph(HardwareMap hardwareMap, Telemetry telemetry, Boolean autoOp) {
+    FtcLogger.enter();
+    this.telemetry = telemetry;
+    servoProfiler = new FtcServoProfiler();
+    initGraph = new FtcInitGraph();
+
+    // Construct all subsystems up front, so steps only ever initialize their own.
+    bulkRead = new FtcBulkRead();
+    config = new MatchConfig();
+    driveTrain = new FtcDriveTrain(this);
+    imu = new FtcImu(this);
+    initGraph.add(BULK_READ_STEP, () -> bulkRead.init(hardwareMap, telemetry));
+    initGraph.add(CONFIG_STEP, () -> config.init(hardwareMap, telemetry));
+    initGraph.add(IMU_STEP, () -> imu.init(hardwareMap, telemetry));
+    initGraph.add(VOLTAGE_STEP, () -> FtcVoltageService.start(hardwareMap));
     if (trollBot == TrollBotEnum.TrollBotA) {
       arm = new FtcArm(this);
-      arm.init(hardwareMap, telemetry);
-
-      bulkRead = new FtcBulkRead();
-      bulkRead.init(hardwareMap, telemetry);
-
       blinkinLed = new FtcBlinkinLed(this);
-      blinkinLed.init(hardwareMap, telemetry);
-
-      config = new MatchConfig();
-      config.init(hardwareMap, telemetry);
-
-      driveTrain = new FtcDriveTrain(this);
-      driveTrain.setDriveTypeAndMode(DriveTrainEnum.MECANUM_WHEEL_DRIVE, DriveTypeEnum.POINT_OF_VIEW_DRIVE);
-      driveTrain.init(hardwareMap, telemetry);
-
-      flag = new FtcFlag();
-      flag.init(hardwareMap, telemetry);
-
-      imu = new FtcImu(this);
-      imu.init(hardwareMap, telemetry);
-
+      flag = new FtcFlag(this);
       intake = new FtcIntake(this);
-      intake.init(hardwareMap, telemetry);
-
       lift = new FtcLift(this);
-      lift.init(hardwareMap, telemetry);
-
-      rnp = new FtcRnp();
-      rnp.init(hardwareMap, telemetry);
+      rnp = new FtcRnp(this);
+      driveTrain.setDriveTypeAndMode(DriveTrainEnum.MECANUM_WHEEL_DRIVE, DriveTypeEnum.POINT_OF_VIEW_DRIVE);
+      initGraph.add(DRIVE_TRAIN_STEP, () -> driveTrain.init(hardwareMap, telemetry), BULK_READ_STEP);
+      initGraph.add("arm", () -> arm.init(hardwareMap, telemetry));
+      initGraph.add("blinkinLed", () -> blinkinLed.init(hardwareMap, telemetry));
+      initGraph.add("flag", () -> flag.init(hardwareMap, telemetry));
+      initGraph.add("intake", () -> intake.init(hardwareMap, telemetry));
+      initGraph.add("lift", () -> lift.init(hardwareMap, telemetry), BULK_READ_STEP);
+      initGraph.add("rnp", () -> rnp.init(hardwareMap, telemetry));
     } else if (trollBot == TrollBotEnum.TrollBotC) {
-      bulkRead = new FtcBulkRead();
-      bulkRead.init(hardwareMap, telemetry);
-
-      config = new MatchConfig();
-      config.init(hardwareMap, telemetry);
-
-      driveTrain = new FtcDriveTrain(this);
       driveTrain.setDriveTypeAndMode(DriveTrainEnum.MECANUM_WHEEL_DRIVE, DriveTypeEnum.POINT_OF_VIEW_DRIVE);
-      driveTrain.init(hardwareMap, telemetry);
-
-      imu = new FtcImu(this);
-      imu.init(hardwareMap, telemetry);
+      initGraph.add(DRIVE_TRAIN_STEP, () -> driveTrain.init(hardwareMap, telemetry), BULK_READ_STEP);
     } else if (trollBot == TrollBotEnum.TrollBotD) {
-      bulkRead = new FtcBulkRead();
-      bulkRead.init(hardwareMap, telemetry);
-
-      config = new MatchConfig();
-      config.init(hardwareMap, telemetry);
-
-      driveTrain = new FtcDriveTrain(this);
       driveTrain.setDriveTypeAndMode(DriveTrainEnum.TRACTION_OMNI_WHEEL_DRIVE, DriveTypeEnum.POINT_OF_VIEW_DRIVE);
-      driveTrain.init(hardwareMap, telemetry);
-
-      imu = new FtcImu(this);
-      imu.init(hardwareMap, telemetry);
+      initGraph.add(DRIVE_TRAIN_STEP, () -> driveTrain.init(hardwareMap, telemetry), BULK_READ_STEP);
     }
 
-    telemetry.addData(TAG, "initialized");
     FtcLogger.exit();
+    return initGraph;
   }
 
   /**
@@ -163,8 +169,10 @@ public class FtcBot extends FtcSubSystemBase {
    */
   public void operate(Gamepad gamePad1, Gamepad gamePad2, double loopTime, ElapsedTime runtime) {
     FtcLogger.enter();
+    FtcLatencyTracer.enterStage(LatencyStageEnum.BOT);
 
     bulkRead.clearBulkCache();
+    servoProfiler.update();
     if (trollBot == TrollBotEnum.TrollBotA) {
       blinkinLed.operate(gamePad1, gamePad2, runtime);
       arm.operate(gamePad1, gamePad2, runtime);
@@ -181,6 +189,7 @@ public class FtcBot extends FtcSubSystemBase {
     }
 
     if (telemetryEnabled) {
+      FtcVoltageService.showTelemetry(telemetry);
       if (trollBot == TrollBotEnum.TrollBotA) {
         arm.showTelemetry();
         blinkinLed.showTelemetry();
@@ -208,6 +217,38 @@ public class FtcBot extends FtcSubSystemBase {
     FtcLogger.exit();
   }
 
+  /**
+   * Adds the actuators the robot drives, drive train motors first, e.g. for loop recording.
+   *
+   * @param motors The motor list to add to.
+   * @param servos The servo list to add to.
+   */
+  public void addActuators(List<FtcMotor> motors, List<FtcServo> servos) {
+    if (driveTrain.activeMotors != null) motors.addAll(driveTrain.activeMotors);
+    if (trollBot == TrollBotEnum.TrollBotA) {
+      arm.addActuators(motors, servos);
+      flag.addActuators(motors, servos);
+      intake.addActuators(motors, servos);
+      lift.addActuators(motors, servos);
+      rnp.addActuators(motors, servos);
+    }
+  }
+
+  /**
+   * Waits while keeping the lift controller running, so the lift keeps moving to, or
+   * holding, its target. Subsystems use this for their blocking waits instead of sleeping.
+   *
+   * @param robot        The robot, may be null in testing mode.
+   * @param milliseconds The time to wait.
+   */
+  public static void sleep(FtcBot robot, long milliseconds) {
+    if (robot != null && robot.lift != null) {
+      robot.lift.hold(milliseconds);
+    } else {
+      FtcUtils.sleep(milliseconds);
+    }
+  }
+
   /**
    * Display game pad telemetry.
    *
@@ -260,6 +301,11 @@ public class FtcBot extends FtcSubSystemBase {
    */
   public void stop() {
     FtcLogger.enter();
+    if (servoProfiler != null) {
+      servoProfiler.stop();
+    }
+
+    FtcVoltageService.stop();
     if (trollBot == TrollBotEnum.TrollBotA) {
       if (arm != null) {
         arm.stop();
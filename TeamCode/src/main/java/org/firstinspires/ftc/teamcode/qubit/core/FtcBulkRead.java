@@ -16,6 +16,10 @@ public class FtcBulkRead extends FtcSubSystemBase {
   private LynxModule.BulkCachingMode cachingMode;
   private Telemetry telemetry = null;
 
+  // While replaying a loop log, the cache isn't cleared, so sensors read through it
+  // keep their first reading instead of reading the robot.
+  private boolean replaying = false;
+
   /**
    * Constructor.
    */
@@ -82,12 +86,22 @@ public class FtcBulkRead extends FtcSubSystemBase {
     FtcLogger.exit();
   }
 
+  /**
+   * Sets whether a loop log is being replayed. While replaying, clearBulkCache()
+   * leaves the manual cache as is.
+   *
+   * @param replaying True while replaying.
+   */
+  public void setReplaying(boolean replaying) {
+    this.replaying = replaying;
+  }
+
   /**
    * Clears the bulk cache.
    */
   public void clearBulkCache() {
     FtcLogger.enter();
-    if (cachingMode == LynxModule.BulkCachingMode.MANUAL) {
+    if (cachingMode == LynxModule.BulkCachingMode.MANUAL && !replaying) {
       for (LynxModule lynxModule : allLynxModules) {
         lynxModule.clearBulkCache();
       }
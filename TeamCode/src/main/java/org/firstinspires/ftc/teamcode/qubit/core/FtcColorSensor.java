@@ -1,35 +1,53 @@
 package org.firstinspires.ftc.teamcode.qubit.core;
 
-import android.graphics.Color;
-
 import com.qualcomm.robotcore.hardware.DistanceSensor;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 import com.qualcomm.robotcore.hardware.NormalizedColorSensor;
 import com.qualcomm.robotcore.hardware.NormalizedRGBA;
 import com.qualcomm.robotcore.hardware.SwitchableLight;
+import com.qualcomm.robotcore.util.Range;
 
 import org.firstinspires.ftc.robotcore.external.Telemetry;
 import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
+import org.firstinspires.ftc.teamcode.qubit.core.enumerations.ObjectColorEnum;
 
 /**
  * A class to manage a color sensor.
+ * <p>
+ * PERFORMANCE
+ * The sensor is sampled on a background thread at its native integration rate.
+ * Each sample is published as an immutable snapshot, so main loop reads never
+ * block on I2C. Gain is written to the sensor only when it changes.
  */
 public class FtcColorSensor extends FtcSubSystemBase {
   private static final String TAG = "FtcColorSensor";
   private static final String COLOR_SENSOR_NAME = "colorSensor";
   private static final float GAIN_HIGH_THRESHOLD = 0.80F;
   private static final float GAIN_LOW_THRESHOLD = 0.20F;
+
+  // Colors are classified only if saturated and bright enough.
+  public static final float CLASSIFY_SATURATION_MIN = 0.30F;
+  public static final float CLASSIFY_VALUE_MIN = 0.10F;
+  private static final int HUE_BUCKET_DEGREES = 2;
+  private static final ObjectColorEnum[] HUE_LOOKUP = buildHueLookup();
+
   public boolean colorSensorEnabled = true;
+  public boolean asyncUpdaterEnabled = true;
   public boolean telemetryEnabled = true;
+
+  // REV Color Sensor V3 integrates light for about 50ms.
+  public long samplePeriodMs = 50;
   private Telemetry telemetry;
   private NormalizedColorSensor colorSensor;
+  private FtcColorSensorAsyncUpdater colorSensorAsyncUpdater = null;
 
-  // Sensor gain is calculated dynamically.
-  private float gain;
-  private final float[] hsvValues = new float[3];
+  // Sensor gain is calculated dynamically. Accessed by the sampling thread only.
+  private float gain, sensorGain;
+  private volatile Snapshot snapshot = new Snapshot(0, 0, 0, 0, -1, 1, 0);
   public NormalizedRGBA rgbaColors = new NormalizedRGBA();
   public float hue, saturation, value;
   public double distance = -1F;
+  public ObjectColorEnum color = ObjectColorEnum.UNKNOWN;
 
   public void init(HardwareMap hardwareMap, Telemetry telemetry) {
     FtcLogger.enter();
@@ -50,6 +68,21 @@ public class FtcColorSensor extends FtcSubSystemBase {
 
     if (colorSensorEnabled) {
       colorSensor = hardwareMap.get(NormalizedColorSensor.class, COLOR_SENSOR_NAME);
+      sensorGain = colorSensor.getGain();
+
+      // Get a reading before the async reader is started.
+      readAsync();
+      if (asyncUpdaterEnabled) {
+        if (colorSensorAsyncUpdater != null) {
+          // Stop any previously executing updater
+          colorSensorAsyncUpdater.stop();
+        }
+
+        colorSensorAsyncUpdater = new FtcColorSensorAsyncUpdater(this);
+        Thread colorSensorUpdaterThread = new Thread(colorSensorAsyncUpdater);
+        colorSensorUpdaterThread.start();
+      }
+
       telemetry.addData(TAG, "initialized");
     } else {
       telemetry.addData(TAG, "not enabled");
@@ -58,6 +91,49 @@ public class FtcColorSensor extends FtcSubSystemBase {
     FtcLogger.exit();
   }
 
+  /**
+   * Precomputes the hue to sample color lookup table.
+   * Hue ranges match the REV Color Sensor V3 readings of the game samples.
+   *
+   * @return The lookup table, indexed by hue / HUE_BUCKET_DEGREES.
+   */
+  private static ObjectColorEnum[] buildHueLookup() {
+    ObjectColorEnum[] lookup = new ObjectColorEnum[360 / HUE_BUCKET_DEGREES];
+    for (int i = 0; i < lookup.length; i++) {
+      int hue = i * HUE_BUCKET_DEGREES;
+      if (hue < 30) {
+        lookup[i] = ObjectColorEnum.RED1;
+      } else if (hue >= 60 && hue < 100) {
+        lookup[i] = ObjectColorEnum.YELLOW;
+      } else if (hue >= 200 && hue < 250) {
+        lookup[i] = ObjectColorEnum.BLUE;
+      } else if (hue >= 330) {
+        lookup[i] = ObjectColorEnum.RED2;
+      } else {
+        lookup[i] = ObjectColorEnum.UNKNOWN;
+      }
+    }
+
+    return lookup;
+  }
+
+  /**
+   * Classifies a color into a sample color using the precomputed lookup table.
+   *
+   * @param hue        Hue in degrees, [0, 360).
+   * @param saturation Saturation, [0, 1].
+   * @param value      Value, [0, 1].
+   * @return The sample color, UNKNOWN if not a sample color.
+   */
+  public static ObjectColorEnum classify(float hue, float saturation, float value) {
+    if (saturation < CLASSIFY_SATURATION_MIN || value < CLASSIFY_VALUE_MIN) {
+      return ObjectColorEnum.UNKNOWN;
+    }
+
+    int index = Range.clip((int) (hue / HUE_BUCKET_DEGREES), 0, HUE_LOOKUP.length - 1);
+    return HUE_LOOKUP[index];
+  }
+
   public void enableLight() {
     if (colorSensorEnabled && colorSensor != null && colorSensor instanceof SwitchableLight) {
       ((SwitchableLight) colorSensor).enableLight(true);
@@ -70,30 +146,66 @@ public class FtcColorSensor extends FtcSubSystemBase {
     }
   }
 
+  /**
+   * Gets the most recent color sensor sample. Never blocks.
+   *
+   * @return The immutable color sensor sample.
+   */
+  public Snapshot getSnapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Copies the most recent sample into the public fields for the main loop.
+   * Does not block on I2C when the async updater is running.
+   */
   public void read() {
-    // Get the normalized colors from the sensor
-    rgbaColors = colorSensor.getNormalizedColors();
+    if (!colorSensorEnabled || colorSensor == null) return;
+    if (colorSensorAsyncUpdater == null) {
+      readAsync();
+    }
 
-    // Update the hsvValues array
-    Color.colorToHSV(rgbaColors.toColor(), hsvValues);
-    hue = hsvValues[0];
-    saturation = hsvValues[1];
-    value = hsvValues[2];
+    Snapshot s = snapshot;
+    rgbaColors.red = s.red;
+    rgbaColors.green = s.green;
+    rgbaColors.blue = s.blue;
+    rgbaColors.alpha = s.alpha;
+    hue = s.hue;
+    saturation = s.saturation;
+    value = s.value;
+    distance = s.distance;
+    color = s.color;
+  }
 
+  /**
+   * Read the color sensor and publish a new snapshot.
+   * Invoked by async updater directly.
+   */
+  public void readAsync() {
+    // Get the normalized colors from the sensor
+    NormalizedRGBA colors = colorSensor.getNormalizedColors();
+    double d = -1;
     if (colorSensor instanceof DistanceSensor) {
-      distance = ((DistanceSensor) colorSensor).getDistance(DistanceUnit.CM);
+      d = ((DistanceSensor) colorSensor).getDistance(DistanceUnit.CM);
     }
 
+    snapshot = new Snapshot(colors.red, colors.green, colors.blue, colors.alpha,
+        d, gain, System.nanoTime());
+
     // Adjust gain for next reading.
     // Adjust gain so that RGB values are in [GAIN_LOW_THRESHOLD, GAIN_HIGH_THRESHOLD] range
-    float max = Math.max(Math.max(rgbaColors.red, rgbaColors.green), rgbaColors.blue);
+    float max = Math.max(Math.max(colors.red, colors.green), colors.blue);
     if (max > GAIN_HIGH_THRESHOLD) {
       gain = GAIN_HIGH_THRESHOLD / max;
-    } else if (max < GAIN_LOW_THRESHOLD) {
+    } else if (max < GAIN_LOW_THRESHOLD && max > 0) {
       gain = GAIN_LOW_THRESHOLD / max;
     }
 
-    colorSensor.setGain(gain);
+    // PERFORMANCE: Skip the I2C write if gain hasn't changed.
+    if (!FtcUtils.areEqual(gain, sensorGain, FtcUtils.EPSILON3)) {
+      colorSensor.setGain(gain);
+      sensorGain = gain;
+    }
   }
 
   /**
@@ -102,13 +214,75 @@ public class FtcColorSensor extends FtcSubSystemBase {
   public void showTelemetry() {
     FtcLogger.enter();
     if (colorSensorEnabled && telemetryEnabled) {
-      telemetry.addData("Gain", gain);
+      Snapshot s = snapshot;
+      telemetry.addData("Gain", s.gain);
       telemetry.addData("RGBA", "%.3f, %.3f, %.3f, %.3f",
-          rgbaColors.red, rgbaColors.green, rgbaColors.blue, rgbaColors.alpha);
-      telemetry.addData("HSV", "%.3f, %.3f, %.3f", hue, saturation, value);
-      telemetry.addData("Distance", "%.1f cm", distance);
+          s.red, s.green, s.blue, s.alpha);
+      telemetry.addData("HSV", "%.3f, %.3f, %.3f", s.hue, s.saturation, s.value);
+      telemetry.addData("Distance", "%.1f cm", s.distance);
+      telemetry.addData("Color", s.color);
     }
 
     FtcLogger.exit();
   }
+
+  /**
+   * Stops the background color sensor updater, if enabled.
+   */
+  public void stop() {
+    FtcLogger.enter();
+    if (colorSensorAsyncUpdater != null) {
+      colorSensorAsyncUpdater.stop();
+      colorSensorAsyncUpdater = null;
+    }
+
+    FtcLogger.exit();
+  }
+
+  /**
+   * An immutable color sensor sample.
+   */
+  public static final class Snapshot {
+    public final float red, green, blue, alpha;
+    public final float hue, saturation, value;
+    public final double distance; // cm, -1 if not supported
+    public final float gain;
+    public final ObjectColorEnum color;
+    public final long timestamp; // System.nanoTime()
+
+    Snapshot(float red, float green, float blue, float alpha,
+             double distance, float gain, long timestamp) {
+      this.red = red;
+      this.green = green;
+      this.blue = blue;
+      this.alpha = alpha;
+      this.distance = distance;
+      this.gain = gain;
+      this.timestamp = timestamp;
+
+      // PERFORMANCE: HSV directly from normalized floats, avoids packing
+      // into an int color and Color.colorToHSV.
+      float r = Range.clip(red, 0F, 1F), g = Range.clip(green, 0F, 1F), b = Range.clip(blue, 0F, 1F);
+      float max = Math.max(Math.max(r, g), b);
+      float min = Math.min(Math.min(r, g), b);
+      float delta = max - min;
+      float h = 0;
+      if (delta > 0) {
+        if (max == r) {
+          h = 60 * (((g - b) / delta) % 6);
+        } else if (max == g) {
+          h = 60 * (((b - r) / delta) + 2);
+        } else {
+          h = 60 * (((r - g) / delta) + 4);
+        }
+
+        if (h < 0) h += 360;
+      }
+
+      hue = h;
+      saturation = max > 0 ? delta / max : 0;
+      value = max;
+      color = classify(hue, saturation, value);
+    }
+  }
 }
@@ -0,0 +1,46 @@
+package org.firstinspires.ftc.teamcode.qubit.core;
+
+/**
+ * A class to asynchronously sample the color sensor.
+ */
+public class FtcColorSensorAsyncUpdater implements Runnable {
+  public static final String TAG = "FtcColorSensorAsyncUpdater";
+  private final FtcColorSensor colorSensor;
+  private boolean stopRequested;
+
+  /**
+   * Constructor.
+   *
+   * @param colorSensor The actual color sensor.
+   */
+  public FtcColorSensorAsyncUpdater(FtcColorSensor colorSensor) {
+    FtcLogger.enter();
+    this.colorSensor = colorSensor;
+    stopRequested = false;
+    FtcLogger.exit();
+  }
+
+  private synchronized boolean keepRunning() {
+    return !stopRequested;
+  }
+
+  /**
+   * Requests a color sensor stop, ASAP. Call is non-blocking.
+   */
+  public synchronized void stop() {
+    stopRequested = true;
+  }
+
+  /**
+   * Samples the color sensor at its native integration rate.
+   * Sampling faster only returns the same integrated values over I2C.
+   */
+  public void run() {
+    while (keepRunning()) {
+      colorSensor.readAsync();
+      FtcUtils.sleep(colorSensor.samplePeriodMs);
+    }
+
+    FtcLogger.info(TAG, "Async thread stopped.");
+  }
+}
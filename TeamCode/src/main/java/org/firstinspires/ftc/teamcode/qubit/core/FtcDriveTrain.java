@@ -1,5 +1,7 @@
 package org.firstinspires.ftc.teamcode.qubit.core;
 
+import com.pedropathing.follower.DriveVectorScaler;
+import com.pedropathing.pathgen.Vector;
 import com.qualcomm.robotcore.hardware.DcMotorEx;
 import com.qualcomm.robotcore.hardware.DcMotorSimple;
 import com.qualcomm.robotcore.hardware.Gamepad;
@@ -11,6 +13,8 @@ import org.firstinspires.ftc.robotcore.external.Telemetry;
 import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
 import org.firstinspires.ftc.teamcode.qubit.core.enumerations.DriveTrainEnum;
 import org.firstinspires.ftc.teamcode.qubit.core.enumerations.DriveTypeEnum;
+import org.firstinspires.ftc.teamcode.qubit.core.enumerations.LatencyStageEnum;
+import org.firstinspires.ftc.teamcode.qubit.core.enumerations.PowerPriorityEnum;
 import org.firstinspires.ftc.teamcode.qubit.core.enumerations.TrollBotEnum;
 
 import java.util.Arrays;
@@ -89,8 +93,14 @@ public class FtcDriveTrain extends FtcSubSystemBase {
   // When true, joystick position is mapped to (0, slo mode power, max power)
   private final boolean useStepPowerFunction = true;
 
+  // Mixes robot frame drive and turn power into wheel powers. The wheel vectors are at 45 degrees,
+  // like the formulaic mecanum wheel power.
+  private final DriveVectorScaler driveMixer = new DriveVectorScaler(new Vector(1, -Math.PI / 4.0));
+
   public FtcDriveTrain(FtcBot robot) {
     parent = robot;
+    driveMixer.setMaxPowerScaling(MAXIMUM_FORWARD_POWER);
+    driveMixer.setPriority(DriveVectorScaler.Priority.HEADING);
     // leftFront, leftRear, rightFront, rightRear
     botADirections = Arrays.asList(DcMotorSimple.Direction.REVERSE, DcMotorSimple.Direction.REVERSE,
         DcMotorSimple.Direction.FORWARD, DcMotorSimple.Direction.FORWARD);
@@ -178,6 +188,8 @@ public class FtcDriveTrain extends FtcSubSystemBase {
       // Reset motor encoders
       for (FtcMotor motor : activeMotors) {
         motor.setMode(DcMotorEx.RunMode.RUN_WITHOUT_ENCODER);
+        motor.setPowerPriority(PowerPriorityEnum.DRIVE_TRAIN);
+        motor.setLatencyInputs(FtcLatencyTracer.GAMEPAD1_STICKS);
       }
 
       showTelemetry();
@@ -238,6 +250,7 @@ public class FtcDriveTrain extends FtcSubSystemBase {
    */
   public void operate(Gamepad gamePad1, Gamepad gamePad2, double loopTime, ElapsedTime runtime) {
     FtcLogger.enter();
+    FtcLatencyTracer.enterStage(LatencyStageEnum.SUBSYSTEM);
 
     // Setup a variable for each side drive wheel to display power level for telemetry
     double leftFrontPower = FtcMotor.ZERO_POWER;
@@ -259,6 +272,8 @@ public class FtcDriveTrain extends FtcSubSystemBase {
       return;
     }
 
+    // Robot frame drive inputs: forward, strafe (left) and the translational power of the fastest wheel.
+    double forward = 0, strafe = 0, translationPower = 0;
     parent.imu.resetReadOnce();
     if (powerMagnitude > JITTER) {
       if (driveTrainEnum == DriveTrainEnum.MECANUM_WHEEL_DRIVE) {
@@ -271,27 +286,21 @@ public class FtcDriveTrain extends FtcSubSystemBase {
           finalBotHeading -= Math.toRadians(parent.imu.getHeading() + FtcImu.endAutoOpHeading);
         }
 
-        // Calculate  formulaic wheel power.
-        leftFrontPower = rightRearPower = Math.sin(finalBotHeading + Math.PI / 4.0) * powerMagnitude;
-        rightFrontPower = leftRearPower = Math.sin(finalBotHeading - Math.PI / 4.0) * powerMagnitude;
-
+        forward = Math.sin(finalBotHeading);
+        strafe = -Math.cos(finalBotHeading);
         if (enableMecanumPowerBoost) {
           // Boost power up to the powerMagnitude
-          maxWheelPower = GetMaxWheelPower(leftFrontPower, leftRearPower, rightFrontPower, rightRearPower);
-          if (maxWheelPower < powerMagnitude) {
-            powerMagnitude *= MECANUM_POWER_BOOST_FACTOR;
-            leftFrontPower = powerMagnitude * leftFrontPower / maxWheelPower;
-            leftRearPower = powerMagnitude * leftRearPower / maxWheelPower;
-            rightFrontPower = powerMagnitude * rightFrontPower / maxWheelPower;
-            rightRearPower = powerMagnitude * rightRearPower / maxWheelPower;
-          }
+          translationPower = powerMagnitude * MECANUM_POWER_BOOST_FACTOR;
+        } else {
+          // Formulaic wheel power.
+          translationPower = powerMagnitude * Math.max(Math.abs(Math.sin(finalBotHeading + Math.PI / 4.0)),
+              Math.abs(Math.sin(finalBotHeading - Math.PI / 4.0)));
         }
       } else if (yMagnitude > JITTER) {
         // With non holonomic drive, all wheels have the same power.
-        leftFrontPower = leftRearPower = rightFrontPower = rightRearPower =
-            (MINIMUM_FORWARD_TELE_OP_POWER +
-                yMagnitude * (MAXIMUM_FORWARD_POWER - MINIMUM_FORWARD_TELE_OP_POWER))
-                * Math.signum(y);
+        forward = Math.signum(y);
+        translationPower = MINIMUM_FORWARD_TELE_OP_POWER +
+            yMagnitude * (MAXIMUM_FORWARD_POWER - MINIMUM_FORWARD_TELE_OP_POWER);
       } else {
         // Nothing to do. Robot is stationary.
       }
@@ -332,24 +341,22 @@ public class FtcDriveTrain extends FtcSubSystemBase {
       }
     }
 
-    // Add turn power to drive power
-    leftFrontPower += turn;
-    leftRearPower += turn;
-    rightFrontPower -= turn;
-    rightRearPower -= turn;
-
-    // Constrain powers in the range of [-MAXIMUM_FORWARD_POWER,MAXIMUM_FORWARD_POWER]
-    // Not checking may cause the robot to drive at full speed
-    maxWheelPower = GetMaxWheelPower(leftFrontPower, leftRearPower, rightFrontPower, rightRearPower);
-    if (maxWheelPower > MAXIMUM_FORWARD_POWER) {
-      // Normalize drive power by dividing everything by max power.
-      // It's positive so we don't need to worry about sign.
-      leftFrontPower /= maxWheelPower;
-      leftRearPower /= maxWheelPower;
-      rightFrontPower /= maxWheelPower;
-      rightRearPower /= maxWheelPower;
+    // Scale the translation so that its fastest wheel runs at the translational power.
+    double peakTranslationPower = driveMixer.getPeakWheelPower(forward, strafe, 0);
+    if (peakTranslationPower > 0) {
+      forward *= translationPower / peakTranslationPower;
+      strafe *= translationPower / peakTranslationPower;
     }
 
+    // Mix translation and turn. A positive turn is clockwise. When the wheels saturate,
+    // translation is scaled down first so that the driver never loses turning authority.
+    maxWheelPower = driveMixer.getPeakWheelPower(forward, strafe, -turn);
+    double[] wheelPowers = driveMixer.getWheelPowers(forward, strafe, -turn);
+    leftFrontPower = wheelPowers[0];
+    leftRearPower = wheelPowers[1];
+    rightFrontPower = wheelPowers[2];
+    rightRearPower = wheelPowers[3];
+
     // Handle precision drive mode
     if (gamePad1.dpadLeftWasPressed()) {
       // set global precision drive variable
@@ -7,6 +7,7 @@ import com.qualcomm.robotcore.hardware.ServoController;
 
 import org.firstinspires.ftc.robotcore.external.Telemetry;
 
+import java.util.List;
 import java.util.Locale;
 
 /**
@@ -22,6 +23,11 @@ public class FtcFlag extends FtcSubSystemBase {
   public boolean telemetryEnabled = true;
   private Telemetry telemetry = null;
   private FtcServo flagServo = null;
+  private final FtcBot parent;
+
+  public FtcFlag(FtcBot robot) {
+    parent = robot;
+  }
 
   /**
    * Initialize standard Hardware interfaces.
@@ -65,7 +71,7 @@ public class FtcFlag extends FtcSubSystemBase {
     if (flagEnabled) {
       flagServo.setPosition(FLAG_UP_POSITION);
       if (waitTillCompletion) {
-        FtcUtils.sleep(FLAG_TRAVEL_TIME);
+        FtcBot.sleep(parent, FLAG_TRAVEL_TIME);
       }
     }
 
@@ -82,7 +88,7 @@ public class FtcFlag extends FtcSubSystemBase {
     if (flagEnabled) {
       flagServo.setPosition(FLAG_DOWN_POSITION);
       if (waitTillCompletion) {
-        FtcUtils.sleep(FLAG_TRAVEL_TIME);
+        FtcBot.sleep(parent, FLAG_TRAVEL_TIME);
       }
     }
 
@@ -131,4 +137,14 @@ public class FtcFlag extends FtcSubSystemBase {
 
     FtcLogger.exit();
   }
+
+  /**
+   * Adds the initialized actuators of this subsystem, e.g. for loop recording.
+   *
+   * @param motors The motor list to add to.
+   * @param servos The servo list to add to.
+   */
+  public void addActuators(List<FtcMotor> motors, List<FtcServo> servos) {
+    if (flagServo != null) servos.add(flagServo);
+  }
 }
@@ -0,0 +1,295 @@
+package org.firstinspires.ftc.teamcode.qubit.core;
+
+import android.graphics.Bitmap;
+
+import com.qualcomm.robotcore.util.RobotLog;
+
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+import org.opencv.android.Utils;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.MatOfInt;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A class to record camera frames in the background, e.g. for a whole autonomous run.
+ * Frames are handed over by the webcam or a vision pipeline, compressed to JPEG on a
+ * low priority worker thread and appended to segmented MJPEG files. An index file
+ * lists the segment, offset, length and timestamp of every frame.
+ * <p>
+ * PERFORMANCE
+ * The caller only copies the frame into a preallocated slot. Slots move between a free
+ * and a filled lock free queue, so the caller never blocks. When the worker falls behind
+ * and no slot is free, the frame is dropped and counted instead.
+ * The frame buffers are released at stop and reallocated if the recorder is restarted.
+ */
+public class FtcFrameRecorder {
+  private static final String TAG = "FtcFrameRecorder";
+  public static final int DEFAULT_SLOT_COUNT = 4;
+  public static final int JPEG_QUALITY = 80;
+
+  // Segments are capped so that a corrupt or oversized file never loses the whole run.
+  public static final long SEGMENT_BYTES = 64L * 1024 * 1024;
+  private static final long IDLE_WAIT_NS = 2_000_000;
+
+  /**
+   * A preallocated frame buffer.
+   */
+  private static final class Slot {
+    final Mat frame = new Mat();
+    long timestampNs;
+    long frameNumber;
+  }
+
+  private final Slot[] slots;
+  private final ConcurrentLinkedQueue<Slot> freeSlots = new ConcurrentLinkedQueue<>();
+  private final ConcurrentLinkedQueue<Slot> filledSlots = new ConcurrentLinkedQueue<>();
+  private final AtomicLong offeredCount = new AtomicLong();
+  private final AtomicLong droppedCount = new AtomicLong();
+  private final AtomicLong writtenCount = new AtomicLong();
+  private final AtomicLong writtenBytes = new AtomicLong();
+
+  // Callers that may be copying into a slot, so stop() waits for them before releasing it.
+  private final AtomicInteger offeringCount = new AtomicInteger();
+  private final String name;
+  private final long startTimeNs = System.nanoTime();
+  private volatile boolean running = false;
+
+  // Set by stop() to turn away new offers, while the worker keeps running until the
+  // offers already in flight have released their slots.
+  private volatile boolean draining = false;
+  private Thread worker = null;
+
+  // Owned by the worker thread.
+  private final Mat bgrFrame = new Mat();
+  private final MatOfByte jpeg = new MatOfByte();
+  private final MatOfInt jpegParameters = new MatOfInt(Imgcodecs.IMWRITE_JPEG_QUALITY, JPEG_QUALITY);
+  private OutputStream segment = null;
+  private Writer index = null;
+  private int segmentNumber = -1;
+  private long segmentOffset = 0;
+
+  /**
+   * @param name      The recording name. Files are created in the robot data directory.
+   * @param slotCount The number of frames that may wait for the worker.
+   */
+  public FtcFrameRecorder(String name, int slotCount) {
+    this.name = name;
+    slots = new Slot[slotCount];
+    for (int i = 0; i < slotCount; i++) {
+      slots[i] = new Slot();
+      freeSlots.offer(slots[i]);
+    }
+  }
+
+  public FtcFrameRecorder(String name) {
+    this(name, DEFAULT_SLOT_COUNT);
+  }
+
+  /**
+   * Starts the worker thread.
+   */
+  public synchronized void start() {
+    FtcLogger.enter();
+    if (worker == null) {
+      draining = false;
+      running = true;
+      worker = new Thread(this::work, TAG);
+      worker.setDaemon(true);
+      worker.setPriority(Thread.MIN_PRIORITY);
+      worker.start();
+    }
+
+    FtcLogger.exit();
+  }
+
+  /**
+   * Stops the worker thread once the waiting frames are written, closes the files
+   * and releases the frame buffers.
+   */
+  public synchronized void stop() {
+    FtcLogger.enter();
+    draining = true;
+    while (offeringCount.get() > 0) {
+      LockSupport.parkNanos(IDLE_WAIT_NS);
+    }
+
+    // Every offer has now either released its slot or been dropped, so once the worker
+    // sees running cleared, filledSlots holds all the frames that are left to write.
+    running = false;
+    if (worker != null) {
+      LockSupport.unpark(worker);
+      try {
+        worker.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+
+      worker = null;
+    }
+
+    for (Slot slot : slots) {
+      slot.frame.release();
+    }
+
+    bgrFrame.release();
+    jpeg.release();
+    FtcLogger.info(TAG, "%s", getStatus());
+    FtcLogger.exit();
+  }
+
+  /**
+   * Offers a frame, such as a pipeline input. Never blocks.
+   *
+   * @param frame The frame, in RGBA or RGB.
+   * @return True if the frame was queued, false if it was dropped.
+   */
+  public boolean offer(Mat frame) {
+    Slot slot = acquire();
+    if (slot == null) return false;
+    frame.copyTo(slot.frame);
+    release(slot);
+    return true;
+  }
+
+  /**
+   * Offers a webcam bitmap. Never blocks.
+   *
+   * @param bitmap The bitmap.
+   * @return True if the frame was queued, false if it was dropped.
+   */
+  public boolean offer(Bitmap bitmap) {
+    Slot slot = acquire();
+    if (slot == null) return false;
+    Utils.bitmapToMat(bitmap, slot.frame);
+    release(slot);
+    return true;
+  }
+
+  private Slot acquire() {
+    long frameNumber = offeredCount.getAndIncrement();
+
+    // Counted before checking draining, so that stop() either sees this offer or this offer sees stop().
+    offeringCount.incrementAndGet();
+    Slot slot = running && !draining ? freeSlots.poll() : null;
+    if (slot == null) {
+      offeringCount.decrementAndGet();
+      droppedCount.incrementAndGet();
+    } else {
+      slot.frameNumber = frameNumber;
+      slot.timestampNs = System.nanoTime() - startTimeNs;
+    }
+
+    return slot;
+  }
+
+  private void release(Slot slot) {
+    filledSlots.offer(slot);
+    offeringCount.decrementAndGet();
+    Thread thread = worker;
+    if (thread != null) LockSupport.unpark(thread);
+  }
+
+  private void work() {
+    while (running || !filledSlots.isEmpty()) {
+      Slot slot = filledSlots.poll();
+      if (slot == null) {
+        LockSupport.parkNanos(IDLE_WAIT_NS);
+        continue;
+      }
+
+      try {
+        write(slot);
+      } catch (IOException | RuntimeException e) {
+        RobotLog.ee(TAG, e, e.getMessage());
+        droppedCount.incrementAndGet();
+      } finally {
+        freeSlots.offer(slot);
+      }
+    }
+
+    closeFiles();
+  }
+
+  /**
+   * Compresses a frame and appends it to the current segment.
+   */
+  private void write(Slot slot) throws IOException {
+    Imgproc.cvtColor(slot.frame, bgrFrame,
+        slot.frame.channels() == 4 ? Imgproc.COLOR_RGBA2BGR : Imgproc.COLOR_RGB2BGR);
+    Imgcodecs.imencode(".jpg", bgrFrame, jpeg, jpegParameters);
+    byte[] bytes = jpeg.toArray();
+    if (segment == null || segmentOffset + bytes.length > SEGMENT_BYTES) {
+      openSegment();
+    }
+
+    segment.write(bytes);
+    index.write(String.format(Locale.US, "%d,%d,%d,%d,%d%n",
+        slot.frameNumber, slot.timestampNs / 1000, segmentNumber, segmentOffset, bytes.length));
+    segmentOffset += bytes.length;
+    writtenCount.incrementAndGet();
+    writtenBytes.addAndGet(bytes.length);
+  }
+
+  private void openSegment() throws IOException {
+    if (segment != null) {
+      segment.close();
+    }
+
+    if (index == null) {
+      index = new FileWriter(new File(AppUtil.ROBOT_DATA_DIR, name + ".idx"));
+      index.write("frame,timestampUs,segment,offset,length" + System.lineSeparator());
+    }
+
+    segmentNumber++;
+    segmentOffset = 0;
+    segment = new BufferedOutputStream(new FileOutputStream(new File(AppUtil.ROBOT_DATA_DIR,
+        String.format(Locale.US, "%s-%03d.mjpeg", name, segmentNumber))), 256 * 1024);
+  }
+
+  private void closeFiles() {
+    try {
+      if (segment != null) {
+        segment.close();
+        segment = null;
+      }
+
+      if (index != null) {
+        index.close();
+        index = null;
+      }
+    } catch (IOException e) {
+      RobotLog.ee(TAG, e, e.getMessage());
+    }
+  }
+
+  public long getDroppedCount() {
+    return droppedCount.get();
+  }
+
+  public long getWrittenCount() {
+    return writtenCount.get();
+  }
+
+  /**
+   * @return The frame counts and bytes written.
+   */
+  public String getStatus() {
+    return String.format(Locale.US, "%s: %d offered, %d written, %d dropped, %.1f MB",
+        name, offeredCount.get(), writtenCount.get(), droppedCount.get(), writtenBytes.get() / 1.0e6);
+  }
+}
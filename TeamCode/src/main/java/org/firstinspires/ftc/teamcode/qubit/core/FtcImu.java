@@ -36,6 +36,9 @@ public class FtcImu extends FtcSubSystemBase {
   private static double pitch = 0.0; // Increases when front rises
   private static double roll = 0.0; // Increases when left rises
 
+  // While replaying a loop log, the recorded readings stand in for the IMU's.
+  private static volatile boolean replaying = false;
+
   // PERFORMANCE
   // Simple mechanism to ensure a single IMU read per loop, and only when needed.
   private boolean gyroAlreadyRead = false;
@@ -230,6 +233,10 @@ public class FtcImu extends FtcSubSystemBase {
    * This may be invoked from other sub-systems.
    */
   public void readAsync() {
+    if (replaying) {
+      return;
+    }
+
     if (useBhi260apImu && bhi260apImu != null && bhi260apImu.imuIsGood()) {
       bhi260apImu.read();
       synchronized (directionLock) {
@@ -266,6 +273,31 @@ public class FtcImu extends FtcSubSystemBase {
     gyroAlreadyRead = false;
   }
 
+  /**
+   * Replaces the IMU readings with recorded ones, until stopReplay() is invoked.
+   *
+   * @param heading The recorded heading, in degrees.
+   * @param pitch   The recorded pitch, in degrees.
+   * @param roll    The recorded roll, in degrees.
+   */
+  public void setReplayedReadings(double heading, double pitch, double roll) {
+    synchronized (directionLock) {
+      FtcImu.heading = heading;
+      FtcImu.pitch = pitch;
+      FtcImu.roll = roll;
+      replaying = true;
+    }
+  }
+
+  /**
+   * Returns to reading the IMU.
+   */
+  public void stopReplay() {
+    synchronized (directionLock) {
+      replaying = false;
+    }
+  }
+
   /**
    * Display IMU (gyro) telemetry.
    */
@@ -0,0 +1,319 @@
+package org.firstinspires.ftc.teamcode.qubit.core;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A class to initialize robot subsystems as a dependency graph.
+ * Each step declares the steps it depends upon, and runs on a small thread pool
+ * as soon as they are done. A step whose dependency failed is skipped.
+ * <p>
+ * PERFORMANCE
+ * Slow steps such as IMU calibration, match config file read and Pedro follower
+ * construction overlap instead of adding up. The hub serializes hardware commands
+ * anyway, so a small pool is enough; most of the win is overlapping waits.
+ */
+public final class FtcInitGraph {
+  private static final String TAG = "FtcInitGraph";
+  public static final int THREAD_COUNT = 3;
+  private static ExecutorService executorService = null;
+  public static boolean parallelEnabled = true;
+
+  private final Map<String, Step> steps = new LinkedHashMap<>();
+  private CountDownLatch readyLatch = null;
+  private boolean parallel = true;
+  private volatile Throwable firstFailure = null;
+  private long startTimeNs = 0;
+  private long readyTimeNs = 0;
+
+  /**
+   * An initialization step, its dependencies and its timing.
+   */
+  private static final class Step {
+    final String name;
+    final Runnable action;
+    final String[] dependencies;
+    final List<Step> dependents = new ArrayList<>();
+    final AtomicInteger pendingDependencies = new AtomicInteger();
+    volatile boolean dependencyFailed = false;
+    volatile boolean failed = false;
+    volatile double elapsedMs = -1;
+
+    Step(String name, Runnable action, String[] dependencies) {
+      this.name = name;
+      this.action = action;
+      this.dependencies = dependencies;
+    }
+  }
+
+  /**
+   * Lazily creates the shared thread pool. Threads are daemons so that they
+   * never keep the robot controller app alive, and are reused across OpModes.
+   *
+   * @return The shared thread pool.
+   */
+  private static synchronized ExecutorService getExecutorService() {
+    if (executorService == null) {
+      FtcLogger.info(TAG, "Creating init thread pool");
+      final AtomicInteger threadNumber = new AtomicInteger(1);
+      executorService = Executors.newFixedThreadPool(THREAD_COUNT, new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, TAG + "-" + threadNumber.getAndIncrement());
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+
+    return executorService;
+  }
+
+  /**
+   * Adds an initialization step.
+   *
+   * @param name         A unique step name, used for dependencies and timings.
+   * @param action       The initialization to run.
+   * @param dependencies The names of the steps that must complete first.
+   * @return This graph, to chain additions.
+   */
+  public FtcInitGraph add(String name, Runnable action, String... dependencies) {
+    if (readyLatch != null) {
+      throw new IllegalStateException("Init graph already started");
+    }
+
+    if (steps.containsKey(name)) {
+      throw new IllegalArgumentException("Duplicate init step " + name);
+    }
+
+    steps.put(name, new Step(name, action, dependencies));
+    return this;
+  }
+
+  /**
+   * Starts running the steps without waiting for them to complete.
+   * Dependencies are validated up front, so a typo or a cycle fails fast
+   * instead of hanging the ready barrier.
+   */
+  public void start() {
+    FtcLogger.enter();
+    if (readyLatch != null) {
+      throw new IllegalStateException("Init graph already started");
+    }
+
+    List<Step> roots = new ArrayList<>();
+    for (Step step : steps.values()) {
+      for (String dependency : step.dependencies) {
+        Step parent = steps.get(dependency);
+        if (parent == null) {
+          throw new IllegalArgumentException(String.format(Locale.US,
+              "Init step %s depends on unknown step %s", step.name, dependency));
+        }
+
+        parent.dependents.add(step);
+      }
+
+      step.pendingDependencies.set(step.dependencies.length);
+      if (step.dependencies.length == 0) {
+        roots.add(step);
+      }
+    }
+
+    List<Step> order = topologicalOrder(roots);
+    readyLatch = new CountDownLatch(steps.size());
+    parallel = parallelEnabled;
+    startTimeNs = System.nanoTime();
+    if (parallel) {
+      for (Step step : roots) {
+        submit(step);
+      }
+    } else {
+      for (Step step : order) {
+        execute(step);
+      }
+    }
+
+    FtcLogger.exit();
+  }
+
+  /**
+   * Orders the steps so that every step follows its dependencies.
+   *
+   * @param roots The steps without dependencies.
+   * @return The steps in dependency order.
+   */
+  private List<Step> topologicalOrder(List<Step> roots) {
+    Map<Step, Integer> pending = new LinkedHashMap<>();
+    for (Step step : steps.values()) {
+      pending.put(step, step.dependencies.length);
+    }
+
+    List<Step> order = new ArrayList<>(roots);
+    for (int i = 0; i < order.size(); i++) {
+      for (Step dependent : order.get(i).dependents) {
+        int count = pending.get(dependent) - 1;
+        pending.put(dependent, count);
+        if (count == 0) {
+          order.add(dependent);
+        }
+      }
+    }
+
+    if (order.size() != steps.size()) {
+      throw new IllegalStateException("Init graph has a dependency cycle");
+    }
+
+    return order;
+  }
+
+  private void submit(final Step step) {
+    getExecutorService().execute(new Runnable() {
+      @Override
+      public void run() {
+        execute(step);
+      }
+    });
+  }
+
+  /**
+   * Runs a step, then releases the dependents whose dependencies are all done.
+   *
+   * @param step The step to run.
+   */
+  private void execute(Step step) {
+    if (step.dependencyFailed) {
+      step.failed = true;
+      FtcLogger.info(TAG, "%s skipped", step.name);
+    } else {
+      long stepStartNs = System.nanoTime();
+      try {
+        step.action.run();
+      } catch (Throwable throwable) {
+        step.failed = true;
+        synchronized (this) {
+          if (firstFailure == null) {
+            firstFailure = throwable;
+          }
+        }
+
+        FtcLogger.error(TAG, "%s failed: %s", step.name, throwable);
+      }
+
+      step.elapsedMs = (System.nanoTime() - stepStartNs) / 1.0e6;
+    }
+
+    for (Step dependent : step.dependents) {
+      if (step.failed) {
+        dependent.dependencyFailed = true;
+      }
+
+      if (dependent.pendingDependencies.decrementAndGet() == 0 && parallel) {
+        submit(dependent);
+      }
+    }
+
+    readyLatch.countDown();
+  }
+
+  /**
+   * The ready barrier. Waits until every step has completed or was skipped.
+   * A failed step is rethrown here, on the calling thread, so that init failures
+   * surface just like they did when initialization was serial.
+   *
+   * @param timeoutMs The maximum time to wait, in milliseconds.
+   * @return True if all steps completed, false if the wait timed out or was interrupted.
+   */
+  public boolean awaitReady(long timeoutMs) {
+    FtcLogger.enter();
+    boolean ready = false;
+    try {
+      ready = readyLatch.await(timeoutMs, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+
+    if (ready && readyTimeNs == 0) {
+      readyTimeNs = System.nanoTime();
+      logTimings();
+    }
+
+    FtcLogger.exit();
+    Throwable failure = firstFailure;
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    } else if (failure instanceof Error) {
+      throw (Error) failure;
+    } else if (failure != null) {
+      throw new RuntimeException(failure);
+    }
+
+    return ready;
+  }
+
+  /**
+   * Starts the steps and waits for all of them to complete.
+   *
+   * @return True if all steps completed.
+   */
+  public boolean run() {
+    start();
+    return awaitReady(Long.MAX_VALUE);
+  }
+
+  /**
+   * @return True if every step has completed or was skipped.
+   */
+  public boolean isReady() {
+    return readyLatch != null && readyLatch.getCount() == 0;
+  }
+
+  /**
+   * @return The time from start to ready, in milliseconds, or -1 if not ready yet.
+   */
+  public double getReadyTimeMs() {
+    return readyTimeNs == 0 ? -1 : (readyTimeNs - startTimeNs) / 1.0e6;
+  }
+
+  /**
+   * @param name The step name.
+   * @return The step run time, in milliseconds, or -1 if it hasn't run.
+   */
+  public double getStepTimeMs(String name) {
+    Step step = steps.get(name);
+    return step == null ? -1 : step.elapsedMs;
+  }
+
+  private void logTimings() {
+    for (Step step : steps.values()) {
+      FtcLogger.info(TAG, "%s: %.0f ms", step.name, step.elapsedMs);
+    }
+
+    FtcLogger.info(TAG, "Ready: %.0f ms", getReadyTimeMs());
+  }
+
+  /**
+   * Emits per step init timings and the init to ready time.
+   *
+   * @param telemetry The telemetry to use.
+   */
+  public void showTelemetry(Telemetry telemetry) {
+    StringBuilder builder = new StringBuilder();
+    for (Step step : steps.values()) {
+      if (builder.length() > 0) builder.append(", ");
+      builder.append(String.format(Locale.US, "%s %.0f", step.name, step.elapsedMs));
+    }
+
+    telemetry.addData(TAG, "Ready %.0f ms (%s)", getReadyTimeMs(), builder);
+  }
+}
@@ -8,6 +8,7 @@ import com.qualcomm.robotcore.util.ElapsedTime;
 
 import org.firstinspires.ftc.robotcore.external.Telemetry;
 
+import java.util.List;
 import java.util.Locale;
 
 /**
@@ -191,7 +192,7 @@ public class FtcIntake extends FtcSubSystemBase {
       leftFlipServo.setPosition(FLIP_DELIVER_LEFT_POSITION);
       rightFlipServo.setPosition(FLIP_DELIVER_RIGHT_POSITION);
       if (waitTillCompletion) {
-        FtcUtils.sleep(FLIP_TRAVEL_TIME);
+        FtcBot.sleep(parent, FLIP_TRAVEL_TIME);
       }
     }
 
@@ -204,7 +205,7 @@ public class FtcIntake extends FtcSubSystemBase {
       leftFlipServo.setPosition(FLIP_HORIZONTAL_LEFT_POSITION);
       rightFlipServo.setPosition(FLIP_HORIZONTAL_RIGHT_POSITION);
       if (waitTillCompletion) {
-        FtcUtils.sleep(FLIP_TRAVEL_TIME);
+        FtcBot.sleep(parent, FLIP_TRAVEL_TIME);
       }
     }
 
@@ -217,7 +218,7 @@ public class FtcIntake extends FtcSubSystemBase {
       leftFlipServo.setPosition(FLIP_DOWN_LEFT_POSITION);
       rightFlipServo.setPosition(FLIP_DOWN_RIGHT_POSITION);
       if (waitTillCompletion) {
-        FtcUtils.sleep(FLIP_TRAVEL_TIME);
+        FtcBot.sleep(parent, FLIP_TRAVEL_TIME);
       }
     }
 
@@ -250,7 +251,7 @@ public class FtcIntake extends FtcSubSystemBase {
     }
 
     if (waitTillCompletion) {
-      FtcUtils.sleep(SAMPLE_INTAKE_TIME);
+      FtcBot.sleep(parent, SAMPLE_INTAKE_TIME);
     }
 
     FtcLogger.exit();
@@ -266,7 +267,7 @@ public class FtcIntake extends FtcSubSystemBase {
       rightSpinServo.setPosition(SPIN_OUT_POWER);
       verticalSpinServo.setPosition(SPIN_OUT_POWER);
       if (waitTillCompletion) {
-        FtcUtils.sleep(SAMPLE_OUTTAKE_TIME);
+        FtcBot.sleep(parent, SAMPLE_OUTTAKE_TIME);
       }
     }
 
@@ -310,7 +311,7 @@ public class FtcIntake extends FtcSubSystemBase {
     if (intakeEnabled && leftSpecimenServo != null) {
       leftSpecimenServo.setPosition(LEFT_SPECIMEN_GRAB_POSITION);
       if (waitTillCompletion) {
-        FtcUtils.sleep(SPECIMEN_INTAKE_TIME);
+        FtcBot.sleep(parent, SPECIMEN_INTAKE_TIME);
       }
     }
 
@@ -331,7 +332,7 @@ public class FtcIntake extends FtcSubSystemBase {
     if (intakeEnabled && rightSpecimenServo != null) {
       rightSpecimenServo.setPosition(RIGHT_SPECIMEN_GRAB_POSITION);
       if (waitTillCompletion) {
-        FtcUtils.sleep(SPECIMEN_INTAKE_TIME);
+        FtcBot.sleep(parent, SPECIMEN_INTAKE_TIME);
       }
     }
 
@@ -359,7 +360,7 @@ public class FtcIntake extends FtcSubSystemBase {
       }
 
       if (waitTillCompletion) {
-        FtcUtils.sleep(SPECIMEN_INTAKE_TIME);
+        FtcBot.sleep(parent, SPECIMEN_INTAKE_TIME);
       }
     }
 
@@ -458,4 +459,20 @@ public class FtcIntake extends FtcSubSystemBase {
 
     FtcLogger.exit();
   }
+
+  /**
+   * Adds the initialized actuators of this subsystem, e.g. for loop recording.
+   *
+   * @param motors The motor list to add to.
+   * @param servos The servo list to add to.
+   */
+  public void addActuators(List<FtcMotor> motors, List<FtcServo> servos) {
+    if (leftSpinServo != null) servos.add(leftSpinServo);
+    if (rightSpinServo != null) servos.add(rightSpinServo);
+    if (verticalSpinServo != null) servos.add(verticalSpinServo);
+    if (leftFlipServo != null) servos.add(leftFlipServo);
+    if (rightFlipServo != null) servos.add(rightFlipServo);
+    if (leftSpecimenServo != null) servos.add(leftSpecimenServo);
+    if (rightSpecimenServo != null) servos.add(rightSpecimenServo);
+  }
 }
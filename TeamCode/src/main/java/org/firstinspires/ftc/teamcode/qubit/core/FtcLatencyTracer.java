@@ -0,0 +1,306 @@
+package org.firstinspires.ftc.teamcode.qubit.core;
+
+import com.qualcomm.robotcore.hardware.Gamepad;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+import org.firstinspires.ftc.teamcode.qubit.core.enumerations.LatencyStageEnum;
+
+import java.util.Arrays;
+
+/**
+ * A class to measure the latency from a gamepad change to the resulting motor write.
+ * Each gamepad change seen by the OpMode loop is stamped and given a trace ID. The ID stays
+ * current while the loop runs FtcBot.operate and the subsystem operate calls, which stamp the
+ * stage they enter, and the trace completes when the first hardware write of that loop returns
+ * on a motor that responds to one of the changed inputs. Motors declare their inputs with
+ * FtcMotor.setLatencyInputs(), so e.g. a lift hold write doesn't complete a drive stick trace.
+ * Changes that lead to no such write in the same loop (e.g. stick noise under the jitter
+ * threshold, or a power that is already cached) are counted as unactuated and dropped.
+ * <p>
+ * The time a change waits on the Driver Station link and for the loop to come around is not
+ * visible to the robot, and adds up to one loop period on top of the end to end latency.
+ * <p>
+ * PERFORMANCE
+ * Histograms and the trace ring are preallocated, so tracing costs a few System.nanoTime()
+ * calls per traced loop, and a static field check per motor write otherwise.
+ */
+public final class FtcLatencyTracer {
+  private static final String TAG = "FtcLatencyTracer";
+  public static final String FILE_EXTENSION = ".latency.csv";
+  public static final int TRACE_CAPACITY = 1024;
+  private static final LatencyStageEnum[] STAGES = LatencyStageEnum.values();
+  private static final int STAGE_COUNT = STAGES.length;
+  private static final int STAMP_COUNT = LatencyStageEnum.END_TO_END.ordinal() + 1;
+  private static final double NS_PER_MS = 1e6;
+
+  // Gamepad input masks. Each gamepad has its FtcLoopLog button bits in the low 16 bits of
+  // its 32 bit half, and one bit per FtcLoopLog axis above them.
+  private static final int AXIS_SHIFT = 16;
+  private static final int GAMEPAD2_SHIFT = 32;
+  public static final long NO_INPUTS = 0;
+  public static final long GAMEPAD1_STICKS = 0xFL << AXIS_SHIFT;
+  public static final long GAMEPAD2_STICKS = GAMEPAD1_STICKS << GAMEPAD2_SHIFT;
+  public static final long FACE_BUTTONS = (FtcLoopLog.BUTTON_A | FtcLoopLog.BUTTON_B |
+      FtcLoopLog.BUTTON_X | FtcLoopLog.BUTTON_Y) * (1L + (1L << GAMEPAD2_SHIFT));
+
+  private static boolean enabled = false;
+  private static boolean tracing = false;
+  private static Thread loopThread = null;
+  private static long traceId = 0;
+  private static long changedInputs = NO_INPUTS;
+  private static long completedCount = 0;
+  private static long unactuatedCount = 0;
+
+  // Stage entry times of the current trace; the last slot is the write completion time.
+  private static final long[] stamps = new long[STAMP_COUNT];
+  private static final Histogram[] histograms = new Histogram[STAGE_COUNT];
+
+  // The most recent traces, for the dump at stop.
+  private static final long[] traceIds = new long[TRACE_CAPACITY];
+  private static final float[][] traceLatencies = new float[TRACE_CAPACITY][STAGE_COUNT];
+  private static int traceIndex = 0;
+
+  private static final float[] axes1 = new float[FtcLoopLog.AXIS_COUNT];
+  private static final float[] axes2 = new float[FtcLoopLog.AXIS_COUNT];
+  private static final float[] lastAxes1 = new float[FtcLoopLog.AXIS_COUNT];
+  private static final float[] lastAxes2 = new float[FtcLoopLog.AXIS_COUNT];
+  private static int lastButtons1 = 0, lastButtons2 = 0;
+
+  static {
+    for (int i = 0; i < STAGE_COUNT; i++) {
+      histograms[i] = new Histogram();
+    }
+  }
+
+  private FtcLatencyTracer() {
+  }
+
+  /**
+   * A fixed bucket latency histogram, with 0.1 ms buckets up to MAX_MS.
+   */
+  private static final class Histogram {
+    private static final double BUCKET_MS = 0.1;
+    private static final double MAX_MS = 200.0;
+    private final int[] buckets = new int[(int) (MAX_MS / BUCKET_MS) + 1];
+    private long count = 0;
+    private double maxMs = 0;
+
+    void add(double ms) {
+      int bucket = (int) (Math.max(0, ms) / BUCKET_MS);
+      buckets[Math.min(bucket, buckets.length - 1)]++;
+      maxMs = Math.max(maxMs, ms);
+      count++;
+    }
+
+    /**
+     * @param fraction The percentile, as a fraction in (0, 1].
+     * @return The upper edge of the bucket holding the percentile, in milliseconds.
+     */
+    double getPercentile(double fraction) {
+      if (count == 0) return 0;
+      long rank = (long) Math.ceil(fraction * count);
+      long seen = 0;
+      for (int i = 0; i < buckets.length - 1; i++) {
+        seen += buckets[i];
+        if (seen >= rank) return (i + 1) * BUCKET_MS;
+      }
+
+      return maxMs;
+    }
+
+    void reset() {
+      Arrays.fill(buckets, 0);
+      count = 0;
+      maxMs = 0;
+    }
+  }
+
+  /**
+   * Resets all statistics and enables tracing from the calling thread, which must be the
+   * OpMode loop thread.
+   */
+  public static void start() {
+    FtcLogger.enter();
+    for (Histogram histogram : histograms) {
+      histogram.reset();
+    }
+
+    Arrays.fill(stamps, 0);
+    traceId = 0;
+    changedInputs = NO_INPUTS;
+    completedCount = 0;
+    unactuatedCount = 0;
+    traceIndex = 0;
+    lastButtons1 = lastButtons2 = 0;
+    Arrays.fill(lastAxes1, 0);
+    Arrays.fill(lastAxes2, 0);
+    loopThread = Thread.currentThread();
+    tracing = false;
+    enabled = true;
+    FtcLogger.exit();
+  }
+
+  /**
+   * Starts a trace if either gamepad changed since the last loop. Call this first in the loop.
+   *
+   * @param gamePad1 The first gamePad.
+   * @param gamePad2 The second gamePad.
+   */
+  public static void beginLoop(Gamepad gamePad1, Gamepad gamePad2) {
+    if (!enabled) return;
+    long now = System.nanoTime();
+    int buttons1 = FtcLoopRecorder.capture(gamePad1, axes1);
+    int buttons2 = FtcLoopRecorder.capture(gamePad2, axes2);
+    long changed = getChangedInputs(buttons1, lastButtons1, axes1, lastAxes1) |
+        getChangedInputs(buttons2, lastButtons2, axes2, lastAxes2) << GAMEPAD2_SHIFT;
+    if (changed != NO_INPUTS) {
+      lastButtons1 = buttons1;
+      lastButtons2 = buttons2;
+      System.arraycopy(axes1, 0, lastAxes1, 0, axes1.length);
+      System.arraycopy(axes2, 0, lastAxes2, 0, axes2.length);
+      Arrays.fill(stamps, 0);
+      stamps[LatencyStageEnum.DISPATCH.ordinal()] = now;
+      traceId++;
+      changedInputs = changed;
+      tracing = true;
+    }
+  }
+
+  private static long getChangedInputs(int buttons, int lastButtons, float[] axes, float[] lastAxes) {
+    long changed = buttons ^ lastButtons;
+    for (int i = 0; i < axes.length; i++) {
+      if (axes[i] != lastAxes[i]) changed |= 1L << (AXIS_SHIFT + i);
+    }
+
+    return changed;
+  }
+
+  /**
+   * Checks whether a hardware write completes the current trace.
+   *
+   * @param inputs The input mask of the written device.
+   * @return True if a trace is current on this thread and the device responds to its inputs.
+   */
+  public static boolean isTraced(long inputs) {
+    return tracing && (inputs & changedInputs) != NO_INPUTS && Thread.currentThread() == loopThread;
+  }
+
+  /**
+   * Stamps the entry into a stage of the current trace. Only the first entry counts, so a
+   * stage may be entered by several subsystems. This is a no op when no trace is current.
+   *
+   * @param stage The stage being entered.
+   */
+  public static void enterStage(LatencyStageEnum stage) {
+    if (!tracing || Thread.currentThread() != loopThread) return;
+    int index = stage.ordinal();
+    if (stamps[index] == 0) {
+      stamps[index] = System.nanoTime();
+    }
+  }
+
+  /**
+   * Completes the current trace when a hardware write returns. Call this right after a
+   * write that isTraced(), having entered LatencyStageEnum.HUB_WRITE right before it.
+   */
+  public static void completeWrite() {
+    if (!tracing || Thread.currentThread() != loopThread) return;
+    long now = System.nanoTime();
+    stamps[LatencyStageEnum.END_TO_END.ordinal()] = now;
+    float[] latencies = traceLatencies[traceIndex];
+    Arrays.fill(latencies, Float.NaN);
+
+    // Each stage runs until the next stage that was entered. Stages that were not entered
+    // are folded into the stage before them.
+    for (int i = 0; i < LatencyStageEnum.END_TO_END.ordinal(); i++) {
+      if (stamps[i] == 0) continue;
+      int next = i + 1;
+      while (stamps[next] == 0) next++;
+      double ms = (stamps[next] - stamps[i]) / NS_PER_MS;
+      histograms[i].add(ms);
+      latencies[i] = (float) ms;
+    }
+
+    double endToEndMs = (now - stamps[LatencyStageEnum.DISPATCH.ordinal()]) / NS_PER_MS;
+    histograms[LatencyStageEnum.END_TO_END.ordinal()].add(endToEndMs);
+    latencies[LatencyStageEnum.END_TO_END.ordinal()] = (float) endToEndMs;
+    traceIds[traceIndex] = traceId;
+    traceIndex = (traceIndex + 1) % TRACE_CAPACITY;
+    completedCount++;
+    tracing = false;
+  }
+
+  /**
+   * Drops the current trace if it led to no hardware write. Call this last in the loop.
+   */
+  public static void endLoop() {
+    if (tracing) {
+      unactuatedCount++;
+      tracing = false;
+    }
+  }
+
+  /**
+   * @return The ID of the current trace, or 0 when no trace is current.
+   */
+  public static long getTraceId() {
+    return tracing ? traceId : 0;
+  }
+
+  /**
+   * Emits the p50/p99 latency of every stage.
+   *
+   * @param telemetry The telemetry to use.
+   */
+  public static void showTelemetry(Telemetry telemetry) {
+    if (!enabled) return;
+    telemetry.addData(TAG, "%d traced, %d unactuated", completedCount, unactuatedCount);
+    for (int i = 0; i < STAGE_COUNT; i++) {
+      telemetry.addData(STAGES[i].name(), "p50 %.1f p99 %.1f ms",
+          histograms[i].getPercentile(0.5), histograms[i].getPercentile(0.99));
+    }
+  }
+
+  /**
+   * Disables tracing, logs the summary and writes the most recent traces to a CSV file in
+   * the robot data directory.
+   *
+   * @param name The file name, without extension.
+   */
+  public static void stop(String name) {
+    FtcLogger.enter();
+    if (enabled) {
+      enabled = false;
+      tracing = false;
+      FtcLogger.info(TAG, "%d traced, %d unactuated", completedCount, unactuatedCount);
+      for (int i = 0; i < STAGE_COUNT; i++) {
+        Histogram histogram = histograms[i];
+        FtcLogger.info(TAG, "%s p50 %.1f p99 %.1f max %.1f ms (%d)", STAGES[i].name(),
+            histogram.getPercentile(0.5), histogram.getPercentile(0.99), histogram.maxMs, histogram.count);
+      }
+
+      CsvWriter csvWriter = new CsvWriter(name + FILE_EXTENSION);
+      csvWriter.append("traceId");
+      for (LatencyStageEnum stage : STAGES) {
+        csvWriter.append(stage.name());
+      }
+
+      csvWriter.flush();
+      int traceCount = (int) Math.min(completedCount, TRACE_CAPACITY);
+      int first = completedCount > TRACE_CAPACITY ? traceIndex : 0;
+      for (int i = 0; i < traceCount; i++) {
+        int index = (first + i) % TRACE_CAPACITY;
+        csvWriter.append(traceIds[index]);
+        for (float latency : traceLatencies[index]) {
+          csvWriter.append(Float.isNaN(latency) ? "" : String.valueOf(latency));
+        }
+
+        csvWriter.flush();
+      }
+
+      csvWriter.close();
+    }
+
+    FtcLogger.exit();
+  }
+}
@@ -9,12 +9,23 @@ import com.qualcomm.robotcore.util.Range;
 
 import org.firstinspires.ftc.robotcore.external.Telemetry;
 import org.firstinspires.ftc.robotcore.internal.system.Deadline;
+import org.firstinspires.ftc.teamcode.qubit.core.enumerations.PowerPriorityEnum;
 
+import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.TimeUnit;
 
 /**
  * A class to manage the robot lift.
+ * <p>
+ * PERFORMANCE
+ * With hostControlEnabled, the lift motors stay in RUN_WITHOUT_ENCODER. Moves are profiled
+ * and synchronized on the host by FtcLiftController, which must be updated every loop.
+ * Otherwise, each motor runs to position on the hub, as before. The host controller gains
+ * are untuned, so it stays off until they are measured on the robot.
+ * <p>
+ * Blocking waits anywhere on the robot go through FtcBot.sleep, which keeps calling update(),
+ * so the host controlled lift is never left on a stale power.
  */
 public class FtcLift extends FtcSubSystemBase {
   private static final String TAG = "FtcLift";
@@ -36,6 +47,7 @@ public class FtcLift extends FtcSubSystemBase {
   public static final double UP_POWER = FtcMotor.MAX_POWER;
   public static final double DOWN_POWER = -UP_POWER;
   public static final int TRAVEL_TIME_MAX_MS = 2000;
+  public static final int CONTROL_PERIOD_MS = 10;
   public static final int TRAVEL_TIME_2_HIGH_BASKET = POSITION_HIGH_BASKET / 2;
   public static final int TRAVEL_TIME_2_LOW_BASKET = POSITION_LOW_BASKET / 2;
   public static final int TRAVEL_TIME_2_HIGH_CHAMBER = POSITION_HIGH_CHAMBER / 2;
@@ -43,6 +55,10 @@ public class FtcLift extends FtcSubSystemBase {
   public static final int TRAVEL_TIME_2_HIGH_RUNG = POSITION_HIGH_RUNG / 2;
   public static final int TRAVEL_TIME_2_LOW_RUNG = POSITION_LOW_RUNG / 2;
   public static final int LIFT_STOP_SWAYING_TIME = 700; // milliseconds
+  public static final int LIFT_SETTLE_TIME_MS = 250;
+
+  // When true, FtcLiftController runs the lift. Enable once its gains are measured.
+  public static boolean hostControlEnabled = false;
   private final boolean liftEnabled = true;
   public boolean telemetryEnabled = true;
   public static int endAutoOpLeftLiftPosition = POSITION_MINIMUM;
@@ -51,6 +67,7 @@ public class FtcLift extends FtcSubSystemBase {
   private final FtcBot parent;
   private FtcMotor leftLiftMotor = null;
   private FtcMotor rightLiftMotor = null;
+  private FtcLiftController controller = null;
   public static final String LEFT_TOUCH_SENSOR_NAME = "leftLiftTouch";
   public static final String RIGHT_TOUCH_SENSOR_NAME = "rightLiftTouch";
   private TouchSensor leftLiftTouch = null;
@@ -86,10 +103,13 @@ public class FtcLift extends FtcSubSystemBase {
    * @return Estimated lift travel time in milliseconds.
    */
   private long estimateTravelTime(int currentPosition, int targetPosition) {
-    int estimate;
-    int distance = Math.abs(Math.abs(targetPosition) - Math.abs(currentPosition));
+    long estimate;
+    if (controller != null) {
+      estimate = controller.estimateTravelTime(targetPosition - currentPosition);
+    } else {
+      estimate = Math.abs(Math.abs(targetPosition) - Math.abs(currentPosition)) / 2;
+    }
 
-    estimate = distance / 2;
     return Range.clip(estimate, 0, TRAVEL_TIME_MAX_MS);
   }
 
@@ -140,26 +160,37 @@ public class FtcLift extends FtcSubSystemBase {
         rightLiftTouch = hardwareMap.get(TouchSensor.class, RIGHT_TOUCH_SENSOR_NAME);
       }
 
+      DcMotorEx.RunMode runMode = hostControlEnabled ?
+          DcMotorEx.RunMode.RUN_WITHOUT_ENCODER : DcMotorEx.RunMode.RUN_USING_ENCODER;
       rightLiftMotor = new FtcMotor(hardwareMap.get(DcMotorEx.class, RIGHT_MOTOR_NAME));
       rightLiftMotor.setDirection(DcMotorEx.Direction.REVERSE);
       rightLiftMotor.setMode(DcMotorEx.RunMode.STOP_AND_RESET_ENCODER);
       rightLiftMotor.setZeroPowerBehavior(DcMotorEx.ZeroPowerBehavior.FLOAT);
-      rightLiftMotor.setMode(DcMotorEx.RunMode.RUN_USING_ENCODER);
-      rightLiftMotor.setTargetPositionTolerance(TARGET_POSITION_TOLERANCE);
+      rightLiftMotor.setMode(runMode);
 
       leftLiftMotor = new FtcMotor(hardwareMap.get(DcMotorEx.class, LEFT_MOTOR_NAME));
       leftLiftMotor.setDirection(DcMotorEx.Direction.FORWARD);
       leftLiftMotor.setMode(DcMotorEx.RunMode.STOP_AND_RESET_ENCODER);
       leftLiftMotor.setZeroPowerBehavior(DcMotorEx.ZeroPowerBehavior.FLOAT);
-      leftLiftMotor.setMode(DcMotorEx.RunMode.RUN_USING_ENCODER);
-      leftLiftMotor.setTargetPositionTolerance(TARGET_POSITION_TOLERANCE);
-
-      // Initialize lift
-      rightLiftMotor.setTargetPosition(POSITION_FLOOR);
-      rightLiftMotor.setPower(FtcMotor.ZERO_POWER);
-
-      leftLiftMotor.setTargetPosition(POSITION_FLOOR);
-      leftLiftMotor.setPower(FtcMotor.ZERO_POWER);
+      leftLiftMotor.setMode(runMode);
+
+      // Initialize lift, unpowered until the first move.
+      // The controller compensates for voltage, the power budget scales the lift back first.
+      rightLiftMotor.setPowerPriority(PowerPriorityEnum.MECHANISM);
+      leftLiftMotor.setPowerPriority(PowerPriorityEnum.MECHANISM);
+      rightLiftMotor.setLatencyInputs(FtcLatencyTracer.FACE_BUTTONS);
+      leftLiftMotor.setLatencyInputs(FtcLatencyTracer.FACE_BUTTONS);
+      if (hostControlEnabled) {
+        controller = new FtcLiftController(leftLiftMotor, rightLiftMotor, TARGET_POSITION_TOLERANCE);
+        controller.stop();
+      } else {
+        rightLiftMotor.setTargetPositionTolerance(TARGET_POSITION_TOLERANCE);
+        leftLiftMotor.setTargetPositionTolerance(TARGET_POSITION_TOLERANCE);
+        rightLiftMotor.setTargetPosition(POSITION_FLOOR);
+        rightLiftMotor.setPower(FtcMotor.ZERO_POWER);
+        leftLiftMotor.setTargetPosition(POSITION_FLOOR);
+        leftLiftMotor.setPower(FtcMotor.ZERO_POWER);
+      }
 
       showTelemetry();
       telemetry.addData(TAG, "initialized");
@@ -234,6 +265,13 @@ public class FtcLift extends FtcSubSystemBase {
       if (!liftNearTarget(leftCurrentPosition, leftTargetPosition) ||
           !liftNearTarget(rightCurrentPosition, rightTargetPosition)) {
         move(leftTargetPosition, rightTargetPosition, false);
+      } else if (enableZeroPowerAtLowPosition && controller != null) {
+        // If lift is at LOW position, set motor power to be zero
+        if (!controller.isMoving() &&
+            liftNearTarget(leftCurrentPosition, POSITION_MINIMUM - endAutoOpLeftLiftPosition) &&
+            liftNearTarget(rightCurrentPosition, POSITION_MINIMUM - endAutoOpRightLiftPosition)) {
+          controller.setHoldEnabled(false);
+        }
       } else if (enableZeroPowerAtLowPosition) {
         // If lift is at LOW position, set motor power to be zero
         if (liftNearTarget(leftCurrentPosition, POSITION_MINIMUM - endAutoOpLeftLiftPosition)) {
@@ -244,6 +282,8 @@ public class FtcLift extends FtcSubSystemBase {
           rightLiftMotor.setPower(FtcMotor.ZERO_POWER);
         }
       }
+
+      update();
     }
   }
 
@@ -266,7 +306,7 @@ public class FtcLift extends FtcSubSystemBase {
 
       // 5 ticks in 25 ms
       // 1000 ticks in 25 * 1000 / 5 =5000ms = 5 seconds
-      FtcUtils.sleep(25);
+      hold(25);
     }
   }
 
@@ -278,41 +318,104 @@ public class FtcLift extends FtcSubSystemBase {
    */
   public void move(int leftTargetPosition, int rightTargetPosition, boolean waitTillCompletion) {
     if (liftEnabled) {
-      double liftPower;
       leftTargetPosition = Range.clip(leftTargetPosition,
           POSITION_MINIMUM - endAutoOpLeftLiftPosition, POSITION_HIGH_BASKET - endAutoOpLeftLiftPosition);
-      int leftCurrentPosition = leftLiftMotor.getCurrentPosition();
-      if (!liftNearTarget(leftCurrentPosition, leftTargetPosition)) {
-        // Must set motor position before setting motor mode.
-        leftLiftMotor.setTargetPosition(leftTargetPosition);
-        leftLiftMotor.setMode(DcMotorEx.RunMode.RUN_TO_POSITION);
-        liftPower = leftTargetPosition > leftCurrentPosition ? UP_POWER : DOWN_POWER;
-        leftLiftMotor.setPower(liftPower);
-      }
-
       rightTargetPosition = Range.clip(rightTargetPosition,
           POSITION_MINIMUM - endAutoOpRightLiftPosition, POSITION_HIGH_BASKET - endAutoOpRightLiftPosition);
-      int rightCurrentPosition = rightLiftMotor.getCurrentPosition();
-      if (!liftNearTarget(rightCurrentPosition, rightTargetPosition)) {
-        // Must set motor position before setting motor mode.
-        rightLiftMotor.setTargetPosition(rightTargetPosition);
-        rightLiftMotor.setMode(DcMotorEx.RunMode.RUN_TO_POSITION);
-        liftPower = rightTargetPosition > rightCurrentPosition ? UP_POWER : DOWN_POWER;
-        rightLiftMotor.setPower(liftPower);
+      if (controller == null) {
+        moveOnHub(leftTargetPosition, rightTargetPosition, waitTillCompletion);
+        return;
       }
 
+      int leftCurrentPosition = leftLiftMotor.getCurrentPosition();
+
+      // Repeated requests for the same target don't restart the profile.
+      if (leftTargetPosition != controller.getLeftTarget() ||
+          rightTargetPosition != controller.getRightTarget() || !controller.isMoving()) {
+        controller.moveTo(leftTargetPosition, rightTargetPosition);
+      }
+
+      controller.update();
       if (waitTillCompletion) {
-        long timeout = estimateTravelTime(leftCurrentPosition, leftTargetPosition);
+        long timeout = estimateTravelTime(leftCurrentPosition, leftTargetPosition) + LIFT_SETTLE_TIME_MS;
         Deadline d = new Deadline(timeout, TimeUnit.MILLISECONDS);
         d.reset();
-        while (!d.hasExpired() && !liftNearTarget(leftCurrentPosition, leftTargetPosition)) {
-          FtcUtils.sleep(FtcUtils.CYCLE_MS);
-          leftCurrentPosition = leftLiftMotor.getCurrentPosition();
+        while (!d.hasExpired() && controller.isMoving()) {
+          FtcUtils.sleep(CONTROL_PERIOD_MS);
+          if (parent != null && parent.bulkRead != null) {
+            parent.bulkRead.clearBulkCache();
+          }
+
+          controller.update();
         }
       }
     }
   }
 
+  /**
+   * Runs each motor to its target position on the hub, at full power.
+   */
+  private void moveOnHub(int leftTargetPosition, int rightTargetPosition, boolean waitTillCompletion) {
+    int leftCurrentPosition = leftLiftMotor.getCurrentPosition();
+    if (!liftNearTarget(leftCurrentPosition, leftTargetPosition)) {
+      // Must set motor position before setting motor mode.
+      leftLiftMotor.setTargetPosition(leftTargetPosition);
+      leftLiftMotor.setMode(DcMotorEx.RunMode.RUN_TO_POSITION);
+      leftLiftMotor.setPower(leftTargetPosition > leftCurrentPosition ? UP_POWER : DOWN_POWER);
+    }
+
+    int rightCurrentPosition = rightLiftMotor.getCurrentPosition();
+    if (!liftNearTarget(rightCurrentPosition, rightTargetPosition)) {
+      // Must set motor position before setting motor mode.
+      rightLiftMotor.setTargetPosition(rightTargetPosition);
+      rightLiftMotor.setMode(DcMotorEx.RunMode.RUN_TO_POSITION);
+      rightLiftMotor.setPower(rightTargetPosition > rightCurrentPosition ? UP_POWER : DOWN_POWER);
+    }
+
+    if (waitTillCompletion) {
+      long timeout = estimateTravelTime(leftCurrentPosition, leftTargetPosition);
+      Deadline d = new Deadline(timeout, TimeUnit.MILLISECONDS);
+      d.reset();
+      while (!d.hasExpired() && !liftNearTarget(leftCurrentPosition, leftTargetPosition)) {
+        FtcUtils.sleep(FtcUtils.CYCLE_MS);
+        if (parent != null && parent.bulkRead != null) {
+          parent.bulkRead.clearBulkCache();
+        }
+
+        leftCurrentPosition = leftLiftMotor.getCurrentPosition();
+      }
+    }
+  }
+
+  /**
+   * Waits while running the lift controller, so the lift keeps moving to, or holding,
+   * its target. Use this instead of sleeping while the lift is powered. On the hub,
+   * this just waits.
+   *
+   * @param milliseconds The time to wait.
+   */
+  public void hold(long milliseconds) {
+    Deadline d = new Deadline(milliseconds, TimeUnit.MILLISECONDS);
+    d.reset();
+    do {
+      if (parent != null && parent.bulkRead != null) {
+        parent.bulkRead.clearBulkCache();
+      }
+
+      update();
+      FtcUtils.sleep(Math.min(CONTROL_PERIOD_MS, Math.max(0, d.timeRemaining(TimeUnit.MILLISECONDS))));
+    } while (!d.hasExpired());
+  }
+
+  /**
+   * Runs the lift controller. Must be called every loop while the lift moves or holds.
+   */
+  public void update() {
+    if (liftEnabled && controller != null) {
+      controller.update();
+    }
+  }
+
   public void resetLiftIfTouchPressed() {
     FtcLogger.enter();
 
@@ -329,10 +432,7 @@ public class FtcLift extends FtcSubSystemBase {
             (!liftNearTarget(leftCurrentPosition, POSITION_FLOOR) &&
                 !liftNearTarget(leftCurrentPosition, POSITION_MINIMUM))) {
           leftLiftMotor.setMode(DcMotorEx.RunMode.STOP_AND_RESET_ENCODER);
-          leftLiftMotor.setMode(DcMotorEx.RunMode.RUN_USING_ENCODER);
-          leftLiftMotor.setTargetPosition(POSITION_FLOOR);
-          leftLiftMotor.setMode(DcMotorEx.RunMode.RUN_TO_POSITION);
-          leftLiftMotor.setPower(FtcMotor.ZERO_POWER);
+          resetMotorMode(leftLiftMotor);
           endAutoOpLeftLiftPosition = 0;
           endAutoOpRightLiftPosition = 0;
         }
@@ -343,10 +443,7 @@ public class FtcLift extends FtcSubSystemBase {
             (!liftNearTarget(rightCurrentPosition, POSITION_FLOOR) &&
                 !liftNearTarget(rightCurrentPosition, POSITION_MINIMUM))) {
           rightLiftMotor.setMode(DcMotorEx.RunMode.STOP_AND_RESET_ENCODER);
-          rightLiftMotor.setMode(DcMotorEx.RunMode.RUN_USING_ENCODER);
-          rightLiftMotor.setTargetPosition(POSITION_FLOOR);
-          rightLiftMotor.setMode(DcMotorEx.RunMode.RUN_TO_POSITION);
-          rightLiftMotor.setPower(FtcMotor.ZERO_POWER);
+          resetMotorMode(rightLiftMotor);
           endAutoOpLeftLiftPosition = 0;
           endAutoOpRightLiftPosition = 0;
         }
@@ -356,6 +453,21 @@ public class FtcLift extends FtcSubSystemBase {
     FtcLogger.exit();
   }
 
+  /**
+   * Restores the run mode of a motor after an encoder reset, unpowered at the floor.
+   */
+  private void resetMotorMode(FtcMotor motor) {
+    if (controller != null) {
+      motor.setMode(DcMotorEx.RunMode.RUN_WITHOUT_ENCODER);
+      controller.reset();
+    } else {
+      motor.setMode(DcMotorEx.RunMode.RUN_USING_ENCODER);
+      motor.setTargetPosition(POSITION_FLOOR);
+      motor.setMode(DcMotorEx.RunMode.RUN_TO_POSITION);
+      motor.setPower(FtcMotor.ZERO_POWER);
+    }
+  }
+
   /**
    * Displays lift motor telemetry. Helps with debugging.
    */
@@ -365,6 +477,11 @@ public class FtcLift extends FtcSubSystemBase {
       String message = String.format(Locale.US, "LLPower %.2f, LLPosition %d, RLPower %.2f, RLPosition %d",
           leftLiftMotor.getPower(), leftLiftMotor.getCurrentPosition(),
           rightLiftMotor.getPower(), rightLiftMotor.getCurrentPosition());
+      if (controller != null) {
+        message += String.format(Locale.US, ", Target %d/%d, TravelScale %.2f",
+            controller.getLeftTarget(), controller.getRightTarget(), controller.getTravelTimeScale());
+      }
+
       if (enableLiftResetOnTouch) {
         message += String.format(Locale.US, "LeftTouch: %b, RightTouch: %b",
             leftLiftTouch.isPressed(), rightLiftTouch.isPressed());
@@ -382,6 +499,10 @@ public class FtcLift extends FtcSubSystemBase {
   public void stop() {
     FtcLogger.enter();
     if (liftEnabled) {
+      if (controller != null) {
+        controller.stop();
+      }
+
       if (leftLiftMotor != null) {
         leftLiftMotor.setPower(FtcMotor.ZERO_POWER);
       }
@@ -393,4 +514,15 @@ public class FtcLift extends FtcSubSystemBase {
 
     FtcLogger.exit();
   }
+
+  /**
+   * Adds the initialized actuators of this subsystem, e.g. for loop recording.
+   *
+   * @param motors The motor list to add to.
+   * @param servos The servo list to add to.
+   */
+  public void addActuators(List<FtcMotor> motors, List<FtcServo> servos) {
+    if (leftLiftMotor != null) motors.add(leftLiftMotor);
+    if (rightLiftMotor != null) motors.add(rightLiftMotor);
+  }
 }
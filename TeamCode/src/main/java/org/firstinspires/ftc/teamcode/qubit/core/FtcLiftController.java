@@ -0,0 +1,298 @@
+package org.firstinspires.ftc.teamcode.qubit.core;
+
+import com.qualcomm.robotcore.util.Range;
+
+import java.util.Locale;
+
+/**
+ * A host side controller for a lift driven by two motors on the same carriage.
+ * <p>
+ * Both sides follow a single trapezoidal motion profile, scaled to their own travel,
+ * so they start and stop together. Motor power is
+ * kG + kS * sign(v) + kV * v + kA * a + kP * e + kSync * (e - eOther),
+ * compensated for the battery voltage. The sync term pushes the lagging side forward
+ * and holds the leading side back, keeping the carriage level.
+ * <p>
+ * PERFORMANCE
+ * Motors stay in RUN_WITHOUT_ENCODER for good, so moves never change the motor mode.
+ * Power is written through FtcMotor, which drops unchanged writes, and the battery
+ * voltage comes from FtcVoltageService, which samples it off the control loop.
+ * The power budget scales everything but the kG gravity hold term.
+ * Travel time estimates are learned from the actual duration of completed moves.
+ * <p>
+ * The motors are not run in RUN_TO_POSITION, so the carriage is only held while update()
+ * is called. Blocking waits must keep calling it, e.g. through FtcLift.hold().
+ */
+public class FtcLiftController {
+  private static final String TAG = "FtcLiftController";
+
+  // Profile limits, in encoder ticks.
+  public static final double MAX_VELOCITY = 2500; // ticks per second
+  public static final double MAX_ACCELERATION = 10000; // ticks per second squared
+
+  // Feedforward and feedback gains at NOMINAL_VOLTAGE.
+  // UNTUNED: these are starting guesses, not measured values. Tune them on the robot,
+  // kG and kS first with the carriage at rest, then kV and kA from logged moves.
+  // Until then, FtcLift runs the lift on the hub, see FtcLift.hostControlEnabled.
+  public static final double NOMINAL_VOLTAGE = FtcVoltageService.NOMINAL_VOLTAGE;
+  public static final double KG = 0.10; // holds the carriage against gravity
+  public static final double KS = 0.04; // overcomes static friction
+  public static final double KV = 1.0 / 2800.0; // power per tick per second
+  public static final double KA = 1.0 / 40000.0; // power per tick per second squared
+  public static final double KP = 0.005; // power per tick of position error
+  public static final double K_SYNC = 0.004; // power per tick of left/right error difference
+
+  // A move that isn't within tolerance this long after its profile ends, or that makes no
+  // progress for STALL_TIME past its profile, is abandoned. The target is still held.
+  public static final double SETTLE_TIMEOUT = 0.5; // seconds
+  public static final double STALL_TIME = 0.25; // seconds
+
+  // Learned travel time is the profile time scaled by the observed slowdown.
+  public static final double TRAVEL_TIME_SCALE_MIN = 1.0;
+  public static final double TRAVEL_TIME_SCALE_MAX = 3.0;
+  public static final double TRAVEL_TIME_LEARNING_RATE = 0.3;
+
+  // Learned per controller, so each OpMode starts from the same estimate.
+  public static final double TRAVEL_TIME_SCALE_INITIAL = 1.2;
+  private double travelTimeScale = TRAVEL_TIME_SCALE_INITIAL;
+
+  private final FtcMotor leftMotor, rightMotor;
+  private final int tolerance;
+
+  // Current move.
+  private int leftStart, rightStart, leftTarget, rightTarget;
+  private double distance, accelerationTime, peakVelocity, duration;
+  private long startTime = 0;
+  private long progressTime = 0;
+  private int leftProgressPosition, rightProgressPosition;
+  private boolean moving = false;
+  private boolean holdEnabled = true;
+  private double leftPower = FtcMotor.ZERO_POWER, rightPower = FtcMotor.ZERO_POWER;
+
+  /**
+   * Constructor.
+   *
+   * @param leftMotor     The left lift motor, in RUN_WITHOUT_ENCODER mode.
+   * @param rightMotor    The right lift motor, in RUN_WITHOUT_ENCODER mode.
+   * @param tolerance     The position tolerance, in ticks.
+   */
+  public FtcLiftController(FtcMotor leftMotor, FtcMotor rightMotor, int tolerance) {
+    this.leftMotor = leftMotor;
+    this.rightMotor = rightMotor;
+    this.tolerance = tolerance;
+    leftStart = leftTarget = leftMotor.getCurrentPosition();
+    rightStart = rightTarget = rightMotor.getCurrentPosition();
+  }
+
+  /**
+   * Estimates the time a move of the given distance takes, based on the motion
+   * profile and the slowdown observed on previous moves.
+   *
+   * @param distance The travel distance, in ticks.
+   * @return The estimated travel time, in milliseconds.
+   */
+  public long estimateTravelTime(int distance) {
+    return Math.round(profileDuration(Math.abs(distance)) * travelTimeScale * 1000.0);
+  }
+
+  public double getLeftPower() {
+    return leftPower;
+  }
+
+  public double getRightPower() {
+    return rightPower;
+  }
+
+  public int getLeftTarget() {
+    return leftTarget;
+  }
+
+  public int getRightTarget() {
+    return rightTarget;
+  }
+
+  public double getTravelTimeScale() {
+    return travelTimeScale;
+  }
+
+  public boolean isMoving() {
+    return moving;
+  }
+
+  /**
+   * Starts a move from the current positions. Both sides arrive at the same time.
+   *
+   * @param leftTarget  The left target position, in ticks.
+   * @param rightTarget The right target position, in ticks.
+   */
+  public void moveTo(int leftTarget, int rightTarget) {
+    // Retargeting mid move starts from where the carriage is now.
+    leftStart = leftMotor.getCurrentPosition();
+    rightStart = rightMotor.getCurrentPosition();
+    this.leftTarget = leftTarget;
+    this.rightTarget = rightTarget;
+    distance = Math.max(Math.abs(leftTarget - leftStart), Math.abs(rightTarget - rightStart));
+    duration = profileDuration(distance);
+    if (distance < MAX_VELOCITY * MAX_VELOCITY / MAX_ACCELERATION) {
+      accelerationTime = Math.sqrt(distance / MAX_ACCELERATION);
+      peakVelocity = MAX_ACCELERATION * accelerationTime;
+    } else {
+      accelerationTime = MAX_VELOCITY / MAX_ACCELERATION;
+      peakVelocity = MAX_VELOCITY;
+    }
+
+    startTime = progressTime = System.nanoTime();
+    leftProgressPosition = leftStart;
+    rightProgressPosition = rightStart;
+    moving = distance > tolerance;
+    holdEnabled = true;
+  }
+
+  private static double profileDuration(double distance) {
+    if (distance < MAX_VELOCITY * MAX_VELOCITY / MAX_ACCELERATION) {
+      return 2 * Math.sqrt(distance / MAX_ACCELERATION);
+    }
+
+    return MAX_VELOCITY / MAX_ACCELERATION + distance / MAX_VELOCITY;
+  }
+
+  /**
+   * Re-bases the controller on the current positions, e.g. after an encoder reset,
+   * and unpowers the motors.
+   */
+  public void reset() {
+    leftStart = leftTarget = leftMotor.getCurrentPosition();
+    rightStart = rightTarget = rightMotor.getCurrentPosition();
+    stop();
+  }
+
+  /**
+   * Enables or disables holding the target once the move is complete.
+   * With holding disabled and the carriage at rest, the motors are unpowered.
+   *
+   * @param holdEnabled True to hold the target position.
+   */
+  public void setHoldEnabled(boolean holdEnabled) {
+    if (this.holdEnabled && !holdEnabled && !moving) {
+      stop();
+    }
+
+    this.holdEnabled = holdEnabled;
+  }
+
+  /**
+   * Sets the motor powers to zero. The current move, if any, is abandoned
+   * and the target is no longer held.
+   */
+  public void stop() {
+    moving = false;
+    holdEnabled = false;
+    leftPower = rightPower = FtcMotor.ZERO_POWER;
+    leftMotor.setPower(leftPower);
+    rightMotor.setPower(rightPower);
+  }
+
+  /**
+   * Computes and writes the motor powers. Must be called every loop.
+   *
+   * @return True if the move is still in progress, false otherwise.
+   */
+  public boolean update() {
+    if (!moving && !holdEnabled) {
+      return false;
+    }
+
+    long now = System.nanoTime();
+    int leftPosition = leftMotor.getCurrentPosition();
+    int rightPosition = rightMotor.getCurrentPosition();
+
+    // Profile state, as a fraction of the travel.
+    double time = (now - startTime) / 1e9;
+    double fraction = 1, velocity = 0, acceleration = 0;
+    if (moving && distance > 0 && time < duration) {
+      double traveled;
+      if (time < accelerationTime) {
+        traveled = 0.5 * MAX_ACCELERATION * time * time;
+        velocity = MAX_ACCELERATION * time;
+        acceleration = MAX_ACCELERATION;
+      } else if (time < duration - accelerationTime) {
+        traveled = 0.5 * MAX_ACCELERATION * accelerationTime * accelerationTime +
+            peakVelocity * (time - accelerationTime);
+        velocity = peakVelocity;
+      } else {
+        double remaining = duration - time;
+        traveled = distance - 0.5 * MAX_ACCELERATION * remaining * remaining;
+        velocity = MAX_ACCELERATION * remaining;
+        acceleration = -MAX_ACCELERATION;
+      }
+
+      fraction = traveled / distance;
+      velocity /= distance;
+      acceleration /= distance;
+    }
+
+    int leftTravel = leftTarget - leftStart, rightTravel = rightTarget - rightStart;
+    double leftError = leftStart + fraction * leftTravel - leftPosition;
+    double rightError = rightStart + fraction * rightTravel - rightPosition;
+    double syncError = leftError - rightError;
+    leftPower = computePower(leftTravel * velocity, leftTravel * acceleration, leftError, syncError);
+    rightPower = computePower(rightTravel * velocity, rightTravel * acceleration, rightError, -syncError);
+
+    // The gravity hold is exempt from the power budget, so a sagging battery slows the
+    // lift down instead of letting the carriage drop.
+    double holdPower = KG * FtcVoltageService.getCompensation();
+    leftMotor.setPower(leftPower, holdPower);
+    rightMotor.setPower(rightPower, holdPower);
+
+    if (moving) {
+      if (Math.abs(leftPosition - leftProgressPosition) > tolerance ||
+          Math.abs(rightPosition - rightProgressPosition) > tolerance) {
+        leftProgressPosition = leftPosition;
+        rightProgressPosition = rightPosition;
+        progressTime = now;
+      }
+
+      boolean atTarget = Math.abs(leftTarget - leftPosition) <= tolerance &&
+          Math.abs(rightTarget - rightPosition) <= tolerance;
+      boolean stalled = time >= duration && (now - progressTime) / 1e9 >= STALL_TIME;
+      if (time >= duration && (atTarget || stalled || time >= duration + SETTLE_TIMEOUT)) {
+        moving = false;
+        if (atTarget) {
+          learnTravelTime(time);
+        } else {
+          FtcLogger.info(TAG, String.format(Locale.US,
+              "Move abandoned %s after %.0f ms, left %d/%d, right %d/%d",
+              stalled ? "stalled" : "timed out", time * 1000,
+              leftPosition, leftTarget, rightPosition, rightTarget));
+        }
+
+        if (!holdEnabled) {
+          stop();
+        }
+      }
+    }
+
+    return moving;
+  }
+
+  private double computePower(double velocity, double acceleration, double error, double syncError) {
+    double power = KG + KS * Math.signum(velocity) + KV * velocity + KA * acceleration +
+        KP * error + K_SYNC * syncError;
+    return Range.clip(power * FtcVoltageService.getCompensation(), FtcMotor.MIN_POWER, FtcMotor.MAX_POWER);
+  }
+
+  /**
+   * Updates the travel time scale from a completed move.
+   *
+   * @param actualTime The actual move duration, in seconds.
+   */
+  private void learnTravelTime(double actualTime) {
+    if (duration > FtcUtils.EPSILON2) {
+      double scale = Range.clip(actualTime / duration, TRAVEL_TIME_SCALE_MIN, TRAVEL_TIME_SCALE_MAX);
+      travelTimeScale += TRAVEL_TIME_LEARNING_RATE * (scale - travelTimeScale);
+      FtcLogger.info(TAG, String.format(Locale.US,
+          "Moved %.0f ticks in %.0f ms, travel time scale %.2f",
+          distance, actualTime * 1000, travelTimeScale));
+    }
+  }
+}
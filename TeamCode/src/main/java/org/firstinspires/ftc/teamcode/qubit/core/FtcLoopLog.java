@@ -0,0 +1,360 @@
+package org.firstinspires.ftc.teamcode.qubit.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A compact binary log of OpMode loops, for record and replay.
+ * Each frame holds the loop inputs (gamepads, the runtime and loop time handed to
+ * operate(), motor encoders, IMU, pose) and the commanded outputs of every recorded
+ * motor and servo, so that a replay can be compared against the recording.
+ * <p>
+ * This class uses plain Java only, so that logs pulled off the robot can be
+ * summarized and compared on a desktop JVM:
+ * java FtcLoopLog recorded.qlog [replayed.qlog]
+ * <p>
+ * PERFORMANCE
+ * Frames are fixed size and written through a buffered stream, so recording
+ * costs a memory copy per loop and a file write every few hundred loops.
+ */
+public final class FtcLoopLog {
+  public static final String FILE_EXTENSION = ".qlog";
+  private static final int MAGIC = 0x514C4F47; // QLOG
+  private static final int VERSION = 2;
+  private static final int BUFFER_SIZE = 64 * 1024;
+  public static final int AXIS_COUNT = 6;
+
+  // Gamepad button bits.
+  public static final int BUTTON_A = 1;
+  public static final int BUTTON_B = 1 << 1;
+  public static final int BUTTON_X = 1 << 2;
+  public static final int BUTTON_Y = 1 << 3;
+  public static final int DPAD_UP = 1 << 4;
+  public static final int DPAD_DOWN = 1 << 5;
+  public static final int DPAD_LEFT = 1 << 6;
+  public static final int DPAD_RIGHT = 1 << 7;
+  public static final int LEFT_BUMPER = 1 << 8;
+  public static final int RIGHT_BUMPER = 1 << 9;
+  public static final int LEFT_STICK_BUTTON = 1 << 10;
+  public static final int RIGHT_STICK_BUTTON = 1 << 11;
+  public static final int BUTTON_BACK = 1 << 12;
+  public static final int BUTTON_START = 1 << 13;
+  public static final int BUTTON_GUIDE = 1 << 14;
+
+  private FtcLoopLog() {
+  }
+
+  /**
+   * The inputs and outputs of one loop.
+   * Axes are left stick x/y, right stick x/y, left trigger and right trigger.
+   * Unavailable IMU or pose readings are NaN.
+   * runtimeNs and operateLoopMs are the values the loop handed to operate(), while
+   * timeNs and loopMs are when the frame was recorded and how long the loop took.
+   */
+  public static final class Frame {
+    public long timeNs;
+    public float loopMs;
+    public long runtimeNs;
+    public float operateLoopMs;
+    public final float[] gamepad1Axes = new float[AXIS_COUNT];
+    public final float[] gamepad2Axes = new float[AXIS_COUNT];
+    public int gamepad1Buttons;
+    public int gamepad2Buttons;
+    public final int[] positions;
+    public final float[] velocities;
+    public float imuHeading = Float.NaN, imuPitch = Float.NaN, imuRoll = Float.NaN;
+    public float poseX = Float.NaN, poseY = Float.NaN, poseHeading = Float.NaN;
+    public final float[] outputs;
+    public final float[] servoPositions;
+
+    /**
+     * @param motorCount The number of motors whose encoders and powers are logged.
+     * @param servoCount The number of servos whose positions are logged.
+     */
+    public Frame(int motorCount, int servoCount) {
+      positions = new int[motorCount];
+      velocities = new float[motorCount];
+      outputs = new float[motorCount];
+      servoPositions = new float[servoCount];
+    }
+
+    public int getMotorCount() {
+      return positions.length;
+    }
+
+    public int getServoCount() {
+      return servoPositions.length;
+    }
+  }
+
+  /**
+   * Writes frames to a log file.
+   */
+  public static final class Writer implements Closeable {
+    private final DataOutputStream stream;
+    private final int motorCount;
+    private final int servoCount;
+
+    public Writer(File file, int motorCount, int servoCount) throws IOException {
+      this.motorCount = motorCount;
+      this.servoCount = servoCount;
+      stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+      stream.writeInt(MAGIC);
+      stream.writeInt(VERSION);
+      stream.writeInt(motorCount);
+      stream.writeInt(servoCount);
+    }
+
+    public void write(Frame frame) throws IOException {
+      if (frame.getMotorCount() != motorCount || frame.getServoCount() != servoCount) {
+        throw new IllegalArgumentException("Frame actuator count doesn't match the log");
+      }
+
+      stream.writeLong(frame.timeNs);
+      stream.writeFloat(frame.loopMs);
+      stream.writeLong(frame.runtimeNs);
+      stream.writeFloat(frame.operateLoopMs);
+      writeAxes(frame.gamepad1Axes);
+      stream.writeInt(frame.gamepad1Buttons);
+      writeAxes(frame.gamepad2Axes);
+      stream.writeInt(frame.gamepad2Buttons);
+      for (int i = 0; i < motorCount; i++) {
+        stream.writeInt(frame.positions[i]);
+        stream.writeFloat(frame.velocities[i]);
+        stream.writeFloat(frame.outputs[i]);
+      }
+
+      for (int i = 0; i < servoCount; i++) {
+        stream.writeFloat(frame.servoPositions[i]);
+      }
+
+      stream.writeFloat(frame.imuHeading);
+      stream.writeFloat(frame.imuPitch);
+      stream.writeFloat(frame.imuRoll);
+      stream.writeFloat(frame.poseX);
+      stream.writeFloat(frame.poseY);
+      stream.writeFloat(frame.poseHeading);
+    }
+
+    private void writeAxes(float[] axes) throws IOException {
+      for (float axis : axes) {
+        stream.writeFloat(axis);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      stream.close();
+    }
+  }
+
+  /**
+   * Reads frames from a log file.
+   */
+  public static final class Reader implements Closeable {
+    private final DataInputStream stream;
+    private final int motorCount;
+    private final int servoCount;
+
+    public Reader(File file) throws IOException {
+      stream = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+      if (stream.readInt() != MAGIC || stream.readInt() != VERSION) {
+        stream.close();
+        throw new IOException("Not a loop log: " + file);
+      }
+
+      motorCount = stream.readInt();
+      servoCount = stream.readInt();
+    }
+
+    public int getMotorCount() {
+      return motorCount;
+    }
+
+    public int getServoCount() {
+      return servoCount;
+    }
+
+    /**
+     * Reads the next frame.
+     *
+     * @param frame The frame to fill, created with this log's motor and servo counts.
+     * @return True if a frame was read, false at the end of the log.
+     */
+    public boolean read(Frame frame) throws IOException {
+      try {
+        frame.timeNs = stream.readLong();
+      } catch (EOFException exception) {
+        return false;
+      }
+
+      try {
+        frame.loopMs = stream.readFloat();
+        frame.runtimeNs = stream.readLong();
+        frame.operateLoopMs = stream.readFloat();
+        readAxes(frame.gamepad1Axes);
+        frame.gamepad1Buttons = stream.readInt();
+        readAxes(frame.gamepad2Axes);
+        frame.gamepad2Buttons = stream.readInt();
+        for (int i = 0; i < motorCount; i++) {
+          frame.positions[i] = stream.readInt();
+          frame.velocities[i] = stream.readFloat();
+          frame.outputs[i] = stream.readFloat();
+        }
+
+        for (int i = 0; i < servoCount; i++) {
+          frame.servoPositions[i] = stream.readFloat();
+        }
+
+        frame.imuHeading = stream.readFloat();
+        frame.imuPitch = stream.readFloat();
+        frame.imuRoll = stream.readFloat();
+        frame.poseX = stream.readFloat();
+        frame.poseY = stream.readFloat();
+        frame.poseHeading = stream.readFloat();
+      } catch (EOFException exception) {
+        // A run that was cut short leaves a partial last frame.
+        return false;
+      }
+
+      return true;
+    }
+
+    private void readAxes(float[] axes) throws IOException {
+      for (int i = 0; i < axes.length; i++) {
+        axes[i] = stream.readFloat();
+      }
+    }
+
+    /**
+     * Reads all remaining frames. Meant for desktop analysis, not the robot loop.
+     *
+     * @return The frames.
+     */
+    public List<Frame> readAll() throws IOException {
+      List<Frame> frames = new ArrayList<>();
+      Frame frame = new Frame(motorCount, servoCount);
+      while (read(frame)) {
+        frames.add(frame);
+        frame = new Frame(motorCount, servoCount);
+      }
+
+      return frames;
+    }
+
+    @Override
+    public void close() throws IOException {
+      stream.close();
+    }
+  }
+
+  /**
+   * Summarizes the loop times of a log.
+   *
+   * @param frames The frames.
+   * @return Frame count and loop time mean, median, 95th percentile and maximum.
+   */
+  public static String summarizeLoopTimes(List<Frame> frames) {
+    if (frames.isEmpty()) {
+      return "no frames";
+    }
+
+    float[] loopTimes = new float[frames.size()];
+    double total = 0;
+    for (int i = 0; i < loopTimes.length; i++) {
+      loopTimes[i] = frames.get(i).loopMs;
+      total += loopTimes[i];
+    }
+
+    Arrays.sort(loopTimes);
+    return String.format(Locale.US, "%d frames, loop mean %.1f p50 %.1f p95 %.1f max %.1f ms",
+        loopTimes.length, total / loopTimes.length, loopTimes[loopTimes.length / 2],
+        loopTimes[(int) (loopTimes.length * 0.95)], loopTimes[loopTimes.length - 1]);
+  }
+
+  /**
+   * Compares the commanded motor powers and servo positions of a replay against its
+   * recording, frame by frame. Where both carry a pose, the pose difference is reported
+   * too, but doesn't count towards mismatches.
+   *
+   * @param recorded  The recorded frames.
+   * @param replayed  The replayed frames.
+   * @param tolerance The largest output difference that still counts as a match.
+   * @return A summary of the comparison.
+   */
+  public static String compare(List<Frame> recorded, List<Frame> replayed, double tolerance) {
+    int count = Math.min(recorded.size(), replayed.size());
+    int mismatches = 0, firstMismatch = -1;
+    double maxError = 0, maxPoseError = 0;
+    for (int i = 0; i < count; i++) {
+      Frame recordedFrame = recorded.get(i), replayedFrame = replayed.get(i);
+      if (!Float.isNaN(recordedFrame.poseX) && !Float.isNaN(replayedFrame.poseX)) {
+        maxPoseError = Math.max(maxPoseError, Math.hypot(
+            recordedFrame.poseX - replayedFrame.poseX, recordedFrame.poseY - replayedFrame.poseY));
+      }
+
+      double frameError = Math.max(
+          maxDifference(recordedFrame.outputs, replayedFrame.outputs),
+          maxDifference(recordedFrame.servoPositions, replayedFrame.servoPositions));
+
+      maxError = Math.max(maxError, frameError);
+      if (frameError > tolerance) {
+        mismatches++;
+        if (firstMismatch < 0) firstMismatch = i;
+      }
+    }
+
+    return String.format(Locale.US,
+        "%d/%d frames compared, %d mismatched (first %d), max output error %.3f, max pose error %.2f",
+        count, Math.max(recorded.size(), replayed.size()), mismatches, firstMismatch, maxError, maxPoseError);
+  }
+
+  private static double maxDifference(float[] expected, float[] actual) {
+    double difference = 0;
+    for (int i = 0; i < Math.min(expected.length, actual.length); i++) {
+      difference = Math.max(difference, Math.abs(expected[i] - actual[i]));
+    }
+
+    return difference;
+  }
+
+  /**
+   * Desktop entry point. Summarizes a log, or compares a replay against its recording.
+   *
+   * @param args The recorded log, and optionally the replayed log.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.out.println("Usage: FtcLoopLog recorded" + FILE_EXTENSION + " [replayed" + FILE_EXTENSION + "]");
+      return;
+    }
+
+    List<Frame> recorded;
+    try (Reader reader = new Reader(new File(args[0]))) {
+      recorded = reader.readAll();
+    }
+
+    System.out.println("Recorded: " + summarizeLoopTimes(recorded));
+    if (args.length > 1) {
+      List<Frame> replayed;
+      try (Reader reader = new Reader(new File(args[1]))) {
+        replayed = reader.readAll();
+      }
+
+      System.out.println("Replayed: " + summarizeLoopTimes(replayed));
+      System.out.println("Outputs: " + compare(recorded, replayed, 0.01));
+    }
+  }
+}
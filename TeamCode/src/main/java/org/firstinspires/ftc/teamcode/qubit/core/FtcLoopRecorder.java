@@ -0,0 +1,214 @@
+package org.firstinspires.ftc.teamcode.qubit.core;
+
+import com.pedropathing.localization.Pose;
+import com.qualcomm.robotcore.hardware.Gamepad;
+import com.qualcomm.robotcore.util.RobotLog;
+
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A class to record OpMode loops into a loop log, and to feed recorded
+ * gamepad state back in for replay.
+ * <p>
+ * PERFORMANCE
+ * Motor encoders and velocities are read after the bulk cache was cleared for the
+ * loop, so recording adds no hub round trips. Commanded powers and positions come
+ * from the FtcMotor and FtcServo caches, and IMU readings from the FtcImu cache.
+ */
+public class FtcLoopRecorder {
+  private static final String TAG = "FtcLoopRecorder";
+  private final List<FtcMotor> motors;
+  private final List<FtcServo> servos;
+  private final FtcLoopLog.Frame frame;
+  private FtcLoopLog.Writer writer = null;
+  private final Gamepad scratchGamepad = new Gamepad();
+  private final long startTimeNs = System.nanoTime();
+
+  /**
+   * Opens a loop log in the robot data directory.
+   *
+   * @param name   The log name, without extension.
+   * @param motors The motors whose encoders and powers are logged.
+   */
+  public FtcLoopRecorder(String name, List<FtcMotor> motors) {
+    this(name, motors, new ArrayList<>());
+  }
+
+  /**
+   * Opens a loop log in the robot data directory.
+   *
+   * @param name   The log name, without extension.
+   * @param motors The motors whose encoders and powers are logged.
+   * @param servos The servos whose positions are logged.
+   */
+  public FtcLoopRecorder(String name, List<FtcMotor> motors, List<FtcServo> servos) {
+    this.motors = motors;
+    this.servos = servos;
+    frame = new FtcLoopLog.Frame(motors.size(), servos.size());
+    try {
+      writer = new FtcLoopLog.Writer(getFile(name), motors.size(), servos.size());
+    } catch (IOException e) {
+      RobotLog.ee(TAG, e, e.getMessage());
+    }
+  }
+
+  /**
+   * @param name The log name, without extension.
+   * @return The log file in the robot data directory.
+   */
+  public static File getFile(String name) {
+    return new File(AppUtil.ROBOT_DATA_DIR, name + FtcLoopLog.FILE_EXTENSION);
+  }
+
+  /**
+   * Records one loop that isn't meant for replay. Call this once per loop, after the loop has run.
+   *
+   * @param gamePad1 The first gamePad.
+   * @param gamePad2 The second gamePad.
+   * @param loopMs   The loop time in milliseconds.
+   * @param imu      The IMU, or null.
+   * @param pose     The robot pose, or null.
+   */
+  public void record(Gamepad gamePad1, Gamepad gamePad2, double loopMs, FtcImu imu, Pose pose) {
+    record(gamePad1, gamePad2, loopMs, loopMs, System.nanoTime() - startTimeNs, imu, pose);
+  }
+
+  /**
+   * Records one loop. Call this once per loop, after the loop has run.
+   *
+   * @param gamePad1      The first gamePad.
+   * @param gamePad2      The second gamePad.
+   * @param loopMs        The loop time in milliseconds.
+   * @param operateLoopMs The loop time that was passed to operate(), in milliseconds.
+   * @param runtimeNs     The runtime when operate() was called, in nanoseconds.
+   * @param imu           The IMU, or null.
+   * @param pose          The robot pose, or null.
+   */
+  public void record(Gamepad gamePad1, Gamepad gamePad2, double loopMs,
+                     double operateLoopMs, long runtimeNs, FtcImu imu, Pose pose) {
+    if (writer == null) return;
+    frame.timeNs = System.nanoTime() - startTimeNs;
+    frame.loopMs = (float) loopMs;
+    frame.operateLoopMs = (float) operateLoopMs;
+    frame.runtimeNs = runtimeNs;
+    frame.gamepad1Buttons = capture(gamePad1, frame.gamepad1Axes);
+    frame.gamepad2Buttons = capture(gamePad2, frame.gamepad2Axes);
+    for (int i = 0; i < motors.size(); i++) {
+      FtcMotor motor = motors.get(i);
+      frame.positions[i] = motor.getCurrentPosition();
+      frame.velocities[i] = (float) motor.getVelocity();
+      frame.outputs[i] = (float) motor.getPower();
+    }
+
+    for (int i = 0; i < servos.size(); i++) {
+      frame.servoPositions[i] = (float) servos.get(i).getPosition();
+    }
+
+    if (imu != null) {
+      frame.imuHeading = (float) imu.getHeading();
+      frame.imuPitch = (float) imu.getPitch();
+      frame.imuRoll = (float) imu.getRoll();
+    }
+
+    if (pose != null) {
+      frame.poseX = (float) pose.getX();
+      frame.poseY = (float) pose.getY();
+      frame.poseHeading = (float) pose.getHeading();
+    }
+
+    try {
+      writer.write(frame);
+    } catch (IOException e) {
+      RobotLog.ee(TAG, e, e.getMessage());
+      close();
+    }
+  }
+
+  /**
+   * Flushes and closes the log.
+   */
+  public void close() {
+    FtcLogger.enter();
+    if (writer != null) {
+      try {
+        writer.close();
+      } catch (IOException e) {
+        RobotLog.ee(TAG, e, e.getMessage());
+      }
+
+      writer = null;
+    }
+
+    FtcLogger.exit();
+  }
+
+  static int capture(Gamepad gamePad, float[] axes) {
+    if (gamePad == null) return 0;
+    axes[0] = gamePad.left_stick_x;
+    axes[1] = gamePad.left_stick_y;
+    axes[2] = gamePad.right_stick_x;
+    axes[3] = gamePad.right_stick_y;
+    axes[4] = gamePad.left_trigger;
+    axes[5] = gamePad.right_trigger;
+    int buttons = 0;
+    if (gamePad.a) buttons |= FtcLoopLog.BUTTON_A;
+    if (gamePad.b) buttons |= FtcLoopLog.BUTTON_B;
+    if (gamePad.x) buttons |= FtcLoopLog.BUTTON_X;
+    if (gamePad.y) buttons |= FtcLoopLog.BUTTON_Y;
+    if (gamePad.dpad_up) buttons |= FtcLoopLog.DPAD_UP;
+    if (gamePad.dpad_down) buttons |= FtcLoopLog.DPAD_DOWN;
+    if (gamePad.dpad_left) buttons |= FtcLoopLog.DPAD_LEFT;
+    if (gamePad.dpad_right) buttons |= FtcLoopLog.DPAD_RIGHT;
+    if (gamePad.left_bumper) buttons |= FtcLoopLog.LEFT_BUMPER;
+    if (gamePad.right_bumper) buttons |= FtcLoopLog.RIGHT_BUMPER;
+    if (gamePad.left_stick_button) buttons |= FtcLoopLog.LEFT_STICK_BUTTON;
+    if (gamePad.right_stick_button) buttons |= FtcLoopLog.RIGHT_STICK_BUTTON;
+    if (gamePad.back) buttons |= FtcLoopLog.BUTTON_BACK;
+    if (gamePad.start) buttons |= FtcLoopLog.BUTTON_START;
+    if (gamePad.guide) buttons |= FtcLoopLog.BUTTON_GUIDE;
+    return buttons;
+  }
+
+  /**
+   * Loads recorded gamepad state into a gamepad for replay. The state is copied in
+   * the same way the SDK delivers live gamepad data, so that the wasPressed()
+   * edge detection behaves as it did during the recording.
+   *
+   * @param axes    The recorded axes.
+   * @param buttons The recorded button bits.
+   * @param gamePad The gamepad to load.
+   */
+  public void replay(float[] axes, int buttons, Gamepad gamePad) {
+    scratchGamepad.left_stick_x = axes[0];
+    scratchGamepad.left_stick_y = axes[1];
+    scratchGamepad.right_stick_x = axes[2];
+    scratchGamepad.right_stick_y = axes[3];
+    scratchGamepad.left_trigger = axes[4];
+    scratchGamepad.right_trigger = axes[5];
+    scratchGamepad.a = (buttons & FtcLoopLog.BUTTON_A) != 0;
+    scratchGamepad.b = (buttons & FtcLoopLog.BUTTON_B) != 0;
+    scratchGamepad.x = (buttons & FtcLoopLog.BUTTON_X) != 0;
+    scratchGamepad.y = (buttons & FtcLoopLog.BUTTON_Y) != 0;
+    scratchGamepad.dpad_up = (buttons & FtcLoopLog.DPAD_UP) != 0;
+    scratchGamepad.dpad_down = (buttons & FtcLoopLog.DPAD_DOWN) != 0;
+    scratchGamepad.dpad_left = (buttons & FtcLoopLog.DPAD_LEFT) != 0;
+    scratchGamepad.dpad_right = (buttons & FtcLoopLog.DPAD_RIGHT) != 0;
+    scratchGamepad.left_bumper = (buttons & FtcLoopLog.LEFT_BUMPER) != 0;
+    scratchGamepad.right_bumper = (buttons & FtcLoopLog.RIGHT_BUMPER) != 0;
+    scratchGamepad.left_stick_button = (buttons & FtcLoopLog.LEFT_STICK_BUTTON) != 0;
+    scratchGamepad.right_stick_button = (buttons & FtcLoopLog.RIGHT_STICK_BUTTON) != 0;
+    scratchGamepad.back = (buttons & FtcLoopLog.BUTTON_BACK) != 0;
+    scratchGamepad.start = (buttons & FtcLoopLog.BUTTON_START) != 0;
+    scratchGamepad.guide = (buttons & FtcLoopLog.BUTTON_GUIDE) != 0;
+    try {
+      gamePad.copy(scratchGamepad);
+    } catch (Exception e) {
+      RobotLog.ee(TAG, e, e.getMessage());
+    }
+  }
+}
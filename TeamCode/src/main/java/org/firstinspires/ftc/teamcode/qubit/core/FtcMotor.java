@@ -5,9 +5,12 @@ import com.qualcomm.robotcore.hardware.DcMotorEx;
 import com.qualcomm.robotcore.hardware.PIDCoefficients;
 import com.qualcomm.robotcore.hardware.PIDFCoefficients;
 import com.qualcomm.robotcore.hardware.configuration.typecontainers.MotorConfigurationType;
+import com.qualcomm.robotcore.util.Range;
 
 import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
 import org.firstinspires.ftc.robotcore.external.navigation.CurrentUnit;
+import org.firstinspires.ftc.teamcode.qubit.core.enumerations.LatencyStageEnum;
+import org.firstinspires.ftc.teamcode.qubit.core.enumerations.PowerPriorityEnum;
 
 /**
  * A cache enabled (performant) DcMotorEx implementation.
@@ -22,6 +25,21 @@ public class FtcMotor implements DcMotorEx {
   // Motor power writes takes about 4.1 ms.
   // Use a simple and effective motor power caching mechanism.
   private double currentPower = 0;
+  private double writtenPower = 0;
+
+  // Voltage compensation and the power budget come from FtcVoltageService, which
+  // publishes them from a background thread, so applying them costs no hub reads.
+  private boolean voltageCompensationEnabled = false;
+  private PowerPriorityEnum powerPriority = PowerPriorityEnum.CRITICAL;
+
+  // The gamepad inputs this motor responds to, for FtcLatencyTracer.
+  private long latencyInputs = FtcLatencyTracer.NO_INPUTS;
+
+  // While replaying a loop log, the recorded encoder readings stand in for the hub's
+  // and power writes stay in the cache, so the replay doesn't depend on the robot.
+  private boolean replaying = false;
+  private int replayedPosition = 0;
+  private double replayedVelocity = 0;
 
   public FtcMotor(DcMotorEx motor) {
     this.motor = motor;
@@ -54,7 +72,7 @@ public class FtcMotor implements DcMotorEx {
 
   @Override
   public double getVelocity() {
-    return motor.getVelocity();
+    return replaying ? replayedVelocity : motor.getVelocity();
   }
 
   @Override
@@ -180,7 +198,7 @@ public class FtcMotor implements DcMotorEx {
 
   @Override
   public int getCurrentPosition() {
-    return motor.getCurrentPosition();
+    return replaying ? replayedPosition : motor.getCurrentPosition();
   }
 
   @Override
@@ -205,17 +223,96 @@ public class FtcMotor implements DcMotorEx {
 
   @Override
   public void setPower(double power) {
-    if (!FtcUtils.areEqual(currentPower, power, FtcUtils.EPSILON3)) {
+    setPower(power, ZERO_POWER);
+  }
+
+  /**
+   * Sets the power, exempting a part of it from the power budget. Use this for power
+   * that must not sag with the battery, such as a gravity hold term; scaling it back
+   * would drop the mechanism instead of slowing it down.
+   *
+   * @param power       The power.
+   * @param exemptPower The part of the power that the power budget never scales.
+   */
+  public void setPower(double power, double exemptPower) {
+    currentPower = power;
+    double budgetScale = FtcVoltageService.getBudgetScale(powerPriority);
+    power = exemptPower + (power - exemptPower) * budgetScale;
+    if (voltageCompensationEnabled) {
+      power *= FtcVoltageService.getCompensation();
+    }
+
+    power = Range.clip(power, MIN_POWER, MAX_POWER);
+    if (!replaying && !FtcUtils.areEqual(writtenPower, power, FtcUtils.EPSILON3)) {
+      boolean traced = FtcLatencyTracer.isTraced(latencyInputs);
+      if (traced) FtcLatencyTracer.enterStage(LatencyStageEnum.HUB_WRITE);
       motor.setPower(power);
-      currentPower = power;
+      if (traced) FtcLatencyTracer.completeWrite();
+      writtenPower = power;
     }
   }
 
+  /**
+   * Gets the requested power, before voltage compensation and power budget scaling.
+   *
+   * @return The requested power.
+   */
   @Override
   public double getPower() {
     return currentPower;
   }
 
+  /**
+   * Scales power writes by the ratio of the nominal voltage to the battery voltage,
+   * so that open loop power produces the same speed as the battery drains.
+   *
+   * @param enabled True to enable voltage compensation.
+   */
+  public void setVoltageCompensationEnabled(boolean enabled) {
+    voltageCompensationEnabled = enabled;
+  }
+
+  /**
+   * Sets the priority of this motor in the power budget, which scales back lower
+   * priority motors first as the battery sags.
+   *
+   * @param powerPriority The power priority.
+   */
+  public void setPowerPriority(PowerPriorityEnum powerPriority) {
+    this.powerPriority = powerPriority;
+  }
+
+  /**
+   * Sets the gamepad inputs this motor responds to, so that the latency tracer only
+   * completes traces of those inputs on writes to this motor.
+   *
+   * @param latencyInputs A FtcLatencyTracer input mask.
+   */
+  public void setLatencyInputs(long latencyInputs) {
+    this.latencyInputs = latencyInputs;
+  }
+
+  /**
+   * Replaces the encoder readings with recorded ones, until stopReplay() is invoked.
+   * While replaying, requested power is still cached for getPower(), but isn't written
+   * to the hub.
+   *
+   * @param position The recorded encoder position.
+   * @param velocity The recorded encoder velocity.
+   */
+  public void setReplayedReadings(int position, double velocity) {
+    replayedPosition = position;
+    replayedVelocity = velocity;
+    replaying = true;
+  }
+
+  /**
+   * Returns to the hub's encoder readings and power writes.
+   */
+  public void stopReplay() {
+    replaying = false;
+  }
+
   @Override
   public Manufacturer getManufacturer() {
     return motor.getManufacturer();
@@ -34,7 +34,6 @@ import org.firstinspires.ftc.robotcore.external.Telemetry;
 import org.firstinspires.ftc.robotcore.external.hardware.camera.WebcamName;
 import org.firstinspires.ftc.teamcode.qubit.core.enumerations.AllianceColorEnum;
 import org.firstinspires.ftc.teamcode.qubit.core.enumerations.TeamPropLocationEnum;
-import org.opencv.core.Point;
 import org.opencv.core.Rect;
 import org.openftc.easyopencv.OpenCvCamera;
 import org.openftc.easyopencv.OpenCvCameraFactory;
@@ -139,20 +138,16 @@ public class FtcOpenCvCam extends FtcSubSystemBase {
     try {
       if (webcamIsWorking(openCvWebcam) && modPipeline != null) {
         for (GameElement ge : modPipeline.gameElements) {
-          Point midPoint;
-          synchronized (ge) {
-            if (ge.elementFound() && ge.elementConsistentlyPresent()) {
-              if ((allianceColor == AllianceColorEnum.BLUE && ge.tag.equals(FtcColorUtils.TAG_BLUE)) ||
-                  (allianceColor == AllianceColorEnum.RED && (ge.tag.equals(FtcColorUtils.TAG_RED1) || ge.tag.equals(FtcColorUtils.TAG_RED2)))) {
-                midPoint = FtcUtils.getMidpoint(ge.boundingRect);
-
-                if (midPoint.x < 300) {
-                  teamPropLocation = TeamPropLocationEnum.CENTER;
-                  break;
-                } else if (midPoint.x > 400) {
-                  teamPropLocation = TeamPropLocationEnum.RIGHT;
-                  break;
-                }
+          ElementSnapshot snapshot = ge.getSnapshot();
+          if (snapshot.found && ge.elementConsistentlyPresent()) {
+            if ((allianceColor == AllianceColorEnum.BLUE && ge.tag.equals(FtcColorUtils.TAG_BLUE)) ||
+                (allianceColor == AllianceColorEnum.RED && (ge.tag.equals(FtcColorUtils.TAG_RED1) || ge.tag.equals(FtcColorUtils.TAG_RED2)))) {
+              if (snapshot.midPoint.x < 300) {
+                teamPropLocation = TeamPropLocationEnum.CENTER;
+                break;
+              } else if (snapshot.midPoint.x > 400) {
+                teamPropLocation = TeamPropLocationEnum.RIGHT;
+                break;
               }
             }
           }
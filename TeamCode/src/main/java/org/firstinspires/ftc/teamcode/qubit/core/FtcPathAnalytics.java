@@ -0,0 +1,315 @@
+package org.firstinspires.ftc.teamcode.qubit.core;
+
+import com.pedropathing.follower.Follower;
+import com.pedropathing.localization.Pose;
+import com.pedropathing.pathgen.MathFunctions;
+import com.pedropathing.pathgen.Path;
+import com.qualcomm.robotcore.util.RobotLog;
+
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+import org.firstinspires.ftc.teamcode.qubit.core.enumerations.FollowerPhaseEnum;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A class to measure where the time of every path chain goes, and how well it is tracked.
+ * Every follower loop is sampled into preallocated buffers: t-value, translational, heading
+ * and drive error, velocity, drive powers and phase (moving, accelerating, cornering, braking,
+ * settling, holding).
+ * When the path chain ends, the samples are reduced to a summary of the time per phase,
+ * the peak and RMS errors, and the settle time, i.e. the time from reaching the end until the
+ * robot stays within the settle tolerances. Samples are only taken while the caller follows the
+ * path chain, and the follower is no longer busy once it holds the end, so a held end that hasn't
+ * settled by then is summarized as unsettled.
+ * <p>
+ * Summaries are logged as each path chain ends, and appended to a CSV file in the robot
+ * data directory at close, one row per path chain, tagged with the run start time, so runs
+ * can be compared across matches and constant changes.
+ * <p>
+ * PERFORMANCE
+ * Sampling reads cached follower state and allocates nothing. Files are only written at close,
+ * after the autonomous period. Sampling never extends how long the caller follows.
+ */
+public class FtcPathAnalytics {
+  private static final String TAG = "FtcPathAnalytics";
+  public static final String FILE_EXTENSION = ".paths.csv";
+  public static final int SAMPLE_CAPACITY = 4096;
+  public static final double SETTLE_TRANSLATIONAL_TOLERANCE = 0.5; // inches
+  public static final double SETTLE_HEADING_TOLERANCE = Math.toRadians(2);
+
+  // Phase thresholds. Acceleration is measured over a few samples, to ride out velocity noise.
+  public static final double CORNERING_CURVATURE = 1.0 / 24.0; // 1 / inches
+  public static final double ACCELERATING_THRESHOLD = 10.0; // inches per second squared
+  private static final int ACCELERATION_WINDOW = 5; // samples
+  private static final FollowerPhaseEnum[] PHASES = FollowerPhaseEnum.values();
+  private static final int MAX_MOTORS = 4;
+
+  private final String name;
+  private final long runStartMs = System.currentTimeMillis();
+  private final List<Summary> summaries = new ArrayList<>();
+
+  // Samples of the current path chain.
+  private final float[] timeMs = new float[SAMPLE_CAPACITY];
+  private final float[] tValue = new float[SAMPLE_CAPACITY];
+  private final byte[] pathNumber = new byte[SAMPLE_CAPACITY];
+  private final float[] translationalError = new float[SAMPLE_CAPACITY];
+  private final float[] headingError = new float[SAMPLE_CAPACITY];
+  private final float[] driveError = new float[SAMPLE_CAPACITY];
+  private final float[] velocity = new float[SAMPLE_CAPACITY];
+  private final float[][] drivePowers = new float[SAMPLE_CAPACITY][MAX_MOTORS];
+  private final byte[] phase = new byte[SAMPLE_CAPACITY];
+  private int sampleCount = 0;
+  private long droppedCount = 0;
+  private long pathStartNs = 0;
+  private String pathName = null;
+
+  /**
+   * The reduced samples of one path chain.
+   */
+  public static class Summary {
+    public String pathName;
+    public int sampleCount;
+    public double totalMs;
+    public final double[] phaseMs = new double[PHASES.length];
+    public double peakTranslationalError, rmsTranslationalError;
+    public double peakHeadingError, rmsHeadingError;
+    public double peakDriveError, rmsDriveError;
+    public double peakVelocity, peakPower;
+    public double settleMs;
+    public boolean settled;
+    public int endPathNumber;
+    public double endTValue;
+
+    @Override
+    public String toString() {
+      StringBuilder builder = new StringBuilder(String.format(Locale.US,
+          "%s %.0f ms (%d samples):", pathName, totalMs, sampleCount));
+      for (FollowerPhaseEnum phase : PHASES) {
+        builder.append(String.format(Locale.US, " %s %.0f", phase.name(), phaseMs[phase.ordinal()]));
+      }
+
+      builder.append(String.format(Locale.US,
+          ", translational %.2f/%.2f in, heading %.1f/%.1f deg, drive %.1f/%.1f, settle %.0f ms%s",
+          peakTranslationalError, rmsTranslationalError,
+          Math.toDegrees(peakHeadingError), Math.toDegrees(rmsHeadingError),
+          peakDriveError, rmsDriveError, settleMs, settled ? "" : " (unsettled)"));
+      return builder.toString();
+    }
+  }
+
+  /**
+   * @param name The analytics file name, without extension.
+   */
+  public FtcPathAnalytics(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Starts sampling a path chain. Call this when the follower starts following it.
+   *
+   * @param pathName The path chain name.
+   */
+  public void begin(String pathName) {
+    this.pathName = pathName;
+    sampleCount = 0;
+    droppedCount = 0;
+    pathStartNs = System.nanoTime();
+  }
+
+  /**
+   * Samples the follower. Call this once per loop, after follower.update().
+   *
+   * @param follower The follower.
+   */
+  public void sample(Follower follower) {
+    if (pathName == null) return;
+    if (sampleCount >= SAMPLE_CAPACITY) {
+      droppedCount++;
+      return;
+    }
+
+    int i = sampleCount++;
+    timeMs[i] = (float) ((System.nanoTime() - pathStartNs) / 1.0e6);
+    tValue[i] = (float) follower.getCurrentTValue();
+    pathNumber[i] = (byte) follower.getCurrentPathNumber();
+    Pose closestPose = follower.getClosestPose();
+    translationalError[i] = closestPose == null ? 0 :
+        (float) MathFunctions.distance(follower.getPose(), closestPose);
+    headingError[i] = (float) Math.abs(follower.headingError);
+    driveError[i] = (float) follower.driveError;
+    velocity[i] = (float) follower.getVelocityMagnitude();
+    double[] powers = follower.getDrivePowers();
+    for (int m = 0; m < MAX_MOTORS; m++) {
+      drivePowers[i][m] = powers != null && m < powers.length ? (float) powers[m] : 0;
+    }
+
+    FollowerPhaseEnum sampledPhase;
+    Path currentPath = follower.getCurrentPath();
+    if (follower.isHoldingPosition()) {
+      sampledPhase = FollowerPhaseEnum.HOLDING;
+    } else if (follower.hasReachedParametricPathEnd()) {
+      sampledPhase = FollowerPhaseEnum.SETTLING;
+    } else if (follower.driveError < 0) {
+      sampledPhase = FollowerPhaseEnum.BRAKING;
+    } else if (currentPath != null && Math.abs(currentPath.getClosestPointCurvature()) > CORNERING_CURVATURE) {
+      sampledPhase = FollowerPhaseEnum.CORNERING;
+    } else if (i >= ACCELERATION_WINDOW && timeMs[i] > timeMs[i - ACCELERATION_WINDOW] &&
+        (velocity[i] - velocity[i - ACCELERATION_WINDOW]) * 1000.0 /
+            (timeMs[i] - timeMs[i - ACCELERATION_WINDOW]) > ACCELERATING_THRESHOLD) {
+      sampledPhase = FollowerPhaseEnum.ACCELERATING;
+    } else {
+      sampledPhase = FollowerPhaseEnum.MOVING;
+    }
+
+    phase[i] = (byte) sampledPhase.ordinal();
+  }
+
+  /**
+   * Ends sampling the current path chain, and summarizes and logs it.
+   *
+   * @return The summary, or null when no path chain was being sampled.
+   */
+  public Summary end() {
+    FtcLogger.enter();
+    Summary summary = null;
+    if (pathName != null) {
+      summary = summarize();
+      summaries.add(summary);
+      FtcLogger.info(TAG, summary.toString());
+      if (droppedCount > 0) {
+        FtcLogger.info(TAG, "%s dropped %d samples", pathName, droppedCount);
+      }
+
+      pathName = null;
+    }
+
+    FtcLogger.exit();
+    return summary;
+  }
+
+  private Summary summarize() {
+    Summary summary = new Summary();
+    summary.pathName = pathName;
+    summary.sampleCount = sampleCount;
+    summary.totalMs = (System.nanoTime() - pathStartNs) / 1.0e6;
+    double translationalSquares = 0, headingSquares = 0, driveSquares = 0;
+    int endIndex = -1, lastUnsettledIndex = -1;
+    for (int i = 0; i < sampleCount; i++) {
+      // Each sample lasts until the next one; the last one until the end.
+      double nextMs = i + 1 < sampleCount ? timeMs[i + 1] : summary.totalMs;
+      summary.phaseMs[phase[i]] += nextMs - timeMs[i];
+
+      summary.peakTranslationalError = Math.max(summary.peakTranslationalError, translationalError[i]);
+      summary.peakHeadingError = Math.max(summary.peakHeadingError, headingError[i]);
+      summary.peakDriveError = Math.max(summary.peakDriveError, Math.abs(driveError[i]));
+      summary.peakVelocity = Math.max(summary.peakVelocity, velocity[i]);
+      for (float power : drivePowers[i]) {
+        summary.peakPower = Math.max(summary.peakPower, Math.abs(power));
+      }
+
+      translationalSquares += translationalError[i] * translationalError[i];
+      headingSquares += headingError[i] * headingError[i];
+      driveSquares += driveError[i] * driveError[i];
+
+      boolean atEnd = phase[i] == FollowerPhaseEnum.SETTLING.ordinal() ||
+          phase[i] == FollowerPhaseEnum.HOLDING.ordinal();
+      if (atEnd) {
+        if (endIndex < 0) endIndex = i;
+        if (translationalError[i] > SETTLE_TRANSLATIONAL_TOLERANCE ||
+            headingError[i] > SETTLE_HEADING_TOLERANCE) {
+          lastUnsettledIndex = i;
+        }
+      }
+    }
+
+    if (sampleCount > 0) {
+      summary.endPathNumber = pathNumber[sampleCount - 1];
+      summary.endTValue = tValue[sampleCount - 1];
+      summary.rmsTranslationalError = Math.sqrt(translationalSquares / sampleCount);
+      summary.rmsHeadingError = Math.sqrt(headingSquares / sampleCount);
+      summary.rmsDriveError = Math.sqrt(driveSquares / sampleCount);
+    }
+
+    if (endIndex >= 0) {
+      if (lastUnsettledIndex < sampleCount - 1) {
+        summary.settled = true;
+        double settledMs = lastUnsettledIndex < 0 ? timeMs[endIndex] : timeMs[lastUnsettledIndex + 1];
+        summary.settleMs = settledMs - timeMs[endIndex];
+      } else {
+        summary.settleMs = summary.totalMs - timeMs[endIndex];
+      }
+    }
+
+    return summary;
+  }
+
+  /**
+   * Appends the summaries of this run to the CSV file in the robot data directory.
+   */
+  public void close() {
+    FtcLogger.enter();
+    if (pathName != null) end();
+    String filename = name + FILE_EXTENSION;
+    boolean newFile = !new File(AppUtil.ROBOT_DATA_DIR, filename).exists();
+    CsvWriter csvWriter = new CsvWriter(filename, true);
+    try {
+      if (newFile) {
+        csvWriter.append("runStartMs");
+        csvWriter.append("path");
+        csvWriter.append("samples");
+        csvWriter.append("totalMs");
+        for (FollowerPhaseEnum phase : PHASES) {
+          csvWriter.append(phase.name() + "Ms");
+        }
+
+        csvWriter.append("peakTranslational");
+        csvWriter.append("rmsTranslational");
+        csvWriter.append("peakHeadingDeg");
+        csvWriter.append("rmsHeadingDeg");
+        csvWriter.append("peakDrive");
+        csvWriter.append("rmsDrive");
+        csvWriter.append("peakVelocity");
+        csvWriter.append("peakPower");
+        csvWriter.append("settleMs");
+        csvWriter.append("settled");
+        csvWriter.append("endPath");
+        csvWriter.append("endTValue");
+        csvWriter.flush();
+      }
+
+      for (Summary summary : summaries) {
+        csvWriter.append(runStartMs);
+        csvWriter.append(summary.pathName);
+        csvWriter.append(summary.sampleCount);
+        csvWriter.append(summary.totalMs);
+        for (double ms : summary.phaseMs) {
+          csvWriter.append(ms);
+        }
+
+        csvWriter.append(summary.peakTranslationalError);
+        csvWriter.append(summary.rmsTranslationalError);
+        csvWriter.append(Math.toDegrees(summary.peakHeadingError));
+        csvWriter.append(Math.toDegrees(summary.rmsHeadingError));
+        csvWriter.append(summary.peakDriveError);
+        csvWriter.append(summary.rmsDriveError);
+        csvWriter.append(summary.peakVelocity);
+        csvWriter.append(summary.peakPower);
+        csvWriter.append(summary.settleMs);
+        csvWriter.append(summary.settled);
+        csvWriter.append(summary.endPathNumber);
+        csvWriter.append(summary.endTValue);
+        csvWriter.flush();
+      }
+    } catch (RuntimeException e) {
+      RobotLog.ee(TAG, e, e.getMessage());
+    } finally {
+      csvWriter.close();
+    }
+
+    summaries.clear();
+    FtcLogger.exit();
+  }
+}
@@ -10,6 +10,7 @@ import com.qualcomm.robotcore.util.ElapsedTime;
 import org.firstinspires.ftc.robotcore.external.Telemetry;
 import org.firstinspires.ftc.robotcore.internal.system.Deadline;
 
+import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.TimeUnit;
 
@@ -33,6 +34,11 @@ public class FtcRnp extends FtcSubSystemBase {
   private TouchSensor extendTouchSensor = null;
   private TouchSensor retractTouchSensor = null;
   private final boolean useTouchSensors = true;
+  private final FtcBot parent;
+
+  public FtcRnp(FtcBot robot) {
+    parent = robot;
+  }
 
   /**
    * Initialize standard Hardware interfaces.
@@ -114,7 +120,7 @@ public class FtcRnp extends FtcSubSystemBase {
             }
           }
 
-          FtcUtils.sleep(FtcUtils.CYCLE_MS);
+          FtcBot.sleep(parent, FtcUtils.CYCLE_MS);
         }
 
         rnpServo.setPosition(RNP_STOP_POWER);
@@ -175,7 +181,7 @@ public class FtcRnp extends FtcSubSystemBase {
             }
           }
 
-          FtcUtils.sleep(FtcUtils.CYCLE_MS);
+          FtcBot.sleep(parent, FtcUtils.CYCLE_MS);
         }
 
         rnpServo.setPosition(RNP_STOP_POWER);
@@ -233,7 +239,7 @@ public class FtcRnp extends FtcSubSystemBase {
             new Deadline(Math.max(RNP_EXTEND_TRAVEL_TIME, RNP_RETRACT_TRAVEL_TIME), TimeUnit.MILLISECONDS);
         while (!travelDeadline.hasExpired()) {
           // Sleep before check to allow extension/retraction operation to commence
-          FtcUtils.sleep(FtcUtils.CYCLE_MS);
+          FtcBot.sleep(parent, FtcUtils.CYCLE_MS);
           if (useTouchSensors) {
             if (extendTouchSensor.isPressed() || retractTouchSensor.isPressed()) {
               break;
@@ -247,4 +253,14 @@ public class FtcRnp extends FtcSubSystemBase {
 
     FtcLogger.exit();
   }
+
+  /**
+   * Adds the initialized actuators of this subsystem, e.g. for loop recording.
+   *
+   * @param motors The motor list to add to.
+   * @param servos The servo list to add to.
+   */
+  public void addActuators(List<FtcMotor> motors, List<FtcServo> servos) {
+    if (rnpServo != null) servos.add(rnpServo);
+  }
 }
@@ -21,6 +21,13 @@ public class FtcServo implements Servo {
   // Use a simple and effective servo position caching mechanism.
   private double currentPosition = INVALID_POSITION;
 
+  // Motion profile state. Written by the control loop, moving may be read from anywhere.
+  // A profile write is emitted only when the position moves by at least the resolution.
+  public double resolution = LARGE_INCREMENT;
+  private FtcServoProfile profile = null;
+  private long profileStartTime = 0;
+  private volatile boolean moving = false;
+
   public FtcServo(Servo servo) {
     this.servo = servo;
   }
@@ -88,27 +95,60 @@ public class FtcServo implements Servo {
   }
 
   /**
-   * Moves the servo to end position in a controlled fashion.
-   * Execution blocks till servo reaches the end position.
+   * Starts a motion profile. The servo moves only when updateProfile() is called.
+   * Use FtcServoProfiler to move many servos concurrently.
    *
-   * @param endPosition End servo position.
+   * @param profile   The motion profile to follow.
+   * @param startTime System.nanoTime() of the profile start.
+   */
+  public void startProfile(FtcServoProfile profile, long startTime) {
+    this.profile = profile;
+    profileStartTime = startTime;
+    moving = true;
+  }
+
+  /**
+   * Stops following the motion profile, leaving the servo at its current position.
    */
-  public void controlledMove(double endPosition) {
-    double currentPosition = getPosition();
-    double range = endPosition - currentPosition;
-    int signum = (int) Math.signum(range);
-    double step = 0.00025 * signum;
-
-    // if end position is less than current, then range, signum and step are all negative.
-    // The < condition will be true till current position decrements to end position.
-    // So, using signum handles all scenarios without us having to worry about signs and
-    // correct comparisons.
-    while (currentPosition * signum < endPosition * signum) {
-      currentPosition += step;
-      currentPosition = Range.clip(currentPosition, Servo.MIN_POSITION, Servo.MAX_POSITION);
-      setPosition(currentPosition);
-      FtcUtils.sleep(1);
+  public void cancelProfile() {
+    profile = null;
+    moving = false;
+  }
+
+  /**
+   * Determines whether the servo is following a motion profile.
+   *
+   * @return True if the move is in progress, false once it completes.
+   */
+  public boolean isMoving() {
+    return moving;
+  }
+
+  /**
+   * Advances the motion profile to the given time.
+   *
+   * @param nanoTime System.nanoTime() of the current control loop.
+   * @return True if the move is still in progress.
+   */
+  public boolean updateProfile(long nanoTime) {
+    if (profile == null) {
+      return false;
+    }
+
+    double time = (nanoTime - profileStartTime) / 1e9;
+    double position = Range.clip(profile.getPosition(time), Servo.MIN_POSITION, Servo.MAX_POSITION);
+    boolean complete = profile.isComplete(time);
+
+    // PERFORMANCE: Skip writes smaller than the servo resolution.
+    if (complete || Math.abs(position - getPosition()) >= resolution) {
+      setPosition(position);
     }
+
+    if (complete) {
+      cancelProfile();
+    }
+
+    return !complete;
   }
 
   @Override
@@ -0,0 +1,85 @@
+package org.firstinspires.ftc.teamcode.qubit.core;
+
+import org.firstinspires.ftc.teamcode.qubit.core.enumerations.ServoProfileTypeEnum;
+
+/**
+ * An immutable, time parameterized servo motion profile.
+ * Velocity is in servo position units per second, acceleration in units per second squared.
+ */
+public final class FtcServoProfile {
+  // Peak velocity and acceleration of the minimum jerk profile, normalized to distance / time.
+  private static final double S_CURVE_PEAK_VELOCITY = 1.875;
+  private static final double S_CURVE_PEAK_ACCELERATION = 5.7735;
+
+  public final ServoProfileTypeEnum type;
+  public final double startPosition, endPosition;
+  public final double duration; // seconds
+
+  // Trapezoidal profile parameters, for a positive distance.
+  private final double distance, acceleration, accelerationTime, peakVelocity;
+
+  /**
+   * Creates a profile that respects the velocity and acceleration limits.
+   *
+   * @param type            The profile shape.
+   * @param startPosition   The servo start position.
+   * @param endPosition     The servo end position.
+   * @param maxVelocity     Maximum velocity, positive.
+   * @param maxAcceleration Maximum acceleration, positive.
+   */
+  public FtcServoProfile(ServoProfileTypeEnum type, double startPosition, double endPosition,
+                         double maxVelocity, double maxAcceleration) {
+    this.type = type;
+    this.startPosition = startPosition;
+    this.endPosition = endPosition;
+    distance = Math.abs(endPosition - startPosition);
+    acceleration = maxAcceleration;
+    if (distance < FtcUtils.EPSILON4) {
+      accelerationTime = peakVelocity = duration = 0;
+    } else if (type == ServoProfileTypeEnum.S_CURVE) {
+      accelerationTime = peakVelocity = 0;
+      duration = Math.max(S_CURVE_PEAK_VELOCITY * distance / maxVelocity,
+          Math.sqrt(S_CURVE_PEAK_ACCELERATION * distance / maxAcceleration));
+    } else if (distance < maxVelocity * maxVelocity / maxAcceleration) {
+      // Triangular, never reaches the maximum velocity.
+      accelerationTime = Math.sqrt(distance / maxAcceleration);
+      peakVelocity = maxAcceleration * accelerationTime;
+      duration = 2 * accelerationTime;
+    } else {
+      accelerationTime = maxVelocity / maxAcceleration;
+      peakVelocity = maxVelocity;
+      duration = 2 * accelerationTime + (distance - maxVelocity * accelerationTime) / maxVelocity;
+    }
+  }
+
+  /**
+   * Gets the profile position at the given time.
+   *
+   * @param time Time since the profile start, in seconds.
+   * @return The servo position.
+   */
+  public double getPosition(double time) {
+    if (time >= duration) return endPosition;
+    if (time <= 0) return startPosition;
+
+    double traveled;
+    if (type == ServoProfileTypeEnum.S_CURVE) {
+      double tau = time / duration;
+      traveled = distance * tau * tau * tau * (10 + tau * (-15 + 6 * tau));
+    } else if (time < accelerationTime) {
+      traveled = 0.5 * acceleration * time * time;
+    } else if (time < duration - accelerationTime) {
+      traveled = 0.5 * acceleration * accelerationTime * accelerationTime +
+          peakVelocity * (time - accelerationTime);
+    } else {
+      double remaining = duration - time;
+      traveled = distance - 0.5 * acceleration * remaining * remaining;
+    }
+
+    return startPosition + Math.signum(endPosition - startPosition) * traveled;
+  }
+
+  public boolean isComplete(double time) {
+    return time >= duration;
+  }
+}
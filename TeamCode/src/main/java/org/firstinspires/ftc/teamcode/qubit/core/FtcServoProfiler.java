@@ -0,0 +1,78 @@
+package org.firstinspires.ftc.teamcode.qubit.core;
+
+import org.firstinspires.ftc.teamcode.qubit.core.enumerations.ServoProfileTypeEnum;
+
+import java.util.ArrayList;
+
+/**
+ * A class to run servo motion profiles without blocking the control loop.
+ * <p>
+ * PERFORMANCE
+ * Any number of servos may move concurrently. All of them are ticked from the
+ * loop clock in update(), which is called once per control loop.
+ */
+public class FtcServoProfiler {
+  private static final String TAG = "FtcServoProfiler";
+  public static final double DEFAULT_MAX_VELOCITY = 2.0; // full range in half a second
+  public static final double DEFAULT_MAX_ACCELERATION = 8.0;
+  private final ArrayList<FtcServo> activeServos = new ArrayList<>();
+
+  /**
+   * Starts moving the servo to the end position with the default limits.
+   *
+   * @param servo       The servo to move.
+   * @param endPosition End servo position.
+   */
+  public void move(FtcServo servo, double endPosition) {
+    move(servo, endPosition, ServoProfileTypeEnum.S_CURVE,
+        DEFAULT_MAX_VELOCITY, DEFAULT_MAX_ACCELERATION);
+  }
+
+  /**
+   * Starts moving the servo to the end position. Returns immediately.
+   * A move in progress on the same servo is replaced, starting from its current position.
+   *
+   * @param servo           The servo to move.
+   * @param endPosition     End servo position.
+   * @param type            The profile shape.
+   * @param maxVelocity     Maximum velocity, servo position units per second.
+   * @param maxAcceleration Maximum acceleration, servo position units per second squared.
+   */
+  public void move(FtcServo servo, double endPosition, ServoProfileTypeEnum type,
+                   double maxVelocity, double maxAcceleration) {
+    FtcServoProfile profile = new FtcServoProfile(type, servo.getPosition(), endPosition,
+        maxVelocity, maxAcceleration);
+    servo.startProfile(profile, System.nanoTime());
+    if (!activeServos.contains(servo)) {
+      activeServos.add(servo);
+    }
+  }
+
+  public boolean isMoving() {
+    return !activeServos.isEmpty();
+  }
+
+  /**
+   * Stops all servos at their current positions.
+   */
+  public void stop() {
+    for (FtcServo servo : activeServos) {
+      servo.cancelProfile();
+    }
+
+    activeServos.clear();
+  }
+
+  /**
+   * Ticks all moving servos from the loop clock. Completed servos are dropped.
+   */
+  public void update() {
+    if (activeServos.isEmpty()) return;
+    long nanoTime = System.nanoTime();
+    for (int i = activeServos.size() - 1; i >= 0; i--) {
+      if (!activeServos.get(i).updateProfile(nanoTime)) {
+        activeServos.remove(i);
+      }
+    }
+  }
+}
@@ -0,0 +1,383 @@
+package org.firstinspires.ftc.teamcode.qubit.core;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+import org.openftc.easyopencv.OpenCvPipeline;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A class to benchmark a vision pipeline over a directory of captured frames,
+ * such as those saved by BitmapUtils.saveBitmap().
+ * Reports per frame latency percentiles, throughput, per stage timings and,
+ * when ground truth labels are present, precision and recall per element tag.
+ * <p>
+ * Ground truth is an optional labels.csv in the frame directory, one element per line:
+ * filename,tag,x,y,width,height
+ * Frames without lines have no elements. Lines starting with # are comments.
+ * <p>
+ * Pipelines carry state between frames: ROI tracking windows and trackers. Given a
+ * tracking reset, the frames are run twice and reported separately: once with the state
+ * reset before every frame, which measures full frame detection, and once as a sequence,
+ * which measures the tracked path. Captured frames are rarely consecutive, so the tracked
+ * numbers are only meaningful for frames recorded as a sequence, e.g. by FtcFrameRecorder.
+ * <p>
+ * This class runs on the robot, e.g. from VisionBenchmarkAutoOp, since the pipelines
+ * depend on EasyOpenCV and the robot controller libraries.
+ */
+public final class FtcVisionBenchmark {
+  public static final String LABELS_FILENAME = "labels.csv";
+  public static final double IOU_THRESHOLD = 0.5;
+  private static final int WARM_UP_FRAMES = 5;
+
+  /**
+   * A labelled or detected element in a frame.
+   */
+  public static final class Detection {
+    public final String tag;
+    public final Rect rect;
+
+    public Detection(String tag, Rect rect) {
+      this.tag = tag;
+      this.rect = rect;
+    }
+  }
+
+  /**
+   * Collects the detections of the last processed frame from a pipeline.
+   */
+  public interface DetectionSource {
+    void collect(List<Detection> detections);
+  }
+
+  /**
+   * Gets the average time of a pipeline stage, in milliseconds.
+   */
+  public interface StageTimer {
+    double getStageAverageMs(int stage);
+  }
+
+  /**
+   * Resets a part of the pipeline state.
+   */
+  public interface PipelineReset {
+    void reset();
+  }
+
+  private final OpenCvPipeline pipeline;
+  private final DetectionSource detectionSource;
+  private StageTimer stageTimer = null;
+  private PipelineReset stageTimerReset = null;
+  private PipelineReset trackingReset = null;
+  private String[] stageNames = new String[0];
+  private int colorConversionCode = Imgproc.COLOR_BGR2RGBA;
+
+  /**
+   * @param pipeline        The pipeline to benchmark. Frame skipping should be disabled,
+   *                        so that every frame is actually processed.
+   * @param detectionSource Collects the pipeline detections, or null to skip accuracy.
+   */
+  public FtcVisionBenchmark(OpenCvPipeline pipeline, DetectionSource detectionSource) {
+    this.pipeline = pipeline;
+    this.detectionSource = detectionSource;
+  }
+
+  /**
+   * Reports per stage timings.
+   *
+   * @param stageTimer      The stage timer.
+   * @param stageTimerReset Resets the stage timings, so that each pass reports its own.
+   * @param stageNames      The stage names, in stage order.
+   * @return This benchmark.
+   */
+  public FtcVisionBenchmark setStageTimer(StageTimer stageTimer, PipelineReset stageTimerReset,
+                                          String... stageNames) {
+    this.stageTimer = stageTimer;
+    this.stageTimerReset = stageTimerReset;
+    this.stageNames = stageNames;
+    return this;
+  }
+
+  /**
+   * Reports full frame detection and tracked detection separately.
+   *
+   * @param trackingReset Resets the state the pipeline carries between frames.
+   * @return This benchmark.
+   */
+  public FtcVisionBenchmark setTrackingReset(PipelineReset trackingReset) {
+    this.trackingReset = trackingReset;
+    return this;
+  }
+
+  /**
+   * Sets the conversion from decoded image files to pipeline frames.
+   * Defaults to BGR to RGBA, which matches webcam frames.
+   *
+   * @param colorConversionCode An Imgproc.COLOR_ code.
+   * @return This benchmark.
+   */
+  public FtcVisionBenchmark setColorConversionCode(int colorConversionCode) {
+    this.colorConversionCode = colorConversionCode;
+    return this;
+  }
+
+  /**
+   * A detection source for pipelines that detect samples.
+   *
+   * @param sampleElements The samples.
+   * @return The detection source.
+   */
+  public static DetectionSource forSamples(final SampleElement[] sampleElements) {
+    return detections -> {
+      for (SampleElement sampleElement : sampleElements) {
+        ElementSnapshot snapshot = sampleElement.getSnapshot();
+        if (snapshot.found) {
+          detections.add(new Detection(sampleElement.tag, snapshot.boundingRect));
+        }
+      }
+    };
+  }
+
+  /**
+   * A detection source for pipelines that detect game elements.
+   *
+   * @param gameElements The game elements.
+   * @return The detection source.
+   */
+  public static DetectionSource forGameElements(final GameElement[] gameElements) {
+    return detections -> {
+      for (GameElement gameElement : gameElements) {
+        ElementSnapshot snapshot = gameElement.getSnapshot();
+        if (snapshot.found) {
+          detections.add(new Detection(gameElement.tag, snapshot.boundingRect));
+        }
+      }
+    };
+  }
+
+  /**
+   * Runs the pipeline over all frames in a directory.
+   * Frames are decoded up front, so that file I/O doesn't count towards latency.
+   *
+   * @param directory  The frame directory.
+   * @param iterations The number of passes over the frames, for stable throughput.
+   * @return The report.
+   * @throws IOException If the directory or the labels can't be read.
+   */
+  public String run(File directory, int iterations) throws IOException {
+    File[] files = directory.listFiles((dir, name) -> {
+      String lowerName = name.toLowerCase(Locale.US);
+      return lowerName.endsWith(".jpg") || lowerName.endsWith(".jpeg") || lowerName.endsWith(".png");
+    });
+    if (files == null || files.length == 0) {
+      throw new IOException("No frames in " + directory);
+    }
+
+    Arrays.sort(files);
+    Map<String, List<Detection>> labels = readLabels(new File(directory, LABELS_FILENAME));
+    List<Mat> frames = new ArrayList<>(files.length);
+    List<String> frameNames = new ArrayList<>(files.length);
+    for (File file : files) {
+      Mat image = Imgcodecs.imread(file.getAbsolutePath());
+      if (!image.empty()) {
+        Imgproc.cvtColor(image, image, colorConversionCode);
+        frames.add(image);
+        frameNames.add(file.getName());
+      }
+    }
+
+    if (frames.isEmpty()) {
+      throw new IOException("No readable frames in " + directory);
+    }
+
+    // Frames are processed in place, so each pass works on a copy.
+    Mat frame = new Mat();
+    frames.get(0).copyTo(frame);
+    pipeline.init(frame);
+    for (int i = 0; i < Math.min(WARM_UP_FRAMES, frames.size()); i++) {
+      frames.get(i).copyTo(frame);
+      pipeline.processFrame(frame);
+    }
+
+    String report;
+    if (trackingReset == null) {
+      report = runPass("Frames", frames, frameNames, labels, frame, iterations, false);
+    } else {
+      report = runPass("Full detection", frames, frameNames, labels, frame, iterations, true) +
+          runPass("Tracked", frames, frameNames, labels, frame, iterations, false);
+    }
+
+    frame.release();
+    for (Mat image : frames) {
+      image.release();
+    }
+
+    return report;
+  }
+
+  /**
+   * Runs the pipeline over the frames and reports one pass.
+   *
+   * @param resetEveryFrame True to reset the tracking state before every frame, false
+   *                        to reset it only at the start of each iteration.
+   */
+  private String runPass(String passName, List<Mat> frames, List<String> frameNames,
+                         Map<String, List<Detection>> labels, Mat frame, int iterations,
+                         boolean resetEveryFrame) {
+    if (stageTimerReset != null) {
+      stageTimerReset.reset();
+    }
+
+    int frameCount = frames.size() * iterations;
+    double[] latencies = new double[frameCount];
+    Map<String, int[]> counts = new LinkedHashMap<>(); // true positives, false positives, false negatives
+    List<Detection> detections = new ArrayList<>();
+    long totalNanos = 0;
+    for (int i = 0; i < frameCount; i++) {
+      int index = i % frames.size();
+      if (trackingReset != null && (resetEveryFrame || index == 0)) {
+        trackingReset.reset();
+      }
+
+      frames.get(index).copyTo(frame);
+      long startTime = System.nanoTime();
+      pipeline.processFrame(frame);
+      long elapsed = System.nanoTime() - startTime;
+      totalNanos += elapsed;
+      latencies[i] = elapsed / 1.0e6;
+      if (detectionSource != null && labels != null && i < frames.size()) {
+        detections.clear();
+        detectionSource.collect(detections);
+        List<Detection> truths = labels.get(frameNames.get(index));
+        score(detections, truths != null ? truths : new ArrayList<>(), counts);
+      }
+    }
+
+    return passName + ": " + report(latencies, totalNanos, counts);
+  }
+
+  /**
+   * Reads the ground truth labels.
+   *
+   * @param file The labels file.
+   * @return The labels by frame filename, or null if there is no labels file.
+   */
+  private static Map<String, List<Detection>> readLabels(File file) throws IOException {
+    if (!file.exists()) return null;
+    Map<String, List<Detection>> labels = new HashMap<>();
+    try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        line = line.trim();
+        if (line.isEmpty() || line.startsWith("#")) continue;
+        String[] fields = line.split(",");
+        if (fields.length < 6) {
+          throw new IOException("Bad label line: " + line);
+        }
+
+        Rect rect = new Rect(Integer.parseInt(fields[2].trim()), Integer.parseInt(fields[3].trim()),
+            Integer.parseInt(fields[4].trim()), Integer.parseInt(fields[5].trim()));
+        String filename = fields[0].trim();
+        if (!labels.containsKey(filename)) {
+          labels.put(filename, new ArrayList<>());
+        }
+
+        labels.get(filename).add(new Detection(fields[1].trim(), rect));
+      }
+    }
+
+    return labels;
+  }
+
+  /**
+   * Greedily matches detections to ground truth of the same tag by intersection over union.
+   */
+  private static void score(List<Detection> detections, List<Detection> truths, Map<String, int[]> counts) {
+    boolean[] matched = new boolean[truths.size()];
+    for (Detection detection : detections) {
+      int best = -1;
+      double bestIou = IOU_THRESHOLD;
+      for (int i = 0; i < truths.size(); i++) {
+        Detection truth = truths.get(i);
+        if (matched[i] || !truth.tag.equals(detection.tag)) continue;
+        double iou = intersectionOverUnion(detection.rect, truth.rect);
+        if (iou >= bestIou) {
+          bestIou = iou;
+          best = i;
+        }
+      }
+
+      int[] count = getCounts(counts, detection.tag);
+      if (best >= 0) {
+        matched[best] = true;
+        count[0]++;
+      } else {
+        count[1]++;
+      }
+    }
+
+    for (int i = 0; i < truths.size(); i++) {
+      if (!matched[i]) {
+        getCounts(counts, truths.get(i).tag)[2]++;
+      }
+    }
+  }
+
+  private static int[] getCounts(Map<String, int[]> counts, String tag) {
+    int[] count = counts.get(tag);
+    if (count == null) {
+      count = new int[3];
+      counts.put(tag, count);
+    }
+
+    return count;
+  }
+
+  public static double intersectionOverUnion(Rect one, Rect two) {
+    int width = Math.min(one.x + one.width, two.x + two.width) - Math.max(one.x, two.x);
+    int height = Math.min(one.y + one.height, two.y + two.height) - Math.max(one.y, two.y);
+    if (width <= 0 || height <= 0) return 0;
+    double intersection = (double) width * height;
+    return intersection / ((double) one.width * one.height + (double) two.width * two.height - intersection);
+  }
+
+  private String report(double[] latencies, long totalNanos, Map<String, int[]> counts) {
+    Arrays.sort(latencies);
+    int n = latencies.length;
+    StringBuilder builder = new StringBuilder();
+    builder.append(String.format(Locale.US,
+        "%d frames, latency p50 %.1f p90 %.1f p99 %.1f max %.1f ms, %.1f fps%n",
+        n, latencies[n / 2], latencies[(int) (n * 0.90)], latencies[(int) (n * 0.99)],
+        latencies[n - 1], n * 1.0e9 / totalNanos));
+    if (stageTimer != null) {
+      for (int stage = 0; stage < stageNames.length; stage++) {
+        builder.append(String.format(Locale.US, "%s %.2f ms ",
+            stageNames[stage], stageTimer.getStageAverageMs(stage)));
+      }
+
+      builder.append(String.format(Locale.US, "%n"));
+    }
+
+    for (Map.Entry<String, int[]> entry : counts.entrySet()) {
+      int[] count = entry.getValue();
+      double precision = count[0] + count[1] == 0 ? 0 : (double) count[0] / (count[0] + count[1]);
+      double recall = count[0] + count[2] == 0 ? 0 : (double) count[0] / (count[0] + count[2]);
+      builder.append(String.format(Locale.US, "%s precision %.2f recall %.2f (tp %d, fp %d, fn %d)%n",
+          entry.getKey(), precision, recall, count[0], count[1], count[2]));
+    }
+
+    return builder.toString();
+  }
+}
@@ -0,0 +1,106 @@
+package org.firstinspires.ftc.teamcode.qubit.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A class to spread independent vision detections across a small, fixed thread pool.
+ * <p>
+ * PERFORMANCE
+ * The Control Hub has four cores. The pipeline thread runs the first task itself
+ * while the pool runs the rest, leaving a core for the OpMode loop.
+ * Each task owns its scratch Mats, so no two threads ever share them.
+ * Results are collected in task order, so the merge is deterministic.
+ */
+public final class FtcVisionExecutor {
+  private static final String TAG = "FtcVisionExecutor";
+  public static final int THREAD_COUNT = 2;
+  private static ExecutorService executorService = null;
+
+  private FtcVisionExecutor() {
+  }
+
+  /**
+   * Lazily creates the shared thread pool. Threads are daemons so that they
+   * never keep the robot controller app alive, and are reused across OpModes.
+   *
+   * @return The shared thread pool.
+   */
+  private static synchronized ExecutorService getExecutorService() {
+    if (executorService == null) {
+      FtcLogger.info(TAG, "Creating vision thread pool");
+      final AtomicInteger threadNumber = new AtomicInteger(1);
+      executorService = Executors.newFixedThreadPool(THREAD_COUNT, new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, TAG + "-" + threadNumber.getAndIncrement());
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+
+    return executorService;
+  }
+
+  /**
+   * Runs all the tasks and waits for them to complete.
+   * Even if a task fails, all the other tasks are waited upon before returning,
+   * so that no task is still using its scratch Mats when the next frame arrives.
+   *
+   * @param tasks           The tasks to run.
+   * @param results         Cleared and filled with the task results, in task order.
+   * @param parallelEnabled When false, all tasks run serially on the calling thread.
+   * @param <T>             The task result type.
+   * @throws Exception The first exception thrown by a task, in task order.
+   */
+  public static <T> void invokeAll(List<? extends Callable<T>> tasks, List<T> results,
+                                   boolean parallelEnabled) throws Exception {
+    results.clear();
+    if (!parallelEnabled || tasks.size() < 2) {
+      for (Callable<T> task : tasks) {
+        results.add(task.call());
+      }
+
+      return;
+    }
+
+    ExecutorService executor = getExecutorService();
+    ArrayList<Future<T>> futures = new ArrayList<>(tasks.size() - 1);
+    for (int i = 1; i < tasks.size(); i++) {
+      futures.add(executor.submit(tasks.get(i)));
+    }
+
+    Exception firstException = null;
+    try {
+      results.add(tasks.get(0).call());
+    } catch (Exception exception) {
+      firstException = exception;
+      results.add(null);
+    }
+
+    for (Future<T> future : futures) {
+      try {
+        results.add(future.get());
+      } catch (ExecutionException exception) {
+        if (firstException == null) {
+          firstException = exception.getCause() instanceof Exception
+              ? (Exception) exception.getCause() : exception;
+        }
+
+        results.add(null);
+      }
+    }
+
+    if (firstException != null) {
+      throw firstException;
+    }
+  }
+}
@@ -0,0 +1,242 @@
+package org.firstinspires.ftc.teamcode.qubit.core;
+
+import com.qualcomm.robotcore.util.Range;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.core.RotatedRect;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A class to manage the vision regions of interest (ROI) of a game element.
+ * <p>
+ * PERFORMANCE
+ * Pipelines crop the frame to the ROIs using sub mats (no pixel copy) and optionally
+ * downsample the crops to a pyramid level before thresholding. Once a target is found,
+ * only a small tracking window around its last known position is searched, clipped to the
+ * declared ROIs so masked out parts of the frame stay masked out. When the
+ * target is missed for a few frames, the declared ROIs are searched again to re-acquire it.
+ */
+public class FtcVisionRoi {
+  private static final String TAG = "FtcVisionRoi";
+  public static final int PYRAMID_LEVEL_MIN = 0;
+  public static final int PYRAMID_LEVEL_MAX = 3;
+
+  // Consecutive misses after which the tracking window is abandoned.
+  public static final int REACQUIRE_MISS_COUNT = 3;
+
+  // Tracking window grows by this fraction of the target size on each side.
+  public static final double TRACKING_MARGIN = 0.5;
+  public static final int TRACKING_MARGIN_MIN = 32; // pixels
+
+  public boolean trackingEnabled = true;
+  private int pyramidLevel = PYRAMID_LEVEL_MIN;
+  private int missCount = 0;
+  private boolean tracking = false;
+
+  // Declared regions are in CAMERA_WIDTH x CAMERA_HEIGHT coordinates.
+  private final ArrayList<Rect> declaredRects = new ArrayList<>(2);
+
+  // Declared regions scaled to the actual frame size.
+  private final ArrayList<Rect> searchRects = new ArrayList<>(2);
+  private final ArrayList<Rect> trackingRects = new ArrayList<>(2);
+
+  // One tracking window slot per search region, to intersect the window with it.
+  private final ArrayList<Rect> trackingSlots = new ArrayList<>(2);
+  private final Rect frameRect = new Rect(FtcOpenCvCam.cameraRect.x, FtcOpenCvCam.cameraRect.y,
+      FtcOpenCvCam.cameraRect.width, FtcOpenCvCam.cameraRect.height);
+  private final Rect trackingRect = new Rect();
+
+  public FtcVisionRoi() {
+    rebuildSearchRects();
+  }
+
+  /**
+   * Declares the regions of interest to search when the target is not being tracked.
+   * Regions are specified for a CAMERA_WIDTH x CAMERA_HEIGHT frame and are scaled
+   * to the actual frame size in init(). When no region is declared, the full frame is searched.
+   *
+   * @param rects The regions of interest.
+   */
+  public void declare(List<Rect> rects) {
+    declaredRects.clear();
+    for (Rect rect : rects) {
+      if (rect.area() > 0) {
+        declaredRects.add(rect.clone());
+      }
+    }
+
+    rebuildSearchRects();
+  }
+
+  /**
+   * Gets the downsampling scale factor, i.e. 2 ^ pyramidLevel.
+   *
+   * @return The downsampling scale factor.
+   */
+  public int getScale() {
+    return 1 << pyramidLevel;
+  }
+
+  public int getPyramidLevel() {
+    return pyramidLevel;
+  }
+
+  /**
+   * Gets the regions to search in the current frame. When the target is being tracked,
+   * this is a single small window around the last known target position.
+   *
+   * @return The regions to search, in frame coordinates.
+   */
+  public List<Rect> getSearchRects() {
+    return tracking ? trackingRects : searchRects;
+  }
+
+  /**
+   * Counts the pixels that are thresholded per frame with the current search regions.
+   *
+   * @return The number of pixels processed per frame.
+   */
+  public int getPixelCount() {
+    double area = 0;
+    for (Rect rect : getSearchRects()) {
+      area += rect.area();
+    }
+
+    return (int) (area / (getScale() * getScale()));
+  }
+
+  /**
+   * Scales the declared regions to the actual frame size.
+   *
+   * @param firstFrame The very first frame that is processed.
+   */
+  public void init(Mat firstFrame) {
+    frameRect.width = firstFrame.width();
+    frameRect.height = firstFrame.height();
+    rebuildSearchRects();
+  }
+
+  /**
+   * Abandons the tracking window, so the next frame searches the declared regions.
+   */
+  public void reset() {
+    trackingRects.clear();
+    tracking = false;
+    missCount = 0;
+  }
+
+  public boolean isTracking() {
+    return tracking;
+  }
+
+  /**
+   * Maps a rectangle found in a (possibly downsampled) region back to full frame coordinates.
+   *
+   * @param rRect      The rotated rectangle to map in place.
+   * @param regionRect The region, in frame coordinates, the rectangle was found in.
+   */
+  public void mapToFrame(RotatedRect rRect, Rect regionRect) {
+    int scale = getScale();
+    rRect.center.x = rRect.center.x * scale + regionRect.x;
+    rRect.center.y = rRect.center.y * scale + regionRect.y;
+    rRect.size.width *= scale;
+    rRect.size.height *= scale;
+  }
+
+  private void rebuildSearchRects() {
+    searchRects.clear();
+    if (declaredRects.isEmpty()) {
+      searchRects.add(frameRect);
+    } else {
+      double xScale = (double) frameRect.width / FtcOpenCvCam.CAMERA_WIDTH;
+      double yScale = (double) frameRect.height / FtcOpenCvCam.CAMERA_HEIGHT;
+      for (Rect rect : declaredRects) {
+        Rect scaledRect = new Rect((int) (rect.x * xScale), (int) (rect.y * yScale),
+            (int) (rect.width * xScale), (int) (rect.height * yScale));
+        clipToFrame(scaledRect);
+        if (scaledRect.area() > 0) {
+          searchRects.add(scaledRect);
+        }
+      }
+    }
+
+    while (trackingSlots.size() < searchRects.size()) {
+      trackingSlots.add(new Rect());
+    }
+
+    trackingRects.clear();
+    tracking = false;
+    missCount = 0;
+  }
+
+  /**
+   * Intersects the tracking window with every search region, keeping the non empty parts.
+   */
+  private void clipTrackingRect() {
+    trackingRects.clear();
+    for (int i = 0; i < searchRects.size(); i++) {
+      Rect searchRect = searchRects.get(i);
+      Rect slot = trackingSlots.get(i);
+      int x1 = Math.max(trackingRect.x, searchRect.x);
+      int y1 = Math.max(trackingRect.y, searchRect.y);
+      int x2 = Math.min(trackingRect.x + trackingRect.width, searchRect.x + searchRect.width);
+      int y2 = Math.min(trackingRect.y + trackingRect.height, searchRect.y + searchRect.height);
+      if (x2 > x1 && y2 > y1) {
+        slot.x = x1;
+        slot.y = y1;
+        slot.width = x2 - x1;
+        slot.height = y2 - y1;
+        trackingRects.add(slot);
+      }
+    }
+  }
+
+  private void clipToFrame(Rect rect) {
+    int x1 = Range.clip(rect.x, 0, frameRect.width);
+    int y1 = Range.clip(rect.y, 0, frameRect.height);
+    int x2 = Range.clip(rect.x + rect.width, 0, frameRect.width);
+    int y2 = Range.clip(rect.y + rect.height, 0, frameRect.height);
+    rect.x = x1;
+    rect.y = y1;
+    rect.width = x2 - x1;
+    rect.height = y2 - y1;
+  }
+
+  /**
+   * Sets the pyramid level to downsample the regions to before thresholding.
+   * Each level halves the width and height, i.e. quarters the pixel count.
+   *
+   * @param pyramidLevel The pyramid level, 0 being full resolution.
+   */
+  public void setPyramidLevel(int pyramidLevel) {
+    this.pyramidLevel = Range.clip(pyramidLevel, PYRAMID_LEVEL_MIN, PYRAMID_LEVEL_MAX);
+  }
+
+  /**
+   * Updates the tracking window based on the detection result of the current frame.
+   *
+   * @param found      True if the target was found in the current frame.
+   * @param targetRect The target bounding rectangle, in frame coordinates.
+   */
+  public void update(boolean found, Rect targetRect) {
+    if (found && trackingEnabled && targetRect.area() > 0) {
+      int marginX = Math.max(TRACKING_MARGIN_MIN, (int) (targetRect.width * TRACKING_MARGIN));
+      int marginY = Math.max(TRACKING_MARGIN_MIN, (int) (targetRect.height * TRACKING_MARGIN));
+      trackingRect.x = targetRect.x - marginX;
+      trackingRect.y = targetRect.y - marginY;
+      trackingRect.width = targetRect.width + 2 * marginX;
+      trackingRect.height = targetRect.height + 2 * marginY;
+      clipToFrame(trackingRect);
+      clipTrackingRect();
+      tracking = !trackingRects.isEmpty();
+      missCount = 0;
+    } else if (tracking && ++missCount >= REACQUIRE_MISS_COUNT) {
+      // Lost the target, search the declared regions again.
+      tracking = false;
+      missCount = 0;
+    }
+  }
+}
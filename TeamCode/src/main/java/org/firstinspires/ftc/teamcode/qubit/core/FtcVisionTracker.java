@@ -0,0 +1,416 @@
+package org.firstinspires.ftc.teamcode.qubit.core;
+
+import org.opencv.core.Point;
+import org.opencv.core.RotatedRect;
+
+/**
+ * A lightweight multi-object tracker for a single kind of game element or sample.
+ * <p>
+ * Each target is tracked with a constant velocity Kalman filter per axis. Detections are
+ * associated with tracks by IoU, falling back to centroid distance. Tracks get a unique ID,
+ * are confirmed after a few hits and are deleted after a few misses.
+ * <p>
+ * PERFORMANCE
+ * Tracks are updated by the vision thread only. After each update an immutable copy
+ * of the tracks is published through a volatile reference, so OpModes can predict the
+ * target position at any timestamp between frames without locking.
+ */
+public class FtcVisionTracker {
+  private static final String TAG = "FtcVisionTracker";
+  public static final int MAX_TRACKS = 4;
+  public static final int MAX_DETECTIONS = 4;
+
+  // Track life cycle, in processed frames.
+  public static final int CONFIRM_HITS = 3;
+  public static final int MAX_MISSES = 5;
+
+  // Association thresholds.
+  public static final double IOU_MIN = 0.2;
+  public static final double CENTROID_GATE = 1.0; // fraction of the track size
+
+  // Kalman filter noise, pixels based.
+  public static final double PROCESS_NOISE = 4.0e5; // acceleration spectral density, px^2/s^3
+  public static final double MEASUREMENT_NOISE = 25.0; // px^2
+  public static final double INITIAL_VELOCITY_VARIANCE = 1.0e5; // (px/s)^2
+
+  // A confident track has a position standard deviation below this.
+  public static final double CONFIDENT_POSITION_VARIANCE = 100.0; // px^2
+  public static final double SIZE_SMOOTHING = 0.5;
+
+  private final Track[] tracks = new Track[MAX_TRACKS];
+  private final boolean[] detectionUsed = new boolean[MAX_DETECTIONS];
+  private int nextTrackId = 1;
+  private long lastTimestamp = 0;
+  private volatile TrackState[] publishedTracks = new TrackState[0];
+
+  public FtcVisionTracker() {
+    for (int i = 0; i < MAX_TRACKS; i++) {
+      tracks[i] = new Track();
+    }
+  }
+
+  /**
+   * Gets the best confirmed track, i.e. the one with the largest area.
+   *
+   * @return The best track, null if no track is confirmed.
+   */
+  public TrackState getBestTrack() {
+    TrackState best = null;
+    for (TrackState trackState : publishedTracks) {
+      if (trackState.confirmed && (best == null || trackState.area > best.area)) {
+        best = trackState;
+      }
+    }
+
+    return best;
+  }
+
+  /**
+   * Gets the published tracks. The array must be treated as read only.
+   *
+   * @return The tracks as of the most recently processed frame.
+   */
+  public TrackState[] getTracks() {
+    return publishedTracks;
+  }
+
+  /**
+   * Determines whether all tracks are confirmed, currently detected and have
+   * a small position uncertainty. Detection may then be skipped for a frame.
+   *
+   * @return True if tracking is confident.
+   */
+  public boolean isConfident() {
+    TrackState[] trackStates = publishedTracks;
+    if (trackStates.length == 0) {
+      return false;
+    }
+
+    for (TrackState trackState : trackStates) {
+      if (!trackState.confident) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Predicts the best track mid point at the given timestamp.
+   *
+   * @param timestamp System.nanoTime() to predict at.
+   * @param point     Receives the predicted mid point, in frame coordinates.
+   * @return True if a confirmed track exists, false otherwise.
+   */
+  public boolean predict(long timestamp, Point point) {
+    TrackState best = getBestTrack();
+    if (best == null) {
+      return false;
+    }
+
+    point.x = best.predictX(timestamp);
+    point.y = best.predictY(timestamp);
+    return true;
+  }
+
+  /**
+   * Drops all tracks.
+   */
+  public void reset() {
+    for (Track track : tracks) {
+      track.active = false;
+    }
+
+    lastTimestamp = 0;
+    publishedTracks = new TrackState[0];
+  }
+
+  /**
+   * Updates the tracks with the detections of a processed frame.
+   * Must be called by the vision thread only.
+   *
+   * @param detections The detections of the frame.
+   * @param timestamp  System.nanoTime() when the frame processing started.
+   */
+  public void update(Detections detections, long timestamp) {
+    double dt = lastTimestamp == 0 ? 0 : (timestamp - lastTimestamp) / 1e9;
+    lastTimestamp = timestamp;
+    for (Track track : tracks) {
+      if (track.active) {
+        track.predict(dt);
+      }
+    }
+
+    // Greedy association, best score first. Track and detection counts are tiny.
+    for (int d = 0; d < detections.count; d++) {
+      detectionUsed[d] = false;
+    }
+
+    for (Track track : tracks) {
+      track.matched = false;
+    }
+
+    while (true) {
+      Track bestTrack = null;
+      int bestDetection = -1;
+      double bestScore = 0;
+      for (Track track : tracks) {
+        if (!track.active || track.matched) continue;
+        for (int d = 0; d < detections.count; d++) {
+          if (detectionUsed[d]) continue;
+          double score = track.score(detections, d);
+          if (score > bestScore) {
+            bestScore = score;
+            bestTrack = track;
+            bestDetection = d;
+          }
+        }
+      }
+
+      if (bestTrack == null) {
+        break;
+      }
+
+      bestTrack.correct(detections, bestDetection);
+      bestTrack.matched = true;
+      detectionUsed[bestDetection] = true;
+    }
+
+    for (Track track : tracks) {
+      if (track.active && !track.matched && ++track.misses > MAX_MISSES) {
+        track.active = false;
+      }
+    }
+
+    // Unmatched detections start new tracks, if there is room.
+    for (int d = 0; d < detections.count; d++) {
+      if (detectionUsed[d]) continue;
+      for (Track track : tracks) {
+        if (!track.active) {
+          track.start(nextTrackId++, detections, d);
+          break;
+        }
+      }
+    }
+
+    publish(timestamp);
+  }
+
+  private void publish(long timestamp) {
+    int count = 0;
+    for (Track track : tracks) {
+      if (track.active) count++;
+    }
+
+    TrackState[] trackStates = new TrackState[count];
+    count = 0;
+    for (Track track : tracks) {
+      if (track.active) {
+        trackStates[count++] = new TrackState(track, timestamp);
+      }
+    }
+
+    publishedTracks = trackStates;
+  }
+
+  /**
+   * A reusable container of the detections of a single frame, in frame coordinates.
+   * Keeps the largest MAX_DETECTIONS detections by area.
+   */
+  public static final class Detections {
+    final double[] x = new double[MAX_DETECTIONS];
+    final double[] y = new double[MAX_DETECTIONS];
+    final double[] width = new double[MAX_DETECTIONS];
+    final double[] height = new double[MAX_DETECTIONS];
+    final double[] area = new double[MAX_DETECTIONS];
+    int count = 0;
+
+    /**
+     * Adds a detection, replacing the smallest one when full.
+     *
+     * @param rRect The detection rotated rectangle, in frame coordinates.
+     * @param area  The detection area, in frame pixels.
+     */
+    public void add(RotatedRect rRect, double area) {
+      int index = count;
+      if (count == MAX_DETECTIONS) {
+        index = smallestIndex();
+        if (this.area[index] >= area) return;
+      } else {
+        count++;
+      }
+
+      // Axis aligned extent of the rotated rectangle.
+      double angle = Math.toRadians(rRect.angle);
+      double cos = Math.abs(Math.cos(angle)), sin = Math.abs(Math.sin(angle));
+      x[index] = rRect.center.x;
+      y[index] = rRect.center.y;
+      width[index] = rRect.size.width * cos + rRect.size.height * sin;
+      height[index] = rRect.size.width * sin + rRect.size.height * cos;
+      this.area[index] = area;
+    }
+
+    public void clear() {
+      count = 0;
+    }
+
+    public int getCount() {
+      return count;
+    }
+
+    /**
+     * Gets the area a new detection must exceed to be kept.
+     * Lets the caller skip expensive analysis of contours that would be discarded.
+     *
+     * @return The admission area, in frame pixels.
+     */
+    public double getAdmissionArea() {
+      return count < MAX_DETECTIONS ? 0 : area[smallestIndex()];
+    }
+
+    private int smallestIndex() {
+      int index = 0;
+      for (int i = 1; i < count; i++) {
+        if (area[i] < area[index]) index = i;
+      }
+
+      return index;
+    }
+  }
+
+  /**
+   * An immutable published copy of a track.
+   */
+  public static final class TrackState {
+    public final int id;
+    public final boolean confirmed;
+    public final boolean confident;
+    public final double x, y; // mid point, frame pixels
+    public final double vx, vy; // frame pixels per second
+    public final double width, height, area;
+    public final long timestamp; // System.nanoTime() of the state
+
+    TrackState(Track track, long timestamp) {
+      id = track.id;
+      confirmed = track.hits >= CONFIRM_HITS;
+      confident = confirmed && track.misses == 0 &&
+          track.xFilter.p00 < CONFIDENT_POSITION_VARIANCE &&
+          track.yFilter.p00 < CONFIDENT_POSITION_VARIANCE;
+      x = track.xFilter.position;
+      y = track.yFilter.position;
+      vx = track.xFilter.velocity;
+      vy = track.yFilter.velocity;
+      width = track.width;
+      height = track.height;
+      area = track.area;
+      this.timestamp = timestamp;
+    }
+
+    public double predictX(long timestamp) {
+      return x + vx * (timestamp - this.timestamp) / 1e9;
+    }
+
+    public double predictY(long timestamp) {
+      return y + vy * (timestamp - this.timestamp) / 1e9;
+    }
+  }
+
+  /**
+   * A constant velocity Kalman filter along one axis.
+   * State is [position, velocity], covariance is symmetric 2x2.
+   */
+  static final class AxisFilter {
+    double position, velocity;
+    double p00, p01, p11;
+
+    void start(double position) {
+      this.position = position;
+      velocity = 0;
+      p00 = MEASUREMENT_NOISE;
+      p01 = 0;
+      p11 = INITIAL_VELOCITY_VARIANCE;
+    }
+
+    void predict(double dt) {
+      if (dt <= 0) return;
+      position += velocity * dt;
+      double dt2 = dt * dt;
+      p00 += 2 * dt * p01 + dt2 * p11 + PROCESS_NOISE * dt2 * dt / 3.0;
+      p01 += dt * p11 + PROCESS_NOISE * dt2 / 2.0;
+      p11 += PROCESS_NOISE * dt;
+    }
+
+    void correct(double measurement) {
+      double s = p00 + MEASUREMENT_NOISE;
+      double k0 = p00 / s, k1 = p01 / s;
+      double innovation = measurement - position;
+      position += k0 * innovation;
+      velocity += k1 * innovation;
+      p11 -= k1 * p01;
+      p01 -= k1 * p00;
+      p00 -= k0 * p00;
+    }
+  }
+
+  /**
+   * A mutable track, owned by the vision thread.
+   */
+  static final class Track {
+    final AxisFilter xFilter = new AxisFilter();
+    final AxisFilter yFilter = new AxisFilter();
+    int id;
+    boolean active = false, matched = false;
+    int hits, misses;
+    double width, height, area;
+
+    void start(int id, Detections detections, int d) {
+      this.id = id;
+      active = true;
+      hits = 1;
+      misses = 0;
+      xFilter.start(detections.x[d]);
+      yFilter.start(detections.y[d]);
+      width = detections.width[d];
+      height = detections.height[d];
+      area = detections.area[d];
+    }
+
+    void predict(double dt) {
+      xFilter.predict(dt);
+      yFilter.predict(dt);
+    }
+
+    void correct(Detections detections, int d) {
+      xFilter.correct(detections.x[d]);
+      yFilter.correct(detections.y[d]);
+      width += SIZE_SMOOTHING * (detections.width[d] - width);
+      height += SIZE_SMOOTHING * (detections.height[d] - height);
+      area += SIZE_SMOOTHING * (detections.area[d] - area);
+      hits++;
+      misses = 0;
+    }
+
+    /**
+     * Scores a detection against the predicted track box.
+     * IoU matches score in [1 + IOU_MIN, 2], centroid matches within the gate
+     * score in (0, 1], so IoU matches always win. Zero means no match.
+     */
+    double score(Detections detections, int d) {
+      double x = xFilter.position, y = yFilter.position;
+      double left = Math.max(x - width / 2, detections.x[d] - detections.width[d] / 2);
+      double right = Math.min(x + width / 2, detections.x[d] + detections.width[d] / 2);
+      double top = Math.max(y - height / 2, detections.y[d] - detections.height[d] / 2);
+      double bottom = Math.min(y + height / 2, detections.y[d] + detections.height[d] / 2);
+      double intersection = Math.max(0, right - left) * Math.max(0, bottom - top);
+      double union = width * height + detections.width[d] * detections.height[d] - intersection;
+      double iou = union > 0 ? intersection / union : 0;
+      if (iou >= IOU_MIN) {
+        return 1 + iou;
+      }
+
+      double gate = CENTROID_GATE * Math.max(width, height);
+      double distance = Math.hypot(detections.x[d] - x, detections.y[d] - y);
+      return distance < gate ? 1 - distance / gate : 0;
+    }
+  }
+}
@@ -0,0 +1,188 @@
+package org.firstinspires.ftc.teamcode.qubit.core;
+
+import com.qualcomm.robotcore.hardware.HardwareMap;
+import com.qualcomm.robotcore.hardware.VoltageSensor;
+import com.qualcomm.robotcore.util.Range;
+import com.qualcomm.robotcore.util.RobotLog;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+import org.firstinspires.ftc.teamcode.qubit.core.enumerations.PowerPriorityEnum;
+
+/**
+ * A class to provide the battery voltage to the whole robot.
+ * The voltage sensor is sampled on a background thread at a fixed low rate, filtered,
+ * and published through volatile fields, so readers never block and never pay for a
+ * hub transaction. It also applies a global power budget as the battery sags:
+ * mechanisms are scaled back first, and the drive train only when a brownout is imminent.
+ * <p>
+ * PERFORMANCE
+ * Reading the voltage sensor is a hub transaction of a few milliseconds. Previously the
+ * follower and the lift each read it on their own schedule, from the control loop.
+ */
+public final class FtcVoltageService {
+  private static final String TAG = "FtcVoltageService";
+  public static final double NOMINAL_VOLTAGE = 12.0;
+  public static final long SAMPLE_PERIOD_MS = 100;
+
+  // Exponential moving average weight of a new sample.
+  public static final double FILTER_ALPHA = 0.3;
+
+  // Mechanism power is scaled down linearly from BUDGET_START_VOLTAGE to BROWNOUT_VOLTAGE.
+  public static final double BUDGET_START_VOLTAGE = 10.0;
+  public static final double BROWNOUT_RISK_VOLTAGE = 9.0;
+  public static final double BROWNOUT_VOLTAGE = 8.0;
+  public static final double MINIMUM_MECHANISM_SCALE = 0.5;
+  public static final double MINIMUM_DRIVE_TRAIN_SCALE = 0.8;
+
+  private static volatile double voltage = NOMINAL_VOLTAGE;
+  private static volatile double minimumVoltage = NOMINAL_VOLTAGE;
+  private static volatile double compensation = 1.0;
+  private static volatile double mechanismScale = 1.0;
+  private static volatile double driveTrainScale = 1.0;
+  private static volatile boolean brownoutRisk = false;
+  private static volatile long brownoutRiskCount = 0;
+  private static VoltageSensor voltageSensor = null;
+  private static Thread sampler = null;
+
+  private FtcVoltageService() {
+  }
+
+  /**
+   * Starts sampling the first hub voltage sensor. Idempotent.
+   *
+   * @param hardwareMap The hardware map to use.
+   */
+  public static synchronized void start(HardwareMap hardwareMap) {
+    FtcLogger.enter();
+    voltageSensor = hardwareMap.voltageSensor.iterator().hasNext()
+        ? hardwareMap.voltageSensor.iterator().next() : null;
+    if (voltageSensor != null) {
+      // Seed the filter so that the first readers don't see the nominal voltage.
+      publish(voltageSensor.getVoltage(), true);
+      if (sampler == null) {
+        sampler = new Thread(FtcVoltageService::sample, TAG);
+        sampler.setDaemon(true);
+        sampler.start();
+      }
+    }
+
+    FtcLogger.exit();
+  }
+
+  /**
+   * Stops sampling.
+   */
+  public static synchronized void stop() {
+    FtcLogger.enter();
+    if (sampler != null) {
+      sampler.interrupt();
+      sampler = null;
+    }
+
+    FtcLogger.exit();
+  }
+
+  private static void sample() {
+    while (!Thread.currentThread().isInterrupted()) {
+      VoltageSensor sensor = voltageSensor;
+      try {
+        if (sensor != null) {
+          publish(sensor.getVoltage(), false);
+        }
+      } catch (RuntimeException e) {
+        RobotLog.ee(TAG, e, e.getMessage());
+      }
+
+      try {
+        Thread.sleep(SAMPLE_PERIOD_MS);
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Filters a sample and publishes the voltage and the derived scales.
+   * Called only by the sampler thread, or while starting.
+   *
+   * @param sample The raw voltage sample.
+   * @param seed   When true, the filter is reset to the sample.
+   */
+  private static synchronized void publish(double sample, boolean seed) {
+    if (sample < FtcUtils.EPSILON1) return; // Sensor not ready.
+    double filtered = seed ? sample : voltage + FILTER_ALPHA * (sample - voltage);
+    minimumVoltage = seed ? sample : Math.min(minimumVoltage, sample);
+    compensation = NOMINAL_VOLTAGE / filtered;
+    mechanismScale = scale(filtered, BUDGET_START_VOLTAGE, MINIMUM_MECHANISM_SCALE);
+    driveTrainScale = scale(filtered, BROWNOUT_RISK_VOLTAGE, MINIMUM_DRIVE_TRAIN_SCALE);
+
+    // A single deep sag is a brownout risk even if the average still looks healthy.
+    boolean risk = filtered < BROWNOUT_RISK_VOLTAGE || sample < BROWNOUT_VOLTAGE;
+    if (risk && !brownoutRisk) {
+      brownoutRiskCount++;
+      FtcLogger.info(TAG, "Brownout risk at %.2f V (filtered %.2f V)", sample, filtered);
+    }
+
+    brownoutRisk = risk;
+    voltage = filtered;
+  }
+
+  private static double scale(double filtered, double startVoltage, double minimumScale) {
+    double fraction = (filtered - BROWNOUT_VOLTAGE) / (startVoltage - BROWNOUT_VOLTAGE);
+    return minimumScale + (1.0 - minimumScale) * Range.clip(fraction, 0.0, 1.0);
+  }
+
+  /**
+   * @return The filtered battery voltage.
+   */
+  public static double getVoltage() {
+    return voltage;
+  }
+
+  /**
+   * @return The lowest raw voltage sampled since start.
+   */
+  public static double getMinimumVoltage() {
+    return minimumVoltage;
+  }
+
+  /**
+   * Gets the ratio of the nominal voltage to the battery voltage. Multiplying a
+   * feedforward power tuned at NOMINAL_VOLTAGE by it keeps the motor output constant.
+   *
+   * @return The voltage compensation factor.
+   */
+  public static double getCompensation() {
+    return compensation;
+  }
+
+  /**
+   * Gets the power budget scale for a priority.
+   *
+   * @param priority The motor power priority.
+   * @return The scale to apply to the motor power, in (0, 1].
+   */
+  public static double getBudgetScale(PowerPriorityEnum priority) {
+    if (priority == PowerPriorityEnum.MECHANISM) return mechanismScale;
+    if (priority == PowerPriorityEnum.DRIVE_TRAIN) return driveTrainScale;
+    return 1.0;
+  }
+
+  /**
+   * @return True if the battery is close to a brownout.
+   */
+  public static boolean isBrownoutRisk() {
+    return brownoutRisk;
+  }
+
+  /**
+   * Emits voltage telemetry.
+   *
+   * @param telemetry The telemetry to use.
+   */
+  public static void showTelemetry(Telemetry telemetry) {
+    telemetry.addData(TAG, "%.2f V (min %.2f), budget %.2f/%.2f%s",
+        voltage, minimumVoltage, driveTrainScale, mechanismScale,
+        brownoutRisk ? ", BROWNOUT RISK" : "");
+  }
+}
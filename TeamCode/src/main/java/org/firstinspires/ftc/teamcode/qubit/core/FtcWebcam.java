@@ -59,6 +59,9 @@ public class FtcWebcam extends FtcSubSystemBase {
    */
   private EvictingBlockingQueue<Bitmap> frameQueue;
 
+  // When set, every frame is also handed to the background frame recorder.
+  public volatile FtcFrameRecorder frameRecorder = null;
+
   /**
    * A utility object that indicates where the asynchronous callbacks from the camera
    * infrastructure are to run. In this OpMode, that's all hidden from you (but see {@link #start}
@@ -178,6 +181,11 @@ public class FtcWebcam extends FtcSubSystemBase {
                      * for the duration of the callback. So we copy here manually. */
                     Bitmap bmp = captureRequest.createEmptyBitmap();
                     cameraFrame.copyToBitmap(bmp);
+                    FtcFrameRecorder recorder = frameRecorder;
+                    if (recorder != null) {
+                      recorder.offer(bmp);
+                    }
+
                     frameQueue.offer(bmp);
                   }
                 },
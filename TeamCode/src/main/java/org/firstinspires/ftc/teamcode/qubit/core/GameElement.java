@@ -5,7 +5,6 @@ import org.firstinspires.ftc.teamcode.qubit.core.enumerations.GeometricShapeEnum
 import org.firstinspires.ftc.teamcode.qubit.core.enumerations.ObjectDetectionAlgorithmEnum;
 import org.opencv.core.Point;
 import org.opencv.core.Rect;
-import org.opencv.core.RotatedRect;
 import org.opencv.core.Scalar;
 import org.opencv.imgproc.Imgproc;
 
@@ -17,8 +16,6 @@ public class GameElement {
   public static final int ATTENDANCE_MAX = 30;
   public static final int ATTENDANCE_THRESHOLD = 15;
   public double minAspectRatio, maxAspectRatio;
-  public double area;
-  public double aspectRatio;
   public Scalar elementColor;
   public Scalar lowerColorThreshold;
   public Scalar upperColorThreshold;
@@ -27,9 +24,11 @@ public class GameElement {
   public int colorConversionCode;
   public String tag;
   public GeometricShapeEnum geometricShapeEnum;
-  public boolean found;
-  public Rect boundingRect;
-  public RotatedRect rotatedRect;
+
+  // PERFORMANCE: Replaced atomically once per frame, readers never lock.
+  private volatile ElementSnapshot snapshot;
+  public final FtcVisionRoi roi;
+  public final FtcVisionTracker tracker;
   private final int[] attendanceRegister;
   private int attendanceIndex;
 
@@ -43,15 +42,16 @@ public class GameElement {
     // Look back 5 seconds of processed frames
     attendanceRegister = new int[ATTENDANCE_MAX];
     attendanceIndex = 0;
-    aspectRatio = 0;
-    boundingRect = new Rect();
-    rotatedRect = new RotatedRect();
+    snapshot = ElementSnapshot.EMPTY;
+    roi = new FtcVisionRoi();
+    tracker = new FtcVisionTracker();
+    // Full resolution, game element is searched only in the target regions.
+    roi.setPyramidLevel(0);
     borderSize = 4;
     colorConversionCode = Imgproc.COLOR_RGB2YCrCb;
     geometricShapeEnum = GeometricShapeEnum.UNKNOWN;
     elementColor = FtcColorUtils.RGB_WHITE;
     tgeDetectionAlgorithm = ObjectDetectionAlgorithmEnum.CONTOUR_AND_CHANNEL;
-    found = false;
     lowerColorThreshold = new Scalar(0.0, 0.0, 0.0);
     upperColorThreshold = new Scalar(255.0, 255.0, 255.0);
     tag = FtcColorUtils.TAG_UNKNOWN;
@@ -78,8 +78,8 @@ public class GameElement {
     return attendanceCount() >= ATTENDANCE_THRESHOLD;
   }
 
-  public synchronized boolean elementFound() {
-    return found;
+  public boolean elementFound() {
+    return snapshot.found;
   }
 
   public static GameElement getGE(ObjectColorEnum gameElementType) {
@@ -172,15 +172,17 @@ public class GameElement {
     return gameElement;
   }
 
-  public synchronized Point getMidPoint() {
-    return FtcUtils.getMidpoint(boundingRect);
+  public Point getMidPoint() {
+    return snapshot.midPoint;
   }
 
-  public synchronized void invalidate() {
-    area = 0;
-    boundingRect = new Rect();
-    rotatedRect = new RotatedRect();
-    found = false;
+  /**
+   * Gets the detection result of the most recently processed frame.
+   *
+   * @return The immutable detection result.
+   */
+  public ElementSnapshot getSnapshot() {
+    return snapshot;
   }
 
   private void markAbsent() {
@@ -205,11 +207,12 @@ public class GameElement {
     }
   }
 
-  public synchronized void validate(RotatedRect rRect, double aspectRatio, double area) {
-    FtcUtils.copyRect(rRect, rotatedRect);
-    FtcUtils.copyRect(rotatedRect.boundingRect(), boundingRect);
-    this.area = area;
-    this.aspectRatio = aspectRatio;
-    found = true;
+  /**
+   * Publishes the detection result of a frame. Called only by the vision pipeline.
+   *
+   * @param snapshot The immutable detection result.
+   */
+  public void publish(ElementSnapshot snapshot) {
+    this.snapshot = snapshot;
   }
 }
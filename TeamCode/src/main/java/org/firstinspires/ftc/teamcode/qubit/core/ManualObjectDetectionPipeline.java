@@ -62,7 +62,9 @@ public class ManualObjectDetectionPipeline extends OpenCvPipeline {
     try {
       error = false;
       lastException = null;
-      gameElement.invalidate();
+      long timestamp = System.nanoTime();
+      RotatedRect bestRect = null;
+      double bestArea = 0;
       // Process Image
       Imgproc.cvtColor(input, alternateColorMat, gameElement.colorConversionCode);
       Core.inRange(alternateColorMat, gameElement.lowerColorThreshold, gameElement.upperColorThreshold, processedMat);
@@ -77,29 +79,33 @@ public class ManualObjectDetectionPipeline extends OpenCvPipeline {
       for (MatOfPoint contour : contours) {
         double contourArea = Imgproc.contourArea(contour);
         if (contourArea >= gameElement.minSize.area()
-            && contourArea > gameElement.area
+            && contourArea > bestArea
             && contourArea <= gameElement.maxSize.area()) {
           Point[] contourArray = contour.toArray();
           MatOfPoint2f areaPoints = new MatOfPoint2f(contourArray);
-          RotatedRect rRect = Imgproc.minAreaRect(areaPoints);
+          bestRect = Imgproc.minAreaRect(areaPoints);
+          bestArea = contourArea;
           areaPoints.release();
-          gameElement.validate(rRect, 0, contourArea);
         }
 
         contour.release();
       }
 
-      if (gameElement.elementFound()) {
-        Imgproc.ellipse(input, gameElement.rotatedRect, gameElement.elementColor, gameElement.borderSize);
+      ElementSnapshot snapshot = bestRect == null
+          ? new ElementSnapshot(timestamp)
+          : new ElementSnapshot(bestRect, 0, bestArea, timestamp);
+      gameElement.publish(snapshot);
+      if (snapshot.found) {
+        Imgproc.ellipse(input, snapshot.rotatedRect, gameElement.elementColor, gameElement.borderSize);
 
         // Display Data
         Imgproc.putText(input, String.format("%s: %.0f (%.0f, %.0f)",
                 gameElement.tag,
-                gameElement.boundingRect.area(),
-                FtcUtils.getMidpointX(gameElement.boundingRect),
-                FtcUtils.getMidpointY(gameElement.boundingRect)),
-            new Point(gameElement.boundingRect.x,
-                gameElement.boundingRect.y + 20),
+                snapshot.boundingRect.area(),
+                snapshot.midPoint.x,
+                snapshot.midPoint.y),
+            new Point(snapshot.boundingRect.x,
+                snapshot.boundingRect.y + 20),
             Imgproc.FONT_HERSHEY_SIMPLEX, 0.6, gameElement.elementColor, 2);
       }
     } catch (Exception exception) {
@@ -10,6 +10,9 @@ import org.opencv.imgproc.Imgproc;
 import org.openftc.easyopencv.OpenCvPipeline;
 import org.openftc.easyopencv.OpenCvWebcam;
 
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+
 public class MultipleObjectDetectionPipeline extends OpenCvPipeline {
   private static final String TAG = "ModPipeline";
   private OpenCvWebcam openCvWebcam = null;
@@ -18,8 +21,16 @@ public class MultipleObjectDetectionPipeline extends OpenCvPipeline {
   // Volatile because accessed by OpMode without syncObject
   public volatile boolean error = false;
   public volatile Exception lastException = null;
+  // When true, game elements are detected concurrently on the vision thread pool.
+  public boolean parallelEnabled = true;
+  // When true, detection is skipped on alternate frames while the tracks are confident.
+  public boolean frameSkippingEnabled = true;
+  private boolean lastFrameSkipped = false;
+  // When set, input frames are recorded in the background, before annotation.
+  public volatile FtcFrameRecorder frameRecorder = null;
   private final ObjectDetectionByChannel odbChn;
-  private final ObjectDetectionByContour odbCon;
+  private final ArrayList<DetectionTask> detectionTasks;
+  private final ArrayList<ElementSnapshot> snapshots;
 
   public final GameElement[] gameElements = new GameElement[]{
       GameElement.getGE(ObjectColorEnum.BLUE),
@@ -31,7 +42,12 @@ public class MultipleObjectDetectionPipeline extends OpenCvPipeline {
   public MultipleObjectDetectionPipeline(OpenCvWebcam openCvWebcam) {
     this.openCvWebcam = openCvWebcam;
     odbChn = new ObjectDetectionByChannel();
-    odbCon = new ObjectDetectionByContour();
+    detectionTasks = new ArrayList<>(gameElements.length);
+    snapshots = new ArrayList<>(gameElements.length);
+    for (GameElement gameElement : gameElements) {
+      gameElement.roi.declare(odbChn.getTargetRects());
+      detectionTasks.add(new DetectionTask(gameElement));
+    }
   }
 
   public void disableAnnotations() {
@@ -50,32 +66,54 @@ public class MultipleObjectDetectionPipeline extends OpenCvPipeline {
 
   @Override
   public void init(Mat firstFrame) {
-    odbChn.init(firstFrame);
-    odbCon.init(firstFrame);
+    for (DetectionTask detectionTask : detectionTasks) {
+      detectionTask.init(firstFrame);
+    }
   }
 
   @Override
   public Mat processFrame(Mat frame) {
     error = false;
     lastException = null;
+    FtcFrameRecorder recorder = frameRecorder;
+    if (recorder != null) {
+      recorder.offer(frame);
+    }
+
     try {
-      odbChn.blotFrame(frame);
-      for (GameElement gameElement : gameElements) {
-        if (gameElement.tgeDetectionAlgorithm == ObjectDetectionAlgorithmEnum.CONTOUR_AND_CHANNEL) {
-          boolean foundChn, foundCon;
-          odbChn.processFrame(frame, gameElement, annotateFrame);
-          foundChn = gameElement.elementFound();
-          odbCon.processFrame(frame, gameElement, annotateFrame);
-          foundCon = gameElement.elementFound();
-          if (foundChn == foundCon) {
-            gameElement.takeAttendance();
+      if (frameSkippingEnabled && !lastFrameSkipped && tracksAreConfident()) {
+        // PERFORMANCE: Tracks predict the game elements until the next frame.
+        lastFrameSkipped = true;
+        if (FtcUtils.DEBUG || annotateFrame) {
+          for (DetectionTask detectionTask : detectionTasks) {
+            detectionTask.annotate(frame, detectionTask.gameElement.getSnapshot(), false);
+          }
+        }
+
+        return frame;
+      }
+
+      lastFrameSkipped = false;
+      long timestamp = System.nanoTime();
+      for (DetectionTask detectionTask : detectionTasks) {
+        detectionTask.setFrame(frame, timestamp, FtcUtils.DEBUG || annotateFrame);
+      }
+
+      FtcVisionExecutor.invokeAll(detectionTasks, snapshots, parallelEnabled);
+
+      // Merge in game element order, then annotate on this thread only.
+      for (int i = 0; i < detectionTasks.size(); i++) {
+        DetectionTask detectionTask = detectionTasks.get(i);
+        ElementSnapshot snapshot = snapshots.get(i);
+        if (snapshot != null) {
+          detectionTask.gameElement.publish(snapshot);
+          if (detectionTask.attendanceValid) {
+            detectionTask.gameElement.takeAttendance();
+          }
+
+          if (FtcUtils.DEBUG || annotateFrame) {
+            detectionTask.annotate(frame, snapshot, true);
           }
-        } else if (gameElement.tgeDetectionAlgorithm == ObjectDetectionAlgorithmEnum.CHANNEL) {
-          odbChn.processFrame(frame, gameElement, annotateFrame);
-          gameElement.takeAttendance();
-        } else if (gameElement.tgeDetectionAlgorithm == ObjectDetectionAlgorithmEnum.CONTOUR) {
-          odbCon.processFrame(frame, gameElement, annotateFrame);
-          gameElement.takeAttendance();
         }
       }
     } catch (Exception exception) {
@@ -86,6 +124,58 @@ public class MultipleObjectDetectionPipeline extends OpenCvPipeline {
     return frame;
   }
 
+  /**
+   * Determines whether the game element tracks are confident enough to skip detection.
+   * At least one game element must be tracked, and all tracked game elements must be confident.
+   *
+   * @return True if detection may be skipped for a frame.
+   */
+  private boolean tracksAreConfident() {
+    boolean confident = false;
+    for (GameElement gameElement : gameElements) {
+      if (gameElement.tracker.isConfident()) {
+        confident = true;
+      } else if (gameElement.tracker.getTracks().length > 0) {
+        return false;
+      }
+    }
+
+    return confident;
+  }
+
+  /**
+   * Gets the average time spent in a contour processing stage per frame,
+   * summed across all game elements.
+   *
+   * @param stage One of the ObjectDetectionByContour.STAGE_ constants.
+   * @return Average stage time, in milliseconds.
+   */
+  public double getStageAverageMs(int stage) {
+    double averageMs = 0;
+    for (DetectionTask detectionTask : detectionTasks) {
+      averageMs += detectionTask.odbCon.getStageAverageMs(stage);
+    }
+
+    return averageMs;
+  }
+
+  public void resetTimings() {
+    for (DetectionTask detectionTask : detectionTasks) {
+      detectionTask.odbCon.resetTimings();
+    }
+  }
+
+  /**
+   * Drops the tracking windows and tracks, so the next frame is a full detection.
+   * Must not be called while a frame is being processed.
+   */
+  public void resetTracking() {
+    for (GameElement gameElement : gameElements) {
+      gameElement.roi.reset();
+      gameElement.tracker.reset();
+    }
+  }
+
   @Override
   public void onViewportTapped() {
     /*
@@ -100,6 +190,76 @@ public class MultipleObjectDetectionPipeline extends OpenCvPipeline {
      */
   }
 
+  /**
+   * Detects a single game element. Each task owns its detectors, and hence its scratch Mats.
+   */
+  private static final class DetectionTask implements Callable<ElementSnapshot> {
+    final GameElement gameElement;
+    private final ObjectDetectionByChannel odbChn = new ObjectDetectionByChannel();
+    private final ObjectDetectionByContour odbCon = new ObjectDetectionByContour();
+    private ElementSnapshot chnSnapshot = ElementSnapshot.EMPTY;
+    private Mat frame;
+    private long timestamp;
+
+    // True if the attendance should be taken for the current frame.
+    boolean attendanceValid;
+
+    DetectionTask(GameElement gameElement) {
+      this.gameElement = gameElement;
+    }
+
+    void init(Mat firstFrame) {
+      odbChn.init(firstFrame);
+      odbCon.init(firstFrame);
+      gameElement.roi.init(firstFrame);
+    }
+
+    void setFrame(Mat frame, long timestamp, boolean annotate) {
+      this.frame = frame;
+      this.timestamp = timestamp;
+      odbCon.collectContours = annotate;
+    }
+
+    /**
+     * @param drawContours When true, also draws the contours of the frame just processed.
+     */
+    void annotate(Mat frame, ElementSnapshot snapshot, boolean drawContours) {
+      if (drawContours && gameElement.tgeDetectionAlgorithm != ObjectDetectionAlgorithmEnum.CHANNEL) {
+        odbCon.drawContours(frame, gameElement.elementColor, gameElement.borderSize);
+      }
+
+      if (gameElement.tgeDetectionAlgorithm == ObjectDetectionAlgorithmEnum.CONTOUR_AND_CHANNEL) {
+        ObjectDetectionByChannel.annotate(frame, gameElement, chnSnapshot);
+        ObjectDetectionByContour.annotate(frame, gameElement, snapshot);
+      } else if (gameElement.tgeDetectionAlgorithm == ObjectDetectionAlgorithmEnum.CHANNEL) {
+        ObjectDetectionByChannel.annotate(frame, gameElement, snapshot);
+      } else if (gameElement.tgeDetectionAlgorithm == ObjectDetectionAlgorithmEnum.CONTOUR) {
+        ObjectDetectionByContour.annotate(frame, gameElement, snapshot);
+      }
+    }
+
+    @Override
+    public ElementSnapshot call() {
+      ElementSnapshot snapshot = null;
+      attendanceValid = false;
+      if (gameElement.tgeDetectionAlgorithm == ObjectDetectionAlgorithmEnum.CONTOUR_AND_CHANNEL) {
+        chnSnapshot = odbChn.processFrame(frame, gameElement, timestamp);
+        snapshot = odbCon.processFrame(frame, gameElement, timestamp);
+        gameElement.tracker.update(odbCon.getDetections(), timestamp);
+        attendanceValid = chnSnapshot.found == snapshot.found;
+      } else if (gameElement.tgeDetectionAlgorithm == ObjectDetectionAlgorithmEnum.CHANNEL) {
+        snapshot = odbChn.processFrame(frame, gameElement, timestamp);
+        attendanceValid = true;
+      } else if (gameElement.tgeDetectionAlgorithm == ObjectDetectionAlgorithmEnum.CONTOUR) {
+        snapshot = odbCon.processFrame(frame, gameElement, timestamp);
+        gameElement.tracker.update(odbCon.getDetections(), timestamp);
+        attendanceValid = true;
+      }
+
+      return snapshot;
+    }
+  }
+
   public void draw(Mat input, RotatedRect rotatedRect, Scalar color, int thickness) {
     Point[] points = new Point[4];
     try {
@@ -3,11 +3,12 @@ package org.firstinspires.ftc.teamcode.qubit.core;
 import org.opencv.core.Mat;
 import org.opencv.core.Point;
 import org.opencv.core.Rect;
-import org.opencv.imgproc.Imgproc;
 
 import java.util.ArrayList;
+import java.util.List;
 
 public class ObjectDetectionBase {
+  // Target regions are declared for a CAMERA_WIDTH x CAMERA_HEIGHT frame.
   protected final Rect leftRect, centerRect, rightRect;
   protected final ArrayList<Rect> targetMatRects;
 
@@ -21,27 +22,28 @@ public class ObjectDetectionBase {
   }
 
   /**
-   * Blots out region of the frame that is outside the target areas.
+   * Gets the target regions. Detection outside these regions is not needed.
    *
-   * @param frame The input image frame.
+   * @return The target regions, declared for a CAMERA_WIDTH x CAMERA_HEIGHT frame.
    */
-  protected void blotFrame(Mat frame) {
-    // Save original frame.
-    Mat cloneSubMat, frameSubMat;
-    Mat clonedMat = frame.clone();
-
-    // Blot out the entire original frame.
-    Imgproc.rectangle(frame, FtcOpenCvCam.cameraRect, FtcColorUtils.RGB_WHITE, Imgproc.FILLED);
-
-    // Copy the desired areas from clone to original frame.
-    for (Rect rect : targetMatRects) {
-      cloneSubMat = clonedMat.submat(rect);
-      frameSubMat = frame.submat(rect);
-      cloneSubMat.copyTo(frameSubMat);
-      cloneSubMat.release();
-      frameSubMat.release();
-    }
+  public List<Rect> getTargetRects() {
+    return targetMatRects;
+  }
 
-    clonedMat.release();
+  /**
+   * Scales a target region to the actual frame size.
+   *
+   * @param rect  The target region, declared for a CAMERA_WIDTH x CAMERA_HEIGHT frame.
+   * @param frame The frame to scale the region to.
+   * @return The target region in frame coordinates.
+   */
+  protected static Rect scaleToFrame(Rect rect, Mat frame) {
+    double xScale = (double) frame.width() / FtcOpenCvCam.CAMERA_WIDTH;
+    double yScale = (double) frame.height() / FtcOpenCvCam.CAMERA_HEIGHT;
+    Rect scaledRect = new Rect((int) (rect.x * xScale), (int) (rect.y * yScale),
+        (int) (rect.width * xScale), (int) (rect.height * yScale));
+    scaledRect.width = Math.min(scaledRect.width, frame.width() - scaledRect.x);
+    scaledRect.height = Math.min(scaledRect.height, frame.height() - scaledRect.y);
+    return scaledRect;
   }
 }
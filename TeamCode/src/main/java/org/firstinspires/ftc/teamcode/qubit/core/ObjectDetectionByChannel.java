@@ -5,96 +5,106 @@ import android.annotation.SuppressLint;
 import org.opencv.core.Core;
 import org.opencv.core.Mat;
 import org.opencv.core.Point;
+import org.opencv.core.Rect;
 import org.opencv.core.RotatedRect;
 import org.opencv.imgproc.Imgproc;
 
 public class ObjectDetectionByChannel extends ObjectDetectionBase {
 
   private final Mat yCrCbMat;
-  private final Mat Cr;
-  private final Mat Cb;
-  private Mat regionCenterCr, regionRightCr;
-  private Mat regionCenterCb, regionRightCb;
-  private int avgCenter, avgRight;
+  private Rect frameCenterRect, frameRightRect;
   private final int avgThreshold = 130;
-  private RotatedRect rRect;
 
   public ObjectDetectionByChannel() {
     yCrCbMat = new Mat();
-    Cr = new Mat();
-    Cb = new Mat();
-    regionCenterCr = new Mat();
-    regionCenterCb = new Mat();
-    regionRightCr = new Mat();
-    regionRightCb = new Mat();
+    frameCenterRect = centerRect;
+    frameRightRect = rightRect;
   }
 
   /**
    * PERFORMANCE
-   * Initializes various Mats and sub mats so that we don't need to
-   * reinitialize them on every frame..
+   * Scales the target regions to the frame size so that we don't need to
+   * recompute them on every frame.
    *
    * @param firstFrame The very first frame that is processed.
    */
   public void init(Mat firstFrame) {
-    Imgproc.cvtColor(firstFrame, yCrCbMat, Imgproc.COLOR_RGB2YCrCb);
-    Core.extractChannel(yCrCbMat, Cb, FtcColorUtils.CB_CHANNEL);
-    Core.extractChannel(yCrCbMat, Cr, FtcColorUtils.CR_CHANNEL);
-
-    /*
-     * Submats are a persistent reference to a region of the parent
-     * buffer. Any change to the child affects the parent and vice-versa.
-     */
-    regionCenterCb = Cb.submat(centerRect);
-    regionRightCb = Cb.submat(rightRect);
+    frameCenterRect = scaleToFrame(centerRect, firstFrame);
+    frameRightRect = scaleToFrame(rightRect, firstFrame);
+  }
 
-    regionCenterCr = Cr.submat(centerRect);
-    regionRightCr = Cr.submat(rightRect);
+  /**
+   * PERFORMANCE
+   * Computes the mean of a YCrCb channel over a region of the frame.
+   * Only the region is color converted, not the entire frame.
+   *
+   * @param frame   The input RGB frame.
+   * @param rect    The region of the frame to evaluate.
+   * @param channel The YCrCb channel to average.
+   * @return The channel mean over the region.
+   */
+  private int regionMean(Mat frame, Rect rect, int channel) {
+    Mat region = frame.submat(rect);
+    Imgproc.cvtColor(region, yCrCbMat, Imgproc.COLOR_RGB2YCrCb);
+    region.release();
+    return (int) Core.mean(yCrCbMat).val[channel];
   }
 
   /**
    * Process the current frame, looking for the game element.
+   * Does not modify the frame, so it may run concurrently with other detections.
    *
-   * @param frame         The input frame to process.
-   * @param gameElement   The game element to look for.
-   * @param annotateFrame When true,draws annotations on the frame. Helps with debugging.
+   * @param frame       The input frame to process.
+   * @param gameElement The game element to look for.
+   * @param timestamp   System.nanoTime() when the frame processing started.
+   * @return The detection result for this frame.
    */
-  @SuppressLint("DefaultLocale")
-  public void processFrame(Mat frame, GameElement gameElement, boolean annotateFrame) {
-    Imgproc.cvtColor(frame, yCrCbMat, Imgproc.COLOR_RGB2YCrCb);
-    Core.extractChannel(yCrCbMat, Cb, FtcColorUtils.CB_CHANNEL);
-    Core.extractChannel(yCrCbMat, Cr, FtcColorUtils.CR_CHANNEL);
-
+  public ElementSnapshot processFrame(Mat frame, GameElement gameElement, long timestamp) {
+    int avgCenter, avgRight;
     // Process Image
     if (gameElement.tag.equals(FtcColorUtils.TAG_BLUE)) {
-      avgCenter = (int) Core.mean(regionCenterCb).val[0];
-      avgRight = (int) Core.mean(regionRightCb).val[0];
+      avgCenter = regionMean(frame, frameCenterRect, FtcColorUtils.CB_CHANNEL);
+      avgRight = regionMean(frame, frameRightRect, FtcColorUtils.CB_CHANNEL);
     } else if (gameElement.tag.equals(FtcColorUtils.TAG_RED1) || gameElement.tag.equals(FtcColorUtils.TAG_RED2)) {
-      avgCenter = (int) Core.mean(regionCenterCr).val[0];
-      avgRight = (int) Core.mean(regionRightCr).val[0];
+      avgCenter = regionMean(frame, frameCenterRect, FtcColorUtils.CR_CHANNEL);
+      avgRight = regionMean(frame, frameRightRect, FtcColorUtils.CR_CHANNEL);
     } else {
       avgCenter = avgRight = 0;
     }
 
-    gameElement.invalidate();
+    Rect rect = null;
+    int average = 0;
     if (avgCenter > avgThreshold) {
-      rRect = new RotatedRect(FtcUtils.getMidpoint(centerRect), centerRect.size(), 0);
-      gameElement.validate(rRect, FtcUtils.getAspectRatio(centerRect), centerRect.area());
-      if (FtcUtils.DEBUG || annotateFrame) {
-        Imgproc.rectangle(frame, gameElement.boundingRect, FtcColorUtils.RGB_YELLOW, gameElement.borderSize);
-        Imgproc.putText(frame, String.format("%s: Avg %d", gameElement.tag, avgCenter),
-            new Point(gameElement.boundingRect.x, gameElement.boundingRect.y - 40),
-            Imgproc.FONT_HERSHEY_SIMPLEX, 0.6, gameElement.elementColor, gameElement.borderSize);
-      }
+      rect = frameCenterRect;
+      average = avgCenter;
     } else if (avgRight > avgThreshold) {
-      rRect = new RotatedRect(FtcUtils.getMidpoint(rightRect), rightRect.size(), 0);
-      gameElement.validate(rRect, FtcUtils.getAspectRatio(rightRect), rightRect.area());
-      if (FtcUtils.DEBUG || annotateFrame) {
-        Imgproc.rectangle(frame, gameElement.boundingRect, FtcColorUtils.RGB_YELLOW, gameElement.borderSize);
-        Imgproc.putText(frame, String.format("%s: Avg %d", gameElement.tag, avgRight),
-            new Point(gameElement.boundingRect.x, gameElement.boundingRect.y - 40),
-            Imgproc.FONT_HERSHEY_SIMPLEX, 0.6, gameElement.elementColor, gameElement.borderSize);
-      }
+      rect = frameRightRect;
+      average = avgRight;
+    }
+
+    if (rect == null) {
+      return new ElementSnapshot(timestamp);
+    }
+
+    RotatedRect rRect = new RotatedRect(FtcUtils.getMidpoint(rect), rect.size(), 0);
+    return new ElementSnapshot(rRect, FtcUtils.getAspectRatio(rect), rect.area(), average, null, timestamp);
+  }
+
+  /**
+   * Draws the game element detection result on the frame. Helps with debugging.
+   * Must be called on the pipeline thread after all detections are complete.
+   *
+   * @param frame       The frame to annotate.
+   * @param gameElement The game element that was looked for.
+   * @param snapshot    The detection result to draw.
+   */
+  @SuppressLint("DefaultLocale")
+  public static void annotate(Mat frame, GameElement gameElement, ElementSnapshot snapshot) {
+    if (snapshot.found) {
+      Imgproc.rectangle(frame, snapshot.boundingRect, FtcColorUtils.RGB_YELLOW, gameElement.borderSize);
+      Imgproc.putText(frame, String.format("%s: Avg %d", gameElement.tag, snapshot.channelAverage),
+          new Point(snapshot.boundingRect.x, snapshot.boundingRect.y - 40),
+          Imgproc.FONT_HERSHEY_SIMPLEX, 0.6, gameElement.elementColor, gameElement.borderSize);
     }
   }
 }
@@ -9,15 +9,89 @@ import org.opencv.core.Mat;
 import org.opencv.core.MatOfPoint;
 import org.opencv.core.MatOfPoint2f;
 import org.opencv.core.Point;
+import org.opencv.core.Rect;
 import org.opencv.core.RotatedRect;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
 import org.opencv.imgproc.Imgproc;
 
 import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * A contour analysis engine to detect game elements and samples.
+ * <p>
+ * PERFORMANCE
+ * All Mats are allocated once and reused across frames. Contours are filtered
+ * by the cheapest tests first: point count, bounding box area and contour area. Bounding boxes
+ * are computed from a reused point buffer, so rejected contours allocate nothing beyond the
+ * MatOfPoint that findContours creates for every contour.
+ * The polygon approximation and minimum area rectangle are computed only for contours
+ * that could be among the largest detections so far. Per-stage timings are accumulated
+ * so that the pipeline cost can be shown on telemetry. They are summed per frame on the
+ * detecting thread and published as an immutable snapshot, so readers on other threads never
+ * see a torn total and a reset never races with an update.
+ */
 public class ObjectDetectionByContour extends ObjectDetectionBase {
+  private static final Size ZERO_SIZE = new Size();
+
+  // Processing stages for timing counters.
+  public static final int STAGE_PREPROCESS = 0; // resize, color conversion, threshold, morphology
+  public static final int STAGE_CONTOURS = 1; // contour extraction
+  public static final int STAGE_ANALYSIS = 2; // contour filtering and shape analysis
+  public static final int STAGE_COUNT = 3;
+
   private final Mat alternativeColorMat = new Mat();
   private final Mat processedMat = new Mat();
+  private final Mat scaledMat = new Mat();
+  private final Mat hierarchyMat = new Mat();
+  private final Mat morphKernel = new Mat(); // Empty kernel is a 3x3 rectangle
+  private final MatOfPoint2f curve = new MatOfPoint2f();
+  private final MatOfPoint2f approxCurve = new MatOfPoint2f();
+  private final ArrayList<MatOfPoint> contours = new ArrayList<>();
+  private final RotatedRect bestRect = new RotatedRect();
+
+  // Contour points, grown as needed, to compute bounding boxes without allocating.
+  private int[] contourPoints = new int[256];
+  private final FtcVisionTracker.Detections detections = new FtcVisionTracker.Detections();
+
+  // Contours within the area thresholds of the last processed frame, in frame coordinates.
+  // Only collected while annotating, for debugging.
+  public volatile boolean collectContours = false;
+  private final ArrayList<MatOfPoint> annotationContours = new ArrayList<>();
+
+  // Timing totals, replaced as a whole once per frame and by resetTimings().
+  private final AtomicReference<Timings> timings = new AtomicReference<>(Timings.EMPTY);
+
+  // Timings of the frame being processed, on the detecting thread only.
+  private final long[] frameStageNanos = new long[STAGE_COUNT];
+  private long frameContourCount, frameAnalyzedCount;
+
+  /**
+   * Immutable timing totals since the last reset.
+   */
+  private static final class Timings {
+    static final Timings EMPTY = new Timings(new long[STAGE_COUNT], 0, 0, 0);
+
+    final long[] stageNanos;
+    final long frameCount, contourCount, analyzedCount;
+
+    Timings(long[] stageNanos, long frameCount, long contourCount, long analyzedCount) {
+      this.stageNanos = stageNanos;
+      this.frameCount = frameCount;
+      this.contourCount = contourCount;
+      this.analyzedCount = analyzedCount;
+    }
+
+    Timings plusFrame(long[] frameStageNanos, long contours, long analyzed) {
+      long[] totals = new long[STAGE_COUNT];
+      for (int i = 0; i < STAGE_COUNT; i++) {
+        totals[i] = stageNanos[i] + frameStageNanos[i];
+      }
+
+      return new Timings(totals, frameCount + 1, contourCount + contours, analyzedCount + analyzed);
+    }
+  }
 
   public ObjectDetectionByContour() {
   }
@@ -30,157 +104,332 @@ public class ObjectDetectionByContour extends ObjectDetectionBase {
    * @param firstFrame The very first frame that is processed.
    */
   public void init(Mat firstFrame) {
+    resetTimings();
+  }
+
+  /**
+   * Gets the average time spent in a processing stage, per frame.
+   *
+   * @param stage One of the STAGE_ constants.
+   * @return Average stage time, in milliseconds.
+   */
+  public double getStageAverageMs(int stage) {
+    Timings current = timings.get();
+    return current.frameCount == 0 ? 0 : current.stageNanos[stage] / (current.frameCount * 1e6);
+  }
+
+  /**
+   * Gets the fraction of contours that survived the cheap filters and
+   * needed the expensive shape analysis.
+   *
+   * @return The analyzed fraction, 0 to 1.
+   */
+  public double getAnalyzedFraction() {
+    Timings current = timings.get();
+    return current.contourCount == 0 ? 0 : (double) current.analyzedCount / current.contourCount;
+  }
+
+  /**
+   * Gets the largest detections of the most recently processed frame, for tracking.
+   * Only valid until the next frame is processed by this detector.
+   *
+   * @return The detections, in frame coordinates.
+   */
+  public FtcVisionTracker.Detections getDetections() {
+    return detections;
+  }
+
+  public long getFrameCount() {
+    return timings.get().frameCount;
+  }
+
+  /**
+   * Clears the timing totals. Safe to call from any thread.
+   */
+  public void resetTimings() {
+    timings.set(Timings.EMPTY);
+  }
+
+  /**
+   * Adds the timings of the frame just processed to the totals. A concurrent reset
+   * keeps this frame only.
+   */
+  private void publishFrameTimings() {
+    Timings current, next;
+    do {
+      current = timings.get();
+      next = current.plusFrame(frameStageNanos, frameContourCount, frameAnalyzedCount);
+    } while (!timings.compareAndSet(current, next));
   }
 
   /**
    * Process the current frame, looking for the game element.
+   * Does not modify the frame, so it may run concurrently with other detections.
+   *
+   * @param frame       The input frame to process.
+   * @param gameElement The game element to look for.
+   * @param timestamp   System.nanoTime() when the frame processing started.
+   * @return The detection result for this frame.
+   */
+  public ElementSnapshot processFrame(Mat frame, GameElement gameElement, long timestamp) {
+    return processFrame(frame, gameElement.roi, gameElement.colorConversionCode,
+        gameElement.lowerColorThreshold, gameElement.upperColorThreshold,
+        gameElement.geometricShapeEnum, gameElement.minSize.area(), gameElement.maxSize.area(),
+        gameElement.minAspectRatio, gameElement.maxAspectRatio, timestamp);
+  }
+
+  /**
+   * Process the current frame, looking for the sample.
+   * Does not modify the frame, so it may run concurrently with other detections.
    *
    * @param frame         The input frame to process.
-   * @param gameElement   The game element to look for.
-   * @param annotateFrame When true,draws annotations on the frame. Helps with debugging.
+   * @param sampleElement The sample to look for.
+   * @param timestamp     System.nanoTime() when the frame processing started.
+   * @return The detection result for this frame.
    */
-  @SuppressLint("DefaultLocale")
-  public void processFrame(Mat frame, GameElement gameElement, boolean annotateFrame) {
-    Imgproc.cvtColor(frame, alternativeColorMat, gameElement.colorConversionCode);
-    Core.inRange(alternativeColorMat, gameElement.lowerColorThreshold,
-        gameElement.upperColorThreshold, processedMat);
+  public ElementSnapshot processFrame(Mat frame, SampleElement sampleElement, long timestamp) {
+    return processFrame(frame, sampleElement.roi, sampleElement.colorConversionCode,
+        sampleElement.lowerColorThreshold, sampleElement.upperColorThreshold,
+        sampleElement.geometricShapeEnum, sampleElement.minSize.area(), sampleElement.maxSize.area(),
+        sampleElement.minAspectRatio, sampleElement.maxAspectRatio, timestamp);
+  }
+
+  /**
+   * Looks for the largest contour that matches the color thresholds, area, aspect ratio
+   * and shape. Only the regions of interest are processed, optionally downsampled
+   * to the ROI pyramid level. Results are mapped back to full frame coordinates.
+   *
+   * @return The detection result for this frame.
+   */
+  private ElementSnapshot processFrame(Mat frame, FtcVisionRoi roi, int colorConversionCode,
+                                       Scalar lowerColorThreshold, Scalar upperColorThreshold,
+                                       GeometricShapeEnum geometricShapeEnum,
+                                       double minArea, double maxArea,
+                                       double minAspectRatio, double maxAspectRatio,
+                                       long timestamp) {
+    int scale = roi.getScale();
+    int scale2 = scale * scale;
+    boolean found = false;
+    double bestArea = 0, bestAspectRatio = 0;
+    boolean collecting = collectContours;
+    detections.clear();
+    releaseAnnotationContours();
+    for (int i = 0; i < STAGE_COUNT; i++) {
+      frameStageNanos[i] = 0;
+    }
 
-    // Remove Noise
-    Imgproc.morphologyEx(processedMat, processedMat, Imgproc.MORPH_OPEN, new Mat());
-    Imgproc.morphologyEx(processedMat, processedMat, Imgproc.MORPH_CLOSE, new Mat());
+    frameContourCount = frameAnalyzedCount = 0;
+    for (Rect searchRect : roi.getSearchRects()) {
+      long startTime = System.nanoTime();
+
+      // PERFORMANCE: sub mat shares the frame pixels, no copy is made.
+      Mat region = frame.submat(searchRect);
+      Mat source = region;
+      if (scale > 1) {
+        Imgproc.resize(region, scaledMat, ZERO_SIZE, 1.0 / scale, 1.0 / scale, Imgproc.INTER_AREA);
+        source = scaledMat;
+      }
 
-    // Find Contours within the color thresholds
-    List<MatOfPoint> contours = new ArrayList<>();
-    Imgproc.findContours(processedMat, contours, new Mat(), Imgproc.RETR_LIST,
-        Imgproc.CHAIN_APPROX_SIMPLE);
+      Imgproc.cvtColor(source, alternativeColorMat, colorConversionCode);
+      region.release();
+      Core.inRange(alternativeColorMat, lowerColorThreshold, upperColorThreshold, processedMat);
 
-    if (FtcUtils.DEBUG || annotateFrame) {
+      // Remove Noise
+      Imgproc.morphologyEx(processedMat, processedMat, Imgproc.MORPH_OPEN, morphKernel);
+      Imgproc.morphologyEx(processedMat, processedMat, Imgproc.MORPH_CLOSE, morphKernel);
+      long contourTime = System.nanoTime();
+      frameStageNanos[STAGE_PREPROCESS] += contourTime - startTime;
+
+      // Find Contours within the color thresholds
+      Imgproc.findContours(processedMat, contours, hierarchyMat, Imgproc.RETR_LIST,
+          Imgproc.CHAIN_APPROX_SIMPLE);
+      long analysisTime = System.nanoTime();
+      frameStageNanos[STAGE_CONTOURS] += analysisTime - contourTime;
+      frameContourCount += contours.size();
+
+      // Loop Through Contours, cheapest tests first.
       for (int i = 0; i < contours.size(); i++) {
-        double contourArea = Imgproc.contourArea(contours.get(i));
-        if (contourArea >= gameElement.minSize.area()
-            && contourArea <= gameElement.maxSize.area()) {
-          Imgproc.drawContours(frame, contours, i, gameElement.elementColor,
-              gameElement.borderSize);
+        MatOfPoint contour = contours.get(i);
+        if (contour.rows() < 3) {
+          contour.release();
+          continue;
         }
-      }
-    }
 
-    gameElement.invalidate();
+        // Contour area can't exceed its bounding box area.
+        // Contours smaller than the retained detections need no analysis.
+        double admissionArea = detections.getAdmissionArea();
+        double boxArea = getBoundingBoxArea(contour) * scale2;
+        if (boxArea < minArea) {
+          contour.release();
+          continue;
+        }
 
-    // Loop Through Contours
-    for (MatOfPoint contour : contours) {
-      boolean geometricShapeMatched = true;
-      if (gameElement.geometricShapeEnum != GeometricShapeEnum.UNKNOWN) {
-        MatOfPoint2f curve = new MatOfPoint2f();
-        MatOfPoint2f approxCurve = new MatOfPoint2f();
-        contour.convertTo(curve, CvType.CV_32F);
-        Imgproc.approxPolyDP(curve, approxCurve, 0.01 * Imgproc.arcLength(curve, true), true);
-        geometricShapeMatched = gameElement.geometricShapeEnum.match(approxCurve.total());
-        curve.release();
-        approxCurve.release();
-      }
+        // Area in full frame pixels.
+        double contourArea = -1;
+        if (collecting) {
+          contourArea = Imgproc.contourArea(contour) * scale2;
+          if (contourArea >= minArea && contourArea <= maxArea) {
+            collectContour(contour, searchRect, scale);
+          }
+        }
+
+        if (boxArea <= admissionArea) {
+          contour.release();
+          continue;
+        }
+
+        if (contourArea < 0) contourArea = Imgproc.contourArea(contour) * scale2;
+        if (contourArea < minArea || contourArea <= admissionArea || contourArea > maxArea) {
+          contour.release();
+          continue;
+        }
 
-      double contourArea = Imgproc.contourArea(contour);
-      if (geometricShapeMatched && contourArea >= gameElement.minSize.area()
-          && contourArea > gameElement.area
-          && contourArea <= gameElement.maxSize.area()) {
         // Found contour within the area thresholds
-        Point[] contourArray = contour.toArray();
-        MatOfPoint2f areaPoints = new MatOfPoint2f(contourArray);
-        RotatedRect tempRect = Imgproc.minAreaRect(areaPoints);
-        areaPoints.release();
+        frameAnalyzedCount++;
+        contour.convertTo(curve, CvType.CV_32F);
+        RotatedRect tempRect = Imgproc.minAreaRect(curve);
         double aspectRatio = FtcUtils.getAspectRatio(tempRect);
-        if (aspectRatio >= gameElement.minAspectRatio && aspectRatio <= gameElement.maxAspectRatio) {
-          // Found contour within the aspect ratio thresholds
-          gameElement.validate(tempRect, aspectRatio, contourArea);
+        boolean matched = aspectRatio >= minAspectRatio && aspectRatio <= maxAspectRatio;
+        if (matched && geometricShapeEnum != GeometricShapeEnum.UNKNOWN) {
+          Imgproc.approxPolyDP(curve, approxCurve, 0.01 * Imgproc.arcLength(curve, true), true);
+          matched = geometricShapeEnum.match(approxCurve.total());
+        }
+
+        if (matched) {
+          // Found contour within the aspect ratio thresholds and shape
+          roi.mapToFrame(tempRect, searchRect);
+          detections.add(tempRect, contourArea);
+          if (contourArea > bestArea) {
+            FtcUtils.copyRect(tempRect, bestRect);
+            bestArea = contourArea;
+            bestAspectRatio = aspectRatio;
+            found = true;
+          }
         }
+
+        contour.release();
       }
 
-      contour.release();
+      contours.clear();
+      frameStageNanos[STAGE_ANALYSIS] += System.nanoTime() - analysisTime;
     }
 
-    if (gameElement.elementFound()) {
-      if (FtcUtils.DEBUG || annotateFrame) {
-        Imgproc.rectangle(frame, gameElement.boundingRect, gameElement.elementColor, gameElement.borderSize);
+    publishFrameTimings();
 
-        // Display Data
-        Imgproc.putText(frame, String.format("%s: A%.0f AR%.2f",
-                gameElement.tag, gameElement.area, gameElement.aspectRatio),
-            new Point(gameElement.boundingRect.x, gameElement.boundingRect.y - 20),
-            Imgproc.FONT_HERSHEY_SIMPLEX, 0.6, gameElement.elementColor, gameElement.borderSize);
-      }
+    // The snapshot keeps the regions searched in this frame, before the ROI moves on.
+    ElementSnapshot snapshot = found
+        ? new ElementSnapshot(bestRect, bestAspectRatio, bestArea, 0, roi.getSearchRects(), timestamp)
+        : new ElementSnapshot(roi.getSearchRects(), timestamp);
+    roi.update(snapshot.found, snapshot.boundingRect);
+    return snapshot;
+  }
+
+  /**
+   * Computes the area of the upright bounding box of a contour, reading its points into
+   * a reused buffer. Imgproc.boundingRect allocates a Rect per call.
+   */
+  private double getBoundingBoxArea(MatOfPoint contour) {
+    int length = (int) contour.total() * 2;
+    if (contourPoints.length < length) {
+      contourPoints = new int[Math.max(length, contourPoints.length * 2)];
     }
+
+    contour.get(0, 0, contourPoints);
+    int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+    int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+    for (int i = 0; i < length; i += 2) {
+      minX = Math.min(minX, contourPoints[i]);
+      maxX = Math.max(maxX, contourPoints[i]);
+      minY = Math.min(minY, contourPoints[i + 1]);
+      maxY = Math.max(maxY, contourPoints[i + 1]);
+    }
+
+    // Inclusive pixel bounds, as Imgproc.boundingRect.
+    return (double) (maxX - minX + 1) * (maxY - minY + 1);
   }
-  @SuppressLint("DefaultLocale")
-  public void processFrame(Mat frame, SampleElement sampleElement, boolean annotateFrame) {
-    Imgproc.cvtColor(frame, alternativeColorMat, sampleElement.colorConversionCode);
-    Core.inRange(alternativeColorMat, sampleElement.lowerColorThreshold,
-        sampleElement.upperColorThreshold, processedMat);
 
-    // Remove Noise
-    Imgproc.morphologyEx(processedMat, processedMat, Imgproc.MORPH_OPEN, new Mat());
-    Imgproc.morphologyEx(processedMat, processedMat, Imgproc.MORPH_CLOSE, new Mat());
+  /**
+   * Copies a contour to the annotation contours, mapped to frame coordinates.
+   */
+  private void collectContour(MatOfPoint contour, Rect searchRect, int scale) {
+    Point[] points = contour.toArray();
+    for (Point point : points) {
+      point.x = point.x * scale + searchRect.x;
+      point.y = point.y * scale + searchRect.y;
+    }
 
-    // Find Contours within the color thresholds
-    List<MatOfPoint> contours = new ArrayList<>();
-    Imgproc.findContours(processedMat, contours, new Mat(), Imgproc.RETR_LIST,
-        Imgproc.CHAIN_APPROX_SIMPLE);
+    annotationContours.add(new MatOfPoint(points));
+  }
 
-    if (FtcUtils.DEBUG || annotateFrame) {
-      for (int i = 0; i < contours.size(); i++) {
-        double contourArea = Imgproc.contourArea(contours.get(i));
-        if (contourArea >= sampleElement.minSize.area()
-            && contourArea <= sampleElement.maxSize.area()) {
-          Imgproc.drawContours(frame, contours, i, sampleElement.elementColor,
-              sampleElement.borderSize);
-        }
-      }
+  private void releaseAnnotationContours() {
+    for (MatOfPoint contour : annotationContours) {
+      contour.release();
     }
 
-    sampleElement.invalidate();
+    annotationContours.clear();
+  }
 
-    // Loop Through Contours
-    for (MatOfPoint contour : contours) {
-      boolean geometricShapeMatched = true;
-      if (sampleElement.geometricShapeEnum != GeometricShapeEnum.UNKNOWN) {
-        MatOfPoint2f curve = new MatOfPoint2f();
-        MatOfPoint2f approxCurve = new MatOfPoint2f();
-        contour.convertTo(curve, CvType.CV_32F);
-        Imgproc.approxPolyDP(curve, approxCurve, 0.01 * Imgproc.arcLength(curve, true), true);
-        geometricShapeMatched = sampleElement.geometricShapeEnum.match(approxCurve.total());
-        curve.release();
-        approxCurve.release();
-      }
+  /**
+   * Draws the contours within the area thresholds of the last processed frame.
+   * Must be called on the pipeline thread after all detections are complete.
+   *
+   * @param frame     The frame to annotate.
+   * @param color     The contour color.
+   * @param thickness The contour thickness.
+   */
+  public void drawContours(Mat frame, Scalar color, int thickness) {
+    if (!annotationContours.isEmpty()) {
+      Imgproc.drawContours(frame, annotationContours, -1, color, thickness);
+    }
+  }
 
-      double contourArea = Imgproc.contourArea(contour);
-      if (geometricShapeMatched && contourArea >= sampleElement.minSize.area()
-          && contourArea > sampleElement.area
-          && contourArea <= sampleElement.maxSize.area()) {
-        // Found contour within the area thresholds
-        Point[] contourArray = contour.toArray();
-        MatOfPoint2f areaPoints = new MatOfPoint2f(contourArray);
-        RotatedRect tempRect = Imgproc.minAreaRect(areaPoints);
-        areaPoints.release();
-        double aspectRatio = FtcUtils.getAspectRatio(tempRect);
-        if (aspectRatio >= sampleElement.minAspectRatio && aspectRatio <= sampleElement.maxAspectRatio) {
-          // Found contour within the aspect ratio thresholds
-          sampleElement.validate(tempRect, aspectRatio, contourArea);
-        }
-      }
+  /**
+   * Draws the game element detection result on the frame. Helps with debugging.
+   * Must be called on the pipeline thread after all detections are complete.
+   *
+   * @param frame       The frame to annotate.
+   * @param gameElement The game element that was looked for.
+   * @param snapshot    The detection result to draw.
+   */
+  @SuppressLint("DefaultLocale")
+  public static void annotate(Mat frame, GameElement gameElement, ElementSnapshot snapshot) {
+    for (Rect searchRect : snapshot.searchRects) {
+      Imgproc.rectangle(frame, searchRect, FtcColorUtils.RGB_GRAY, 1);
+    }
 
-      contour.release();
+    if (snapshot.found) {
+      Imgproc.rectangle(frame, snapshot.boundingRect, gameElement.elementColor, gameElement.borderSize);
+
+      // Display Data
+      Imgproc.putText(frame, String.format("%s: A%.0f AR%.2f",
+              gameElement.tag, snapshot.area, snapshot.aspectRatio),
+          new Point(snapshot.boundingRect.x, snapshot.boundingRect.y - 20),
+          Imgproc.FONT_HERSHEY_SIMPLEX, 0.6, gameElement.elementColor, gameElement.borderSize);
+    }
+  }
+
+  /**
+   * Draws the sample detection result on the frame. Helps with debugging.
+   * Must be called on the pipeline thread after all detections are complete.
+   *
+   * @param frame         The frame to annotate.
+   * @param sampleElement The sample that was looked for.
+   * @param snapshot      The detection result to draw.
+   */
+  @SuppressLint("DefaultLocale")
+  public static void annotate(Mat frame, SampleElement sampleElement, ElementSnapshot snapshot) {
+    for (Rect searchRect : snapshot.searchRects) {
+      Imgproc.rectangle(frame, searchRect, FtcColorUtils.RGB_GRAY, 1);
     }
 
-    if (sampleElement.elementFound()) {
-      if (FtcUtils.DEBUG || annotateFrame) {
-        Imgproc.rectangle(frame, sampleElement.boundingRect, sampleElement.elementColor, sampleElement.borderSize);
+    if (snapshot.found) {
+      Imgproc.rectangle(frame, snapshot.boundingRect, sampleElement.elementColor, sampleElement.borderSize);
 
-        // Display Data
-        Imgproc.putText(frame, String.format("%s: A %.0f AR %.2f",
-                sampleElement.tag, sampleElement.area, sampleElement.aspectRatio),
-            new Point(sampleElement.boundingRect.x, sampleElement.boundingRect.y - 20),
-            Imgproc.FONT_HERSHEY_SIMPLEX, 0.6, sampleElement.elementColor, sampleElement.borderSize);
-      }
+      // Display Data
+      Imgproc.putText(frame, String.format("%s: A %.0f AR %.2f",
+              sampleElement.tag, snapshot.area, snapshot.aspectRatio),
+          new Point(snapshot.boundingRect.x, snapshot.boundingRect.y - 20),
+          Imgproc.FONT_HERSHEY_SIMPLEX, 0.6, sampleElement.elementColor, sampleElement.borderSize);
     }
   }
 }
@@ -10,6 +10,9 @@ import org.opencv.imgproc.Imgproc;
 import org.openftc.easyopencv.OpenCvPipeline;
 import org.openftc.easyopencv.OpenCvWebcam;
 
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+
 public class SampleDetectionPipeline extends OpenCvPipeline {
   private static final String TAG = "MsdPipeline";
   private OpenCvWebcam openCvWebcam = null;
@@ -18,7 +21,15 @@ public class SampleDetectionPipeline extends OpenCvPipeline {
   // Volatile because accessed by OpMode without syncObject
   public volatile boolean error = false;
   public volatile Exception lastException = null;
-  private final ObjectDetectionByContour odbCon;
+  // When true, samples are detected concurrently on the vision thread pool.
+  public boolean parallelEnabled = true;
+  // When true, detection is skipped on alternate frames while the tracks are confident.
+  public boolean frameSkippingEnabled = true;
+  private boolean lastFrameSkipped = false;
+  // When set, input frames are recorded in the background, before annotation.
+  public volatile FtcFrameRecorder frameRecorder = null;
+  private final ArrayList<DetectionTask> detectionTasks;
+  private final ArrayList<ElementSnapshot> snapshots;
 
   public final SampleElement[] sampleElements = new SampleElement[]{
       SampleElement.getSample(ObjectColorEnum.BLUE),
@@ -29,7 +40,11 @@ public class SampleDetectionPipeline extends OpenCvPipeline {
 
   public SampleDetectionPipeline(OpenCvWebcam openCvWebcam) {
     this.openCvWebcam = openCvWebcam;
-    odbCon = new ObjectDetectionByContour();
+    detectionTasks = new ArrayList<>(sampleElements.length);
+    snapshots = new ArrayList<>(sampleElements.length);
+    for (SampleElement sampleElement : sampleElements) {
+      detectionTasks.add(new DetectionTask(sampleElement));
+    }
   }
 
   public void disableAnnotations() {
@@ -48,18 +63,53 @@ public class SampleDetectionPipeline extends OpenCvPipeline {
 
   @Override
   public void init(Mat firstFrame) {
-    odbCon.init(firstFrame);
+    for (DetectionTask detectionTask : detectionTasks) {
+      detectionTask.init(firstFrame);
+    }
   }
 
   @Override
   public Mat processFrame(Mat frame) {
     error = false;
     lastException = null;
+    FtcFrameRecorder recorder = frameRecorder;
+    if (recorder != null) {
+      recorder.offer(frame);
+    }
+
     try {
-      for (SampleElement sampleElement : sampleElements) {
-       if (sampleElement.tgeDetectionAlgorithm == ObjectDetectionAlgorithmEnum.CONTOUR) {
-          odbCon.processFrame(frame, sampleElement, annotateFrame);
+      if (frameSkippingEnabled && !lastFrameSkipped && tracksAreConfident()) {
+        // PERFORMANCE: Tracks predict the samples until the next frame.
+        lastFrameSkipped = true;
+        if (FtcUtils.DEBUG || annotateFrame) {
+          for (SampleElement sampleElement : sampleElements) {
+            ObjectDetectionByContour.annotate(frame, sampleElement, sampleElement.getSnapshot());
+          }
+        }
+
+        return frame;
+      }
+
+      lastFrameSkipped = false;
+      long timestamp = System.nanoTime();
+      for (DetectionTask detectionTask : detectionTasks) {
+        detectionTask.setFrame(frame, timestamp, FtcUtils.DEBUG || annotateFrame);
+      }
+
+      FtcVisionExecutor.invokeAll(detectionTasks, snapshots, parallelEnabled);
+
+      // Merge in sample order, then annotate on this thread only.
+      for (int i = 0; i < detectionTasks.size(); i++) {
+        DetectionTask detectionTask = detectionTasks.get(i);
+        SampleElement sampleElement = detectionTask.sampleElement;
+        ElementSnapshot snapshot = snapshots.get(i);
+        if (snapshot != null) {
+          sampleElement.publish(snapshot);
           sampleElement.takeAttendance();
+          if (FtcUtils.DEBUG || annotateFrame) {
+            detectionTask.odbCon.drawContours(frame, sampleElement.elementColor, sampleElement.borderSize);
+            ObjectDetectionByContour.annotate(frame, sampleElement, snapshot);
+          }
         }
       }
     } catch (Exception exception) {
@@ -70,6 +120,58 @@ public class SampleDetectionPipeline extends OpenCvPipeline {
     return frame;
   }
 
+  /**
+   * Determines whether the sample tracks are confident enough to skip detection.
+   * At least one sample must be tracked, and all tracked samples must be confident.
+   *
+   * @return True if detection may be skipped for a frame.
+   */
+  private boolean tracksAreConfident() {
+    boolean confident = false;
+    for (SampleElement sampleElement : sampleElements) {
+      if (sampleElement.tracker.isConfident()) {
+        confident = true;
+      } else if (sampleElement.tracker.getTracks().length > 0) {
+        return false;
+      }
+    }
+
+    return confident;
+  }
+
+  /**
+   * Gets the average time spent in a contour processing stage per frame,
+   * summed across all samples.
+   *
+   * @param stage One of the ObjectDetectionByContour.STAGE_ constants.
+   * @return Average stage time, in milliseconds.
+   */
+  public double getStageAverageMs(int stage) {
+    double averageMs = 0;
+    for (DetectionTask detectionTask : detectionTasks) {
+      averageMs += detectionTask.odbCon.getStageAverageMs(stage);
+    }
+
+    return averageMs;
+  }
+
+  public void resetTimings() {
+    for (DetectionTask detectionTask : detectionTasks) {
+      detectionTask.odbCon.resetTimings();
+    }
+  }
+
+  /**
+   * Drops the tracking windows and tracks, so the next frame is a full detection.
+   * Must not be called while a frame is being processed.
+   */
+  public void resetTracking() {
+    for (SampleElement sampleElement : sampleElements) {
+      sampleElement.roi.reset();
+      sampleElement.tracker.reset();
+    }
+  }
+
   @Override
   public void onViewportTapped() {
     /*
@@ -84,6 +186,42 @@ public class SampleDetectionPipeline extends OpenCvPipeline {
      */
   }
 
+  /**
+   * Detects a single sample. Each task owns its detector, and hence its scratch Mats.
+   */
+  private static final class DetectionTask implements Callable<ElementSnapshot> {
+    final SampleElement sampleElement;
+    private final ObjectDetectionByContour odbCon = new ObjectDetectionByContour();
+    private Mat frame;
+    private long timestamp;
+
+    DetectionTask(SampleElement sampleElement) {
+      this.sampleElement = sampleElement;
+    }
+
+    void init(Mat firstFrame) {
+      odbCon.init(firstFrame);
+      sampleElement.roi.init(firstFrame);
+    }
+
+    void setFrame(Mat frame, long timestamp, boolean annotate) {
+      this.frame = frame;
+      this.timestamp = timestamp;
+      odbCon.collectContours = annotate;
+    }
+
+    @Override
+    public ElementSnapshot call() {
+      if (sampleElement.tgeDetectionAlgorithm == ObjectDetectionAlgorithmEnum.CONTOUR) {
+        ElementSnapshot snapshot = odbCon.processFrame(frame, sampleElement, timestamp);
+        sampleElement.tracker.update(odbCon.getDetections(), timestamp);
+        return snapshot;
+      }
+
+      return null;
+    }
+  }
+
   public void draw(Mat input, RotatedRect rotatedRect, Scalar color, int thickness) {
     Point[] points = new Point[4];
     try {
@@ -0,0 +1,19 @@
+package org.firstinspires.ftc.teamcode.qubit.core.enumerations;
+
+/**
+ * Phases of following a path chain, as sampled by FtcPathAnalytics.
+ * MOVING: driving along the path at a steady velocity.
+ * ACCELERATING: speeding up along the path.
+ * CORNERING: driving through a tight curve of the path.
+ * BRAKING: driving faster than the velocity that stops at the end, so decelerating.
+ * SETTLING: at the parametric end, waiting on the path end constraints or timeout.
+ * HOLDING: holding the end point, until the robot settles or the caller stops following.
+ */
+public enum FollowerPhaseEnum {
+  MOVING,
+  ACCELERATING,
+  CORNERING,
+  BRAKING,
+  SETTLING,
+  HOLDING
+}
@@ -0,0 +1,17 @@
+package org.firstinspires.ftc.teamcode.qubit.core.enumerations;
+
+/**
+ * Stages of the input to actuation path traced by FtcLatencyTracer.
+ * DISPATCH: gamepad change seen by the OpMode loop, to FtcBot.operate.
+ * BOT: FtcBot.operate, to the first subsystem operate (bulk cache, servo profiler).
+ * SUBSYSTEM: subsystem operate, to the hardware write being issued.
+ * HUB_WRITE: the hardware write itself, until the hub acknowledges it.
+ * END_TO_END: gamepad change seen, to the hub acknowledging the write.
+ */
+public enum LatencyStageEnum {
+  DISPATCH,
+  BOT,
+  SUBSYSTEM,
+  HUB_WRITE,
+  END_TO_END
+}
@@ -14,6 +14,7 @@ public enum ObjectColorEnum {
   RED1,
   RED2,
   TEAL,
+  UNKNOWN,
   WHITE,
   YELLOW
 }
@@ -0,0 +1,13 @@
+package org.firstinspires.ftc.teamcode.qubit.core.enumerations;
+
+/**
+ * Motor power priorities for the global power budget.
+ * CRITICAL: never scaled by the power budget.
+ * DRIVE_TRAIN: scaled only when a brownout is imminent.
+ * MECHANISM: scaled first, as the battery sags.
+ */
+public enum PowerPriorityEnum {
+  CRITICAL,
+  DRIVE_TRAIN,
+  MECHANISM
+}
@@ -0,0 +1,11 @@
+package org.firstinspires.ftc.teamcode.qubit.core.enumerations;
+
+/**
+ * Servo motion profile shapes.
+ * TRAPEZOIDAL: constant acceleration, cruise, constant deceleration.
+ * S_CURVE: minimum jerk, acceleration ramps smoothly from and to zero.
+ */
+public enum ServoProfileTypeEnum {
+  TRAPEZOIDAL,
+  S_CURVE
+}
@@ -8,10 +8,17 @@ import com.qualcomm.robotcore.util.ElapsedTime;
 
 import org.firstinspires.ftc.teamcode.qubit.core.FtcBot;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcImu;
+import org.firstinspires.ftc.teamcode.qubit.core.FtcLatencyTracer;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcLift;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcLogger;
+import org.firstinspires.ftc.teamcode.qubit.core.FtcLoopRecorder;
+import org.firstinspires.ftc.teamcode.qubit.core.FtcMotor;
+import org.firstinspires.ftc.teamcode.qubit.core.FtcServo;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcUtils;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Disabled
 @TeleOp(group = "Official")
 public class DriverTeleOp extends OpMode {
@@ -21,6 +28,14 @@ public class DriverTeleOp extends OpMode {
   private double lastLoopTime = 0.0;
   FtcBot robot = null;
 
+  // When enabled, every loop is recorded for replay by LoopReplayTeleOp.
+  public static final String LOOP_LOG_NAME = "DriverTeleOp";
+  private final boolean loopRecordingEnabled = false;
+  private FtcLoopRecorder loopRecorder = null;
+
+  // When enabled, gamepad input to motor write latency is traced and dumped at stop.
+  private final boolean latencyTracingEnabled = false;
+
   /*
    * Code to run ONCE when the driver hits INIT
    */
@@ -40,6 +55,7 @@ public class DriverTeleOp extends OpMode {
    */
   @Override
   public void init_loop() {
+    robot.initGraph.showTelemetry(telemetry);
     telemetry.addData(FtcUtils.TAG, "Waiting for driver to press play");
     FtcUtils.sleep(FtcUtils.CYCLE_MS);
   }
@@ -56,6 +72,16 @@ public class DriverTeleOp extends OpMode {
     loopTime = new ElapsedTime(ElapsedTime.Resolution.MILLISECONDS);
     runtime = new ElapsedTime(ElapsedTime.Resolution.MILLISECONDS);
     robot.start();
+    if (loopRecordingEnabled) {
+      List<FtcMotor> motors = new ArrayList<>();
+      List<FtcServo> servos = new ArrayList<>();
+      robot.addActuators(motors, servos);
+      loopRecorder = new FtcLoopRecorder(LOOP_LOG_NAME, motors, servos);
+    }
+
+    if (latencyTracingEnabled) {
+      FtcLatencyTracer.start();
+    }
 
     if (FtcUtils.DEBUG) {
       robot.enableTelemetry();
@@ -73,12 +99,26 @@ public class DriverTeleOp extends OpMode {
   public void loop() {
     FtcLogger.enter();
     loopTime.reset();
-    robot.operate(gamepad1, gamepad2, lastLoopTime, runtime);
+
+    // Remember the inputs handed to operate(), so that a replay can hand over the same.
+    double operateLoopTime = lastLoopTime;
+    long operateRuntimeNs = runtime.nanoseconds();
+    FtcLatencyTracer.beginLoop(gamepad1, gamepad2);
+    robot.operate(gamepad1, gamepad2, operateLoopTime, runtime);
+    FtcLatencyTracer.endLoop();
+    if (FtcUtils.DEBUG) {
+      FtcLatencyTracer.showTelemetry(telemetry);
+    }
 
     // Show the elapsed game time.
     telemetry.addData(FtcUtils.TAG, "Loop %.0f ms, cumulative %.0f seconds",
         loopTime.milliseconds(), runtime.seconds());
     lastLoopTime = loopTime.milliseconds();
+    if (loopRecorder != null) {
+      loopRecorder.record(gamepad1, gamepad2, lastLoopTime,
+          operateLoopTime, operateRuntimeNs, robot.imu, null);
+    }
+
     FtcLogger.exit();
   }
 
@@ -92,6 +132,12 @@ public class DriverTeleOp extends OpMode {
       robot.stop();
     }
 
+    if (loopRecorder != null) {
+      loopRecorder.close();
+    }
+
+    FtcLatencyTracer.stop(LOOP_LOG_NAME);
+
     // Reset endAutoOpHeading so that a manual re-execution of TeleOp during robot
     // development and testing will be unaffected by the last AutoOp execution.
     // This may be an issue if the Control Hub needs a reboot
@@ -70,6 +70,7 @@ public class ColorSensorTeleOp extends OpMode {
   @Override
   public void stop() {
     FtcLogger.enter();
+    colorSensor.stop();
     telemetry.addData(FtcUtils.TAG, "Tele Op stopped.");
     telemetry.update();
     FtcLogger.exit();
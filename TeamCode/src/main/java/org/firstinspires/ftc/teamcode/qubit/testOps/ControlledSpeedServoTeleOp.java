@@ -10,7 +10,9 @@ import com.qualcomm.robotcore.util.Range;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcArm;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcLogger;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcServo;
+import org.firstinspires.ftc.teamcode.qubit.core.FtcServoProfiler;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcUtils;
+import org.firstinspires.ftc.teamcode.qubit.core.enumerations.ServoProfileTypeEnum;
 
 @Disabled
 @TeleOp(group = "TestOp")
@@ -22,8 +24,10 @@ public class ControlledSpeedServoTeleOp extends OpMode {
   private ElapsedTime runtime = null;
   private ElapsedTime loopTime = null;
   private long moveTime = 0;
+  private boolean dpadWasPressed = false;
 
   FtcServo servo;
+  FtcServoProfiler servoProfiler;
 
   /*
    * Code to run ONCE when the driver hits INIT
@@ -35,6 +39,7 @@ public class ControlledSpeedServoTeleOp extends OpMode {
     telemetry.update();
     servo = new FtcServo(hardwareMap.get(Servo.class, FtcArm.ARM_SERVO_NAME));
     servo.getController().pwmEnable();
+    servoProfiler = new FtcServoProfiler();
     FtcLogger.exit();
   }
 
@@ -70,25 +75,37 @@ public class ControlledSpeedServoTeleOp extends OpMode {
     FtcLogger.enter();
     // Show the elapsed game time and wheel power.
     loopTime.reset();
+    servoProfiler.update();
 
-    if (gamepad1.dpad_up) {
-      moveTime += MOVE_TIME_STEP;
-    } else if (gamepad1.dpad_down) {
-      moveTime -= MOVE_TIME_STEP;
+    // Loop no longer sleeps, so step move time once per dpad press.
+    if (!dpadWasPressed) {
+      if (gamepad1.dpad_up) {
+        moveTime += MOVE_TIME_STEP;
+      } else if (gamepad1.dpad_down) {
+        moveTime -= MOVE_TIME_STEP;
+      }
     }
 
+    dpadWasPressed = gamepad1.dpad_up || gamepad1.dpad_down;
+
     moveTime = (long) Range.clip(moveTime, MOVE_TIME_MIN, MOVE_TIME_MAX);
-    if (gamepad1.right_bumper) {
-      servo.controlledMove(FtcArm.ARM_BACKWARD_POSITION);
-    } else if (gamepad1.right_trigger > 0.5) {
-      servo.setPosition(FtcArm.ARM_FORWARD_POSITION);
+    if (!servo.isMoving()) {
+      // Full servo range in moveTime, reaching the peak velocity in a quarter of it.
+      double maxVelocity = 1000.0 / moveTime;
+      double maxAcceleration = 4 * maxVelocity * 1000.0 / moveTime;
+      if (gamepad1.right_bumper) {
+        servoProfiler.move(servo, FtcArm.ARM_BACKWARD_POSITION,
+            ServoProfileTypeEnum.S_CURVE, maxVelocity, maxAcceleration);
+      } else if (gamepad1.right_trigger > 0.5) {
+        servoProfiler.move(servo, FtcArm.ARM_FORWARD_POSITION,
+            ServoProfileTypeEnum.TRAPEZOIDAL, maxVelocity, maxAcceleration);
+      }
     }
 
-    telemetry.addData(">", "moveTime %d", moveTime);
+    telemetry.addData(">", "moveTime %d, moving %b", moveTime, servo.isMoving());
     telemetry.addData(">", "Loop %.0f ms, cumulative %.0f seconds",
         loopTime.milliseconds(), runtime.seconds());
     telemetry.update();
-    FtcUtils.sleep(500);
     FtcLogger.exit();
   }
 
@@ -98,6 +115,7 @@ public class ControlledSpeedServoTeleOp extends OpMode {
   @Override
   public void stop() {
     FtcLogger.enter();
+    servoProfiler.stop();
     servo.getController().pwmDisable();
     telemetry.addData(">", "Tele Op stopped.");
     telemetry.update();
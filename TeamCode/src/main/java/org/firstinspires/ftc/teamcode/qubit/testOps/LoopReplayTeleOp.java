@@ -0,0 +1,354 @@
+package org.firstinspires.ftc.teamcode.qubit.testOps;
+
+import com.pedropathing.constants.FConstants;
+import com.pedropathing.constants.LConstants;
+import com.pedropathing.follower.Follower;
+import com.pedropathing.localization.Localizer;
+import com.pedropathing.localization.Pose;
+import com.pedropathing.pathgen.MathFunctions;
+import com.pedropathing.pathgen.Vector;
+import com.qualcomm.robotcore.eventloop.opmode.OpMode;
+import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+import com.qualcomm.robotcore.hardware.Gamepad;
+import com.qualcomm.robotcore.util.ElapsedTime;
+import com.qualcomm.robotcore.util.RobotLog;
+
+import org.firstinspires.ftc.teamcode.qubit.core.FtcBot;
+import org.firstinspires.ftc.teamcode.qubit.core.FtcLogger;
+import org.firstinspires.ftc.teamcode.qubit.core.FtcLoopLog;
+import org.firstinspires.ftc.teamcode.qubit.core.FtcLoopRecorder;
+import org.firstinspires.ftc.teamcode.qubit.core.FtcMotor;
+import org.firstinspires.ftc.teamcode.qubit.core.FtcServo;
+import org.firstinspires.ftc.teamcode.qubit.core.FtcUtils;
+import org.firstinspires.ftc.teamcode.qubit.teleOps.DriverTeleOp;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Replays a recorded DriverTeleOp run through FtcBot.operate, one recorded loop
+ * per loop, and records the replay. Each loop is handed the recorded gamepads,
+ * loop time and runtime that operate() was handed in the run, and the motors and
+ * IMU report the recorded encoder and IMU readings. When the recording carries a
+ * pose, a follower is updated from the recorded pose as well. When the recording
+ * ends, the commanded motor powers, servo positions and poses and the loop times
+ * of the replay are compared against the recording.
+ * <p>
+ * Motor power writes are held back while replaying, so the drive train and lift
+ * don't move. The bulk cache isn't cleared, so sensors read through it, such as
+ * touch sensors, keep their first reading. Battery voltage isn't recorded and
+ * still comes from the robot.
+ */
+//@Disabled
+@TeleOp(group = "TestOp")
+public class LoopReplayTeleOp extends OpMode {
+  private static final String TAG = "LoopReplayTeleOp";
+  private static final String REPLAY_LOG_NAME = DriverTeleOp.LOOP_LOG_NAME + "Replay";
+  private final ReplayTime runtime = new ReplayTime();
+  private ElapsedTime loopTime = null;
+  private final List<FtcMotor> motors = new ArrayList<>();
+  private final List<FtcServo> servos = new ArrayList<>();
+  private final Gamepad replayGamepad1 = new Gamepad();
+  private final Gamepad replayGamepad2 = new Gamepad();
+  private FtcLoopLog.Reader reader = null;
+  private FtcLoopLog.Frame frame = null;
+  private FtcLoopRecorder recorder = null;
+  private String result = null;
+  private final ReplayLocalizer localizer = new ReplayLocalizer();
+  private Follower follower = null;
+  FtcBot robot = null;
+
+  /**
+   * A runtime that reads the recorded runtime instead of the clock.
+   */
+  private static class ReplayTime extends ElapsedTime {
+    private long nowNs = 0;
+
+    ReplayTime() {
+      super(Resolution.MILLISECONDS);
+    }
+
+    @Override
+    protected long nsNow() {
+      return nowNs;
+    }
+
+    void set(long runtimeNs) {
+      nowNs = runtimeNs;
+    }
+  }
+
+  /**
+   * A localizer that reports the recorded pose, and the velocity between recorded poses.
+   */
+  private static class ReplayLocalizer extends Localizer {
+    private Pose pose = new Pose();
+    private Pose velocity = new Pose();
+    private final Vector velocityVector = new Vector();
+    private double totalHeading = 0;
+    private long runtimeNs = 0;
+    private boolean started = false;
+
+    void set(FtcLoopLog.Frame frame) {
+      Pose next = new Pose(frame.poseX, frame.poseY, frame.poseHeading);
+      double headingChange = MathFunctions.getSmallestAngleDifference(next.getHeading(), pose.getHeading()) *
+          MathFunctions.getTurnDirection(pose.getHeading(), next.getHeading());
+      double seconds = (frame.runtimeNs - runtimeNs) / 1.0e9;
+      if (started && seconds > 0) {
+        velocity = new Pose((next.getX() - pose.getX()) / seconds,
+            (next.getY() - pose.getY()) / seconds, headingChange / seconds);
+        velocityVector.setOrthogonalComponents(velocity.getX(), velocity.getY());
+      }
+
+      totalHeading += started ? headingChange : 0;
+      started = true;
+      runtimeNs = frame.runtimeNs;
+      pose = next;
+    }
+
+    @Override
+    public Pose getPose() {
+      return pose;
+    }
+
+    @Override
+    public Pose getVelocity() {
+      return velocity;
+    }
+
+    @Override
+    public Vector getVelocityVector() {
+      return velocityVector;
+    }
+
+    @Override
+    public void setStartPose(Pose setStart) {
+    }
+
+    @Override
+    public void setPose(Pose setPose) {
+    }
+
+    @Override
+    public void update() {
+    }
+
+    @Override
+    public double getTotalHeading() {
+      return totalHeading;
+    }
+
+    @Override
+    public double getForwardMultiplier() {
+      return 1;
+    }
+
+    @Override
+    public double getLateralMultiplier() {
+      return 1;
+    }
+
+    @Override
+    public double getTurningMultiplier() {
+      return 1;
+    }
+
+    @Override
+    public void resetIMU() {
+    }
+
+    @Override
+    public boolean isNAN() {
+      return Double.isNaN(pose.getX()) || Double.isNaN(pose.getY()) || Double.isNaN(pose.getHeading());
+    }
+  }
+
+  /*
+   * Code to run ONCE when the driver hits INIT
+   */
+  @Override
+  public void init() {
+    FtcLogger.enter();
+    telemetry.addData(FtcUtils.TAG, "Initializing, please wait...");
+    telemetry.update();
+    robot = new FtcBot();
+    robot.init(hardwareMap, telemetry, false);
+    robot.driveTrain.setZeroPowerBehavior(DcMotorEx.ZeroPowerBehavior.BRAKE);
+    robot.addActuators(motors, servos);
+
+    // The follower is driven by the recorded pose, not by odometry, and never follows
+    // a path, so it doesn't write to the drive train.
+    follower = new Follower(hardwareMap, localizer, FConstants.class, LConstants.class);
+    try {
+      reader = new FtcLoopLog.Reader(FtcLoopRecorder.getFile(DriverTeleOp.LOOP_LOG_NAME));
+      frame = new FtcLoopLog.Frame(reader.getMotorCount(), reader.getServoCount());
+      if (reader.getMotorCount() != motors.size() || reader.getServoCount() != servos.size()) {
+        result = String.format(Locale.US, "Recording has %d motors and %d servos, robot has %d and %d",
+            reader.getMotorCount(), reader.getServoCount(), motors.size(), servos.size());
+        closeLogs();
+      }
+    } catch (IOException e) {
+      RobotLog.ee(TAG, e, e.getMessage());
+      result = "No recording: " + e.getMessage();
+    }
+
+    FtcLogger.exit();
+  }
+
+  /*
+   * Code to run REPEATEDLY after the driver hits INIT, but before they hit PLAY
+   */
+  @Override
+  public void init_loop() {
+    telemetry.addData(FtcUtils.TAG, result != null ? result : "Waiting for driver to press play");
+    FtcUtils.sleep(FtcUtils.CYCLE_MS);
+  }
+
+  /*
+   * Code to run ONCE when the driver hits PLAY
+   */
+  @Override
+  public void start() {
+    FtcLogger.enter();
+    loopTime = new ElapsedTime(ElapsedTime.Resolution.MILLISECONDS);
+    robot.start();
+    robot.disableTelemetry();
+    if (reader != null) {
+      recorder = new FtcLoopRecorder(REPLAY_LOG_NAME, motors, servos);
+      robot.bulkRead.setReplaying(true);
+    }
+
+    FtcLogger.exit();
+  }
+
+  /*
+   * Code to run REPEATEDLY after the driver hits PLAY but before they hit STOP
+   */
+  @Override
+  public void loop() {
+    FtcLogger.enter();
+    if (result == null) {
+      boolean frameRead = false;
+      try {
+        frameRead = reader.read(frame);
+      } catch (IOException e) {
+        RobotLog.ee(TAG, e, e.getMessage());
+      }
+
+      if (frameRead) {
+        loopTime.reset();
+        recorder.replay(frame.gamepad1Axes, frame.gamepad1Buttons, replayGamepad1);
+        recorder.replay(frame.gamepad2Axes, frame.gamepad2Buttons, replayGamepad2);
+
+        // Hand over the recorded loop time and runtime, so that power ramping and
+        // end game behavior match the recording, and the recorded readings.
+        runtime.set(frame.runtimeNs);
+        for (int i = 0; i < motors.size(); i++) {
+          motors.get(i).setReplayedReadings(frame.positions[i], frame.velocities[i]);
+        }
+
+        if (!Float.isNaN(frame.imuHeading)) {
+          robot.imu.setReplayedReadings(frame.imuHeading, frame.imuPitch, frame.imuRoll);
+        }
+
+        Pose pose = null;
+        if (!Float.isNaN(frame.poseX)) {
+          localizer.set(frame);
+          follower.update();
+          pose = follower.getPose();
+        }
+
+        robot.operate(replayGamepad1, replayGamepad2, frame.operateLoopMs, runtime);
+        recorder.record(replayGamepad1, replayGamepad2, loopTime.milliseconds(),
+            frame.operateLoopMs, frame.runtimeNs, robot.imu, pose);
+      } else {
+        stopReplay();
+        robot.driveTrain.stop();
+        result = compare();
+      }
+    }
+
+    telemetry.addData(FtcUtils.TAG, result != null ? result : "Replaying...");
+    FtcLogger.exit();
+  }
+
+  /**
+   * Compares the replay against the recording.
+   *
+   * @return The comparison summary.
+   */
+  private String compare() {
+    FtcLogger.enter();
+    String summary;
+    closeLogs();
+    try (FtcLoopLog.Reader recorded = new FtcLoopLog.Reader(FtcLoopRecorder.getFile(DriverTeleOp.LOOP_LOG_NAME));
+         FtcLoopLog.Reader replayed = new FtcLoopLog.Reader(FtcLoopRecorder.getFile(REPLAY_LOG_NAME))) {
+      List<FtcLoopLog.Frame> recordedFrames = recorded.readAll();
+      List<FtcLoopLog.Frame> replayedFrames = replayed.readAll();
+      summary = String.format(Locale.US, "Recorded: %s\nReplayed: %s\nOutputs: %s",
+          FtcLoopLog.summarizeLoopTimes(recordedFrames),
+          FtcLoopLog.summarizeLoopTimes(replayedFrames),
+          FtcLoopLog.compare(recordedFrames, replayedFrames, FtcUtils.EPSILON2));
+    } catch (IOException e) {
+      RobotLog.ee(TAG, e, e.getMessage());
+      summary = "Comparison failed: " + e.getMessage();
+    }
+
+    FtcLogger.info(TAG, "%s", summary);
+    FtcLogger.exit();
+    return summary;
+  }
+
+  /**
+   * Returns the motors, IMU and bulk cache to the robot's readings.
+   */
+  private void stopReplay() {
+    for (FtcMotor motor : motors) {
+      motor.stopReplay();
+    }
+
+    if (robot != null) {
+      robot.bulkRead.setReplaying(false);
+      if (robot.imu != null) {
+        robot.imu.stopReplay();
+      }
+    }
+  }
+
+  private void closeLogs() {
+    if (recorder != null) {
+      recorder.close();
+      recorder = null;
+    }
+
+    if (reader != null) {
+      try {
+        reader.close();
+      } catch (IOException e) {
+        RobotLog.ee(TAG, e, e.getMessage());
+      }
+
+      reader = null;
+    }
+  }
+
+  /*
+   * Code to run ONCE after the driver hits STOP
+   */
+  @Override
+  public void stop() {
+    FtcLogger.enter();
+    closeLogs();
+    stopReplay();
+    if (robot != null) {
+      robot.stop();
+    }
+
+    telemetry.addData(FtcUtils.TAG, "Tele Op stopped.");
+    telemetry.update();
+    FtcLogger.exit();
+  }
+}
@@ -11,7 +11,9 @@ import com.qualcomm.robotcore.util.ElapsedTime;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcLogger;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcOpenCvCam;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcUtils;
+import org.firstinspires.ftc.teamcode.qubit.core.FtcVisionTracker;
 import org.firstinspires.ftc.teamcode.qubit.core.GameElement;
+import org.firstinspires.ftc.teamcode.qubit.core.ObjectDetectionByContour;
 import org.firstinspires.ftc.teamcode.qubit.core.SampleDetectionPipeline;
 import org.firstinspires.ftc.teamcode.qubit.core.SampleElement;
 import org.firstinspires.ftc.teamcode.qubit.core.enumerations.GeometricShapeEnum;
@@ -108,11 +110,23 @@ public class SampleDetectionTeleOp extends OpMode {
           telemetry.addData(FtcUtils.TAG, "%s (%f, %f)",
               sampleElement.tag, midPoint.x, midPoint.y);
         }
+
+        FtcVisionTracker.TrackState track = sampleElement.tracker.getBestTrack();
+        if (track != null) {
+          long now = System.nanoTime();
+          telemetry.addData(FtcUtils.TAG, "%s track %d predicted (%.0f, %.0f) v (%.0f, %.0f)",
+              sampleElement.tag, track.id, track.predictX(now), track.predictY(now),
+              track.vx, track.vy);
+        }
       }
     }
 
     // Show the elapsed game time.
     telemetry.addLine("");
+    telemetry.addData(FtcUtils.TAG, "Vision pre %.1f ms, contours %.1f ms, analysis %.1f ms",
+        sdPipeline.getStageAverageMs(ObjectDetectionByContour.STAGE_PREPROCESS),
+        sdPipeline.getStageAverageMs(ObjectDetectionByContour.STAGE_CONTOURS),
+        sdPipeline.getStageAverageMs(ObjectDetectionByContour.STAGE_ANALYSIS));
     telemetry.addData(FtcUtils.TAG, "Loop %.0f ms, cumulative %.0f seconds",
         loopTime.milliseconds(), runtime.seconds());
     telemetry.update();
@@ -9,12 +9,12 @@ import com.qualcomm.robotcore.eventloop.opmode.OpMode;
 import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
 import com.qualcomm.robotcore.util.ElapsedTime;
 
+import org.firstinspires.ftc.teamcode.qubit.core.ElementSnapshot;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcLogger;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcOpenCvCam;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcUtils;
 import org.firstinspires.ftc.teamcode.qubit.core.GameElement;
 import org.firstinspires.ftc.teamcode.qubit.core.enumerations.GeometricShapeEnum;
-import org.opencv.core.Point;
 
 @Disabled
 @TeleOp(group = "TestOp")
@@ -77,15 +77,13 @@ public class TgeDetectionTeleOp extends OpMode {
     } else {
       for (GameElement ge : openCvCam.modPipeline.gameElements) {
         String data = String.format("%d ", ge.attendanceCount());
-        Point midPoint = FtcUtils.getMidpoint(ge.boundingRect);
-        synchronized (ge) {
-          if (ge.elementFound() && ge.elementConsistentlyPresent()) {
-            data += String.format("Mid (%.0f, %.0f) A %.0f AR %.2f",
-                midPoint.x, midPoint.y,
-                ge.area, ge.aspectRatio);
-            if (ge.geometricShapeEnum != GeometricShapeEnum.UNKNOWN) {
-              data += String.format(" %s", ge.geometricShapeEnum.name);
-            }
+        ElementSnapshot snapshot = ge.getSnapshot();
+        if (snapshot.found && ge.elementConsistentlyPresent()) {
+          data += String.format("Mid (%.0f, %.0f) A %.0f AR %.2f",
+              snapshot.midPoint.x, snapshot.midPoint.y,
+              snapshot.area, snapshot.aspectRatio);
+          if (ge.geometricShapeEnum != GeometricShapeEnum.UNKNOWN) {
+            data += String.format(" %s", ge.geometricShapeEnum.name);
           }
         }
 
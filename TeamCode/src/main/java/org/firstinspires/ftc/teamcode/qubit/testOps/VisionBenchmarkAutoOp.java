@@ -0,0 +1,77 @@
+package org.firstinspires.ftc.teamcode.qubit.testOps;
+
+import com.qualcomm.robotcore.eventloop.opmode.Autonomous;
+import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+import org.firstinspires.ftc.teamcode.qubit.core.FtcLogger;
+import org.firstinspires.ftc.teamcode.qubit.core.FtcUtils;
+import org.firstinspires.ftc.teamcode.qubit.core.FtcVisionBenchmark;
+import org.firstinspires.ftc.teamcode.qubit.core.MultipleObjectDetectionPipeline;
+import org.firstinspires.ftc.teamcode.qubit.core.SampleDetectionPipeline;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Benchmarks the vision pipelines over frames captured into the robot data directory,
+ * without a camera or a field. Copy frames, and optionally a labels.csv, into
+ * the vision-benchmark directory first.
+ */
+//@Disabled
+@Autonomous(group = "TestOp")
+public class VisionBenchmarkAutoOp extends LinearOpMode {
+  private static final String FRAMES_DIRECTORY = "vision-benchmark";
+  private static final int ITERATIONS = 3;
+
+  @Override
+  public void runOpMode() {
+    FtcLogger.enter();
+    telemetry.addData(FtcUtils.TAG, "Waiting for driver to press play.");
+    telemetry.update();
+    waitForStart();
+
+    File directory = new File(AppUtil.ROBOT_DATA_DIR, FRAMES_DIRECTORY);
+    telemetry.addData(FtcUtils.TAG, "Benchmarking %s...", directory.getName());
+    telemetry.update();
+
+    SampleDetectionPipeline sdPipeline = new SampleDetectionPipeline(null);
+    sdPipeline.frameSkippingEnabled = false;
+    sdPipeline.disableAnnotations();
+    String sdReport = benchmark(new FtcVisionBenchmark(sdPipeline,
+        FtcVisionBenchmark.forSamples(sdPipeline.sampleElements))
+        .setStageTimer(sdPipeline::getStageAverageMs, sdPipeline::resetTimings,
+            "preprocess", "contours", "analysis")
+        .setTrackingReset(sdPipeline::resetTracking), directory);
+
+    MultipleObjectDetectionPipeline modPipeline = new MultipleObjectDetectionPipeline(null);
+    modPipeline.frameSkippingEnabled = false;
+    modPipeline.disableAnnotations();
+    String modReport = benchmark(new FtcVisionBenchmark(modPipeline,
+        FtcVisionBenchmark.forGameElements(modPipeline.gameElements))
+        .setStageTimer(modPipeline::getStageAverageMs, modPipeline::resetTimings,
+            "preprocess", "contours", "analysis")
+        .setTrackingReset(modPipeline::resetTracking), directory);
+
+    while (opModeIsActive()) {
+      telemetry.addData("Samples", sdReport);
+      telemetry.addData("GameElements", modReport);
+      telemetry.update();
+      FtcUtils.sleep(FtcUtils.CYCLE_MS);
+    }
+
+    FtcLogger.exit();
+  }
+
+  private String benchmark(FtcVisionBenchmark benchmark, File directory) {
+    String report;
+    try {
+      report = benchmark.run(directory, ITERATIONS);
+    } catch (IOException e) {
+      report = e.getMessage();
+    }
+
+    FtcLogger.info(FtcUtils.TAG, "%s", report);
+    return report;
+  }
+}
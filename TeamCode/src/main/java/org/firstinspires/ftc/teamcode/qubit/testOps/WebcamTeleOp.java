@@ -5,6 +5,7 @@ import com.qualcomm.robotcore.eventloop.opmode.OpMode;
 import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
 import com.qualcomm.robotcore.util.ElapsedTime;
 
+import org.firstinspires.ftc.teamcode.qubit.core.FtcFrameRecorder;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcLogger;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcUtils;
 import org.firstinspires.ftc.teamcode.qubit.core.FtcWebcam;
@@ -16,6 +17,7 @@ public class WebcamTeleOp extends OpMode {
   private ElapsedTime runtime = null;
   private ElapsedTime loopTime = null;
   FtcWebcam webcam;
+  FtcFrameRecorder frameRecorder = null;
 
   /*
    * Code to run ONCE when the driver hits INIT
@@ -67,6 +69,21 @@ public class WebcamTeleOp extends OpMode {
       FtcUtils.sleep(1000);
     }
 
+    telemetry.addData("Instruction", "Press gamePad B button to start/stop recording");
+    if (gamepad1.bWasPressed()) {
+      if (frameRecorder == null) {
+        frameRecorder = new FtcFrameRecorder("webcam-" + System.currentTimeMillis());
+        frameRecorder.start();
+        webcam.frameRecorder = frameRecorder;
+      } else {
+        stopRecording();
+      }
+    }
+
+    if (frameRecorder != null) {
+      telemetry.addData(">", frameRecorder.getStatus());
+    }
+
     telemetry.addData(">", "Loop %.0f ms, cumulative %.0f seconds",
         loopTime.milliseconds(), runtime.seconds());
     telemetry.update();
@@ -79,9 +96,18 @@ public class WebcamTeleOp extends OpMode {
   @Override
   public void stop() {
     FtcLogger.enter();
+    stopRecording();
     webcam.close();
     telemetry.addData(">", "Tele Op stopped.");
     telemetry.update();
     FtcLogger.exit();
   }
+
+  private void stopRecording() {
+    if (frameRecorder != null) {
+      webcam.frameRecorder = null;
+      frameRecorder.stop();
+      frameRecorder = null;
+    }
+  }
 }